@@ -0,0 +1,480 @@
+package com.petstore.alert;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetAlertChangedEvent;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.PetAlert;
+
+/**
+ * In-memory inverted index of pet alerts (saved searches), so a listed pet is
+ * matched against candidate alerts only, never by scanning them all.
+ *
+ * <p>
+ * Alert IDs are kept in Roaring bitmaps posted under the combination of
+ * their category (or any category), their tag (or any tag) and the
+ * power-of-two band of their maximum price in cents (or no maximum). When an
+ * available pet is saved, only the postings for its category or any, crossed
+ * with its tags or any, are read, and within those only the bands at or
+ * above the pet's price; each alert read gets its exact price range checked.
+ * So the work grows with the number of candidate alerts, not with the number
+ * of alerts. Matches are handed to {@link PetAlertNotifier}, which
+ * writes each alert and pet pair once, so re-saving a pet, say with a new
+ * price, only notifies alerts it newly matches.
+ * </p>
+ * <p>
+ * The index is loaded from {@code pet_alerts} when the application is ready
+ * and follows {@link PetAlertChangedEvent}s after they commit; changes made
+ * while it loads are replayed on the loaded state. Alerts created on other
+ * replicas are caught up by creation time every
+ * {@code app.pet-alerts.catch-up-interval}, and alerts deleted there are swept
+ * out every {@code app.pet-alerts.sweep-interval}.
+ * </p>
+ */
+@Component
+public class PetAlertIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetAlertIndex.class);
+
+    static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PetAlertNotifier petAlertNotifier;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Live state, guarded by {@link #lock}. */
+    private Alerts alerts = new Alerts();
+
+    /** Changes seen while loading, or null; guarded by {@link #lock}. */
+    private List<PetAlertChangedEvent> pendingChanges;
+
+    /** Newest {@code created_at} loaded from the database, or null before the first load. */
+    private volatile LocalDateTime lastCreated;
+
+    @Value("${app.pet-alerts.catch-up-overlap:PT1M}")
+    private Duration catchUpOverlap = Duration.ofMinutes(1);
+
+    public PetAlertIndex(JdbcTemplate jdbcTemplate, PetAlertNotifier petAlertNotifier) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.petAlertNotifier = petAlertNotifier;
+    }
+
+    /**
+     * Loads every alert from the database, in batches of alert IDs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Alerts loaded = new Alerts();
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime newest = null;
+        try {
+            long afterId = 0;
+            List<Row> batch;
+            do {
+                batch = jdbcTemplate.query("SELECT id, category_id, tag, min_price, max_price, created_at "
+                        + "FROM pet_alerts WHERE id > ? ORDER BY id LIMIT ?", PetAlertIndex::row, afterId,
+                        LOAD_BATCH_SIZE);
+                for (Row row : batch) {
+                    loaded.apply(row.alert());
+                    afterId = row.alert().getAlertId();
+                    newest = later(newest, row.createdAt());
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(loaded::apply);
+            pendingChanges = null;
+            alerts = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastCreated = newest != null ? newest : started;
+        logger.info("PetAlertIndex loaded {} alerts", loaded.count());
+    }
+
+    /**
+     * Adds the alerts created since the newest {@code created_at} seen,
+     * including those created on other replicas, in keyset batches. Alert IDs
+     * come from pooled sequence blocks, so a replica can commit an alert with
+     * a lower ID than one already seen; the creation time is followed instead.
+     */
+    @Scheduled(initialDelayString = "${app.pet-alerts.catch-up-interval:PT10S}",
+            fixedDelayString = "${app.pet-alerts.catch-up-interval:PT10S}")
+    public synchronized void catchUp() {
+        if (lastCreated == null) {
+            return;
+        }
+        LocalDateTime since = lastCreated.minus(catchUpOverlap);
+        LocalDateTime newest = lastCreated;
+        long afterId = 0;
+        long count = 0;
+        List<Row> batch;
+        do {
+            batch = jdbcTemplate.query("SELECT id, category_id, tag, min_price, max_price, created_at "
+                    + "FROM pet_alerts WHERE created_at >= ? AND (created_at > ? OR id > ?) "
+                    + "ORDER BY created_at, id LIMIT ?", PetAlertIndex::row, Timestamp.valueOf(since),
+                    Timestamp.valueOf(since), afterId, LOAD_BATCH_SIZE);
+            lock.writeLock().lock();
+            try {
+                for (Row row : batch) {
+                    alerts.apply(row.alert());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Row row : batch) {
+                since = row.createdAt();
+                afterId = row.alert().getAlertId();
+                newest = later(newest, since);
+            }
+            count += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        lastCreated = newest;
+        logger.debug("PetAlertIndex caught up with {} new alerts", count);
+    }
+
+    /**
+     * Removes the indexed alerts no longer in the database, such as those
+     * deleted on other replicas. Only alerts indexed before the IDs are read
+     * are considered, so alerts created meanwhile are never swept.
+     */
+    @Scheduled(initialDelayString = "${app.pet-alerts.sweep-interval:PT5M}",
+            fixedDelayString = "${app.pet-alerts.sweep-interval:PT5M}")
+    public synchronized void sweep() {
+        if (lastCreated == null) {
+            return;
+        }
+        RoaringBitmap indexed;
+        lock.readLock().lock();
+        try {
+            indexed = alerts.ids();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        RoaringBitmap stored = new RoaringBitmap();
+        long afterId = 0;
+        List<Long> batch;
+        do {
+            batch = jdbcTemplate.queryForList("SELECT id FROM pet_alerts WHERE id > ? ORDER BY id LIMIT ?",
+                    Long.class, afterId, LOAD_BATCH_SIZE);
+            for (Long id : batch) {
+                stored.add(Math.toIntExact(id));
+                afterId = id;
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        indexed.andNot(stored);
+        if (indexed.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexed.forEach((int id) -> alerts.apply(PetAlertChangedEvent.deleted((long) id)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("PetAlertIndex swept {} deleted alerts", indexed.getCardinality());
+    }
+
+    /**
+     * Adds or removes an alert once its transaction has committed.
+     *
+     * @param change the alert change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(PetAlertChangedEvent change) {
+        lock.writeLock().lock();
+        try {
+            alerts.apply(change);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Matches a saved, available pet against the alerts once its transaction
+     * has committed, and queues the matches for notification.
+     *
+     * @param change the pet change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent change) {
+        if (change.isDeleted() || change.getStatus() != PetStatus.AVAILABLE || change.getPrice() == null) {
+            return;
+        }
+        long[] matches = match(change.getCategoryId(), change.getTags(), change.getPrice());
+        if (matches.length > 0) {
+            petAlertNotifier.enqueue(change.getPetId(), matches);
+        }
+    }
+
+    /**
+     * Finds the alerts a pet satisfies.
+     *
+     * @param categoryId the pet's category ID, or null
+     * @param tags       the pet's tags
+     * @param price      the pet's price
+     * @return the matching alert IDs, ascending
+     */
+    public long[] match(Long categoryId, List<String> tags, BigDecimal price) {
+        long cents = cents(price);
+        List<String> normalizedTags = tags.stream().map(PetAlertIndex::normalizeTag).toList();
+        lock.readLock().lock();
+        try {
+            return alerts.match(categoryId, normalizedTags, cents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed alerts
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return alerts.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Row row(ResultSet rs, int rowNum) throws SQLException {
+        long categoryId = rs.getLong(2);
+        PetAlert alert = new PetAlert(rs.wasNull() ? null : categoryId, rs.getString(3), rs.getBigDecimal(4),
+                rs.getBigDecimal(5));
+        alert.setId(rs.getLong(1));
+        Timestamp createdAt = rs.getTimestamp(6);
+        return new Row(PetAlertChangedEvent.saved(alert), createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /** Power-of-two band of a price in cents: 0 for prices under two cents. */
+    private static int band(long cents) {
+        return cents <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(cents);
+    }
+
+    /**
+     * Postings and per-alert criteria. Not thread-safe.
+     */
+    private static final class Alerts {
+
+        /** Category key of alerts for any category. */
+        private static final long ANY_CATEGORY = 0L;
+
+        /** Tag key of alerts for any tag. */
+        private static final String ANY_TAG = "";
+
+        /** Band index of alerts without a maximum price. */
+        private static final int NO_MAX_PRICE = 64;
+
+        private final RoaringBitmap all = new RoaringBitmap();
+
+        /**
+         * IDs of deleted alerts, never indexed again: IDs are not reused, and
+         * a catch-up may read an alert just before it is deleted.
+         */
+        private final RoaringBitmap deleted = new RoaringBitmap();
+
+        /**
+         * Alert IDs by category (or {@link #ANY_CATEGORY}), tag (or
+         * {@link #ANY_TAG}) and maximum price band (or {@link #NO_MAX_PRICE}).
+         */
+        private final Map<Long, Map<String, RoaringBitmap[]>> postings = new HashMap<>();
+
+        /** Criteria by alert ID, to check exact prices and to unindex. */
+        private long[] categories = new long[0];
+        private String[] tags = new String[0];
+        private long[] minCents = new long[0];
+        private long[] maxCents = new long[0];
+
+        int count() {
+            return all.getCardinality();
+        }
+
+        RoaringBitmap ids() {
+            return all.clone();
+        }
+
+        void apply(PetAlertChangedEvent change) {
+            int id = Math.toIntExact(change.getAlertId());
+            remove(id);
+            if (change.isDeleted()) {
+                deleted.add(id);
+            } else if (!deleted.contains(id)) {
+                add(id, change);
+            }
+        }
+
+        private void add(int id, PetAlertChangedEvent alert) {
+            if (id >= categories.length) {
+                int capacity = Math.max(id + 1, categories.length * 2);
+                categories = Arrays.copyOf(categories, capacity);
+                tags = Arrays.copyOf(tags, capacity);
+                minCents = Arrays.copyOf(minCents, capacity);
+                maxCents = Arrays.copyOf(maxCents, capacity);
+            }
+            all.add(id);
+            categories[id] = alert.getCategoryId() == null ? ANY_CATEGORY : alert.getCategoryId();
+            tags[id] = alert.getTag() == null || alert.getTag().isBlank() ? ANY_TAG : normalizeTag(alert.getTag());
+            minCents[id] = alert.getMinPrice() == null ? 0 : cents(alert.getMinPrice());
+            maxCents[id] = alert.getMaxPrice() == null ? Long.MAX_VALUE : cents(alert.getMaxPrice());
+
+            RoaringBitmap[] bands = postings.computeIfAbsent(categories[id], key -> new HashMap<>())
+                    .computeIfAbsent(tags[id], key -> new RoaringBitmap[NO_MAX_PRICE + 1]);
+            int band = maxBand(id);
+            if (bands[band] == null) {
+                bands[band] = new RoaringBitmap();
+            }
+            bands[band].add(id);
+        }
+
+        private void remove(int id) {
+            if (!all.contains(id)) {
+                return;
+            }
+            all.remove(id);
+            Map<String, RoaringBitmap[]> byTag = postings.get(categories[id]);
+            RoaringBitmap[] bands = byTag.get(tags[id]);
+            int band = maxBand(id);
+            bands[band].remove(id);
+            if (bands[band].isEmpty()) {
+                bands[band] = null;
+                if (Arrays.stream(bands).allMatch(bitmap -> bitmap == null)) {
+                    byTag.remove(tags[id]);
+                    if (byTag.isEmpty()) {
+                        postings.remove(categories[id]);
+                    }
+                }
+            }
+            tags[id] = null;
+        }
+
+        private int maxBand(int id) {
+            return maxCents[id] == Long.MAX_VALUE ? NO_MAX_PRICE : band(maxCents[id]);
+        }
+
+        long[] match(Long categoryId, List<String> petTags, long cents) {
+            Matches matches = new Matches();
+            collect(postings.get(ANY_CATEGORY), petTags, cents, matches);
+            if (categoryId != null && categoryId != ANY_CATEGORY) {
+                collect(postings.get(categoryId), petTags, cents, matches);
+            }
+            long[] ids = Arrays.copyOf(matches.ids, matches.count);
+            Arrays.sort(ids);
+            return ids;
+        }
+
+        private void collect(Map<String, RoaringBitmap[]> byTag, List<String> petTags, long cents,
+                Matches matches) {
+            if (byTag == null) {
+                return;
+            }
+            collect(byTag.get(ANY_TAG), cents, matches);
+            for (int i = 0; i < petTags.size(); i++) {
+                String tag = petTags.get(i);
+                if (!tag.isEmpty() && petTags.indexOf(tag) == i) {
+                    collect(byTag.get(tag), cents, matches);
+                }
+            }
+        }
+
+        /** Checks the alerts whose maximum price is in the pet's band or above. */
+        private void collect(RoaringBitmap[] bands, long cents, Matches matches) {
+            if (bands == null) {
+                return;
+            }
+            for (int band = band(cents); band < bands.length; band++) {
+                if (bands[band] == null) {
+                    continue;
+                }
+                IntIterator ids = bands[band].getIntIterator();
+                while (ids.hasNext()) {
+                    int id = ids.next();
+                    if (minCents[id] <= cents && cents <= maxCents[id]) {
+                        matches.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private record Row(PetAlertChangedEvent alert, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Growable list of matching alert IDs.
+     */
+    private static final class Matches {
+
+        private long[] ids = new long[16];
+        private int count;
+
+        void add(long id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+}
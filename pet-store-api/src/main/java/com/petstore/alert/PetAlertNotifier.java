@@ -0,0 +1,196 @@
+package com.petstore.alert;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers pet alert matches off the request path.
+ *
+ * <p>
+ * {@link PetAlertIndex} hands over each saved pet's matching alerts as one
+ * queue entry, so a pet matching many alerts costs one slot. The queue is
+ * bounded by {@code app.pet-alerts.queue-capacity}; when it is full, matches
+ * are dropped and counted rather than slowing down the pet save. A single
+ * worker thread drains the queue and writes {@code pet_alert_matches} rows in
+ * batches of {@link #WRITE_BATCH_SIZE}, ignoring pairs already recorded
+ * ({@code INSERT IGNORE} on MySQL, a standard {@code MERGE} elsewhere), so
+ * each alert is notified at most once per pet, across replicas too. The rows
+ * are the users' notification inbox. Entries still queued are written on
+ * shutdown.
+ * </p>
+ */
+@Component
+public class PetAlertNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetAlertNotifier.class);
+
+    static final int WRITE_BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final BlockingQueue<Matches> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Thread worker;
+
+    private String insert;
+
+    public PetAlertNotifier(JdbcTemplate jdbcTemplate, Clock clock,
+            @Value("${app.pet-alerts.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Queues a pet's matching alerts for delivery, without blocking.
+     *
+     * @param petId    the matched pet's ID
+     * @param alertIds the matching alert IDs
+     * @return whether the matches were queued; false if the queue is full
+     */
+    public boolean enqueue(Long petId, long[] alertIds) {
+        if (queue.offer(new Matches(petId, alertIds, LocalDateTime.now(clock)))) {
+            return true;
+        }
+        long total = dropped.addAndGet(alertIds.length);
+        logger.warn("Pet alert queue full, dropped {} matches for pet {} ({} dropped so far)", alertIds.length,
+                petId, total);
+        return false;
+    }
+
+    /**
+     * @return the number of matches dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread thread = new Thread(this::run, "pet-alert-notifier");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the worker and writes whatever is still queued.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        drain();
+    }
+
+    /**
+     * Writes every queued entry, in batches.
+     */
+    synchronized void drain() {
+        List<Matches> entries = new ArrayList<>();
+        while (queue.drainTo(entries, WRITE_BATCH_SIZE) > 0) {
+            write(entries);
+            entries.clear();
+        }
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            try {
+                Matches first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Matches> entries = new ArrayList<>();
+                entries.add(first);
+                synchronized (this) {
+                    queue.drainTo(entries, WRITE_BATCH_SIZE - 1);
+                    write(entries);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Delivering pet alert matches failed", e);
+            }
+        }
+    }
+
+    private void write(List<Matches> entries) {
+        List<Object[]> rows = new ArrayList<>(WRITE_BATCH_SIZE);
+        try {
+            for (Matches entry : entries) {
+                Timestamp createdAt = Timestamp.valueOf(entry.createdAt);
+                for (long alertId : entry.alertIds) {
+                    rows.add(new Object[] { alertId, entry.petId, createdAt });
+                    if (rows.size() == WRITE_BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(insert(), rows);
+                        rows.clear();
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(insert(), rows);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Writing pet alert matches failed, dropping {} queued pets: {}", entries.size(),
+                    e.getMessage());
+        }
+    }
+
+    private String insert() {
+        if (insert == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            insert = database != null && database.toLowerCase().contains("mysql")
+                    ? "INSERT IGNORE INTO pet_alert_matches (alert_id, pet_id, created_at) VALUES (?, ?, ?)"
+                    : "MERGE INTO pet_alert_matches t USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                            + "CAST(? AS TIMESTAMP))) AS s (alert_id, pet_id, created_at) "
+                            + "ON t.alert_id = s.alert_id AND t.pet_id = s.pet_id "
+                            + "WHEN NOT MATCHED THEN INSERT (alert_id, pet_id, created_at) "
+                            + "VALUES (s.alert_id, s.pet_id, s.created_at)";
+        }
+        return insert;
+    }
+
+    /**
+     * One saved pet's matching alerts.
+     */
+    private static final class Matches {
+
+        private final Long petId;
+        private final long[] alertIds;
+        private final LocalDateTime createdAt;
+
+        private Matches(Long petId, long[] alertIds, LocalDateTime createdAt) {
+            this.petId = petId;
+            this.alertIds = alertIds;
+            this.createdAt = createdAt;
+        }
+    }
+}
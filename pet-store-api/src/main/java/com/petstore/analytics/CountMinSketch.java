@@ -0,0 +1,55 @@
+package com.petstore.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: {@code depth} rows of {@code width} counters, each row
+ * indexed by a different hash of the key. An estimate is the smallest of the
+ * key's counters, so it never undercounts and overcounts by at most
+ * {@code e / width} of the total with probability {@code 1 - e^-depth}. The
+ * row hashes are derived from one 64-bit key hash (Kirsch-Mitzenmacher). Not
+ * thread-safe.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+
+    /**
+     * @param depth the number of rows
+     * @param width the counters per row, a power of two
+     */
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two: " + width);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new long[depth * width];
+    }
+
+    /** Adds {@code count} to the key with the given 64-bit hash. */
+    void add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters[row * (mask + 1) + ((h1 + row * h2) & mask)] += count;
+        }
+    }
+
+    /** Returns an upper bound on the count added for the key's hash. */
+    long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * (mask + 1) + ((h1 + row * h2) & mask)]);
+        }
+        return estimate;
+    }
+
+    void clear() {
+        Arrays.fill(counters, 0L);
+    }
+}
@@ -0,0 +1,257 @@
+package com.petstore.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Counts pet detail views in memory and writes them behind the request path.
+ *
+ * <p>
+ * Each viewed pet gets a {@link LongAdder}, so concurrent views of the same
+ * pet increment separate cells instead of contending on one counter, and a
+ * view costs no database write. Every {@code app.pet-views.flush-interval}
+ * the pending counts are drained and added to {@code pet_view_counts} with
+ * batched upserts ({@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL, a
+ * standard {@code MERGE} elsewhere), so several replicas can flush into the
+ * same rows. Counts that fail to flush are put back for the next attempt.
+ * Counters idle for a whole interval are evicted; a view racing with that
+ * eviction can be lost, which popularity ranking tolerates.
+ * </p>
+ * <p>
+ * The most viewed {@link #TRACKED} available pets are kept as a ranking,
+ * loaded from the table joined to {@code pets} and merged with the flushed
+ * pets' new totals after each flush through a bounded min-heap. A pet leaves
+ * the ranking as soon as it is sold, reserved or deleted here, so the ranks
+ * freed up are refilled by the next load. The ranking is reloaded every
+ * {@code app.pet-views.ranking-reload-interval}, which also brings in views
+ * flushed only by other replicas and pets sold there.
+ * </p>
+ */
+@Component
+public class PetViewCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetViewCounter.class);
+
+    /** Pets kept in the popularity ranking. */
+    public static final int TRACKED = 100;
+
+    static final int FLUSH_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /** Immutable; replaced after each flush. */
+    private volatile Ranking ranking = new Ranking(new long[0], new long[0]);
+
+    private String upsert;
+
+    public PetViewCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Counts one view of a pet's details, without touching the database.
+     *
+     * @param petId the viewed pet's ID
+     */
+    public void recordView(Long petId) {
+        LongAdder views = pending.get(petId);
+        if (views == null) {
+            views = pending.computeIfAbsent(petId, id -> new LongAdder());
+        }
+        views.increment();
+    }
+
+    /**
+     * @return the most viewed pets' IDs, most views first (ties by ID), as of
+     *         the last flush
+     */
+    public long[] popular() {
+        return ranking.ids.clone();
+    }
+
+    /**
+     * Loads the ranking of available pets from the view counts table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.pet-views.ranking-reload-interval:PT5M}",
+            fixedDelayString = "${app.pet-views.ranking-reload-interval:PT5M}")
+    public synchronized void loadRanking() {
+        List<long[]> top = jdbcTemplate.query("SELECT v.pet_id, v.view_count FROM pet_view_counts v "
+                + "JOIN pets p ON p.id = v.pet_id WHERE p.status = ? ORDER BY v.view_count DESC, v.pet_id LIMIT ?",
+                (rs, row) -> new long[] { rs.getLong(1), rs.getLong(2) }, PetStatus.AVAILABLE.name(), TRACKED);
+        ranking = Ranking.of(top);
+    }
+
+    /**
+     * Adds the pending view counts to the table in batches, then merges the
+     * flushed pets' totals into the ranking.
+     */
+    @Scheduled(initialDelayString = "${app.pet-views.flush-interval:PT10S}",
+            fixedDelayString = "${app.pet-views.flush-interval:PT10S}")
+    public synchronized void flush() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views > 0) {
+                drained.put(entry.getKey(), views);
+            } else {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(drained.size());
+        drained.forEach((petId, views) -> rows.add(new Object[] { petId, views }));
+        List<Long> flushed = new ArrayList<>();
+        List<long[]> totals = new ArrayList<>();
+        int written = 0;
+        try {
+            for (; written < rows.size(); written += FLUSH_BATCH_SIZE) {
+                List<Object[]> batch = rows.subList(written, Math.min(written + FLUSH_BATCH_SIZE, rows.size()));
+                jdbcTemplate.batchUpdate(upsert(), batch);
+                batch.forEach(row -> flushed.add((Long) row[0]));
+                totals.addAll(totals(batch));
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Flushing pet views failed, retrying with the next flush: {}", e.getMessage());
+            for (Object[] row : rows.subList(written, rows.size())) {
+                pending.computeIfAbsent((Long) row[0], id -> new LongAdder()).add((Long) row[1]);
+            }
+        }
+        ranking = ranking.merge(flushed, totals);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Drops a pet that is no longer available from the ranking, and forgets a
+     * deleted pet's views, once the change has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPetChanged(PetChangedEvent change) {
+        if (change.isDeleted()) {
+            pending.remove(change.getPetId());
+            jdbcTemplate.update("DELETE FROM pet_view_counts WHERE pet_id = ?", change.getPetId());
+        } else if (change.getStatus() == PetStatus.AVAILABLE) {
+            return;
+        }
+        ranking = ranking.without(change.getPetId());
+    }
+
+    /**
+     * @return the flushed pets' totals, for those that are still available
+     */
+    private List<long[]> totals(List<Object[]> batch) {
+        String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+        List<Object> args = new ArrayList<>(batch.size() + 1);
+        args.add(PetStatus.AVAILABLE.name());
+        batch.forEach(row -> args.add(row[0]));
+        return jdbcTemplate.query("SELECT v.pet_id, v.view_count FROM pet_view_counts v JOIN pets p ON p.id = "
+                + "v.pet_id WHERE p.status = ? AND v.pet_id IN (" + placeholders + ")",
+                (rs, row) -> new long[] { rs.getLong(1), rs.getLong(2) }, args.toArray());
+    }
+
+    private String upsert() {
+        if (upsert == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsert = database != null && database.toLowerCase().contains("mysql")
+                    ? "INSERT INTO pet_view_counts (pet_id, view_count) VALUES (?, ?) "
+                            + "ON DUPLICATE KEY UPDATE view_count = view_count + VALUES(view_count)"
+                    : "MERGE INTO pet_view_counts t USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+                            + "AS s (pet_id, views) ON t.pet_id = s.pet_id "
+                            + "WHEN MATCHED THEN UPDATE SET view_count = t.view_count + s.views "
+                            + "WHEN NOT MATCHED THEN INSERT (pet_id, view_count) VALUES (s.pet_id, s.views)";
+        }
+        return upsert;
+    }
+
+    /**
+     * The most viewed pets, most views first, ties by ID.
+     */
+    private static final class Ranking {
+
+        private final long[] ids;
+        private final long[] views;
+
+        private Ranking(long[] ids, long[] views) {
+            this.ids = ids;
+            this.views = views;
+        }
+
+        static Ranking of(List<long[]> entries) {
+            return new Ranking(entries.stream().mapToLong(entry -> entry[0]).toArray(),
+                    entries.stream().mapToLong(entry -> entry[1]).toArray());
+        }
+
+        /**
+         * Replaces the ranked totals of the flushed pets with their new totals
+         * (dropping those without one, which are no longer available) and
+         * keeps the top {@link #TRACKED}, through a min-heap holding the
+         * current cut-off.
+         */
+        Ranking merge(List<Long> flushed, List<long[]> totals) {
+            Map<Long, Long> merged = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                merged.put(ids[i], views[i]);
+            }
+            flushed.forEach(merged::remove);
+            totals.forEach(total -> merged.put(total[0], total[1]));
+
+            PriorityQueue<long[]> heap = new PriorityQueue<>(TRACKED + 1,
+                    (a, b) -> a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+            merged.forEach((id, count) -> {
+                heap.add(new long[] { id, count });
+                if (heap.size() > TRACKED) {
+                    heap.poll();
+                }
+            });
+            long[][] top = heap.toArray(new long[0][]);
+            Arrays.sort(top, heap.comparator().reversed());
+            return of(Arrays.asList(top));
+        }
+
+        Ranking without(long petId) {
+            if (Arrays.stream(ids).noneMatch(id -> id == petId)) {
+                return this;
+            }
+            List<long[]> kept = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != petId) {
+                    kept.add(new long[] { ids[i], views[i] });
+                }
+            }
+            return of(kept);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.petstore.analytics;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.petstore.dto.SearchTermCount;
+import com.petstore.dto.SearchTermsReport;
+import com.petstore.enums.AnalyticsWindow;
+import com.petstore.enums.PetStatus;
+
+/**
+ * Streaming analytics over catalog searches: which name, category and status
+ * filter combinations shoppers use, and which of them find nothing, in fixed
+ * memory and without logging each request.
+ *
+ * <p>
+ * Every {@link AnalyticsWindow} keeps its current and previous tumbling
+ * window. Each window counts searches in a {@link CountMinSketch} and tracks
+ * candidate top terms with a {@link SpaceSavingTracker}, once for all
+ * searches and once for zero-result ones. A report covers both windows (one to
+ * two minutes or hours): candidates from both trackers are ranked by their
+ * summed sketch estimates, which are tighter than the trackers' own counts for
+ * terms that were evicted and re-entered. Names are lower-cased and truncated
+ * to {@link #MAX_NAME_LENGTH} characters; counts are per replica.
+ * </p>
+ */
+@Component
+public class SearchTermAnalytics {
+
+    /** Most terms a report returns per list. */
+    public static final int MAX_TERMS = 50;
+
+    static final int MAX_NAME_LENGTH = 64;
+
+    static final int SKETCH_DEPTH = 4;
+
+    static final int SKETCH_WIDTH = 2048;
+
+    static final int TRACKED_TERMS = 200;
+
+    private static final char SEPARATOR = '\u0001';
+
+    private final Clock clock;
+
+    private final Map<AnalyticsWindow, Windows> windows = new EnumMap<>(AnalyticsWindow.class);
+
+    public SearchTermAnalytics(Clock clock) {
+        this.clock = clock;
+        for (AnalyticsWindow window : AnalyticsWindow.values()) {
+            windows.put(window, new Windows(window.getLength().toMillis()));
+        }
+    }
+
+    /**
+     * Counts one catalog search. Searches without a name, category or status
+     * filter are plain browsing and are not counted.
+     *
+     * @param name       the name filter, if any
+     * @param categoryId the category filter, if any
+     * @param status     the status filter, if any
+     * @param zeroHits   whether the search found no pets
+     */
+    public void recordSearch(String name, Long categoryId, PetStatus status, boolean zeroHits) {
+        String normalized = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() && categoryId == null && status == null) {
+            return;
+        }
+        if (normalized.length() > MAX_NAME_LENGTH) {
+            normalized = normalized.substring(0, MAX_NAME_LENGTH);
+        }
+        String key = normalized + SEPARATOR + (categoryId == null ? "" : categoryId) + SEPARATOR
+                + (status == null ? "" : status.name());
+        long hash = hash(key);
+        long now = clock.millis();
+        for (Windows window : windows.values()) {
+            window.record(now, key, hash, zeroHits);
+        }
+    }
+
+    /**
+     * Reports the most frequent search terms and zero-result search terms of
+     * the current and previous window.
+     *
+     * @param window the window length
+     * @param limit  the most terms per list (1-{@value #MAX_TERMS})
+     * @return the report
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public SearchTermsReport report(AnalyticsWindow window, int limit) {
+        if (limit < 1 || limit > MAX_TERMS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TERMS);
+        }
+        return windows.get(window).report(clock, window, limit);
+    }
+
+    /** FNV-1a over the key's characters, finished with the SplitMix64 mixer. */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static SearchTermCount term(String key, long count) {
+        int statusStart = key.lastIndexOf(SEPARATOR);
+        int categoryStart = key.lastIndexOf(SEPARATOR, statusStart - 1);
+        String name = key.substring(0, categoryStart);
+        String categoryId = key.substring(categoryStart + 1, statusStart);
+        String status = key.substring(statusStart + 1);
+        return new SearchTermCount(name.isEmpty() ? null : name,
+                categoryId.isEmpty() ? null : Long.valueOf(categoryId),
+                status.isEmpty() ? null : PetStatus.valueOf(status), count);
+    }
+
+    /**
+     * The current and previous tumbling window of one length.
+     */
+    private static final class Windows {
+
+        private final long length;
+        private long period = Long.MIN_VALUE;
+        private Slot current = new Slot();
+        private Slot previous = new Slot();
+
+        Windows(long length) {
+            this.length = length;
+        }
+
+        synchronized void record(long now, String key, long hash, boolean zeroHits) {
+            rotate(now);
+            current.searches++;
+            current.sketch.add(hash, 1);
+            current.top.offer(key);
+            if (zeroHits) {
+                current.zeroHitSearches++;
+                current.zeroHitSketch.add(hash, 1);
+                current.zeroHitTop.offer(key);
+            }
+        }
+
+        synchronized SearchTermsReport report(Clock clock, AnalyticsWindow window, int limit) {
+            rotate(clock.millis());
+            long start = (previous.searches > 0 ? period - 1 : period) * length;
+            return new SearchTermsReport(window, LocalDateTime.ofInstant(Instant.ofEpochMilli(start), clock.getZone()),
+                    current.searches + previous.searches, current.zeroHitSearches + previous.zeroHitSearches,
+                    rank(current.top, previous.top, current.sketch, previous.sketch, limit),
+                    rank(current.zeroHitTop, previous.zeroHitTop, current.zeroHitSketch, previous.zeroHitSketch,
+                            limit));
+        }
+
+        /**
+         * Moves to the window containing {@code now}. The current window
+         * becomes the previous one if it immediately precedes it; otherwise
+         * both start empty. Slots are cleared and reused rather than reallocated.
+         */
+        private void rotate(long now) {
+            long next = Math.floorDiv(now, length);
+            if (next == period) {
+                return;
+            }
+            Slot recycled = previous;
+            previous = current;
+            current = recycled;
+            current.clear();
+            if (next != period + 1) {
+                previous.clear();
+            }
+            period = next;
+        }
+
+        private static List<SearchTermCount> rank(SpaceSavingTracker currentTop, SpaceSavingTracker previousTop,
+                CountMinSketch currentSketch, CountMinSketch previousSketch, int limit) {
+            Set<String> candidates = new LinkedHashSet<>();
+            for (int i = 0; i < currentTop.size(); i++) {
+                candidates.add(currentTop.key(i));
+            }
+            for (int i = 0; i < previousTop.size(); i++) {
+                candidates.add(previousTop.key(i));
+            }
+            List<String> keys = new ArrayList<>(candidates);
+            long[] counts = new long[keys.size()];
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                long hash = hash(keys.get(i));
+                counts[i] = currentSketch.estimate(hash) + previousSketch.estimate(hash);
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -counts[i])
+                    .thenComparing(i -> keys.get(i)));
+            List<SearchTermCount> terms = new ArrayList<>(Math.min(limit, order.length));
+            for (int i = 0; i < Math.min(limit, order.length); i++) {
+                terms.add(term(keys.get(order[i]), counts[order[i]]));
+            }
+            return terms;
+        }
+    }
+
+    /**
+     * Counters for one window.
+     */
+    private static final class Slot {
+
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final CountMinSketch zeroHitSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final SpaceSavingTracker top = new SpaceSavingTracker(TRACKED_TERMS);
+        private final SpaceSavingTracker zeroHitTop = new SpaceSavingTracker(TRACKED_TERMS);
+        private long searches;
+        private long zeroHitSearches;
+
+        void clear() {
+            sketch.clear();
+            zeroHitSketch.clear();
+            top.clear();
+            zeroHitTop.clear();
+            searches = 0;
+            zeroHitSearches = 0;
+        }
+    }
+}
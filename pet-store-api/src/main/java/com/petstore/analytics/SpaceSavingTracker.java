@@ -0,0 +1,121 @@
+package com.petstore.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-saving heavy-hitter tracker (Metwally et al.): monitors at most
+ * {@code capacity} keys. A new key replaces the least counted one and
+ * inherits its count, so every key seen more than {@code total / capacity}
+ * times is monitored, and a monitored key's count overestimates by at most
+ * its recorded error. Counters sit in an indexed min-heap, so each offer is
+ * {@code O(log capacity)}. Not thread-safe.
+ */
+final class SpaceSavingTracker {
+
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    SpaceSavingTracker(int capacity) {
+        keys = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        positions = new HashMap<>(capacity * 2);
+    }
+
+    /** Counts one occurrence of the key. */
+    void offer(String key) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position]++;
+            siftDown(position);
+        } else if (size < keys.length) {
+            set(size, key, 1, 0);
+            siftUp(size++);
+        } else {
+            positions.remove(keys[0]);
+            set(0, key, counts[0] + 1, counts[0]);
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    String key(int index) {
+        return keys[index];
+    }
+
+    /** Returns the monitored count of the entry at {@code index} (an upper bound). */
+    long count(int index) {
+        return counts[index];
+    }
+
+    /** Returns how much the entry at {@code index} may be overcounted. */
+    long error(int index) {
+        return errors[index];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        positions.clear();
+        size = 0;
+    }
+
+    private void set(int index, String key, long count, long error) {
+        keys[index] = key;
+        counts[index] = count;
+        errors[index] = error;
+        positions.put(key, index);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        keys[b] = key;
+        counts[b] = count;
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
@@ -0,0 +1,126 @@
+package com.petstore.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * Seeds the pooled id generators from the ids already in each table.
+ *
+ * <p>
+ * Entities used to take their ids from {@code AUTO_INCREMENT} columns. They
+ * now draw blocks of {@value #ALLOCATION_SIZE} ids from a {@code <table>_seq}
+ * generator, which lets Hibernate batch inserts. On MySQL each generator is
+ * a one-row table that Hibernate ({@code ddl-auto=update}) creates starting
+ * at 1, so on an existing database it would hand out ids that are already
+ * taken. This bean moves every generator past the table's current
+ * {@code MAX(id)}. It only ever moves a generator forward, so running it on
+ * every startup is safe.
+ * </p>
+ *
+ * <p>
+ * It runs while the context is being created, right after the entity
+ * manager factory has updated the schema and before the web server takes
+ * requests or any runner inserts rows. Otherwise an insert could draw a
+ * block of ids from an unseeded generator, and Hibernate would keep handing
+ * out ids from that cached block after seeding.
+ * </p>
+ */
+@Component
+@Profile("!test")
+@DependsOn("entityManagerFactory")
+public class IdSequenceMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    /** Must match {@code allocationSize} on the entities' {@code @SequenceGenerator}. */
+    static final int ALLOCATION_SIZE = 50;
+
+    static final List<String> TABLES = List.of("addresses", "audit_logs", "carts", "cart_items", "categories",
+            "deliveries", "discounts", "orders", "order_items", "payments", "pets", "users");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.id.sequence.migration.enabled:true}")
+    private boolean enabled = true;
+
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * Seeds every generator, unless the migration is disabled.
+     */
+    void migrate() {
+        if (!enabled) {
+            logger.info("Id sequence migration disabled, skipping.");
+            return;
+        }
+
+        for (String table : TABLES) {
+            seedSequence(table);
+        }
+    }
+
+    /**
+     * Moves the {@code <table>_seq} generator past the highest id in the table.
+     *
+     * <p>
+     * The pooled optimizer treats the stored value as the upper end of the
+     * next block of {@value #ALLOCATION_SIZE} ids, so the value is set to
+     * {@code MAX(id) + ALLOCATION_SIZE}. Only table-backed generators (used on
+     * MySQL) are seeded; databases with native sequences are skipped.
+     * </p>
+     *
+     * @param table the entity table name
+     * @return {@code true} if the generator was moved forward
+     */
+    boolean seedSequence(String table) {
+        String sequenceTable = table + "_seq";
+        if (!tableExists(table) || !tableExists(sequenceTable)) {
+            logger.debug("Table {} or {} not found, nothing to seed.", table, sequenceTable);
+            return false;
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long nextValue = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE;
+
+        int updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = ? WHERE next_val < ?",
+                nextValue, nextValue);
+        if (updated > 0) {
+            logger.info("Seeded {} to {} (max id in {} is {}).", sequenceTable, nextValue, table, maxId);
+        }
+        return updated > 0;
+    }
+
+    private boolean tableExists(String tableName) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return hasTable(metaData, connection, tableName) || hasTable(metaData, connection, tableName.toUpperCase());
+        }));
+    }
+
+    private boolean hasTable(DatabaseMetaData metaData, Connection connection, String tableName) throws SQLException {
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, tableName, new String[] { "TABLE" })) {
+            return tables.next();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.petstore.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the JSON functions used by the catalog filters with Hibernate
+ * (loaded through {@code META-INF/services}).
+ *
+ * <p>
+ * {@code json_member_of(value, array)} is true when a string is an element
+ * of a JSON array column. On MySQL it renders as {@code value MEMBER OF(array)},
+ * which is served by the multi-valued index {@code idx_pets_tags} created by
+ * {@link PetCollectionsMigration}. Other databases (H2 in tests) search the
+ * array's JSON text for the quoted value, which matches the same elements as
+ * long as they hold no quotes or backslashes.
+ * </p>
+ */
+public class JsonFunctionContributor implements FunctionContributor {
+
+    /** Name of the JSON array membership function. */
+    public static final String JSON_MEMBER_OF = "json_member_of";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        String pattern = functionContributions.getDialect() instanceof MySQLDialect
+                ? "(?1 member of(?2))"
+                : "(locate(concat('\"', ?1, '\"'), cast(?2 as varchar)) > 0)";
+        functionContributions.getFunctionRegistry().registerPattern(JSON_MEMBER_OF, pattern, booleanType);
+    }
+}
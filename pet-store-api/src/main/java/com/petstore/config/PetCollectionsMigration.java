@@ -0,0 +1,210 @@
+package com.petstore.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * One-off migration that moves pet photos and tags from the legacy
+ * {@code pet_photos} / {@code pet_tags} element-collection tables into the
+ * {@code photo_urls} / {@code tags} JSON columns on {@code pets}.
+ *
+ * <p>
+ * Hibernate ({@code ddl-auto=update}) adds the JSON columns on startup; this
+ * runner then copies the legacy rows across in batches and renames each
+ * legacy table with a {@code _migrated} suffix so it is never copied twice.
+ * On MySQL it also creates the multi-valued index {@code idx_pets_tags} on
+ * {@code tags} that serves the catalog's {@code MEMBER OF} tag filters.
+ * </p>
+ */
+@Component
+@Profile("!test")
+@Order(0)
+public class PetCollectionsMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetCollectionsMigration.class);
+
+    static final String TAGS_INDEX_NAME = "idx_pets_tags";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.pet.collections.migration.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.pet.collections.migration.batch-size:500}")
+    private int batchSize = 500;
+
+    public PetCollectionsMigration(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs the migration after startup, before sample data is initialized.
+     *
+     * @param args the command-line arguments (not used)
+     */
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            logger.info("Pet collections migration disabled, skipping.");
+            return;
+        }
+
+        migrateTable("pet_photos", "photo_url", "photo_urls");
+        migrateTable("pet_tags", "tag", "tags");
+        createTagsIndex();
+    }
+
+    /**
+     * Copies one legacy element-collection table into its JSON column.
+     *
+     * <p>
+     * The legacy rows are read {@code batch-size} pets at a time, keyed on
+     * {@code pet_id}, and each chunk is written as one batch, so memory does
+     * not grow with the catalog. Only pets whose JSON column is still
+     * {@code NULL} are updated, so values written by the application after
+     * the column was added are never overwritten.
+     * </p>
+     *
+     * @param legacyTable  the legacy collection table name
+     * @param valueColumn  the value column in the legacy table
+     * @param targetColumn the JSON column on {@code pets}
+     * @return the number of pets updated
+     */
+    int migrateTable(String legacyTable, String valueColumn, String targetColumn) {
+        if (!tableExists(legacyTable)) {
+            logger.debug("Legacy table {} not found, nothing to migrate.", legacyTable);
+            return 0;
+        }
+
+        logger.info("Migrating {} into pets.{}...", legacyTable, targetColumn);
+
+        String update = "UPDATE pets SET " + targetColumn + " = ? FORMAT JSON WHERE id = ? AND " + targetColumn
+                + " IS NULL";
+        if (!isH2()) {
+            update = "UPDATE pets SET " + targetColumn + " = CAST(? AS JSON) WHERE id = ? AND " + targetColumn
+                    + " IS NULL";
+        }
+
+        int updated = 0;
+        long afterPetId = Long.MIN_VALUE;
+        while (true) {
+            Map<Long, List<String>> valuesByPet = readChunk(legacyTable, valueColumn, afterPetId);
+            if (valuesByPet.isEmpty()) {
+                break;
+            }
+            List<Object[]> batch = new ArrayList<>(valuesByPet.size());
+            for (Map.Entry<Long, List<String>> entry : valuesByPet.entrySet()) {
+                batch.add(new Object[] { toJson(entry.getValue()), entry.getKey() });
+                afterPetId = entry.getKey();
+            }
+            updated += sum(jdbcTemplate.batchUpdate(update, batch));
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + legacyTable + " RENAME TO " + legacyTable + "_migrated");
+        logger.info("Migrated {} pets from {} (legacy table renamed to {}_migrated).", updated, legacyTable,
+                legacyTable);
+        return updated;
+    }
+
+    /**
+     * Reads the legacy values of the next {@code batch-size} pets after the
+     * given one, in pet and then row order.
+     */
+    private Map<Long, List<String>> readChunk(String legacyTable, String valueColumn, long afterPetId) {
+        Map<Long, List<String>> valuesByPet = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT t.pet_id, t." + valueColumn + " FROM " + legacyTable + " t JOIN (SELECT DISTINCT "
+                + "pet_id FROM " + legacyTable + " WHERE pet_id > ? ORDER BY pet_id LIMIT ?) chunk "
+                + "ON chunk.pet_id = t.pet_id ORDER BY t.pet_id",
+                rs -> {
+                    valuesByPet.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+                }, afterPetId, batchSize);
+        return valuesByPet;
+    }
+
+    /**
+     * Creates the multi-valued index over the tags JSON array on MySQL 8.0.17+,
+     * used by {@code ? MEMBER OF(tags)} catalog filters. Tags are indexed as
+     * {@code CHAR(50)}, the longest tag a pet may have. Other databases are
+     * skipped.
+     */
+    void createTagsIndex() {
+        if (!isMySql()) {
+            return;
+        }
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'pets' AND index_name = ?",
+                Integer.class, TAGS_INDEX_NAME);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE INDEX " + TAGS_INDEX_NAME + " ON pets ((CAST(tags AS CHAR(50) ARRAY)))");
+        logger.info("Created multi-valued index {} on pets.tags", TAGS_INDEX_NAME);
+    }
+
+    private boolean tableExists(String tableName) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return hasTable(metaData, connection, tableName) || hasTable(metaData, connection, tableName.toUpperCase());
+        }));
+    }
+
+    private boolean hasTable(DatabaseMetaData metaData, Connection connection, String tableName) throws SQLException {
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, tableName, new String[] { "TABLE" })) {
+            return tables.next();
+        }
+    }
+
+    private boolean isH2() {
+        return databaseProductName().contains("h2");
+    }
+
+    private boolean isMySql() {
+        return databaseProductName().contains("mysql");
+    }
+
+    private String databaseProductName() {
+        String name = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return name != null ? name.toLowerCase() : "";
+    }
+
+    private String toJson(List<String> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize pet collection values", e);
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+}
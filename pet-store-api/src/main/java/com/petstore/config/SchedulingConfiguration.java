@@ -0,0 +1,13 @@
+package com.petstore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} maintenance tasks, such as decaying and
+ * checkpointing the in-memory co-purchase matrix.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -2,6 +2,7 @@ package com.petstore.config;
 
 import com.petstore.security.JwtAuthenticationFilter;
 import com.petstore.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -94,6 +95,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Async dispatches resume requests already authorized, such as order status streams
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints - no authentication required
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
@@ -106,11 +110,17 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/pets").permitAll() // Public pet list and filtering
                         .requestMatchers(HttpMethod.GET, "/api/pets/latest").permitAll() // Public latest pets for home
                                                                                          // page
+                        .requestMatchers(HttpMethod.GET, "/api/pets/facets").permitAll() // Public catalog facet counts
+                        .requestMatchers(HttpMethod.GET, "/api/pets/suggest").permitAll() // Public search autocomplete
+                        .requestMatchers(HttpMethod.GET, "/api/pets/popular").permitAll() // Public most viewed pets
                         .requestMatchers(HttpMethod.GET, "/api/categories").permitAll() // Public categories list
 
                         // Authenticated access for pet details and operations
+                        .requestMatchers(HttpMethod.GET, "/api/pets/search-terms").hasRole("ADMIN") // Search analytics
                         .requestMatchers(HttpMethod.GET, "/api/pets/*").hasAnyRole("USER", "ADMIN") // Pet details
                                                                                                     // require login
+                        .requestMatchers(HttpMethod.GET, "/api/pets/*/similar").hasAnyRole("USER", "ADMIN") // Shown on
+                                                                                                            // pet details
                         .requestMatchers(HttpMethod.GET, "/api/pets/my-pets").hasAnyRole("USER", "ADMIN") // User's
                                                                                                           // purchased
                                                                                                           // pets
@@ -118,6 +128,8 @@ public class SecurityConfig {
                                                                                                    // add pets
                         .requestMatchers(HttpMethod.PUT, "/api/pets/**").hasAnyRole("USER", "ADMIN") // USER and ADMIN
                                                                                                      // can update pets
+                        .requestMatchers(HttpMethod.PATCH, "/api/pets/**").hasAnyRole("USER", "ADMIN") // USER and ADMIN
+                                                                                                       // can patch pets
                         .requestMatchers(HttpMethod.DELETE, "/api/pets/**").hasRole("ADMIN") // Only ADMIN can delete
                                                                                              // pets
                         .requestMatchers(HttpMethod.POST, "/api/categories/**").hasRole("ADMIN") // Only ADMIN can
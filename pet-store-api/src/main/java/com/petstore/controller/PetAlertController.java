@@ -0,0 +1,124 @@
+package com.petstore.controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.petstore.model.PetAlert;
+import com.petstore.model.PetAlertMatch;
+import com.petstore.model.User;
+import com.petstore.service.PetAlertService;
+import com.petstore.service.UserService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+/**
+ * REST controller for the authenticated user's pet alerts (saved searches)
+ * and the pets that matched them.
+ */
+@RestController
+@RequestMapping("/api/users/alerts")
+@Tag(name = "Pet Alert Controller", description = "Pet Alert API")
+public class PetAlertController {
+
+    private final PetAlertService petAlertService;
+    private final UserService userService;
+
+    public PetAlertController(PetAlertService petAlertService, UserService userService) {
+        this.petAlertService = petAlertService;
+        this.userService = userService;
+    }
+
+    /**
+     * Retrieves the authenticated user's alerts.
+     *
+     * @return ResponseEntity containing the alerts, newest first
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get pet alerts", description = "Retrieve the authenticated user's pet alerts.")
+    public ResponseEntity<List<PetAlert>> getAlerts() {
+
+        Optional<User> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(petAlertService.getUserAlerts(user.get().getId()));
+    }
+
+    /**
+     * Creates an alert for the authenticated user.
+     *
+     * @param alert the alert's category, tag and price range, each optional
+     * @return ResponseEntity containing the created alert
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Create pet alert", description = "Get notified when a matching pet is listed or re-priced.")
+    public ResponseEntity<PetAlert> createAlert(@Valid @RequestBody PetAlert alert) {
+
+        Optional<User> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(petAlertService.createAlert(user.get().getId(), alert));
+    }
+
+    /**
+     * Deletes one of the authenticated user's alerts.
+     *
+     * @param alertId the ID of the alert to delete
+     * @return ResponseEntity with no content if successful
+     */
+    @DeleteMapping("/{alertId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Delete pet alert", description = "Delete an alert of the authenticated user.")
+    public ResponseEntity<Void> deleteAlert(@PathVariable Long alertId) {
+
+        Optional<User> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        petAlertService.deleteAlert(user.get().getId(), alertId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Retrieves the pets that matched the authenticated user's alerts.
+     *
+     * @param limit the maximum number of matches (1-100)
+     * @return ResponseEntity containing the matches, newest first
+     */
+    @GetMapping("/matches")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get pet alert matches", description = "Retrieve the pets that matched the authenticated user's alerts.")
+    public ResponseEntity<List<PetAlertMatch>> getMatches(@RequestParam(defaultValue = "20") int limit) {
+
+        Optional<User> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(petAlertService.getMatches(user.get().getId(), limit));
+    }
+
+    private Optional<User> currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return userService.getUserByEmail(auth.getName());
+    }
+}
@@ -1,12 +1,19 @@
 package com.petstore.controller;
 
+import com.petstore.analytics.SearchTermAnalytics;
+import com.petstore.enums.AnalyticsWindow;
+import com.petstore.enums.PetSort;
 import com.petstore.enums.PetStatus;
 import com.petstore.enums.Role;
 import com.petstore.model.Pet;
 import com.petstore.model.User;
 import com.petstore.service.PetService;
 import com.petstore.service.UserService;
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.dto.PetSuggestion;
 import com.petstore.dto.PetPageResponse;
+import com.petstore.dto.SearchTermsReport;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
@@ -45,19 +54,27 @@ public class PetController {
 
     private final UserService userService;
 
-    public PetController(PetService petService, UserService userService) {
+    private final SearchTermAnalytics searchTermAnalytics;
+
+    public PetController(PetService petService, UserService userService, SearchTermAnalytics searchTermAnalytics) {
         this.petService = petService;
         this.userService = userService;
+        this.searchTermAnalytics = searchTermAnalytics;
     }
 
     /**
      * Retrieves all pets, optionally filtered by name, category, status,
-     * or limit.
+     * price, tags or limit. First pages of filtered searches are counted in the search
+     * term analytics.
      *
      * @param name       optional pet name filter
      * @param categoryId optional category ID filter
      * @param status     optional pet status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @param tags       optional tags, all of which must match
      * @param limit      optional limit on number of results
+     * @param sort       sort option: newest (default), price_asc, price_desc or name
      * @return ResponseEntity containing the list of pets
      */
     @GetMapping
@@ -66,11 +83,20 @@ public class PetController {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) PetStatus status,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) List<String> tags,
             @RequestParam(required = false) Integer limit,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Page<Pet> petPage = petService.findPetsByFiltersPaginated(name, categoryId, status, null, page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "newest, price_asc, price_desc or name")
+            @RequestParam(defaultValue = "newest") String sort) {
+
+        Page<Pet> petPage = petService.findPetsByFiltersPaginated(name, categoryId, status, minPrice, maxPrice, tags,
+                null, PetSort.fromParameter(sort), page, size);
+        if (page == 0) {
+            searchTermAnalytics.recordSearch(name, categoryId, status, petPage.getTotalElements() == 0);
+        }
         PetPageResponse response = new PetPageResponse(
                 petPage.getContent(),
                 petPage.getNumber(),
@@ -81,6 +107,42 @@ public class PetController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Retrieves facet counts for the catalog: the number of pets matching the
+     * filters, and the counts per category, status and tag.
+     *
+     * @param categoryId optional category ID filter
+     * @param status     optional pet status filter
+     * @param tags       optional tags, all of which must match
+     * @return ResponseEntity containing the facet counts
+     */
+    @GetMapping("/facets")
+    @Operation(summary = "Get pet facets", description = "Count pets per category, status and tag for the given filters (public access)")
+    public ResponseEntity<PetFacetsResponse> getPetFacets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) PetStatus status,
+            @RequestParam(required = false) List<String> tags) {
+
+        return ResponseEntity.ok(petService.getFacets(categoryId, status, tags));
+    }
+
+    /**
+     * Suggests pet names, tags and category names for the search box, with
+     * typo-tolerant prefix matching.
+     *
+     * @param q     the text typed so far
+     * @param limit the maximum number of suggestions (1-10)
+     * @return ResponseEntity containing the suggestions, most popular first
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest search terms", description = "Autocomplete pet names, tags and categories (public access)")
+    public ResponseEntity<List<PetSuggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        return ResponseEntity.ok(petService.suggest(q, limit));
+    }
+
     /**
      * Retrieves the latest available pets, limited by the specified number.
      *
@@ -96,6 +158,38 @@ public class PetController {
         return ResponseEntity.ok(pets);
     }
 
+    /**
+     * Retrieves the most viewed available pets.
+     *
+     * @param limit the maximum number of pets to return (1-20)
+     * @return ResponseEntity containing the popular pets, most viewed first
+     */
+    @GetMapping("/popular")
+    @Operation(summary = "Get popular pets", description = "Retrieve the most viewed available pets (public access)")
+    public ResponseEntity<List<Pet>> getPopularPets(
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(petService.getPopularPets(limit));
+    }
+
+    /**
+     * Reports the most frequent catalog searches and zero-result searches of
+     * the current and previous minute or hour. Only admins can read it.
+     *
+     * @param window the window length: MINUTE or HOUR
+     * @param limit  the maximum number of terms per list (1-50)
+     * @return ResponseEntity containing the search term report
+     */
+    @GetMapping("/search-terms")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get search term analytics", description = "Most frequent and zero-result pet searches (ADMIN only)")
+    public ResponseEntity<SearchTermsReport> getSearchTerms(
+            @RequestParam(defaultValue = "HOUR") AnalyticsWindow window,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(searchTermAnalytics.report(window, limit));
+    }
+
     /**
      * Retrieves a pet by its ID.
      *
@@ -107,8 +201,24 @@ public class PetController {
     public ResponseEntity<Pet> getPetById(
             @Parameter(description = "ID of pet to return") @PathVariable Long id) {
 
-        return ResponseEntity.ok(petService.getPetById(id));
+        return ResponseEntity.ok(petService.viewPet(id));
+
+    }
+
+    /**
+     * Retrieves available pets similar to a pet, by tags, category and price.
+     *
+     * @param id    the ID of the pet to match
+     * @param limit the maximum number of pets to return (1-20)
+     * @return ResponseEntity containing the similar pets, most similar first
+     */
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Find similar pets", description = "Returns available pets with similar tags, category and price")
+    public ResponseEntity<List<Pet>> getSimilarPets(
+            @Parameter(description = "ID of pet to match") @PathVariable Long id,
+            @RequestParam(defaultValue = "6") int limit) {
 
+        return ResponseEntity.ok(petService.getSimilarPets(id, limit));
     }
 
     /**
@@ -148,6 +258,42 @@ public class PetController {
             @Parameter(description = "ID of pet to update") @PathVariable Long id,
             @Valid @RequestBody Pet petDetails) {
 
+        checkCanModifyPet(id);
+
+        Pet updatedPet = petService.updatePet(id, petDetails);
+        return ResponseEntity.ok(updatedPet);
+
+    }
+
+    /**
+     * Partially updates an existing pet using a JSON Merge Patch document.
+     * Only the fields present in the patch are changed; a {@code null} value
+     * clears an optional field. Only the owner or an admin can patch a pet.
+     *
+     * @param id    the ID of the pet to patch
+     * @param patch the merge patch document
+     * @return ResponseEntity containing the patched pet
+     */
+    @PatchMapping(value = "/{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Partially update a pet", description = "Apply a JSON Merge Patch to an existing pet by Id")
+    public ResponseEntity<Pet> patchPet(
+            @Parameter(description = "ID of pet to patch") @PathVariable Long id,
+            @RequestBody JsonNode patch) {
+
+        checkCanModifyPet(id);
+
+        return ResponseEntity.ok(petService.patchPet(id, patch));
+    }
+
+    /**
+     * Verifies that the current user created the pet or is an admin.
+     *
+     * @param id the ID of the pet being modified
+     * @throws AccessDeniedException if the current user may not modify the pet
+     */
+    private void checkCanModifyPet(Long id) {
+
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User currentUser = userService.getUserByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
@@ -161,10 +307,6 @@ public class PetController {
         if (!isAdmin && !isOwner) {
             throw new AccessDeniedException("You are not allowed to update this pet");
         }
-
-        Pet updatedPet = petService.updatePet(id, petDetails);
-        return ResponseEntity.ok(updatedPet);
-
     }
 
     /**
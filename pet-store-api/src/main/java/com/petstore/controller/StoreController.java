@@ -1,13 +1,16 @@
 package com.petstore.controller;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -19,22 +22,31 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.petstore.delivery.DeliveryStatusImporter;
+import com.petstore.dto.CoPurchaseRecommendation;
+import com.petstore.dto.DeliveryImportReport;
 import com.petstore.dto.PaymentOrderRequest;
 import com.petstore.enums.DeliveryStatus;
 import com.petstore.exception.OrderOwnershipException;
+import com.petstore.fraud.VelocityChecker;
+import com.petstore.idempotency.IdempotencyStore;
 import com.petstore.model.Cart;
 import com.petstore.model.Discount;
 import com.petstore.model.Order;
-import com.petstore.model.Payment;
 import com.petstore.model.User;
 import com.petstore.service.CartService;
 import com.petstore.service.DiscountService;
+import com.petstore.service.FlashSaleService;
 import com.petstore.service.OrderService;
 import com.petstore.service.UserService;
+import com.petstore.stream.OrderStatusHub;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 
@@ -54,13 +66,25 @@ public class StoreController {
     private final CartService cartService;
     private final OrderService orderService;
     private final DiscountService discountService;
+    private final FlashSaleService flashSaleService;
+    private final IdempotencyStore idempotencyStore;
+    private final VelocityChecker velocityChecker;
+    private final DeliveryStatusImporter deliveryStatusImporter;
+    private final OrderStatusHub orderStatusHub;
 
     public StoreController(UserService userService, CartService cartService, OrderService orderService,
-            DiscountService discountService) {
+            DiscountService discountService, FlashSaleService flashSaleService, IdempotencyStore idempotencyStore,
+            VelocityChecker velocityChecker, DeliveryStatusImporter deliveryStatusImporter,
+            OrderStatusHub orderStatusHub) {
         this.userService = userService;
         this.cartService = cartService;
         this.orderService = orderService;
         this.discountService = discountService;
+        this.flashSaleService = flashSaleService;
+        this.idempotencyStore = idempotencyStore;
+        this.velocityChecker = velocityChecker;
+        this.deliveryStatusImporter = deliveryStatusImporter;
+        this.orderStatusHub = orderStatusHub;
     }
 
     /**
@@ -94,16 +118,42 @@ public class StoreController {
         }
     }
 
+    /**
+     * Opens a Server-Sent Events stream of the authenticated user's order and
+     * delivery status changes, so clients need not poll their orders.
+     *
+     * @return ResponseEntity containing the event stream
+     */
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "Stream order status", description = "Stream the authenticated user's order and delivery status changes as Server-Sent Events.")
+    public ResponseEntity<SseEmitter> streamOrderStatus() {
+
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        Optional<User> userOptional = userService.getUserByEmail(userEmail);
+
+        if (userOptional.isEmpty()) {
+            logger.warn("User with email '{}' not found during streamOrderStatus request", userEmail);
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Tells an nginx in front not to buffer the stream, whatever its location's settings
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no")
+                .body(orderStatusHub.subscribe(userOptional.get().getId()));
+    }
+
     /**
      * Adds a pet to the authenticated user's cart.
      *
      * @param petId the ID of the pet to add
+     * @param quantity the number of units, for pets sold by quantity
      * @return ResponseEntity containing the updated cart
      */
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @PostMapping("/cart/add/{petId}")
-        @Operation(summary = "Add pet to cart", description = "Add a pet to the user's cart.")
-    public ResponseEntity<Cart> addToCart(@PathVariable Long petId) {
+        @Operation(summary = "Add pet to cart", description = "Add a pet, or units of a pet sold by quantity, to the user's cart.")
+    public ResponseEntity<Cart> addToCart(@PathVariable Long petId,
+            @RequestParam(defaultValue = "1") int quantity) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = auth.getName();
@@ -116,7 +166,7 @@ public class StoreController {
 
         User user = userOptional.get();
 
-        return ResponseEntity.ok(cartService.addPetToCart(user.getId(), petId));
+        return ResponseEntity.ok(cartService.addPetToCart(user.getId(), petId, quantity));
     }
 
     /**
@@ -132,6 +182,30 @@ public class StoreController {
         return ResponseEntity.ok(cartService.getCartByUserId(userId));
     }
 
+    /**
+     * Recommends categories and tags often bought together with the ones in the authenticated user's cart.
+     *
+     * @param limit the maximum number of recommendations (1-20)
+     * @return ResponseEntity containing the recommendations, best first
+     */
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/cart/recommendations")
+        @Operation(summary = "Get cart recommendations", description = "Categories and tags shoppers bought together with the ones in the user's cart.")
+    public ResponseEntity<List<CoPurchaseRecommendation>> getCartRecommendations(
+            @RequestParam(defaultValue = "5") int limit) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = auth.getName();
+        Optional<User> userOptional = userService.getUserByEmail(userEmail);
+
+        if (userOptional.isEmpty()) {
+            logger.warn("User with email '{}' not found during getCartRecommendations request", userEmail);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(cartService.getRecommendations(userOptional.get().getId(), limit));
+    }
+
     /**
      * Retrieves the order for the specified order ID. Admins can get any order; users can get only their own.
      *
@@ -206,15 +280,22 @@ public class StoreController {
 
     /**
      * Checks out the authenticated user's cart into an order. Allows optional discount code.
+     * A retry sent with the same idempotency key returns the order created the first time.
+     * Too many checkouts by the user or from the client's address are refused with 429;
+     * replayed retries are not counted.
      *
      * @param discountCode optional discount code to apply
+     * @param idempotencyKey optional client key making retries safe
+     * @param request the HTTP request, for the client's address
      * @return ResponseEntity containing the created order
      */
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @PostMapping("/checkout")
-        @Operation(summary = "Checkout cart", description = "Checkout a user's cart into an order. Allows optional discount code.")
-    public ResponseEntity<Order> checkout(
-            @RequestParam(required = false) String discountCode) {
+        @Operation(summary = "Checkout cart", description = "Checkout a user's cart into an order. Allows optional discount code and Idempotency-Key header.")
+    public ResponseEntity<?> checkout(
+            @RequestParam(required = false) String discountCode,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest request) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = auth.getName();
@@ -227,22 +308,34 @@ public class StoreController {
 
         User user = userOptional.get();
 
-        Order order = orderService.checkout(user.getId(), discountCode);
-        return ResponseEntity.ok(order);
+        // Rate-checked inside the action, so retries answered from the idempotency store are not counted
+        return idempotent(user.getId(), idempotencyKey, "POST /checkout?discountCode=" + discountCode, null, () -> {
+            velocityChecker.checkCheckout(user.getId(), request.getRemoteAddr());
+            Order order = flashSaleService.isEnabled() ? flashSaleService.checkout(user.getId(), discountCode)
+                    : orderService.checkout(user.getId(), discountCode);
+            return ResponseEntity.ok(order);
+        });
     }
 
     /**
      * Makes payment for a specific order.
+     * A retry sent with the same idempotency key returns the payment made the first time.
+     * Too many payments by the user, with the card or from the client's address are refused with 429;
+     * replayed retries are not counted.
      *
      * @param orderId the ID of the order to pay for
      * @param paymentOrderRequest the payment request details
+     * @param idempotencyKey optional client key making retries safe
+     * @param request the HTTP request, for the client's address
      * @return ResponseEntity containing the payment information
      */
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @PostMapping("/order/{orderId}/pay")
-        @Operation(summary = "Make payment for order", description = "Make payment for a specific order.")
-    public ResponseEntity<Payment> makePayment(@PathVariable Long orderId,
-            @Valid @RequestBody PaymentOrderRequest paymentOrderRequest) {
+        @Operation(summary = "Make payment for order", description = "Make payment for a specific order. Allows Idempotency-Key header.")
+    public ResponseEntity<?> makePayment(@PathVariable Long orderId,
+            @Valid @RequestBody PaymentOrderRequest paymentOrderRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest request) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = auth.getName();
@@ -255,12 +348,19 @@ public class StoreController {
 
         User user = userOptional.get();
 
-        // Verify the order belongs to this user
-        if (!orderService.isOrderOwnedByUser(orderId, user.getId())) {
-            throw new OrderOwnershipException(orderId, user.getId());
-        }
+        // Rate-checked inside the action, so retries answered from the idempotency store are not counted
+        return idempotent(user.getId(), idempotencyKey, "POST /order/" + orderId + "/pay", paymentOrderRequest, () -> {
+            velocityChecker.checkPayment(user.getId(), paymentOrderRequest, request.getRemoteAddr());
 
-        return ResponseEntity.ok(orderService.makePayment(orderId, paymentOrderRequest));
+            // Verify the order belongs to this user
+            if (!orderService.isOrderOwnedByUser(orderId, user.getId())) {
+                throw new OrderOwnershipException(orderId, user.getId());
+            }
+
+            return ResponseEntity.ok(flashSaleService.isEnabled()
+                    ? flashSaleService.makePayment(orderId, paymentOrderRequest)
+                    : orderService.makePayment(orderId, paymentOrderRequest));
+        });
     }
 
     /**
@@ -363,4 +463,33 @@ public class StoreController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Applies a file of carrier delivery events, one per line, as CSV
+     * ({@code order_id,status[,date]}) or NDJSON. Only accessible by ADMIN users.
+     *
+     * @param request the current HTTP request, whose body holds the events
+     * @return ResponseEntity containing the import report, with the events that failed
+     * @throws IOException if the request body cannot be read
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/orders/delivery-status", consumes = { "text/csv", "application/x-ndjson" })
+        @Operation(summary = "Bulk update delivery status", description = "Apply carrier delivery events from a CSV or NDJSON body (ADMIN only).")
+    public ResponseEntity<DeliveryImportReport> importDeliveryStatuses(HttpServletRequest request)
+            throws IOException {
+
+        DeliveryStatusImporter.Format format = DeliveryStatusImporter.Format
+                .of(MediaType.parseMediaType(request.getContentType()).getSubtype());
+        return ResponseEntity.ok(deliveryStatusImporter.importEvents(request.getInputStream(), format, null));
+    }
+
+    /**
+     * Runs a request once per idempotency key when the client sent one.
+     */
+    private ResponseEntity<?> idempotent(Long userId, String idempotencyKey, String request, Object body,
+            Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        return idempotencyStore.execute(userId, idempotencyKey, idempotencyStore.fingerprint(request, body), action);
+    }
 }
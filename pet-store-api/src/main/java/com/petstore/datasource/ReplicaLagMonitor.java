@@ -0,0 +1,100 @@
+package com.petstore.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ *
+ * Decides whether the read replica is fresh enough to serve reads.
+ *
+ * <p>
+ * The replica is checked at most once per {@code checkInterval}, on the
+ * thread that asks; concurrent callers keep using the last result instead of
+ * waiting. If a {@code lagQuery} is configured it must return the replica's
+ * lag in seconds (for example from a heartbeat table), and the replica is
+ * used only while that lag is within {@code maxLag}. Without a lag query the
+ * replica is used as long as it answers a validation query. A failing check,
+ * or a lag query returning {@code NULL} (replication stopped), routes reads
+ * to the primary until the next check succeeds.
+ * </p>
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String VALIDATION_QUERY = "SELECT 1";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private final Duration checkInterval;
+
+    private final Clock clock;
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private volatile boolean replicaUsable;
+
+    private volatile long nextCheckMillis = Long.MIN_VALUE;
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, String lagQuery, Duration maxLag,
+            Duration checkInterval, Clock clock) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns whether read-only work may currently go to the replica,
+     * re-checking the replica if the last check is older than the interval.
+     *
+     * @return {@code true} if the replica is reachable and within the lag
+     *         tolerance
+     */
+    public boolean isReplicaUsable() {
+        long now = clock.millis();
+        if (now >= nextCheckMillis && checking.compareAndSet(false, true)) {
+            try {
+                replicaUsable = check();
+                nextCheckMillis = now + checkInterval.toMillis();
+            } finally {
+                checking.set(false);
+            }
+        }
+        return replicaUsable;
+    }
+
+    private boolean check() {
+        try {
+            if (lagQuery == null) {
+                replicaJdbcTemplate.queryForObject(VALIDATION_QUERY, Integer.class);
+                return true;
+            }
+            Number lagSeconds = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+            if (lagSeconds == null) {
+                logger.warn("Replica reports no replication lag (replication stopped?), reading from primary.");
+                return false;
+            }
+            boolean withinTolerance = Duration.ofMillis(Math.round(lagSeconds.doubleValue() * 1000))
+                    .compareTo(maxLag) <= 0;
+            if (!withinTolerance) {
+                logger.warn("Replica lag {}s exceeds {}, reading from primary.", lagSeconds, maxLag);
+            }
+            return withinTolerance;
+        } catch (DataAccessException e) {
+            logger.warn("Replica check failed, reading from primary: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.petstore.datasource;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ *
+ * Routes connections for read-only transactions declared by the application
+ * (for example {@code @Transactional(readOnly = true)} on a service method)
+ * to the read replica, and everything else to the primary.
+ *
+ * <p>
+ * The route is decided when the physical connection is obtained, so this
+ * data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for a connection before the transaction's
+ * read-only flag is published, and the proxy defers the real lookup to the
+ * first statement. Work outside a transaction always goes to the primary.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Lookup keys for the two target data sources. */
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final String SPRING_DATA_PACKAGE = "org.springframework.data.";
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (isDeclaredReadOnlyTransaction() && lagMonitor.isReplicaUsable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Spring Data wraps every repository read in its own read-only
+     * transaction. Those stay on the primary: a bare {@code findById} is
+     * typically an existence or ownership check right before a write, and
+     * must see rows the caller has just committed.
+     */
+    private static boolean isDeclaredReadOnlyTransaction() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && !name.startsWith(SPRING_DATA_PACKAGE);
+    }
+}
@@ -0,0 +1,401 @@
+package com.petstore.delivery;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.dto.DeliveryImportFailure;
+import com.petstore.dto.DeliveryImportReport;
+import com.petstore.enums.AuditOrderAction;
+import com.petstore.enums.DeliveryStatus;
+import com.petstore.enums.OrderStatus;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.model.AuditLog;
+import com.petstore.model.Order;
+import com.petstore.model.User;
+import com.petstore.repository.AuditLogRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Applies carrier delivery events in bulk, from a request body or from files
+ * dropped into {@code app.delivery-import.inbox}.
+ *
+ * <p>
+ * Events are read one line at a time, as CSV ({@code order_id,status[,date]},
+ * with an optional header) or NDJSON ({@code {"orderId":..,"status":..,"date":..}}),
+ * where the status is {@code SHIPPED} or {@code DELIVERED} and the date, when
+ * given, is an ISO local date-time. They are applied a batch
+ * ({@code app.delivery-import.batch-size}) per transaction: one query reads
+ * the batch's deliveries and orders, then the shipments, the deliveries and
+ * the delivered orders are each written by one batched or set-based update,
+ * and the audit entries by one batch of inserts; the owners are told of the
+ * changes once the batch commits. An event that cannot be
+ * read or applied is reported with its line and does not hold up the rest;
+ * an event already in effect is counted as unchanged, so a file can be sent
+ * again.
+ * </p>
+ *
+ * <p>
+ * Inbox files ({@code *.csv} and {@code *.ndjson}) are claimed by an atomic
+ * move into {@code processing/}, so only one replica imports each, then have
+ * their failures written to {@code reports/} and are moved to {@code done/},
+ * or to {@code failed/} if they could not be read.
+ * </p>
+ */
+@Component
+public class DeliveryStatusImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryStatusImporter.class);
+
+    static final String FAILURES_HEADER = "line,order_id,reason";
+
+    /**
+     * The formats carrier events are read in.
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @param name a file name or content type
+         * @return the format it names, or null
+         */
+        public static Format of(String name) {
+            if (name == null) {
+                return null;
+            }
+            String lower = name.toLowerCase(Locale.ROOT);
+            return lower.endsWith("csv") ? CSV : lower.endsWith("ndjson") ? NDJSON : null;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AuditLogRepository auditLogRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Clock clock;
+
+    private final int batchSize;
+
+    private final int maxReportedFailures;
+
+    private final String inbox;
+
+    public DeliveryStatusImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            AuditLogRepository auditLogRepository, EntityManager entityManager, ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher, Clock clock,
+            @Value("${app.delivery-import.batch-size:1000}") int batchSize,
+            @Value("${app.delivery-import.max-reported-failures:1000}") int maxReportedFailures,
+            @Value("${app.delivery-import.inbox:}") String inbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.auditLogRepository = auditLogRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxReportedFailures = maxReportedFailures;
+        this.inbox = inbox;
+    }
+
+    /**
+     * Applies the carrier events in a stream.
+     *
+     * @param input    the events
+     * @param format   their format
+     * @param failures receives every failure, in input order, or null; the
+     *                 report only lists the first
+     *                 {@code app.delivery-import.max-reported-failures}
+     * @return what was applied
+     * @throws IOException if the stream cannot be read
+     */
+    public DeliveryImportReport importEvents(InputStream input, Format format, Consumer<DeliveryImportFailure> failures)
+            throws IOException {
+        DeliveryImportReport report = new DeliveryImportReport();
+        Consumer<DeliveryImportFailure> fail = failure -> {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getFailures().size() < maxReportedFailures) {
+                report.getFailures().add(failure);
+            }
+            if (failures != null) {
+                failures.accept(failure);
+            }
+        };
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<Event> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || lineNumber == 1 && format == Format.CSV && isHeader(line)) {
+                continue;
+            }
+            report.setReceived(report.getReceived() + 1);
+            Event event;
+            try {
+                event = format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                fail.accept(new DeliveryImportFailure(lineNumber, null, e.getMessage()));
+                continue;
+            }
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                apply(batch, report, fail);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(batch, report, fail);
+        }
+        return report;
+    }
+
+    /**
+     * Imports the event files in the inbox, if one is configured.
+     */
+    @Scheduled(initialDelayString = "${app.delivery-import.interval:PT1M}",
+            fixedDelayString = "${app.delivery-import.interval:PT1M}")
+    public void importInbox() {
+        if (inbox.isBlank()) {
+            return;
+        }
+        Path directory = Path.of(inbox);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{csv,ndjson}")) {
+            for (Path file : files) {
+                importInboxFile(directory, file);
+            }
+        } catch (IOException e) {
+            logger.error("Cannot read the delivery event inbox {}", directory, e);
+        }
+    }
+
+    private void importInboxFile(Path directory, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Path claimed = directory.resolve("processing").resolve(name);
+        Files.createDirectories(claimed.getParent());
+        try {
+            Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            return; // Claimed by another replica
+        }
+
+        Path report = directory.resolve("reports").resolve(name.substring(0, name.lastIndexOf('.'))
+                + ".failures.csv");
+        Files.createDirectories(report.getParent());
+        Path destination;
+        try (InputStream input = Files.newInputStream(claimed);
+                BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write(FAILURES_HEADER);
+            writer.newLine();
+            DeliveryImportReport summary = importEvents(input, Format.of(name), failure -> write(writer, failure));
+            logger.info("Imported delivery events from {}: {} received, {} updated, {} unchanged, {} failed", name,
+                    summary.getReceived(), summary.getUpdated(), summary.getUnchanged(), summary.getFailed());
+            destination = directory.resolve("done");
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Cannot import delivery event file {}", name, e);
+            destination = directory.resolve("failed");
+        }
+        Files.createDirectories(destination);
+        Files.move(claimed, destination.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(BufferedWriter writer, DeliveryImportFailure failure) {
+        try {
+            String reason = failure.getReason() == null ? "" : failure.getReason().replace('"', '\'');
+            writer.write(failure.getLine() + "," + (failure.getOrderId() == null ? "" : failure.getOrderId())
+                    + ",\"" + reason + "\"");
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies a batch of events in one transaction; if the transaction fails,
+     * every event in it is reported as failed.
+     */
+    private void apply(List<Event> batch, DeliveryImportReport report, Consumer<DeliveryImportFailure> fail) {
+        List<DeliveryImportFailure> failures = new ArrayList<>();
+        long[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> applyBatch(batch, failures));
+        } catch (DataAccessException | jakarta.persistence.PersistenceException e) {
+            logger.warn("Could not apply a batch of {} delivery events: {}", batch.size(), e.getMessage());
+            for (Event event : batch) {
+                fail.accept(new DeliveryImportFailure(event.line(), event.orderId(),
+                        "Batch could not be applied: " + e.getMessage()));
+            }
+            return;
+        }
+        report.setUpdated(report.getUpdated() + counts[0]);
+        report.setUnchanged(report.getUnchanged() + counts[1]);
+        failures.forEach(fail);
+    }
+
+    private long[] applyBatch(List<Event> batch, List<DeliveryImportFailure> failures) {
+        Set<Long> orderIds = new LinkedHashSet<>();
+        batch.forEach(event -> orderIds.add(event.orderId()));
+        Map<Long, State> states = new HashMap<>();
+        jdbcTemplate.query("SELECT d.order_id, d.status, o.status, o.user_id FROM deliveries d "
+                + "JOIN orders o ON o.id = d.order_id WHERE d.order_id IN ("
+                + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")",
+                rs -> {
+                    states.put(rs.getLong(1), new State(DeliveryStatus.valueOf(rs.getString(2)),
+                            OrderStatus.valueOf(rs.getString(3)), rs.getLong(4)));
+                }, orderIds.toArray());
+
+        List<Object[]> shipped = new ArrayList<>();
+        List<Object[]> delivered = new ArrayList<>();
+        List<AuditLog> auditLogs = new ArrayList<>();
+        long updated = 0;
+        long unchanged = 0;
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (Event event : batch) {
+            State state = states.get(event.orderId());
+            String refusal = state == null ? "Order not found or not yet approved"
+                    : state.orderStatus == OrderStatus.CANCELLED ? "Order is cancelled"
+                    : event.status() == DeliveryStatus.PENDING ? "Delivery cannot be set back to PENDING"
+                    : event.status() == DeliveryStatus.SHIPPED && state.deliveryStatus == DeliveryStatus.DELIVERED
+                            ? "Delivery was already delivered" : null;
+            if (refusal != null) {
+                failures.add(new DeliveryImportFailure(event.line(), event.orderId(), refusal));
+                continue;
+            }
+            if (state.deliveryStatus == event.status()) {
+                unchanged++;
+                continue;
+            }
+            Timestamp at = Timestamp.valueOf(event.date() != null ? event.date() : now);
+            (event.status() == DeliveryStatus.SHIPPED ? shipped : delivered)
+                    .add(new Object[] { at, event.orderId() });
+            auditLogs.add(new AuditLog(Order.class.getName(), event.orderId(),
+                    entityManager.getReference(User.class, state.userId),
+                    AuditOrderAction.UPDATE_DELIVERY_STATUS.name(), state.deliveryStatus.name(),
+                    event.status().name()));
+            state.deliveryStatus = event.status();
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(state.userId, event.orderId(),
+                    event.status() == DeliveryStatus.DELIVERED ? OrderStatus.DELIVERED : state.orderStatus,
+                    event.status()));
+            updated++;
+        }
+
+        if (!shipped.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE deliveries SET status = 'SHIPPED', shipped_at = ? WHERE order_id = ?",
+                    shipped);
+        }
+        if (!delivered.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE deliveries SET status = 'DELIVERED', delivered_at = ? "
+                    + "WHERE order_id = ?", delivered);
+            List<Object> arguments = new ArrayList<>();
+            arguments.add(OrderStatus.DELIVERED.name());
+            arguments.add(Timestamp.valueOf(now));
+            delivered.forEach(row -> arguments.add(row[1]));
+            jdbcTemplate.update("UPDATE orders SET status = ?, updated_at = ? WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(delivered.size(), "?")) + ")", arguments.toArray());
+        }
+        auditLogRepository.saveAll(auditLogs);
+        return new long[] { updated, unchanged };
+    }
+
+    private static boolean isHeader(String line) {
+        return !Character.isDigit(line.strip().charAt(0));
+    }
+
+    private static Event parseCsv(long line, String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Expected order_id,status[,date]");
+        }
+        return event(line, fields[0].strip(), fields[1].strip(), fields.length > 2 ? fields[2].strip() : null);
+    }
+
+    private Event parseJson(long line, String text) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        return event(line, node.path("orderId").asText(""), node.path("status").asText(""),
+                node.hasNonNull("date") ? node.get("date").asText() : null);
+    }
+
+    private static Event event(long line, String orderId, String status, String date) {
+        long id;
+        try {
+            id = Long.parseLong(orderId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid order ID '" + orderId + "'");
+        }
+        DeliveryStatus deliveryStatus;
+        try {
+            deliveryStatus = DeliveryStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid delivery status '" + status + "'");
+        }
+        return new Event(line, id, deliveryStatus, date == null || date.isEmpty() ? null : LocalDateTime.parse(date));
+    }
+
+    private record Event(long line, long orderId, DeliveryStatus status, LocalDateTime date) {
+    }
+
+    private static final class State {
+
+        private DeliveryStatus deliveryStatus;
+
+        private final OrderStatus orderStatus;
+
+        private final long userId;
+
+        State(DeliveryStatus deliveryStatus, OrderStatus orderStatus, long userId) {
+            this.deliveryStatus = deliveryStatus;
+            this.orderStatus = orderStatus;
+            this.userId = userId;
+        }
+    }
+}
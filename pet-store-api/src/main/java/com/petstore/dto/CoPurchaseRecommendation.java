@@ -0,0 +1,38 @@
+package com.petstore.dto;
+
+import com.petstore.enums.RecommendationType;
+
+/**
+ * One "also bought" recommendation: a category (with its ID) or a tag, and
+ * its score, the average share of past orders with the cart's categories and
+ * tags that also contained it.
+ */
+public class CoPurchaseRecommendation {
+    private RecommendationType type;
+    private Long categoryId;
+    private String name;
+    private double score;
+
+    public CoPurchaseRecommendation(RecommendationType type, Long categoryId, String name, double score) {
+        this.type = type;
+        this.categoryId = categoryId;
+        this.name = name;
+        this.score = score;
+    }
+
+    public RecommendationType getType() { return type; }
+    public Long getCategoryId() { return categoryId; }
+    public String getName() { return name; }
+    public double getScore() { return score; }
+
+    public void setType(RecommendationType type) { this.type = type; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+    public void setName(String name) { this.name = name; }
+    public void setScore(double score) { this.score = score; }
+
+    @Override
+    public String toString() {
+        return "CoPurchaseRecommendation{type=" + type + ", categoryId=" + categoryId + ", name=" + name
+                + ", score=" + score + "}";
+    }
+}
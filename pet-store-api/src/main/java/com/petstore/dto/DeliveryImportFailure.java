@@ -0,0 +1,25 @@
+package com.petstore.dto;
+
+/**
+ * A carrier event that could not be applied: its line in the input, the
+ * order it named, if it could be read, and why it failed.
+ */
+public class DeliveryImportFailure {
+    private long line;
+    private Long orderId;
+    private String reason;
+
+    public DeliveryImportFailure(long line, Long orderId, String reason) {
+        this.line = line;
+        this.orderId = orderId;
+        this.reason = reason;
+    }
+
+    public long getLine() { return line; }
+    public Long getOrderId() { return orderId; }
+    public String getReason() { return reason; }
+
+    public void setLine(long line) { this.line = line; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public void setReason(String reason) { this.reason = reason; }
+}
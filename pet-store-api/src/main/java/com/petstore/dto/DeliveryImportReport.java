@@ -0,0 +1,29 @@
+package com.petstore.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk delivery status import: how many carrier events were
+ * received, applied, already in effect and failed, and the failures
+ * themselves, up to a limit.
+ */
+public class DeliveryImportReport {
+    private long received;
+    private long updated;
+    private long unchanged;
+    private long failed;
+    private List<DeliveryImportFailure> failures = new ArrayList<>();
+
+    public long getReceived() { return received; }
+    public long getUpdated() { return updated; }
+    public long getUnchanged() { return unchanged; }
+    public long getFailed() { return failed; }
+    public List<DeliveryImportFailure> getFailures() { return failures; }
+
+    public void setReceived(long received) { this.received = received; }
+    public void setUpdated(long updated) { this.updated = updated; }
+    public void setUnchanged(long unchanged) { this.unchanged = unchanged; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public void setFailures(List<DeliveryImportFailure> failures) { this.failures = failures; }
+}
@@ -2,6 +2,7 @@ package com.petstore.dto;
 
 import com.petstore.enums.WalletType;
 import com.petstore.enums.PaymentType;
+import com.petstore.strategy.payment.PaymentStrategy;
 
 import jakarta.validation.constraints.NotNull;
 
@@ -93,7 +94,8 @@ public class PaymentOrderRequest {
     @Override
     public String toString() {
         return "PaymentOrderRequest [shippingAddressId=" + shippingAddressId + ", billingAddressId=" + billingAddressId
-                + ", paymentType=" + paymentType + ", eWalletType=" + walletType + ", cardNumber=" + cardNumber
+                + ", paymentType=" + paymentType + ", eWalletType=" + walletType + ", cardNumber="
+                + (cardNumber != null ? PaymentStrategy.maskCardNumber(cardNumber) : null)
                 + ", walletId=" + walletId + ", paypalId=" + paypalId + ", paymentNote=" + paymentNote + "]";
     }
 
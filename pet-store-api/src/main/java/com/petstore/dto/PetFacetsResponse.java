@@ -0,0 +1,34 @@
+package com.petstore.dto;
+
+import java.util.Map;
+
+import com.petstore.enums.PetStatus;
+
+/**
+ * Facet counts for the pet catalog: how many pets match the current filters,
+ * and how many would match for each category, status and tag.
+ */
+public class PetFacetsResponse {
+    private long total;
+    private Map<Long, Long> categories;
+    private Map<PetStatus, Long> statuses;
+    private Map<String, Long> tags;
+
+    public PetFacetsResponse(long total, Map<Long, Long> categories, Map<PetStatus, Long> statuses,
+            Map<String, Long> tags) {
+        this.total = total;
+        this.categories = categories;
+        this.statuses = statuses;
+        this.tags = tags;
+    }
+
+    public long getTotal() { return total; }
+    public Map<Long, Long> getCategories() { return categories; }
+    public Map<PetStatus, Long> getStatuses() { return statuses; }
+    public Map<String, Long> getTags() { return tags; }
+
+    public void setTotal(long total) { this.total = total; }
+    public void setCategories(Map<Long, Long> categories) { this.categories = categories; }
+    public void setStatuses(Map<PetStatus, Long> statuses) { this.statuses = statuses; }
+    public void setTags(Map<String, Long> tags) { this.tags = tags; }
+}
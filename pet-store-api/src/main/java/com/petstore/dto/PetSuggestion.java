@@ -0,0 +1,32 @@
+package com.petstore.dto;
+
+import com.petstore.enums.SuggestionType;
+
+/**
+ * One search box suggestion: the text to complete to, what it is, and how
+ * many catalog pets carry it.
+ */
+public class PetSuggestion {
+    private String text;
+    private SuggestionType type;
+    private long count;
+
+    public PetSuggestion(String text, SuggestionType type, long count) {
+        this.text = text;
+        this.type = type;
+        this.count = count;
+    }
+
+    public String getText() { return text; }
+    public SuggestionType getType() { return type; }
+    public long getCount() { return count; }
+
+    public void setText(String text) { this.text = text; }
+    public void setType(SuggestionType type) { this.type = type; }
+    public void setCount(long count) { this.count = count; }
+
+    @Override
+    public String toString() {
+        return "PetSuggestion{text=" + text + ", type=" + type + ", count=" + count + "}";
+    }
+}
@@ -0,0 +1,37 @@
+package com.petstore.dto;
+
+import com.petstore.enums.PetStatus;
+
+/**
+ * One pet search filter combination and its estimated number of searches.
+ * The name is lower-cased; absent filters are {@code null}.
+ */
+public class SearchTermCount {
+    private String name;
+    private Long categoryId;
+    private PetStatus status;
+    private long count;
+
+    public SearchTermCount(String name, Long categoryId, PetStatus status, long count) {
+        this.name = name;
+        this.categoryId = categoryId;
+        this.status = status;
+        this.count = count;
+    }
+
+    public String getName() { return name; }
+    public Long getCategoryId() { return categoryId; }
+    public PetStatus getStatus() { return status; }
+    public long getCount() { return count; }
+
+    public void setName(String name) { this.name = name; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+    public void setStatus(PetStatus status) { this.status = status; }
+    public void setCount(long count) { this.count = count; }
+
+    @Override
+    public String toString() {
+        return "SearchTermCount{name=" + name + ", categoryId=" + categoryId + ", status=" + status + ", count="
+                + count + "}";
+    }
+}
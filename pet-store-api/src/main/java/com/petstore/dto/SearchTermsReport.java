@@ -0,0 +1,45 @@
+package com.petstore.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.petstore.enums.AnalyticsWindow;
+
+/**
+ * Pet search analytics since {@code from}: the number of searches, how many
+ * found nothing, and the most frequent search terms overall and among the
+ * searches that found nothing. Term counts are estimates that may run high,
+ * never low.
+ */
+public class SearchTermsReport {
+    private AnalyticsWindow window;
+    private LocalDateTime from;
+    private long searches;
+    private long zeroHitSearches;
+    private List<SearchTermCount> topTerms;
+    private List<SearchTermCount> zeroHitTerms;
+
+    public SearchTermsReport(AnalyticsWindow window, LocalDateTime from, long searches, long zeroHitSearches,
+            List<SearchTermCount> topTerms, List<SearchTermCount> zeroHitTerms) {
+        this.window = window;
+        this.from = from;
+        this.searches = searches;
+        this.zeroHitSearches = zeroHitSearches;
+        this.topTerms = topTerms;
+        this.zeroHitTerms = zeroHitTerms;
+    }
+
+    public AnalyticsWindow getWindow() { return window; }
+    public LocalDateTime getFrom() { return from; }
+    public long getSearches() { return searches; }
+    public long getZeroHitSearches() { return zeroHitSearches; }
+    public List<SearchTermCount> getTopTerms() { return topTerms; }
+    public List<SearchTermCount> getZeroHitTerms() { return zeroHitTerms; }
+
+    public void setWindow(AnalyticsWindow window) { this.window = window; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+    public void setSearches(long searches) { this.searches = searches; }
+    public void setZeroHitSearches(long zeroHitSearches) { this.zeroHitSearches = zeroHitSearches; }
+    public void setTopTerms(List<SearchTermCount> topTerms) { this.topTerms = topTerms; }
+    public void setZeroHitTerms(List<SearchTermCount> zeroHitTerms) { this.zeroHitTerms = zeroHitTerms; }
+}
@@ -0,0 +1,24 @@
+package com.petstore.enums;
+
+import java.time.Duration;
+
+/**
+ * Length of the tumbling windows that search analytics are counted in.
+ */
+public enum AnalyticsWindow {
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1));
+
+    private final Duration length;
+
+    AnalyticsWindow(Duration length) {
+        this.length = length;
+    }
+
+    /**
+     * @return the window length
+     */
+    public Duration getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,58 @@
+package com.petstore.enums;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+
+import com.petstore.exception.InvalidPetException;
+
+/**
+ * Sort options for the pet catalog. Every option ends with the id as a
+ * tie-breaker, so the order is total and stable across pages, and each one
+ * is backed by a composite index on {@code pets} (see {@link com.petstore.model.Pet}).
+ */
+public enum PetSort {
+    NEWEST("newest", Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))),
+    PRICE_ASC("price_asc", Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"))),
+    PRICE_DESC("price_desc", Sort.by(Sort.Order.desc("price"), Sort.Order.desc("id"))),
+    NAME("name", Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id")));
+
+    private final String parameter;
+
+    private final Sort sort;
+
+    PetSort(String parameter, Sort sort) {
+        this.parameter = parameter;
+        this.sort = sort;
+    }
+
+    /**
+     * @return the value accepted by the {@code sort} request parameter
+     */
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @return the Spring Data sort for this option
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Resolves a {@code sort} request parameter (case-insensitive).
+     *
+     * @param parameter the request parameter value
+     * @return the matching sort option
+     * @throws InvalidPetException if the value is not a supported option
+     */
+    public static PetSort fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(option -> option.parameter.equalsIgnoreCase(parameter))
+                .findFirst()
+                .orElseThrow(() -> new InvalidPetException("Invalid sort '" + parameter + "'. Allowed values: "
+                        + Arrays.stream(values()).map(PetSort::getParameter).collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,9 @@
+package com.petstore.enums;
+
+/**
+ * What a co-purchase recommendation points to: a category or a tag.
+ */
+public enum RecommendationType {
+    CATEGORY,
+    TAG
+}
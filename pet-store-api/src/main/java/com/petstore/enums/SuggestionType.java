@@ -0,0 +1,11 @@
+package com.petstore.enums;
+
+/**
+ * What a search suggestion completes to: a pet name, a tag or a category
+ * name.
+ */
+public enum SuggestionType {
+    NAME,
+    TAG,
+    CATEGORY
+}
@@ -0,0 +1,24 @@
+package com.petstore.event;
+
+/**
+ * Published when a category is renamed, so in-memory catalog indexes that
+ * hold category names can follow without reloading the pets.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+    private final String name;
+
+    public CategoryChangedEvent(Long categoryId, String name) {
+        this.categoryId = categoryId;
+        this.name = name;
+    }
+
+    public Long getCategoryId() { return categoryId; }
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return "CategoryChangedEvent{categoryId=" + categoryId + ", name=" + name + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package com.petstore.event;
+
+import java.util.List;
+
+/**
+ * Published when an order is paid and approved. Carries snapshots of the
+ * purchased pets taken at publish time, so listeners running after the
+ * transaction commits never touch the (possibly detached) entities.
+ */
+public class OrderApprovedEvent {
+
+    private final Long orderId;
+    private final List<PetChangedEvent> pets;
+
+    public OrderApprovedEvent(Long orderId, List<PetChangedEvent> pets) {
+        this.orderId = orderId;
+        this.pets = List.copyOf(pets);
+    }
+
+    public Long getOrderId() { return orderId; }
+    public List<PetChangedEvent> getPets() { return pets; }
+
+    @Override
+    public String toString() {
+        return "OrderApprovedEvent{orderId=" + orderId + ", pets=" + pets.size() + "}";
+    }
+}
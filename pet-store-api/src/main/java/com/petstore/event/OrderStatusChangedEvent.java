@@ -0,0 +1,36 @@
+package com.petstore.event;
+
+import com.petstore.enums.DeliveryStatus;
+import com.petstore.enums.OrderStatus;
+
+/**
+ * Published when an order's status or its delivery's status changes, for the
+ * order's owner to be told. The delivery status is null until the order is
+ * approved and its delivery created.
+ */
+public class OrderStatusChangedEvent {
+
+    private final Long userId;
+    private final Long orderId;
+    private final OrderStatus orderStatus;
+    private final DeliveryStatus deliveryStatus;
+
+    public OrderStatusChangedEvent(Long userId, Long orderId, OrderStatus orderStatus,
+            DeliveryStatus deliveryStatus) {
+        this.userId = userId;
+        this.orderId = orderId;
+        this.orderStatus = orderStatus;
+        this.deliveryStatus = deliveryStatus;
+    }
+
+    public Long getUserId() { return userId; }
+    public Long getOrderId() { return orderId; }
+    public OrderStatus getOrderStatus() { return orderStatus; }
+    public DeliveryStatus getDeliveryStatus() { return deliveryStatus; }
+
+    @Override
+    public String toString() {
+        return "OrderStatusChangedEvent{userId=" + userId + ", orderId=" + orderId + ", orderStatus=" + orderStatus
+                + ", deliveryStatus=" + deliveryStatus + "}";
+    }
+}
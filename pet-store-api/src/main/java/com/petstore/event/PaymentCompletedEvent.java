@@ -0,0 +1,29 @@
+package com.petstore.event;
+
+import com.petstore.enums.PaymentStatus;
+
+/**
+ * Published when a pending payment is settled by its gateway, as
+ * {@link PaymentStatus#SUCCESS} or {@link PaymentStatus#FAILED}.
+ */
+public class PaymentCompletedEvent {
+
+    private final Long paymentId;
+    private final Long orderId;
+    private final PaymentStatus status;
+
+    public PaymentCompletedEvent(Long paymentId, Long orderId, PaymentStatus status) {
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.status = status;
+    }
+
+    public Long getPaymentId() { return paymentId; }
+    public Long getOrderId() { return orderId; }
+    public PaymentStatus getStatus() { return status; }
+
+    @Override
+    public String toString() {
+        return "PaymentCompletedEvent{paymentId=" + paymentId + ", orderId=" + orderId + ", status=" + status + "}";
+    }
+}
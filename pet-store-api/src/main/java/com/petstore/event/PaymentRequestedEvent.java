@@ -0,0 +1,32 @@
+package com.petstore.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a payment is recorded as pending, to be charged through its
+ * gateway once the transaction that recorded it commits.
+ */
+public class PaymentRequestedEvent {
+
+    private final Long paymentId;
+    private final Long orderId;
+    private final String gateway;
+    private final BigDecimal amount;
+
+    public PaymentRequestedEvent(Long paymentId, Long orderId, String gateway, BigDecimal amount) {
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.gateway = gateway;
+        this.amount = amount;
+    }
+
+    public Long getPaymentId() { return paymentId; }
+    public Long getOrderId() { return orderId; }
+    public String getGateway() { return gateway; }
+    public BigDecimal getAmount() { return amount; }
+
+    @Override
+    public String toString() {
+        return "PaymentRequestedEvent{paymentId=" + paymentId + ", orderId=" + orderId + ", gateway=" + gateway + "}";
+    }
+}
@@ -0,0 +1,63 @@
+package com.petstore.event;
+
+import java.math.BigDecimal;
+
+import com.petstore.model.PetAlert;
+
+/**
+ * Published when a pet alert is created or deleted. Carries a snapshot of the
+ * alert's criteria, so the alert index can follow after the transaction
+ * commits.
+ */
+public class PetAlertChangedEvent {
+
+    private final Long alertId;
+    private final boolean deleted;
+    private final Long categoryId;
+    private final String tag;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+
+    private PetAlertChangedEvent(Long alertId, boolean deleted, Long categoryId, String tag, BigDecimal minPrice,
+            BigDecimal maxPrice) {
+        this.alertId = alertId;
+        this.deleted = deleted;
+        this.categoryId = categoryId;
+        this.tag = tag;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Creates the event for a saved alert.
+     *
+     * @param alert the saved alert
+     * @return the event
+     */
+    public static PetAlertChangedEvent saved(PetAlert alert) {
+        return new PetAlertChangedEvent(alert.getId(), false, alert.getCategoryId(), alert.getTag(),
+                alert.getMinPrice(), alert.getMaxPrice());
+    }
+
+    /**
+     * Creates the event for a deleted alert.
+     *
+     * @param alertId the deleted alert ID
+     * @return the event
+     */
+    public static PetAlertChangedEvent deleted(Long alertId) {
+        return new PetAlertChangedEvent(alertId, true, null, null, null, null);
+    }
+
+    public Long getAlertId() { return alertId; }
+    public boolean isDeleted() { return deleted; }
+    public Long getCategoryId() { return categoryId; }
+    public String getTag() { return tag; }
+    public BigDecimal getMinPrice() { return minPrice; }
+    public BigDecimal getMaxPrice() { return maxPrice; }
+
+    @Override
+    public String toString() {
+        return "PetAlertChangedEvent{alertId=" + alertId + ", deleted=" + deleted + "}";
+    }
+}
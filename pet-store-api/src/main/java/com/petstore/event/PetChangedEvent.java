@@ -0,0 +1,78 @@
+package com.petstore.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+
+/**
+ * Published when a pet is created, changed or deleted. Carries a snapshot of
+ * the catalog fields taken at publish time, so listeners running after the
+ * transaction commits never touch the (possibly detached) entity.
+ */
+public class PetChangedEvent {
+
+    private final Long petId;
+    private final boolean deleted;
+    private final String name;
+    private final Long categoryId;
+    private final String categoryName;
+    private final PetStatus status;
+    private final BigDecimal price;
+    private final List<String> tags;
+    private final LocalDateTime createdAt;
+
+    private PetChangedEvent(Long petId, boolean deleted, String name, Long categoryId, String categoryName,
+            PetStatus status, BigDecimal price, List<String> tags, LocalDateTime createdAt) {
+        this.petId = petId;
+        this.deleted = deleted;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.status = status;
+        this.price = price;
+        this.tags = tags;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Creates the event for a pet that was created or updated.
+     *
+     * @param pet the saved pet
+     * @return the event
+     */
+    public static PetChangedEvent saved(Pet pet) {
+        Category category = pet.getCategory();
+        return new PetChangedEvent(pet.getId(), false, pet.getName(), category != null ? category.getId() : null,
+                category != null ? category.getName() : null, pet.getStatus(), pet.getPrice(),
+                pet.getTags() != null ? List.copyOf(pet.getTags()) : List.of(), pet.getCreatedAt());
+    }
+
+    /**
+     * Creates the event for a deleted pet.
+     *
+     * @param petId the deleted pet ID
+     * @return the event
+     */
+    public static PetChangedEvent deleted(Long petId) {
+        return new PetChangedEvent(petId, true, null, null, null, null, null, List.of(), null);
+    }
+
+    public Long getPetId() { return petId; }
+    public boolean isDeleted() { return deleted; }
+    public String getName() { return name; }
+    public Long getCategoryId() { return categoryId; }
+    public String getCategoryName() { return categoryName; }
+    public PetStatus getStatus() { return status; }
+    public BigDecimal getPrice() { return price; }
+    public List<String> getTags() { return tags; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return "PetChangedEvent{petId=" + petId + ", deleted=" + deleted + ", status=" + status + "}";
+    }
+}
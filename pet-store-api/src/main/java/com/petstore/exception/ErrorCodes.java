@@ -33,6 +33,8 @@ public final class ErrorCodes {
     public static final String PET_NOT_FOUND = "ERROR_4001";
     public static final String PET_ALREADY_SOLD = "ERROR_4002";
     public static final String PET_ALREADY_EXISTS_IN_USER_CART = "ERROR_4003";
+    public static final String PET_RESERVED = "ERROR_4004";
+    public static final String PET_OUT_OF_STOCK = "ERROR_4005";
 
     public static final String INVALID_DISCOUNT_CODE = "ERROR_5000";
     public static final String DISCOUNT_NOT_FOUND = "ERROR_5001";
@@ -45,9 +47,17 @@ public final class ErrorCodes {
 
     public static final String ORDER_ACCESS_DENIED = "ERROR_7001";
     public static final String ORDER_NOT_FOUND = "ERROR_7002";
+    public static final String FLASH_SALE_BUSY = "ERROR_7003";
+    public static final String IDEMPOTENCY_KEY_IN_USE = "ERROR_7004";
+    public static final String IDEMPOTENCY_KEY_MISMATCH = "ERROR_7005";
+    public static final String VELOCITY_LIMIT_EXCEEDED = "ERROR_7006";
 
     public static final String INVALID_PAYMENT = "ERROR_8001";
     public static final String UNSUPPORTED_PAYMENT = "ERROR_8002";
     public static final String UNSUPPORTED_PAYMENT_TYPE = "ERROR_8003";
+    public static final String PAYMENT_GATEWAY_UNAVAILABLE = "ERROR_8004";
+
+    public static final String INVALID_PET_ALERT = "ERROR_9000";
+    public static final String PET_ALERT_NOT_FOUND = "ERROR_9001";
 
 }
@@ -0,0 +1,17 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a flash sale purchase attempt cannot be queued
+ * because the pet's queue is full.
+ */
+public class FlashSaleBusyException extends RuntimeException {
+
+    /**
+     * Constructs a new FlashSaleBusyException for the specified pet.
+     *
+     * @param petId the ID of the pet whose queue is full
+     */
+    public FlashSaleBusyException(Long petId) {
+        super(String.format("Too many purchase attempts for pet with id: %d, please retry", petId));
+    }
+}
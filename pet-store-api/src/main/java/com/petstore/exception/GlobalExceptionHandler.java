@@ -3,6 +3,7 @@ package com.petstore.exception;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -106,6 +107,26 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.badRequest().body(errorResponse);
         }
 
+        /**
+         * Handles payments refused because their gateway is not taking charges.
+         *
+         * @param ex      the payment gateway unavailable exception
+         * @param request the current HTTP request
+         * @return error response with SERVICE_UNAVAILABLE status
+         */
+        @ExceptionHandler(PaymentGatewayUnavailableException.class)
+        public ResponseEntity<ErrorResponse> handlePaymentGatewayUnavailableException(
+                        PaymentGatewayUnavailableException ex, HttpServletRequest request) {
+                logger.warn("Payment gateway unavailable: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                "Payment Gateway Unavailable",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.PAYMENT_GATEWAY_UNAVAILABLE);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+
         /**
          * Handles address not found errors (404 Not Found)
          *
@@ -266,6 +287,46 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
         }
 
+        /**
+         * Handles pet held by another user's reservation errors (409 Conflict)
+         *
+         * @param ex      the pet reserved exception
+         * @param request the current HTTP request
+         * @return error response with CONFLICT status
+         */
+        @ExceptionHandler(PetReservedException.class)
+        public ResponseEntity<ErrorResponse> handlePetReservedException(
+                        PetReservedException ex, HttpServletRequest request) {
+                logger.warn("Pet reserved: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.CONFLICT.value(),
+                                "Pet Reserved",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.PET_RESERVED);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
+        /**
+         * Handles pet out of stock errors (409 Conflict)
+         *
+         * @param ex      the pet out of stock exception
+         * @param request the current HTTP request
+         * @return error response with CONFLICT status
+         */
+        @ExceptionHandler(PetOutOfStockException.class)
+        public ResponseEntity<ErrorResponse> handlePetOutOfStockException(
+                        PetOutOfStockException ex, HttpServletRequest request) {
+                logger.warn("Pet out of stock: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.CONFLICT.value(),
+                                "Pet Out Of Stock",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.PET_OUT_OF_STOCK);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
         /**
          * Handles user cart not found errors (404 Not Found)
          *
@@ -509,6 +570,131 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.badRequest().body(errorResponse);
         }
 
+        /**
+         * Handles invalid pet alert errors (400 Bad Request)
+         *
+         * @param ex      the invalid pet alert exception
+         * @param request the current HTTP request
+         * @return error response with BAD_REQUEST status
+         */
+        @ExceptionHandler(InvalidPetAlertException.class)
+        public ResponseEntity<ErrorResponse> handleInvalidPetAlertException(
+                        InvalidPetAlertException ex, HttpServletRequest request) {
+                logger.warn("Invalid pet alert: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.BAD_REQUEST.value(),
+                                "Invalid Pet Alert",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.INVALID_PET_ALERT);
+                return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        /**
+         * Handles pet alert not found errors (404 Not Found)
+         *
+         * @param ex      the pet alert not found exception
+         * @param request the current HTTP request
+         * @return error response with NOT_FOUND status
+         */
+        @ExceptionHandler(PetAlertNotFoundException.class)
+        public ResponseEntity<ErrorResponse> handlePetAlertNotFoundException(
+                        PetAlertNotFoundException ex, HttpServletRequest request) {
+                logger.warn("Pet alert not found: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.NOT_FOUND.value(),
+                                "Pet Alert Not Found",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.PET_ALERT_NOT_FOUND);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        /**
+         * Handles purchase attempts turned away because a flash sale queue is
+         * full (503 Service Unavailable)
+         *
+         * @param ex      the flash sale busy exception
+         * @param request the current HTTP request
+         * @return error response with SERVICE_UNAVAILABLE status
+         */
+        @ExceptionHandler(FlashSaleBusyException.class)
+        public ResponseEntity<ErrorResponse> handleFlashSaleBusyException(
+                        FlashSaleBusyException ex, HttpServletRequest request) {
+                logger.warn("Flash sale busy: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                "Flash Sale Busy",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.FLASH_SALE_BUSY);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+
+        /**
+         * Handles a request sent again while the first one with its
+         * idempotency key is still running.
+         *
+         * @param ex      the idempotency key in use exception
+         * @param request the current HTTP request
+         * @return error response with CONFLICT status
+         */
+        @ExceptionHandler(IdempotencyKeyInUseException.class)
+        public ResponseEntity<ErrorResponse> handleIdempotencyKeyInUseException(
+                        IdempotencyKeyInUseException ex, HttpServletRequest request) {
+                logger.warn("Idempotency key in use: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.CONFLICT.value(),
+                                "Request In Progress",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.IDEMPOTENCY_KEY_IN_USE);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
+        /**
+         * Handles an idempotency key reused for a different request.
+         *
+         * @param ex      the idempotency key mismatch exception
+         * @param request the current HTTP request
+         * @return error response with UNPROCESSABLE_ENTITY status
+         */
+        @ExceptionHandler(IdempotencyKeyMismatchException.class)
+        public ResponseEntity<ErrorResponse> handleIdempotencyKeyMismatchException(
+                        IdempotencyKeyMismatchException ex, HttpServletRequest request) {
+                logger.warn("Idempotency key mismatch: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                                "Idempotency Key Mismatch",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.IDEMPOTENCY_KEY_MISMATCH);
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+        }
+
+        /**
+         * Handles checkouts and payments refused for being attempted too often
+         * (429 Too Many Requests), telling the client when to retry.
+         *
+         * @param ex      the velocity limit exceeded exception
+         * @param request the current HTTP request
+         * @return error response with TOO_MANY_REQUESTS status and a Retry-After header
+         */
+        @ExceptionHandler(VelocityLimitExceededException.class)
+        public ResponseEntity<ErrorResponse> handleVelocityLimitExceededException(
+                        VelocityLimitExceededException ex, HttpServletRequest request) {
+                logger.warn("Velocity limit exceeded: {}", ex.getMessage());
+                ErrorResponse errorResponse = new ErrorResponse(
+                                HttpStatus.TOO_MANY_REQUESTS.value(),
+                                "Too Many Requests",
+                                ex.getMessage(),
+                                request.getRequestURI(),
+                                ErrorCodes.VELOCITY_LIMIT_EXCEEDED);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                                .body(errorResponse);
+        }
+
         /*
          * Handles invalid user errors (400 Bad Request)
          */
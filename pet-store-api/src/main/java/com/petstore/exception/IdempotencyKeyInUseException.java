@@ -0,0 +1,18 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a request arrives with an idempotency key whose first
+ * request is still running.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyKeyInUseException for the specified key.
+     *
+     * @param idempotencyKey the idempotency key
+     */
+    public IdempotencyKeyInUseException(String idempotencyKey) {
+        super(String.format("A request with idempotency key '%s' is still in progress, please retry",
+                idempotencyKey));
+    }
+}
@@ -0,0 +1,17 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when an idempotency key is reused for a request that
+ * differs from the one it was first sent with.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyKeyMismatchException for the specified key.
+     *
+     * @param idempotencyKey the idempotency key
+     */
+    public IdempotencyKeyMismatchException(String idempotencyKey) {
+        super(String.format("Idempotency key '%s' was already used for a different request", idempotencyKey));
+    }
+}
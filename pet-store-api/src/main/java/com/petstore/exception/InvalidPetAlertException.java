@@ -0,0 +1,16 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a pet alert is invalid
+ */
+public class InvalidPetAlertException extends RuntimeException {
+
+    /**
+     * Creates exception with a custom message
+     *
+     * @param message the custom error message
+     */
+    public InvalidPetAlertException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a payment gateway is not taking payments, because its
+ * circuit breaker is open or it already has as many payments in flight as it
+ * is allowed.
+ */
+public class PaymentGatewayUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new PaymentGatewayUnavailableException for the specified gateway.
+     *
+     * @param gateway the gateway name
+     */
+    public PaymentGatewayUnavailableException(String gateway) {
+        super(String.format("Payment gateway '%s' is unavailable, please retry later", gateway));
+    }
+}
@@ -0,0 +1,16 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a pet alert is not found, or belongs to another user.
+ */
+public class PetAlertNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new PetAlertNotFoundException with the specified alert ID.
+     *
+     * @param alertId the ID of the alert that was not found
+     */
+    public PetAlertNotFoundException(Long alertId) {
+        super(String.format("Pet alert not found with id: %d", alertId));
+    }
+}
@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+/**
+ * Exception thrown when a pet sold by quantity has fewer units on hand than
+ * requested.
+ */
+public class PetOutOfStockException extends RuntimeException {
+
+    /**
+     * Constructs a new PetOutOfStockException with a standard message.
+     *
+     * @param petId    the ID of the pet
+     * @param quantity the number of units requested
+     */
+    public PetOutOfStockException(Long petId, int quantity) {
+        super(String.format("Pet with ID '%d' has fewer than %d units in stock.", petId, quantity));
+    }
+
+}
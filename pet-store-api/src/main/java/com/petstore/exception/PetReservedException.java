@@ -0,0 +1,21 @@
+package com.petstore.exception;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exception thrown when a pet is held by another user's cart or order
+ * reservation.
+ */
+public class PetReservedException extends RuntimeException {
+
+    /**
+     * Constructs a new PetReservedException with a standard message.
+     *
+     * @param petId         the ID of the reserved pet
+     * @param reservedUntil when the reservation expires
+     */
+    public PetReservedException(Long petId, LocalDateTime reservedUntil) {
+        super(String.format("Pet with ID '%d' is reserved by another customer until %s.", petId, reservedUntil));
+    }
+
+}
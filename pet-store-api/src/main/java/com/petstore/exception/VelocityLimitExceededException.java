@@ -0,0 +1,27 @@
+package com.petstore.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a checkout or payment is refused because too many
+ * were attempted recently by the same user, card or client address.
+ */
+public class VelocityLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new VelocityLimitExceededException for the specified rule.
+     *
+     * @param rule       the rule exceeded, such as {@code payment.per-card}
+     * @param retryAfter how long until the attempt may be allowed
+     */
+    public VelocityLimitExceededException(String rule, Duration retryAfter) {
+        super(String.format("Too many attempts (%s), please retry in %d seconds", rule, retryAfter.toSeconds()));
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
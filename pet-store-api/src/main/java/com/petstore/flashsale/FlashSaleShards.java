@@ -0,0 +1,433 @@
+package com.petstore.flashsale;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.exception.FlashSaleBusyException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-writer queues that decide who gets a pet during a flash sale.
+ *
+ * <p>
+ * Pets are split over {@code app.flash-sale.shards} shards by ID, each with a
+ * bounded queue and one writer thread that alone decides and records claims
+ * for its pets. A writer drains up to {@link #WRITE_BATCH_SIZE} requests,
+ * decides them in memory in arrival order, answers the losers right away, and
+ * marks the winners' pets {@code SOLD} in one transaction of batched
+ * conditional updates before answering them. So concurrent buyers of a hot
+ * pet never wait on its row lock, and once a pet is claimed,
+ * {@link #isClaimed} turns later buyers away without queueing at all.
+ * </p>
+ * <p>
+ * Pets already unavailable in the database lose their first claim and are
+ * remembered as sold. A claim is released by the order that made it, if its
+ * payment fails; a pet saved as available again, or deleted, is forgotten.
+ * Claims live in this replica's memory, so flash sale mode assumes purchases
+ * of a pet reach one replica; the conditional updates still keep a pet from
+ * being sold twice.
+ * </p>
+ */
+@Component
+public class FlashSaleShards {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleShards.class);
+
+    static final int WRITE_BATCH_SIZE = 500;
+
+    /** Claim owner for pets found sold in the database. */
+    private static final long SOLD_ELSEWHERE = 0L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Clock clock;
+
+    private final boolean enabled;
+
+    private final Shard[] shards;
+
+    public FlashSaleShards(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Clock clock,
+            @Value("${app.flash-sale.enabled:false}") boolean enabled,
+            @Value("${app.flash-sale.shards:4}") int shardCount,
+            @Value("${app.flash-sale.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    /**
+     * @return whether flash sale mode is on ({@code app.flash-sale.enabled})
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tells whether a pet has been claimed, without queueing.
+     *
+     * @param petId the pet ID
+     * @return whether the pet is claimed by an order or known to be sold
+     */
+    public boolean isClaimed(Long petId) {
+        return shard(petId).claims.containsKey(petId);
+    }
+
+    /**
+     * Claims every pet of an order, or none. Pets are claimed shard by
+     * shard; if one is taken, those already claimed are released.
+     *
+     * @param orderId the order ID
+     * @param petIds  the order's pet IDs
+     * @return the ID of a pet that was taken, or null if all were claimed
+     * @throws FlashSaleBusyException if a shard's queue is full
+     */
+    public Long claim(Long orderId, Collection<Long> petIds) {
+        for (Long petId : petIds) {
+            if (isClaimed(petId)) {
+                return petId;
+            }
+        }
+        Map<Integer, List<Long>> byShard = byShard(petIds);
+        List<Long> claimed = new ArrayList<>(petIds.size());
+        for (Map.Entry<Integer, List<Long>> entry : byShard.entrySet()) {
+            Long taken;
+            try {
+                taken = submit(shards[entry.getKey()], new Request(Action.CLAIM, orderId, entry.getValue()));
+            } catch (RuntimeException e) {
+                release(orderId, claimed);
+                throw e;
+            }
+            if (taken != null) {
+                release(orderId, claimed);
+                return taken;
+            }
+            claimed.addAll(entry.getValue());
+        }
+        return null;
+    }
+
+    /**
+     * Releases pets an order claimed, making them available again.
+     *
+     * @param orderId the order ID
+     * @param petIds  the pet IDs to release
+     */
+    public void release(Long orderId, Collection<Long> petIds) {
+        for (Map.Entry<Integer, List<Long>> entry : byShard(petIds).entrySet()) {
+            Shard shard = shards[entry.getKey()];
+            Request request = new Request(Action.RELEASE, orderId, entry.getValue());
+            try {
+                shard.queue.put(request);
+                request.result.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted releasing pets {} of order {}", entry.getValue(), orderId);
+                return;
+            } catch (CompletionException e) {
+                logger.error("Releasing pets {} of order {} failed", entry.getValue(), orderId, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Forgets the claim on a pet that was saved as available again, or
+     * deleted, once its transaction has committed.
+     *
+     * @param change the pet change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent change) {
+        if (!enabled || (!change.isDeleted() && change.getStatus() != PetStatus.AVAILABLE)
+                || !isClaimed(change.getPetId())) {
+            return;
+        }
+        if (!shard(change.getPetId()).queue.offer(new Request(Action.FORGET, null, List.of(change.getPetId())))) {
+            logger.warn("Flash sale queue full, pet {} stays claimed", change.getPetId());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (Shard shard : shards) {
+            Thread thread = new Thread(shard::run, "flash-sale-shard-" + shard.index);
+            thread.setDaemon(true);
+            shard.worker = thread;
+            thread.start();
+        }
+        logger.info("Flash sale mode on with {} shards", shards.length);
+    }
+
+    /**
+     * Stops the writers and answers whatever is still queued.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        for (Shard shard : shards) {
+            Thread thread = shard.worker;
+            shard.worker = null;
+            if (thread != null) {
+                thread.interrupt();
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+            List<Request> requests = new ArrayList<>();
+            shard.queue.drainTo(requests);
+            if (!requests.isEmpty()) {
+                shard.process(requests);
+            }
+        }
+    }
+
+    private Long submit(Shard shard, Request request) {
+        if (!shard.queue.offer(request)) {
+            throw new FlashSaleBusyException(request.petIds.get(0));
+        }
+        try {
+            return request.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private Shard shard(Long petId) {
+        return shards[Math.floorMod(petId, shards.length)];
+    }
+
+    private Map<Integer, List<Long>> byShard(Collection<Long> petIds) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long petId : petIds) {
+            List<Long> ids = byShard.computeIfAbsent(Math.floorMod(petId, shards.length), key -> new ArrayList<>());
+            if (!ids.contains(petId)) {
+                ids.add(petId);
+            }
+        }
+        return byShard;
+    }
+
+    private enum Action {
+        CLAIM, RELEASE, FORGET
+    }
+
+    /**
+     * A request to one shard, answered with a taken pet ID or null.
+     */
+    private static final class Request {
+
+        private final Action action;
+        private final Long orderId;
+        private final List<Long> petIds;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private Request(Action action, Long orderId, List<Long> petIds) {
+            this.action = action;
+            this.orderId = orderId;
+            this.petIds = petIds;
+        }
+    }
+
+    /**
+     * One shard's queue, claims and writer.
+     */
+    private final class Shard {
+
+        private final int index;
+
+        private final BlockingQueue<Request> queue;
+
+        /** Claiming order ID by pet ID; only the writer changes it. */
+        private final Map<Long, Long> claims = new ConcurrentHashMap<>();
+
+        private volatile Thread worker;
+
+        private Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void run() {
+            while (worker == Thread.currentThread()) {
+                try {
+                    Request first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    List<Request> requests = new ArrayList<>();
+                    requests.add(first);
+                    queue.drainTo(requests, WRITE_BATCH_SIZE - 1);
+                    process(requests);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    logger.error("Flash sale shard {} failed", index, e);
+                }
+            }
+        }
+
+        /**
+         * Decides the requests in order and records the outcome in one
+         * transaction.
+         */
+        private synchronized void process(List<Request> requests) {
+            loadSold(requests);
+
+            List<Request> winners = new ArrayList<>();
+            List<Long> released = new ArrayList<>();
+            for (Request request : requests) {
+                switch (request.action) {
+                    case CLAIM -> {
+                        Long taken = request.petIds.stream().filter(claims::containsKey).findFirst().orElse(null);
+                        if (taken != null) {
+                            request.result.complete(taken);
+                        } else {
+                            request.petIds.forEach(petId -> claims.put(petId, request.orderId));
+                            winners.add(request);
+                        }
+                    }
+                    case RELEASE -> {
+                        for (Long petId : request.petIds) {
+                            if (claims.remove(petId, request.orderId)) {
+                                released.add(petId);
+                            }
+                        }
+                    }
+                    case FORGET -> {
+                        request.petIds.forEach(claims::remove);
+                        request.result.complete(null);
+                    }
+                }
+            }
+
+            try {
+                List<Request> lost = transactionTemplate.execute(status -> write(winners, released));
+                for (Request request : winners) {
+                    request.result.complete(lost.contains(request) ? taken(request) : null);
+                }
+                for (Request request : requests) {
+                    if (request.action == Action.RELEASE) {
+                        request.result.complete(null);
+                    }
+                }
+            } catch (RuntimeException e) {
+                for (Request request : winners) {
+                    request.petIds.forEach(petId -> claims.remove(petId, request.orderId));
+                    request.result.completeExceptionally(e);
+                }
+                for (Request request : requests) {
+                    if (request.action == Action.RELEASE) {
+                        request.result.completeExceptionally(e);
+                    }
+                }
+                logger.error("Recording flash sale claims failed, {} claims rejected", winners.size(), e);
+            }
+        }
+
+        /**
+         * Remembers as sold the requested pets that are not claimed here but
+         * are not available in the database.
+         */
+        private void loadSold(List<Request> requests) {
+            List<Long> unknown = new ArrayList<>();
+            for (Request request : requests) {
+                if (request.action == Action.CLAIM) {
+                    request.petIds.stream().filter(petId -> !claims.containsKey(petId)).forEach(unknown::add);
+                }
+            }
+            if (unknown.isEmpty()) {
+                return;
+            }
+            namedJdbcTemplate.queryForList("SELECT id FROM pets WHERE id IN (:ids) AND status <> :available",
+                    Map.of("ids", unknown, "available", PetStatus.AVAILABLE.name()), Long.class)
+                    .forEach(petId -> claims.put(petId, SOLD_ELSEWHERE));
+        }
+
+        /**
+         * Marks the winners' pets sold and the released pets available, with
+         * conditional updates. A winner whose pet was changed meanwhile loses,
+         * and its other pets are put back.
+         *
+         * @return the winners that lost
+         */
+        private List<Request> write(List<Request> winners, List<Long> released) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+            if (!released.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE pets SET status = ?, updated_at = ? WHERE id = ? AND status = ?",
+                        released.stream().map(petId -> new Object[] { PetStatus.AVAILABLE.name(), now, petId,
+                                PetStatus.SOLD.name() }).toList());
+            }
+            List<Object[]> rows = new ArrayList<>();
+            for (Request request : winners) {
+                for (Long petId : request.petIds) {
+                    rows.add(new Object[] { PetStatus.SOLD.name(), now, petId, PetStatus.AVAILABLE.name() });
+                }
+            }
+            List<Request> lost = new ArrayList<>();
+            if (rows.isEmpty()) {
+                return lost;
+            }
+            int[] counts = jdbcTemplate.batchUpdate(
+                    "UPDATE pets SET status = ?, updated_at = ? WHERE id = ? AND status = ?", rows);
+            int row = 0;
+            for (Request request : winners) {
+                List<Long> sold = new ArrayList<>();
+                boolean taken = false;
+                for (Long petId : request.petIds) {
+                    if (counts[row++] == 0) {
+                        claims.put(petId, SOLD_ELSEWHERE);
+                        taken = true;
+                    } else {
+                        sold.add(petId);
+                    }
+                }
+                if (taken) {
+                    lost.add(request);
+                    sold.forEach(petId -> claims.remove(petId, request.orderId));
+                    jdbcTemplate.batchUpdate("UPDATE pets SET status = ?, updated_at = ? WHERE id = ?", sold.stream()
+                            .map(petId -> new Object[] { PetStatus.AVAILABLE.name(), now, petId }).toList());
+                }
+            }
+            return lost;
+        }
+
+        private Long taken(Request request) {
+            return request.petIds.stream().filter(petId -> Long.valueOf(SOLD_ELSEWHERE).equals(claims.get(petId))).findFirst()
+                    .orElse(request.petIds.get(0));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.petstore.fraud;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events per key over a sliding window, to within one of its buckets.
+ *
+ * <p>
+ * Each key has a ring of buckets, each a single {@code long} packing the
+ * bucket's time with its count, so an event is counted with one
+ * compare-and-set, which also resets a bucket left from an earlier turn of
+ * the ring. Counting takes no lock and allocates only for a key's first
+ * event. At most {@code maxKeys} keys are kept: once full, keys with nothing
+ * left in their window are evicted first, then arbitrary ones.
+ * </p>
+ */
+final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+
+    private static final long MAX_COUNT = (1L << COUNT_BITS) - 1;
+
+    private final Clock clock;
+
+    private final long bucketMillis;
+
+    private final int buckets;
+
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, AtomicLongArray> windows = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    SlidingWindowCounter(Clock clock, Duration window, int buckets, int maxKeys) {
+        this.clock = clock;
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts an event.
+     *
+     * @param key the key the event is counted under
+     * @return the events counted under the key in the window, this one
+     *         included
+     */
+    long increment(String key) {
+        long epoch = clock.millis() / bucketMillis;
+        AtomicLongArray window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                evict(epoch);
+            }
+            window = windows.computeIfAbsent(key, k -> new AtomicLongArray(buckets));
+        }
+        int slot = (int) (epoch % buckets);
+        long value;
+        long next;
+        do {
+            value = window.get(slot);
+            next = value >>> COUNT_BITS == epoch ? Math.min(value + 1, epoch << COUNT_BITS | MAX_COUNT)
+                    : epoch << COUNT_BITS | 1;
+        } while (!window.compareAndSet(slot, value, next));
+        return sum(window, epoch);
+    }
+
+    /**
+     * @param key a key
+     * @return the events counted under the key in the window
+     */
+    long count(String key) {
+        AtomicLongArray window = windows.get(key);
+        return window == null ? 0 : sum(window, clock.millis() / bucketMillis);
+    }
+
+    /**
+     * @return the number of keys kept
+     */
+    int size() {
+        return windows.size();
+    }
+
+    /**
+     * Drops the keys with nothing left in their window.
+     */
+    void evictIdle() {
+        long epoch = clock.millis() / bucketMillis;
+        windows.values().removeIf(window -> sum(window, epoch) == 0);
+    }
+
+    /**
+     * Makes room for new keys: drops idle keys, then, if that freed too
+     * little, arbitrary keys down to nine tenths of the limit. Callers that
+     * find an eviction under way go on without waiting for it.
+     */
+    private void evict(long epoch) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            windows.values().removeIf(window -> sum(window, epoch) == 0);
+            Iterator<AtomicLongArray> iterator = windows.values().iterator();
+            while (windows.size() > maxKeys * 9L / 10 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private long sum(AtomicLongArray window, long epoch) {
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            long value = window.get(i);
+            if (epoch - (value >>> COUNT_BITS) < buckets) {
+                total += value & MAX_COUNT;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,157 @@
+package com.petstore.fraud;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.PaymentType;
+import com.petstore.exception.VelocityLimitExceededException;
+
+/**
+ * Refuses checkouts and payments attempted too often, before they reach the
+ * database: per user and per client address for checkouts, and per user,
+ * per card and per client address for payments.
+ *
+ * <p>
+ * Each rule allows {@code app.velocity.<rule>} attempts per
+ * {@code app.velocity.window} and is counted in memory by a
+ * {@link SlidingWindowCounter} of at most {@code app.velocity.max-keys} keys;
+ * a limit of 0 turns the rule off, and {@code app.velocity.enabled=false}
+ * turns them all off. Every attempt counts, refused ones included, so a
+ * client that keeps retrying stays refused until it slows down. Card numbers
+ * are only kept hashed. Counts are per replica, so a client spread over
+ * several replicas by the load balancer gets up to that many times the limit.
+ * </p>
+ */
+@Component
+public class VelocityChecker {
+
+    private static final String PREFIX = "app.velocity.";
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final Rule checkoutPerUser;
+
+    private final Rule checkoutPerIp;
+
+    private final Rule paymentPerUser;
+
+    private final Rule paymentPerCard;
+
+    private final Rule paymentPerIp;
+
+    public VelocityChecker(Environment environment, Clock clock) {
+        this.enabled = environment.getProperty(PREFIX + "enabled", Boolean.class, true);
+        this.window = Duration.parse(environment.getProperty(PREFIX + "window", "PT1M"));
+        int buckets = environment.getProperty(PREFIX + "buckets", Integer.class, 6);
+        int maxKeys = environment.getProperty(PREFIX + "max-keys", Integer.class, 50_000);
+        this.checkoutPerUser = rule(environment, "checkout.per-user", 10, clock, buckets, maxKeys);
+        this.checkoutPerIp = rule(environment, "checkout.per-ip", 30, clock, buckets, maxKeys);
+        this.paymentPerUser = rule(environment, "payment.per-user", 10, clock, buckets, maxKeys);
+        this.paymentPerCard = rule(environment, "payment.per-card", 5, clock, buckets, maxKeys);
+        this.paymentPerIp = rule(environment, "payment.per-ip", 30, clock, buckets, maxKeys);
+    }
+
+    /**
+     * Counts a checkout attempt.
+     *
+     * @param userId   the user checking out
+     * @param clientIp the client's address
+     * @throws VelocityLimitExceededException if a checkout rule is exceeded
+     */
+    public void checkCheckout(Long userId, String clientIp) {
+        if (enabled) {
+            check(checkoutPerUser, String.valueOf(userId), checkoutPerIp, clientIp, null, null);
+        }
+    }
+
+    /**
+     * Counts a payment attempt, and the card it is made with, if any.
+     *
+     * @param userId   the user paying
+     * @param request  the payment request
+     * @param clientIp the client's address
+     * @throws VelocityLimitExceededException if a payment rule is exceeded
+     */
+    public void checkPayment(Long userId, PaymentOrderRequest request, String clientIp) {
+        if (enabled) {
+            String card = (request.getPaymentType() == PaymentType.CREDIT_CARD
+                    || request.getPaymentType() == PaymentType.DEBIT_CARD) ? hashCard(request.getCardNumber()) : null;
+            check(paymentPerUser, String.valueOf(userId), paymentPerIp, clientIp, paymentPerCard, card);
+        }
+    }
+
+    /**
+     * Drops the counts of keys with no recent attempts.
+     */
+    @Scheduled(initialDelayString = "${app.velocity.evict-interval:PT1M}",
+            fixedDelayString = "${app.velocity.evict-interval:PT1M}")
+    public void evictIdle() {
+        rules().forEach(rule -> rule.counter().evictIdle());
+    }
+
+    /**
+     * Counts an attempt under every rule that applies, then refuses it if any
+     * is exceeded, so that an attempt refused by one rule still counts
+     * towards the others.
+     */
+    private void check(Rule first, String firstKey, Rule second, String secondKey, Rule third, String thirdKey) {
+        boolean firstExceeded = exceeded(first, firstKey);
+        boolean secondExceeded = exceeded(second, secondKey);
+        boolean thirdExceeded = exceeded(third, thirdKey);
+        Rule refusing = firstExceeded ? first : secondExceeded ? second : thirdExceeded ? third : null;
+        if (refusing != null) {
+            throw new VelocityLimitExceededException(refusing.name(), window);
+        }
+    }
+
+    private static boolean exceeded(Rule rule, String key) {
+        return rule != null && key != null && rule.counter().increment(key) > rule.limit();
+    }
+
+    private Stream<Rule> rules() {
+        return Stream.of(checkoutPerUser, checkoutPerIp, paymentPerUser, paymentPerCard, paymentPerIp)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Hashes a card number's digits, so that the number itself is not kept.
+     */
+    static String hashCard(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        String digits = cardNumber.replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(digits.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash card numbers", e);
+        }
+    }
+
+    private Rule rule(Environment environment, String name, int defaultLimit, Clock clock, int buckets,
+            int maxKeys) {
+        int limit = environment.getProperty(PREFIX + name, Integer.class, defaultLimit);
+        return limit > 0 ? new Rule(name, limit, new SlidingWindowCounter(clock, window, buckets, maxKeys)) : null;
+    }
+
+    private record Rule(String name, int limit, SlidingWindowCounter counter) {
+    }
+}
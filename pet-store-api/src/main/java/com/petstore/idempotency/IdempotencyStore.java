@@ -0,0 +1,265 @@
+package com.petstore.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.exception.IdempotencyKeyInUseException;
+import com.petstore.exception.IdempotencyKeyMismatchException;
+
+/**
+ * Runs store requests sent with an {@code Idempotency-Key} header at most once
+ * per user and key, so a client retrying a checkout or payment after a
+ * timeout gets the first response back instead of a second order or charge.
+ *
+ * <p>
+ * {@code idempotency_keys} is the source of truth: a request claims its key
+ * with an insert that the primary key refuses while the key is held, on any
+ * replica, or with a conditional update of an expired row. The response of a
+ * successful request is stored in the row for {@code app.idempotency.ttl} and
+ * kept in a bounded, least recently used map, so a retry on the same replica
+ * is answered from memory and one on another replica with a single read.
+ * A retry whose first request is still running is refused with a conflict,
+ * and a key sent with a different request is refused outright. A request
+ * that fails gives its key back, so it can be retried; a claim left by a
+ * replica that died mid-request lapses after {@code app.idempotency.lock-timeout}.
+ * </p>
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Clock clock;
+
+    private final Duration ttl;
+
+    private final Duration lockTimeout;
+
+    /** Completed responses, least recently used first; guarded by itself. */
+    private final LinkedHashMap<Key, StoredResponse> responses;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Clock clock,
+            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${app.idempotency.lock-timeout:PT1M}") Duration lockTimeout,
+            @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Hashes a request, so that a key reused for a different request can be
+     * told apart from a retry.
+     *
+     * @param request the method and path of the request, with any parameters
+     * @param body    the request body, or null
+     * @return the request's fingerprint
+     */
+    public String fingerprint(String request, Object body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getBytes(StandardCharsets.UTF_8));
+            if (body != null) {
+                digest.update((byte) '\n');
+                digest.update(objectMapper.writeValueAsBytes(body));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request " + request, e);
+        }
+    }
+
+    /**
+     * Runs a request once for a user and idempotency key, or returns the
+     * response it gave the first time. Must be called outside a transaction,
+     * so that the key is claimed before the request runs and its response
+     * stored once the request has committed.
+     *
+     * @param userId         the user sending the request
+     * @param idempotencyKey the client's key for the request
+     * @param fingerprint    the request's {@linkplain #fingerprint fingerprint}
+     * @param request        runs the request
+     * @return the request's response, or the stored one when replayed
+     * @throws IllegalArgumentException        if the key is blank or too long
+     * @throws IdempotencyKeyInUseException    if the key's first request is still running
+     * @throws IdempotencyKeyMismatchException if the key was sent with a different request
+     */
+    public ResponseEntity<?> execute(Long userId, String idempotencyKey, String fingerprint,
+            Supplier<ResponseEntity<?>> request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+        Key key = new Key(userId, idempotencyKey);
+        StoredResponse stored = cached(key);
+        if (stored == null && !claim(key, fingerprint)) {
+            stored = load(key, fingerprint);
+        }
+        if (stored != null) {
+            if (!stored.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyMismatchException(idempotencyKey);
+            }
+            return ResponseEntity.status(stored.statusCode()).contentType(MediaType.APPLICATION_JSON)
+                    .header(REPLAYED_HEADER, "true").body(stored.body());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        if (response.getStatusCode().is2xxSuccessful()) {
+            store(key, fingerprint, response);
+        } else {
+            release(key);
+        }
+        return response;
+    }
+
+    /**
+     * Deletes expired keys, in the database and in memory.
+     */
+    @Scheduled(initialDelayString = "${app.idempotency.purge-interval:PT10M}",
+            fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purge() {
+        long now = clock.millis();
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", timestamp(now));
+        synchronized (responses) {
+            responses.values().removeIf(stored -> stored.expiresAtMillis() <= now);
+        }
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private StoredResponse cached(Key key) {
+        synchronized (responses) {
+            StoredResponse stored = responses.get(key);
+            if (stored != null && stored.expiresAtMillis() <= clock.millis()) {
+                responses.remove(key);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private boolean claim(Key key, String fingerprint) {
+        long now = clock.millis();
+        Timestamp lockedUntil = timestamp(now + lockTimeout.toMillis());
+        int updated = jdbcTemplate.update("UPDATE idempotency_keys SET fingerprint = ?, status_code = NULL, "
+                + "response_body = NULL, expires_at = ? WHERE user_id = ? AND idempotency_key = ? AND expires_at <= ?",
+                fingerprint, lockedUntil, key.userId(), key.idempotencyKey(), timestamp(now));
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, fingerprint, expires_at) "
+                    + "VALUES (?, ?, ?, ?)", key.userId(), key.idempotencyKey(), fingerprint, lockedUntil);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the response to a key held by another request, once that request
+     * has completed.
+     */
+    private StoredResponse load(Key key, String fingerprint) {
+        StoredResponse stored = jdbcTemplate.query("SELECT fingerprint, status_code, response_body, expires_at "
+                + "FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ?",
+                rs -> rs.next() ? new StoredResponse(rs.getString(1), (Integer) rs.getObject(2, Integer.class),
+                        rs.getString(3), rs.getTimestamp(4).toLocalDateTime().atZone(clock.getZone())
+                                .toInstant().toEpochMilli())
+                        : null,
+                key.userId(), key.idempotencyKey());
+        if (stored != null && !stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(key.idempotencyKey());
+        }
+        if (stored == null || stored.statusCode() == null) {
+            throw new IdempotencyKeyInUseException(key.idempotencyKey());
+        }
+        remember(key, stored);
+        return stored;
+    }
+
+    private void store(Key key, String fingerprint, ResponseEntity<?> response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            logger.warn("Cannot store the response to idempotency key '{}': {}", key.idempotencyKey(),
+                    e.getMessage());
+            release(key);
+            return;
+        }
+        long expiresAtMillis = clock.millis() + ttl.toMillis();
+        StoredResponse stored = new StoredResponse(fingerprint, response.getStatusCode().value(), body,
+                expiresAtMillis);
+        jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, response_body = ?, expires_at = ? "
+                + "WHERE user_id = ? AND idempotency_key = ?", stored.statusCode(), body,
+                timestamp(expiresAtMillis), key.userId(), key.idempotencyKey());
+        remember(key, stored);
+    }
+
+    private void release(Key key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ? "
+                + "AND status_code IS NULL", key.userId(), key.idempotencyKey());
+    }
+
+    private void remember(Key key, StoredResponse stored) {
+        synchronized (responses) {
+            responses.put(key, stored);
+        }
+    }
+
+    private Timestamp timestamp(long epochMillis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), clock.getZone()));
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String fingerprint, Integer statusCode, String body, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,251 @@
+package com.petstore.index;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Base class for in-memory indexes over the pet catalog.
+ *
+ * <p>
+ * The index state is loaded from the database when the application is
+ * ready, and kept current from {@link PetChangedEvent}s after their
+ * transaction commits. A rebuild loads into a fresh state; changes that
+ * commit while it is loading are applied to the live state and replayed on
+ * top of the new one before it replaces the live state. Subclasses read the
+ * state through {@link #read(Function)}; all access is guarded by one
+ * read-write lock, so the state itself need not be thread-safe.
+ * </p>
+ *
+ * <p>
+ * Events only cover writes made by this process. To follow the other
+ * replicas, {@link #catchUp()} re-applies every pet whose {@code updated_at}
+ * is newer than the newest one seen (less {@code app.pet-index.catch-up-overlap},
+ * for transactions that commit late or clocks that disagree) every
+ * {@code app.pet-index.catch-up-interval}. Deleted pets leave no row to find,
+ * so the whole index is also rebuilt every {@code app.pet-index.rebuild-interval}.
+ * </p>
+ *
+ * @param <S> the index state
+ */
+public abstract class AbstractPetIndex<S> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractPetIndex.class);
+
+    static final int REBUILD_BATCH_SIZE = 1_000;
+
+    private final PetRepository petRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Live state, guarded by {@link #lock}. */
+    private S state;
+
+    /** Changes seen while a rebuild is loading, or null; guarded by {@link #lock}. */
+    private List<Consumer<S>> pendingChanges;
+
+    private volatile boolean ready;
+
+    /** Newest {@code updated_at} loaded from the database, or null before the first rebuild. */
+    private volatile LocalDateTime lastSeen;
+
+    @Value("${app.pet-index.catch-up-overlap:PT1M}")
+    private Duration catchUpOverlap = Duration.ofMinutes(1);
+
+    protected AbstractPetIndex(PetRepository petRepository, S initialState) {
+        this.petRepository = petRepository;
+        this.state = initialState;
+    }
+
+    /**
+     * @return a new, empty state to load into
+     */
+    protected abstract S newState();
+
+    /**
+     * Adds a pet, not yet in the state, during a rebuild.
+     */
+    protected abstract void load(S state, PetChangedEvent pet);
+
+    /**
+     * Replaces whatever the state holds for the event's pet with the event's
+     * state, or removes the pet if it was deleted.
+     */
+    protected abstract void apply(S state, PetChangedEvent change);
+
+    /**
+     * Called once a rebuild has loaded every pet, before pending changes are
+     * replayed; for example to compact the state.
+     */
+    protected void loaded(S state) {
+    }
+
+    /**
+     * @return whether this index should be loaded at all
+     */
+    protected boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return whether the index has been loaded at least once
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reloads the whole index from the database, in batches of pet IDs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.pet-index.rebuild-interval:PT30M}",
+            fixedDelayString = "${app.pet-index.rebuild-interval:PT30M}")
+    public synchronized void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        S rebuilt = newState();
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime newest = null;
+        long count = 0;
+        try {
+            long afterId = 0;
+            List<Pet> batch;
+            do {
+                batch = petRepository.findBatchAfterId(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Pet pet : batch) {
+                    load(rebuilt, PetChangedEvent.saved(pet));
+                    afterId = pet.getId();
+                    newest = later(newest, pet.getUpdatedAt());
+                }
+                count += batch.size();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            loaded(rebuilt);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(rebuilt));
+            pendingChanges = null;
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastSeen = newest != null ? newest : started;
+        logger.info("{} rebuilt with {} pets", getClass().getSimpleName(), count);
+    }
+
+    /**
+     * Applies the pets changed since the newest {@code updated_at} seen,
+     * including those changed by other replicas, in keyset batches.
+     */
+    @Scheduled(initialDelayString = "${app.pet-index.catch-up-interval:PT10S}",
+            fixedDelayString = "${app.pet-index.catch-up-interval:PT10S}")
+    public synchronized void catchUp() {
+        if (!isEnabled() || !ready) {
+            return;
+        }
+        LocalDateTime since = lastSeen.minus(catchUpOverlap);
+        LocalDateTime newest = lastSeen;
+        long afterId = 0;
+        long count = 0;
+        List<Pet> batch;
+        do {
+            batch = petRepository.findChangedSince(since, afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            List<PetChangedEvent> changes = new ArrayList<>(batch.size());
+            for (Pet pet : batch) {
+                changes.add(PetChangedEvent.saved(pet));
+                since = pet.getUpdatedAt();
+                afterId = pet.getId();
+                newest = later(newest, since);
+            }
+            update(state -> changes.forEach(change -> apply(state, change)));
+            count += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        lastSeen = newest;
+        logger.debug("{} caught up with {} changed pets", getClass().getSimpleName(), count);
+    }
+
+    /**
+     * Applies a pet change once its transaction has committed (or right away
+     * when it was published outside a transaction).
+     *
+     * @param change the pet change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent change) {
+        update(state -> apply(state, change));
+    }
+
+    /**
+     * Applies a change to the live state under the write lock, and replays it
+     * on the state being loaded if a rebuild is in progress. For changes
+     * other than {@link PetChangedEvent}s.
+     *
+     * @param change the change; must be repeatable on a state that already
+     *               reflects it
+     */
+    protected void update(Consumer<S> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    /**
+     * Reads the live state under the read lock.
+     *
+     * @param reader computes a result from the state; must not keep references to it
+     * @return the reader's result
+     */
+    protected <R> R read(Function<S, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.petstore.index;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.dto.CoPurchaseRecommendation;
+import com.petstore.enums.RecommendationType;
+import com.petstore.event.OrderApprovedEvent;
+import com.petstore.event.PetChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Co-occurrence matrix of the categories and tags bought together, for
+ * "shoppers who bought this also bought" recommendations.
+ *
+ * <p>
+ * Each approved order adds one to the weight of every category and tag it
+ * contained, and of every pair of them, after its transaction commits.
+ * Features are numbered through a dictionary, and each feature's row of pair
+ * weights is an {@link IntFloatHashMap}, so the matrix holds no boxed keys or
+ * per-pair objects. Weights decay by {@code app.copurchase.decay-factor} every
+ * {@code app.copurchase.decay-interval}, so recent buying habits count most,
+ * and weights that fall below {@link #MIN_WEIGHT} are dropped. When
+ * {@code app.copurchase.checkpoint-path} is set, the matrix is written there
+ * (upper triangle only) every {@code app.copurchase.checkpoint-interval} if it
+ * changed, and on shutdown, and read back when the application starts.
+ * </p>
+ */
+@Component
+public class CoPurchaseIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoPurchaseIndex.class);
+
+    /** The most recommendations a lookup returns. */
+    public static final int MAX_RECOMMENDATIONS = 20;
+
+    static final float MIN_WEIGHT = 0.01f;
+
+    private static final String CATEGORY_PREFIX = "category:";
+    private static final String TAG_PREFIX = "tag:";
+    private static final int CHECKPOINT_MAGIC = 0x43504d31;
+
+    private final Path checkpointPath;
+
+    private final float decayFactor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, Integer> featureIds = new HashMap<>();
+    private final List<String> features = new ArrayList<>();
+    private float[] orderWeights = new float[64];
+    private IntFloatHashMap[] pairWeights = new IntFloatHashMap[64];
+    private long changes;
+
+    // Guarded by this
+    private long checkpointedChanges;
+
+    public CoPurchaseIndex(@Value("${app.copurchase.checkpoint-path:}") String checkpointPath,
+            @Value("${app.copurchase.decay-factor:0.98}") float decayFactor) {
+        this.checkpointPath = checkpointPath == null || checkpointPath.isBlank() ? null : Path.of(checkpointPath);
+        this.decayFactor = decayFactor;
+    }
+
+    /**
+     * Counts an approved order's categories and tags once it has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderApproved(OrderApprovedEvent event) {
+        Set<String> basket = features(event.getPets());
+        lock.writeLock().lock();
+        try {
+            int[] ids = basket.stream().mapToInt(this::featureId).toArray();
+            for (int i = 0; i < ids.length; i++) {
+                orderWeights[ids[i]] += 1f;
+                for (int j = 0; j < ids.length; j++) {
+                    if (i != j) {
+                        pairWeights[ids[i]].add(ids[j], 1f);
+                    }
+                }
+            }
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recommends the categories and tags most often bought with the cart's,
+     * excluding the cart's own. A feature's score is the share of past orders
+     * with each cart feature that also contained it, averaged over the cart
+     * features seen before.
+     *
+     * @param cart  snapshots of the pets in the cart
+     * @param limit the maximum number of recommendations, at most
+     *              {@link #MAX_RECOMMENDATIONS}
+     * @return the recommendations, best first; categories have no name yet
+     */
+    public List<CoPurchaseRecommendation> recommend(Collection<PetChangedEvent> cart, int limit) {
+        Set<String> basket = features(cart);
+        lock.readLock().lock();
+        try {
+            int[] cartIds = basket.stream().map(featureIds::get).filter(id -> id != null && orderWeights[id] > 0)
+                    .mapToInt(Integer::intValue).toArray();
+            if (cartIds.length == 0) {
+                return List.of();
+            }
+            IntFloatHashMap scores = new IntFloatHashMap();
+            for (int id : cartIds) {
+                float orders = orderWeights[id];
+                pairWeights[id].forEach((other, weight) -> scores.add(other, weight / orders));
+            }
+
+            // Best score first, then lowest feature ID, as one primitive sort key
+            long[] ranked = new long[scores.size()];
+            int[] count = { 0 };
+            scores.forEach((id, score) -> {
+                if (Arrays.stream(cartIds).noneMatch(cartId -> cartId == id)) {
+                    ranked[count[0]++] = (long) (Integer.MAX_VALUE - Float.floatToIntBits(score)) << 32 | id;
+                }
+            });
+            Arrays.sort(ranked, 0, count[0]);
+
+            List<CoPurchaseRecommendation> recommendations = new ArrayList<>();
+            for (int i = 0; i < Math.min(count[0], Math.min(limit, MAX_RECOMMENDATIONS)); i++) {
+                int id = (int) ranked[i];
+                recommendations.add(recommendation(features.get(id), scores.get(id) / cartIds.length));
+            }
+            return recommendations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scales every weight down by the decay factor, dropping the ones left
+     * below {@link #MIN_WEIGHT}.
+     */
+    @Scheduled(initialDelayString = "${app.copurchase.decay-interval:P1D}",
+            fixedDelayString = "${app.copurchase.decay-interval:P1D}")
+    public void decay() {
+        lock.writeLock().lock();
+        try {
+            for (int id = 0; id < features.size(); id++) {
+                float weight = orderWeights[id] * decayFactor;
+                orderWeights[id] = weight >= MIN_WEIGHT ? weight : 0f;
+                pairWeights[id].decay(decayFactor, MIN_WEIGHT);
+            }
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the matrix to the checkpoint file if it changed since the last
+     * checkpoint. The file is replaced atomically, so a crash mid-write
+     * leaves the previous checkpoint in place.
+     */
+    @Scheduled(initialDelayString = "${app.copurchase.checkpoint-interval:PT5M}",
+            fixedDelayString = "${app.copurchase.checkpoint-interval:PT5M}")
+    public synchronized void checkpoint() {
+        if (checkpointPath == null) {
+            return;
+        }
+        byte[] snapshot;
+        long version;
+        lock.readLock().lock();
+        try {
+            if (changes == checkpointedChanges) {
+                return;
+            }
+            version = changes;
+            snapshot = serialize();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Path directory = checkpointPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, checkpointPath.getFileName().toString(), ".tmp");
+            Files.write(temporary, snapshot);
+            Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            checkpointedChanges = version;
+            logger.debug("Co-purchase checkpoint written to {}: {} bytes", checkpointPath, snapshot.length);
+        } catch (IOException e) {
+            logger.warn("Co-purchase checkpoint to {} failed: {}", checkpointPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        checkpoint();
+    }
+
+    /**
+     * Reads the checkpoint, if there is one, adding it to anything counted
+     * since startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        if (checkpointPath == null || !Files.exists(checkpointPath)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try (InputStream file = Files.newInputStream(checkpointPath)) {
+            deserialize(new DataInputStream(new BufferedInputStream(file)));
+            checkpointedChanges = changes;
+            logger.info("Co-purchase matrix restored from {}: {} features", checkpointPath, features.size());
+        } catch (IOException e) {
+            logger.warn("Co-purchase checkpoint {} unreadable, starting empty: {}", checkpointPath, e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Layout: magic, feature count, then per feature its name, order weight,
+     * and the pairs with higher-numbered features as (feature, weight).
+     */
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(features.size());
+            for (int id = 0; id < features.size(); id++) {
+                int self = id;
+                int[] others = new int[pairWeights[id].size()];
+                float[] weights = new float[others.length];
+                int[] upper = { 0 };
+                pairWeights[id].forEach((other, weight) -> {
+                    if (other > self) {
+                        others[upper[0]] = other;
+                        weights[upper[0]++] = weight;
+                    }
+                });
+                out.writeUTF(features.get(id));
+                out.writeFloat(orderWeights[id]);
+                out.writeInt(upper[0]);
+                for (int i = 0; i < upper[0]; i++) {
+                    out.writeInt(others[i]);
+                    out.writeFloat(weights[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void deserialize(DataInputStream in) throws IOException {
+        if (in.readInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("not a co-purchase checkpoint");
+        }
+        int count = in.readInt();
+        int[] ids = new int[count];
+        float[] weights = new float[count];
+        int[][] others = new int[count][];
+        float[][] pairs = new float[count][];
+        for (int i = 0; i < count; i++) {
+            ids[i] = featureId(in.readUTF());
+            weights[i] = in.readFloat();
+            others[i] = new int[in.readInt()];
+            pairs[i] = new float[others[i].length];
+            for (int j = 0; j < others[i].length; j++) {
+                others[i][j] = in.readInt();
+                pairs[i][j] = in.readFloat();
+            }
+        }
+        // Applied only once the whole file has been read, so a truncated file changes nothing
+        for (int i = 0; i < count; i++) {
+            orderWeights[ids[i]] += weights[i];
+            for (int j = 0; j < others[i].length; j++) {
+                int other = ids[others[i][j]];
+                pairWeights[ids[i]].add(other, pairs[i][j]);
+                pairWeights[other].add(ids[i], pairs[i][j]);
+            }
+        }
+        changes++;
+    }
+
+    private int featureId(String feature) {
+        Integer id = featureIds.get(feature);
+        if (id != null) {
+            return id;
+        }
+        int newId = features.size();
+        if (newId == orderWeights.length) {
+            orderWeights = Arrays.copyOf(orderWeights, newId * 2);
+            pairWeights = Arrays.copyOf(pairWeights, newId * 2);
+        }
+        features.add(feature);
+        featureIds.put(feature, newId);
+        pairWeights[newId] = new IntFloatHashMap();
+        return newId;
+    }
+
+    private static Set<String> features(Collection<PetChangedEvent> pets) {
+        Set<String> features = new LinkedHashSet<>();
+        for (PetChangedEvent pet : pets) {
+            if (pet.getCategoryId() != null) {
+                features.add(CATEGORY_PREFIX + pet.getCategoryId());
+            }
+            for (String tag : pet.getTags()) {
+                features.add(TAG_PREFIX + tag.trim().toLowerCase());
+            }
+        }
+        return features;
+    }
+
+    private static CoPurchaseRecommendation recommendation(String feature, double score) {
+        if (feature.startsWith(CATEGORY_PREFIX)) {
+            return new CoPurchaseRecommendation(RecommendationType.CATEGORY,
+                    Long.valueOf(feature.substring(CATEGORY_PREFIX.length())), null, score);
+        }
+        return new CoPurchaseRecommendation(RecommendationType.TAG, null, feature.substring(TAG_PREFIX.length()),
+                score);
+    }
+}
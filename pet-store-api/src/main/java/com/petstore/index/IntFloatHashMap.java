@@ -0,0 +1,115 @@
+package com.petstore.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative {@code int} keys to
+ * {@code float} values, with linear probing and no per-entry objects. Entries
+ * are only added to or scaled down; {@link #decay} drops the ones that fall
+ * below a threshold. Not thread-safe.
+ */
+final class IntFloatHashMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private float[] values;
+    private int size;
+
+    IntFloatHashMap() {
+        this(8);
+    }
+
+    private IntFloatHashMap(int capacity) {
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /** Adds {@code delta} to the key's value, starting from zero. */
+    void add(int key, float delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += delta;
+    }
+
+    /** Returns the key's value, or zero if absent. */
+    float get(int key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0f : values[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Multiplies every value by {@code factor} and removes the entries left
+     * below {@code minValue}.
+     */
+    void decay(float factor, float minValue) {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        int capacity = 8;
+        while (size * 4 > capacity * 3) {
+            capacity *= 2;
+        }
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            float value = oldValues[i] * factor;
+            if (oldKeys[i] != EMPTY && value >= minValue) {
+                add(oldKeys[i], value);
+            }
+        }
+    }
+
+    /** Calls the consumer for every entry, in no particular order. */
+    void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(int key, float value);
+    }
+}
@@ -0,0 +1,122 @@
+package com.petstore.index;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Open-addressing hash map from positive {@code long} keys to {@code int}
+ * values, with both arrays in direct (off-heap) buffers. Uses linear probing
+ * with backward-shift deletion, so there are no tombstones, and doubles when
+ * half full. Key {@code 0} marks an empty slot. Not thread-safe.
+ */
+final class OffHeapLongIntMap {
+
+    static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private LongBuffer keys;
+    private IntBuffer values;
+    private int mask;
+    private int size;
+
+    OffHeapLongIntMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value for the key, or {@link #MISSING}
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys.get(slot);
+            if (current == key) {
+                return values.get(slot);
+            }
+            if (current == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        if ((size + 1) * 2 > keys.capacity()) {
+            grow();
+        }
+        int slot = slot(key);
+        while (keys.get(slot) != 0 && keys.get(slot) != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys.get(slot) == 0) {
+            size++;
+        }
+        keys.put(slot, key);
+        values.put(slot, value);
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    int remove(long key) {
+        int slot = slot(key);
+        while (keys.get(slot) != key) {
+            if (keys.get(slot) == 0) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int removed = values.get(slot);
+        size--;
+        // Shift later entries of the probe run back into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys.get(next) != 0; next = (next + 1) & mask) {
+            int home = slot(keys.get(next));
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys.put(gap, keys.get(next));
+                values.put(gap, values.get(next));
+                gap = next;
+            }
+        }
+        keys.put(gap, 0);
+        return removed;
+    }
+
+    /**
+     * @return the off-heap bytes held by this map
+     */
+    long offHeapBytes() {
+        return (long) keys.capacity() * Long.BYTES + (long) values.capacity() * Integer.BYTES;
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential IDs over the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void grow() {
+        LongBuffer oldKeys = keys;
+        IntBuffer oldValues = values;
+        allocate(oldKeys.capacity() * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.capacity(); i++) {
+            if (oldKeys.get(i) != 0) {
+                put(oldKeys.get(i), oldValues.get(i));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        values = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,381 @@
+package com.petstore.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.ZoneOffset;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.petstore.enums.PetSort;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Columnar, off-heap snapshot of the catalog fields that price-range and
+ * sorted listings filter and order on: one direct buffer each for the pet
+ * ID, price (in minor units), status, category and creation time. A query is
+ * a single scan over the columns with a bounded top-K heap of primitives, so
+ * no per-pet objects are created and the database only loads the page that
+ * is returned.
+ *
+ * <p>
+ * Rows are updated in place; deleted rows become tombstones until enough of
+ * them pile up to compact the columns. Name sorting and name or user filters
+ * are not covered and stay on the database.
+ * </p>
+ */
+@Component
+public class PetCatalogSnapshot extends AbstractPetIndex<PetCatalogSnapshot.Columns> {
+
+    /** Deepest page position ({@code (page + 1) * size}) answered from the snapshot. */
+    public static final int MAX_TOP_K = 10_000;
+
+    private final boolean enabled;
+
+    public PetCatalogSnapshot(PetRepository petRepository,
+            @Value("${app.catalog.snapshot.enabled:true}") boolean enabled) {
+        super(petRepository, new Columns(0));
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    protected Columns newState() {
+        return new Columns(REBUILD_BATCH_SIZE);
+    }
+
+    @Override
+    protected void load(Columns columns, PetChangedEvent pet) {
+        columns.append(pet);
+    }
+
+    @Override
+    protected void apply(Columns columns, PetChangedEvent change) {
+        columns.apply(change);
+    }
+
+    /**
+     * @param sort the sort option
+     * @return whether the snapshot can order by it
+     */
+    public static boolean supports(PetSort sort) {
+        return sort != PetSort.NAME;
+    }
+
+    /**
+     * Finds one page of pet IDs matching the filters, in the given order.
+     *
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @param sort       the sort option; see {@link #supports(PetSort)}
+     * @param offset     the number of matches to skip
+     * @param limit      the page size
+     * @return the page's pet IDs and the total number of matches
+     */
+    public Matches find(Long categoryId, PetStatus status, BigDecimal minPrice, BigDecimal maxPrice, PetSort sort,
+            int offset, int limit) {
+        if (!supports(sort)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        if (offset < 0 || limit < 0 || (long) offset + limit > MAX_TOP_K) {
+            throw new IllegalArgumentException("Page is beyond the snapshot's top-K limit of " + MAX_TOP_K);
+        }
+        long min = minPrice != null ? minPrice.setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact()
+                : Long.MIN_VALUE;
+        long max = maxPrice != null ? maxPrice.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact()
+                : Long.MAX_VALUE;
+        int category = categoryId != null ? Math.toIntExact(categoryId) : 0;
+        byte statusCode = status != null ? (byte) status.ordinal() : Columns.ANY_STATUS;
+        return read(columns -> columns.find(category, statusCode, min, max, sort, offset, limit));
+    }
+
+    /**
+     * @return the number of pets in the snapshot
+     */
+    public int size() {
+        return read(columns -> columns.live);
+    }
+
+    /**
+     * @return the direct buffer bytes held by the snapshot
+     */
+    public long offHeapBytes() {
+        return read(Columns::offHeapBytes);
+    }
+
+    /**
+     * One page of matching pet IDs, with the total number of matches.
+     */
+    public static final class Matches {
+
+        private final long[] ids;
+        private final long total;
+
+        public Matches(long[] ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public long[] getIds() { return ids; }
+        public long getTotal() { return total; }
+    }
+
+    /**
+     * The columns. Not thread-safe; guarded by the snapshot's lock.
+     */
+    static final class Columns {
+
+        static final byte ANY_STATUS = -1;
+
+        /** Status code of a deleted row. */
+        private static final byte DELETED = -2;
+
+        /** Tombstones are compacted away once they are this share of the rows. */
+        private static final int COMPACT_RATIO = 4;
+
+        private static final int MIN_CAPACITY = 16;
+
+        private LongBuffer ids;
+        private LongBuffer prices;
+        private ByteBuffer statuses;
+        private IntBuffer categories;
+        private LongBuffer createdAts;
+
+        /** Rows in use, including tombstones. */
+        private int rows;
+        private int live;
+        private OffHeapLongIntMap rowsById;
+
+        Columns(int expectedSize) {
+            allocate(Math.max(MIN_CAPACITY, expectedSize));
+            rowsById = new OffHeapLongIntMap(expectedSize);
+        }
+
+        /**
+         * Adds a pet the snapshot does not hold yet.
+         */
+        void append(PetChangedEvent pet) {
+            if (rows == ids.capacity()) {
+                resize(rows * 2);
+            }
+            write(rows, pet);
+            rowsById.put(pet.getPetId(), rows);
+            rows++;
+            live++;
+        }
+
+        void apply(PetChangedEvent change) {
+            int row = rowsById.get(change.getPetId());
+            if (change.isDeleted()) {
+                if (row != OffHeapLongIntMap.MISSING) {
+                    rowsById.remove(change.getPetId());
+                    statuses.put(row, DELETED);
+                    live--;
+                    if ((rows - live) * COMPACT_RATIO > rows) {
+                        compact();
+                    }
+                }
+            } else if (row != OffHeapLongIntMap.MISSING) {
+                write(row, change);
+            } else {
+                append(change);
+            }
+        }
+
+        Matches find(int category, byte status, long minPrice, long maxPrice, PetSort sort, int offset, int limit) {
+            TopK top = new TopK(offset + limit, sort != PetSort.PRICE_ASC);
+            long total = 0;
+            for (int row = 0; row < rows; row++) {
+                byte rowStatus = statuses.get(row);
+                if (rowStatus == DELETED || (status != ANY_STATUS && rowStatus != status)
+                        || (category != 0 && categories.get(row) != category)) {
+                    continue;
+                }
+                long price = prices.get(row);
+                if (price < minPrice || price > maxPrice) {
+                    continue;
+                }
+                total++;
+                top.offer(sort == PetSort.NEWEST ? createdAts.get(row) : price, ids.get(row));
+            }
+            return new Matches(top.sortedIds(offset), total);
+        }
+
+        long offHeapBytes() {
+            long perRow = 3L * Long.BYTES + Integer.BYTES + 1;
+            return ids.capacity() * perRow + rowsById.offHeapBytes();
+        }
+
+        private void write(int row, PetChangedEvent pet) {
+            ids.put(row, pet.getPetId());
+            prices.put(row, pet.getPrice() != null
+                    ? pet.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact()
+                    : 0);
+            statuses.put(row, pet.getStatus() != null ? (byte) pet.getStatus().ordinal() : DELETED);
+            categories.put(row, pet.getCategoryId() != null ? Math.toIntExact(pet.getCategoryId()) : 0);
+            createdAts.put(row, pet.getCreatedAt() != null
+                    ? pet.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+                    : 0);
+        }
+
+        /**
+         * Moves the live rows to the front, in their current order.
+         */
+        private void compact() {
+            int target = 0;
+            rowsById = new OffHeapLongIntMap(live);
+            for (int row = 0; row < rows; row++) {
+                if (statuses.get(row) == DELETED) {
+                    continue;
+                }
+                if (target != row) {
+                    ids.put(target, ids.get(row));
+                    prices.put(target, prices.get(row));
+                    statuses.put(target, statuses.get(row));
+                    categories.put(target, categories.get(row));
+                    createdAts.put(target, createdAts.get(row));
+                }
+                rowsById.put(ids.get(target), target);
+                target++;
+            }
+            rows = target;
+        }
+
+        private void resize(int capacity) {
+            LongBuffer oldIds = ids;
+            LongBuffer oldPrices = prices;
+            ByteBuffer oldStatuses = statuses;
+            IntBuffer oldCategories = categories;
+            LongBuffer oldCreatedAts = createdAts;
+            allocate(capacity);
+            for (int row = 0; row < rows; row++) {
+                ids.put(row, oldIds.get(row));
+                prices.put(row, oldPrices.get(row));
+                statuses.put(row, oldStatuses.get(row));
+                categories.put(row, oldCategories.get(row));
+                createdAts.put(row, oldCreatedAts.get(row));
+            }
+        }
+
+        private void allocate(int capacity) {
+            ids = direct(capacity * Long.BYTES).asLongBuffer();
+            prices = direct(capacity * Long.BYTES).asLongBuffer();
+            statuses = direct(capacity);
+            categories = direct(capacity * Integer.BYTES).asIntBuffer();
+            createdAts = direct(capacity * Long.BYTES).asLongBuffer();
+        }
+
+        private static ByteBuffer direct(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Bounded heap keeping the {@code k} smallest {@code (key, id)} pairs, or
+     * the largest when descending. Descending pairs are stored negated, so the
+     * heap always keeps the smallest; its root is the worst pair kept.
+     */
+    static final class TopK {
+
+        private final long[] keys;
+        private final long[] ids;
+        private final boolean descending;
+        private int size;
+
+        TopK(int k, boolean descending) {
+            this.keys = new long[k];
+            this.ids = new long[k];
+            this.descending = descending;
+        }
+
+        void offer(long key, long id) {
+            if (keys.length == 0) {
+                return;
+            }
+            if (descending) {
+                key = -key;
+                id = -id;
+            }
+            if (size < keys.length) {
+                keys[size] = key;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (less(key, id, 0)) {
+                keys[0] = key;
+                ids[0] = id;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Sorts the kept pairs in place (heap sort) and returns the IDs from
+         * the given position on.
+         */
+        long[] sortedIds(int from) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            int count = Math.max(0, size - from);
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = descending ? -ids[from + i] : ids[from + i];
+            }
+            return result;
+        }
+
+        private boolean less(long key, long id, int slot) {
+            return key < keys[slot] || (key == keys[slot] && id < ids[slot]);
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (!less(keys[parent], ids[parent], slot)) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot, int end) {
+            while (true) {
+                int largest = slot;
+                int left = 2 * slot + 1;
+                if (left < end && less(keys[largest], ids[largest], left)) {
+                    largest = left;
+                }
+                if (left + 1 < end && less(keys[largest], ids[largest], left + 1)) {
+                    largest = left + 1;
+                }
+                if (largest == slot) {
+                    return;
+                }
+                swap(slot, largest);
+                slot = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.petstore.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.repository.PetRepository;
+
+/**
+ * In-memory facet index over the pet catalog: one compressed bitmap of pet
+ * IDs per category, status and tag. Filter intersections and every facet
+ * count are answered from the bitmaps, without touching the database. Pet
+ * IDs must fit in an {@code int}.
+ */
+@Component
+public class PetFacetIndex extends AbstractPetIndex<PetFacetIndex.Bitmaps> {
+
+    /** Tags are open-ended, so only the most frequent ones are returned. */
+    static final int MAX_TAG_FACETS = 50;
+
+    public PetFacetIndex(PetRepository petRepository) {
+        super(petRepository, new Bitmaps());
+    }
+
+    @Override
+    protected Bitmaps newState() {
+        return new Bitmaps();
+    }
+
+    @Override
+    protected void load(Bitmaps bitmaps, PetChangedEvent pet) {
+        bitmaps.add(pet);
+    }
+
+    @Override
+    protected void apply(Bitmaps bitmaps, PetChangedEvent change) {
+        bitmaps.apply(change);
+    }
+
+    @Override
+    protected void loaded(Bitmaps bitmaps) {
+        bitmaps.optimize();
+    }
+
+    /**
+     * Counts the pets matching the filters, and the facet counts for each
+     * category, status and tag. A dimension's counts ignore that dimension's
+     * own filter, so a selected category still shows its siblings' counts;
+     * tags narrow each other, so their counts are within all the filters.
+     *
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param tags       optional tags, all of which must match
+     * @return the total and non-zero facet counts, highest first
+     */
+    public PetFacetsResponse facets(Long categoryId, PetStatus status, Collection<String> tags) {
+        return read(bitmaps -> {
+            RoaringBitmap byCategory = categoryId != null ? bitmaps.bitmap(bitmaps.categories, categoryId) : null;
+            RoaringBitmap byStatus = status != null ? bitmaps.bitmap(bitmaps.statuses, status) : null;
+            RoaringBitmap byTags = null;
+            if (tags != null) {
+                for (String tag : tags) {
+                    RoaringBitmap tagged = bitmaps.bitmap(bitmaps.tags, tag);
+                    byTags = byTags == null ? tagged : RoaringBitmap.and(byTags, tagged);
+                }
+            }
+
+            RoaringBitmap withoutCategory = intersect(bitmaps.all, byStatus, byTags);
+            RoaringBitmap withoutStatus = intersect(bitmaps.all, byCategory, byTags);
+            RoaringBitmap matches = intersect(withoutCategory, byCategory);
+
+            return new PetFacetsResponse(matches.getLongCardinality(),
+                    counts(bitmaps.categories, withoutCategory, Integer.MAX_VALUE),
+                    counts(bitmaps.statuses, withoutStatus, Integer.MAX_VALUE),
+                    counts(bitmaps.tags, matches, MAX_TAG_FACETS));
+        });
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+        RoaringBitmap result = base;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private static <K> Map<K, Long> counts(Map<K, RoaringBitmap> facets, RoaringBitmap matches, int limit) {
+        List<Map.Entry<K, Long>> counts = new ArrayList<>();
+        for (Map.Entry<K, RoaringBitmap> facet : facets.entrySet()) {
+            long count = RoaringBitmap.andCardinality(matches, facet.getValue());
+            if (count > 0) {
+                counts.add(Map.entry(facet.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()));
+        Map<K, Long> result = new LinkedHashMap<>();
+        counts.stream().limit(limit).forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    /**
+     * One set of bitmaps. Not thread-safe; guarded by the index's lock.
+     */
+    static final class Bitmaps {
+
+        private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> categories = new HashMap<>();
+        private final Map<PetStatus, RoaringBitmap> statuses = new EnumMap<>(PetStatus.class);
+        private final Map<String, RoaringBitmap> tags = new HashMap<>();
+
+        <K> RoaringBitmap bitmap(Map<K, RoaringBitmap> facets, K key) {
+            return facets.getOrDefault(key, EMPTY);
+        }
+
+        /**
+         * Replaces whatever the index holds for the pet with the event's
+         * state. The pet's previous facets are not tracked; it is removed
+         * from every bitmap, which is cheap for a bitmap that doesn't hold it.
+         */
+        void apply(PetChangedEvent event) {
+            int id = Math.toIntExact(event.getPetId());
+            if (all.checkedRemove(id)) {
+                remove(categories, id);
+                remove(statuses, id);
+                remove(tags, id);
+            }
+            if (!event.isDeleted()) {
+                add(event);
+            }
+        }
+
+        /**
+         * Adds a pet the index does not hold yet.
+         */
+        void add(PetChangedEvent event) {
+            int id = Math.toIntExact(event.getPetId());
+            all.add(id);
+            if (event.getCategoryId() != null) {
+                categories.computeIfAbsent(event.getCategoryId(), key -> new RoaringBitmap()).add(id);
+            }
+            if (event.getStatus() != null) {
+                statuses.computeIfAbsent(event.getStatus(), key -> new RoaringBitmap()).add(id);
+            }
+            for (String tag : event.getTags()) {
+                tags.computeIfAbsent(tag, key -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        void optimize() {
+            all.runOptimize();
+            categories.values().forEach(RoaringBitmap::runOptimize);
+            statuses.values().forEach(RoaringBitmap::runOptimize);
+            tags.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        private static <K> void remove(Map<K, RoaringBitmap> facets, int id) {
+            Iterator<RoaringBitmap> iterator = facets.values().iterator();
+            while (iterator.hasNext()) {
+                RoaringBitmap bitmap = iterator.next();
+                if (bitmap.checkedRemove(id) && bitmap.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.petstore.index;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Locality-sensitive hashing index for "similar pets". Each pet is described
+ * by a set of features (its tags, category and price band), summarized as a
+ * MinHash signature whose agreement with another pet's signature estimates
+ * the Jaccard similarity of their feature sets. Signatures are split into
+ * bands, and pets sharing any band land in the same bucket, so candidates
+ * come from a few bucket lookups instead of a catalog scan. Candidates are
+ * capped at {@link #MAX_CANDIDATES}, which bounds a lookup regardless of
+ * catalog size. Pet IDs must fit in an {@code int}.
+ */
+@Component
+public class PetSimilarityIndex extends AbstractPetIndex<PetSimilarityIndex.Buckets> {
+
+    /** The most similar pets a lookup returns. */
+    public static final int MAX_SIMILAR = 20;
+
+    /** Candidates scored per lookup, at most. */
+    static final int MAX_CANDIDATES = 1_000;
+
+    static final int SIGNATURE_SIZE = 32;
+
+    /**
+     * Two rows per band: with the few features a pet has, pets sharing about
+     * a third of them are still likely to share a band.
+     */
+    static final int ROWS_PER_BAND = 2;
+
+    static final int BANDS = SIGNATURE_SIZE / ROWS_PER_BAND;
+
+    private static final long[] SEEDS = new SplittableRandom(0x5EED).longs(SIGNATURE_SIZE).toArray();
+
+    public PetSimilarityIndex(PetRepository petRepository) {
+        super(petRepository, new Buckets());
+    }
+
+    @Override
+    protected Buckets newState() {
+        return new Buckets();
+    }
+
+    @Override
+    protected void load(Buckets buckets, PetChangedEvent pet) {
+        buckets.add(pet);
+    }
+
+    @Override
+    protected void apply(Buckets buckets, PetChangedEvent change) {
+        buckets.remove(Math.toIntExact(change.getPetId()));
+        if (!change.isDeleted()) {
+            buckets.add(change);
+        }
+    }
+
+    @Override
+    protected void loaded(Buckets buckets) {
+        buckets.optimize();
+    }
+
+    /**
+     * Finds available pets similar to the given one, most similar first
+     * (ties by ID). The pet itself need not be in the index.
+     *
+     * @param pet   the pet to match
+     * @param limit the maximum number of pets, at most {@link #MAX_SIMILAR}
+     * @return the similar pets' IDs, excluding the pet itself
+     */
+    public long[] similar(PetChangedEvent pet, int limit) {
+        short[] signature = signature(features(pet));
+        int self = Math.toIntExact(pet.getPetId());
+        return read(buckets -> buckets.similar(self, signature, Math.min(limit, MAX_SIMILAR)));
+    }
+
+    /**
+     * The pet's features: its tags (case-insensitive), category and price
+     * band (powers of two of the whole price).
+     */
+    static Set<String> features(PetChangedEvent pet) {
+        Set<String> features = new LinkedHashSet<>();
+        for (String tag : pet.getTags()) {
+            features.add("tag:" + tag.trim().toLowerCase());
+        }
+        if (pet.getCategoryId() != null) {
+            features.add("category:" + pet.getCategoryId());
+        }
+        if (pet.getPrice() != null) {
+            long units = Math.max(1, pet.getPrice().setScale(0, RoundingMode.DOWN).longValue());
+            features.add("price:" + (63 - Long.numberOfLeadingZeros(units)));
+        }
+        return features;
+    }
+
+    /**
+     * MinHash signature: for each seeded hash function, the minimum hash
+     * over the features. Only the low 16 bits of each minimum are kept, which
+     * halves the signatures' memory for a 1 in 65,536 chance of a false match
+     * per slot.
+     */
+    static short[] signature(Set<String> features) {
+        int[] minimums = new int[SIGNATURE_SIZE];
+        Arrays.fill(minimums, Integer.MAX_VALUE);
+        for (String feature : features) {
+            long hash = fnv1a(feature);
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                minimums[i] = Math.min(minimums[i], (int) (mix(hash ^ SEEDS[i]) >>> 32));
+            }
+        }
+        short[] signature = new short[SIGNATURE_SIZE];
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            signature[i] = (short) minimums[i];
+        }
+        return signature;
+    }
+
+    private static long bandKey(short[] signatures, int offset, int band) {
+        long key = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            key = mix(key * 31 + signatures[offset + row]);
+        }
+        return key;
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Signatures and band buckets. Signatures are stored back to back in one
+     * array indexed by pet ID, so scoring a candidate reads one cache line.
+     * Not thread-safe; guarded by the index's lock.
+     */
+    static final class Buckets {
+
+        private short[] signatures = new short[1024 * SIGNATURE_SIZE];
+        private final RoaringBitmap indexed = new RoaringBitmap();
+        private final RoaringBitmap available = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> buckets = new HashMap<>();
+
+        void add(PetChangedEvent pet) {
+            int id = Math.toIntExact(pet.getPetId());
+            int offset = id * SIGNATURE_SIZE;
+            if (offset + SIGNATURE_SIZE > signatures.length) {
+                signatures = Arrays.copyOf(signatures, Math.max(signatures.length * 2, offset + SIGNATURE_SIZE));
+            }
+            System.arraycopy(signature(features(pet)), 0, signatures, offset, SIGNATURE_SIZE);
+            indexed.add(id);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(signatures, offset, band), key -> new RoaringBitmap()).add(id);
+            }
+            if (pet.getStatus() == PetStatus.AVAILABLE) {
+                available.add(id);
+            }
+        }
+
+        void remove(int id) {
+            if (!indexed.checkedRemove(id)) {
+                return;
+            }
+            for (int band = 0; band < BANDS; band++) {
+                long key = bandKey(signatures, id * SIGNATURE_SIZE, band);
+                RoaringBitmap bucket = buckets.get(key);
+                if (bucket != null && bucket.checkedRemove(id) && bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+            available.remove(id);
+        }
+
+        void optimize() {
+            buckets.values().forEach(RoaringBitmap::runOptimize);
+            available.runOptimize();
+        }
+
+        long[] similar(int self, short[] signature, int limit) {
+            // Smaller buckets share a rarer combination of features, so they are drained first
+            List<RoaringBitmap> matching = new ArrayList<>();
+            for (int band = 0; band < BANDS; band++) {
+                RoaringBitmap bucket = buckets.get(bandKey(signature, 0, band));
+                if (bucket != null) {
+                    matching.add(bucket);
+                }
+            }
+            matching.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+
+            RoaringBitmap candidates = new RoaringBitmap();
+            int count = 0;
+            for (RoaringBitmap bucket : matching) {
+                IntIterator ids = bucket.getIntIterator();
+                while (ids.hasNext() && count < MAX_CANDIDATES) {
+                    int id = ids.next();
+                    if (id != self && available.contains(id) && candidates.checkedAdd(id)) {
+                        count++;
+                    }
+                }
+            }
+
+            // Fewest mismatching slots first, then lowest ID, as one primitive sort key
+            long[] scored = new long[count];
+            IntIterator ids = candidates.getIntIterator();
+            for (int i = 0; i < count; i++) {
+                int id = ids.next();
+                scored[i] = (long) mismatches(signature, id * SIGNATURE_SIZE) << 32 | id;
+            }
+            Arrays.sort(scored);
+            long[] similar = new long[Math.min(limit, count)];
+            for (int i = 0; i < similar.length; i++) {
+                similar[i] = (int) scored[i];
+            }
+            return similar;
+        }
+
+        private int mismatches(short[] signature, int offset) {
+            int mismatches = 0;
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                if (signature[i] != signatures[offset + i]) {
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.petstore.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.dto.PetSuggestion;
+import com.petstore.enums.SuggestionType;
+import com.petstore.event.CategoryChangedEvent;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.repository.PetRepository;
+
+/**
+ * In-memory autocomplete index over pet names, tags and category names: a
+ * radix trie (single-child chains collapsed into one edge) keyed by the
+ * lower-cased text. Every node caches the most popular suggestions in its
+ * subtree, so a prefix lookup is a walk down the trie plus a read of one
+ * cached list. Queries of {@link #MIN_FUZZY_LENGTH} or more characters also
+ * match prefixes one edit away (insertion, deletion, substitution or
+ * transposition of adjacent characters); those rank after exact prefix
+ * matches.
+ *
+ * <p>
+ * Popularity is the number of catalog pets carrying the name, tag or
+ * category.
+ * </p>
+ */
+@Component
+public class PetSuggestionIndex extends AbstractPetIndex<PetSuggestionIndex.Terms> {
+
+    /** Size of each node's cached suggestion list, and so the largest limit. */
+    public static final int MAX_SUGGESTIONS = 10;
+
+    /** Shorter queries only match exactly; one edit on them matches almost anything. */
+    static final int MIN_FUZZY_LENGTH = 3;
+
+    public PetSuggestionIndex(PetRepository petRepository) {
+        super(petRepository, new Terms());
+    }
+
+    @Override
+    protected Terms newState() {
+        return new Terms();
+    }
+
+    @Override
+    protected void load(Terms terms, PetChangedEvent pet) {
+        terms.add(pet, false);
+    }
+
+    @Override
+    protected void apply(Terms terms, PetChangedEvent change) {
+        terms.apply(change);
+    }
+
+    @Override
+    protected void loaded(Terms terms) {
+        terms.rankAll();
+    }
+
+    /**
+     * Renames a category's suggestion once the rename has committed.
+     *
+     * @param change the category change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent change) {
+        update(terms -> terms.renameCategory(change.getCategoryId(), change.getName()));
+    }
+
+    /**
+     * Suggests names, tags and categories starting with the query (or, for
+     * longer queries, with a one-edit variant of it), most popular first.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}
+     * @return the suggestions; exact prefix matches before fuzzy ones
+     */
+    public List<PetSuggestion> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int maxEdits = key.length() >= MIN_FUZZY_LENGTH ? 1 : 0;
+        return read(terms -> terms.suggest(key, maxEdits, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The trie, plus what each pet and category contributed to it so changes
+     * can be undone. Not thread-safe; guarded by the index's lock.
+     */
+    static final class Terms {
+
+        private final Node root = new Node("");
+        private final Map<Long, PetTerms> pets = new HashMap<>();
+        private final Map<Long, CategoryTerm> categories = new HashMap<>();
+
+        void apply(PetChangedEvent change) {
+            PetTerms previous = pets.remove(change.getPetId());
+            if (previous != null) {
+                count(previous, -1, true);
+            }
+            if (!change.isDeleted()) {
+                add(change, true);
+            }
+        }
+
+        /**
+         * Adds a pet the index does not hold yet. Without {@code rank}, the
+         * cached suggestion lists go stale until {@link #rankAll()}.
+         */
+        void add(PetChangedEvent pet, boolean rank) {
+            PetTerms terms = new PetTerms(pet.getName(), pet.getTags(), pet.getCategoryId());
+            pets.put(pet.getPetId(), terms);
+            if (pet.getCategoryId() != null) {
+                categories.computeIfAbsent(pet.getCategoryId(), id -> new CategoryTerm(pet.getCategoryName()));
+            }
+            count(terms, 1, rank);
+        }
+
+        void renameCategory(Long categoryId, String name) {
+            CategoryTerm category = categories.get(categoryId);
+            if (category == null || Objects.equals(category.name, name)) {
+                return;
+            }
+            change(SuggestionType.CATEGORY, category.name, -category.pets, true);
+            category.name = name;
+            change(SuggestionType.CATEGORY, category.name, category.pets, true);
+        }
+
+        void rankAll() {
+            root.rankAll();
+        }
+
+        List<PetSuggestion> suggest(String key, int maxEdits, int limit) {
+            Map<Node, Integer> matches = new IdentityHashMap<>();
+            search(root, 0, key, 0, 0, maxEdits, matches);
+
+            Set<Suggestion> exact = new LinkedHashSet<>();
+            List<Suggestion> fuzzy = new ArrayList<>();
+            matches.forEach((node, edits) -> {
+                if (edits == 0) {
+                    exact.addAll(Arrays.asList(node.top));
+                } else {
+                    fuzzy.addAll(Arrays.asList(node.top));
+                }
+            });
+            fuzzy.sort(Suggestion.RANKING);
+
+            Set<Suggestion> ranked = new LinkedHashSet<>(exact);
+            for (Suggestion suggestion : fuzzy) {
+                if (ranked.size() >= limit) {
+                    break;
+                }
+                ranked.add(suggestion);
+            }
+            return ranked.stream().limit(limit)
+                    .map(suggestion -> new PetSuggestion(suggestion.text, suggestion.type, suggestion.count))
+                    .toList();
+        }
+
+        private void count(PetTerms terms, int delta, boolean rank) {
+            change(SuggestionType.NAME, terms.name, delta, rank);
+            Set<String> tags = new LinkedHashSet<>();
+            for (String tag : terms.tags) {
+                String key = normalize(tag);
+                if (tags.add(key)) {
+                    change(SuggestionType.TAG, tag, delta, rank);
+                }
+            }
+            CategoryTerm category = terms.categoryId != null ? categories.get(terms.categoryId) : null;
+            if (category != null) {
+                category.pets += delta;
+                change(SuggestionType.CATEGORY, category.name, delta, rank);
+                if (category.pets == 0) {
+                    categories.remove(terms.categoryId);
+                }
+            }
+        }
+
+        /**
+         * Adds {@code delta} to a suggestion's count, creating or removing it
+         * as needed, and re-ranks the nodes on its path.
+         */
+        private void change(SuggestionType type, String text, int delta, boolean rank) {
+            String key = normalize(text);
+            if (key.isEmpty() || delta == 0) {
+                return;
+            }
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int position = 0;
+            while (position < key.length()) {
+                int index = node.childIndex(key.charAt(position));
+                if (index < 0) {
+                    if (delta < 0) {
+                        return;
+                    }
+                    Node leaf = new Node(key.substring(position));
+                    node.insertChild(leaf);
+                    node = leaf;
+                    position = key.length();
+                } else {
+                    Node child = node.children[index];
+                    int common = commonPrefixLength(child.label, key, position);
+                    if (common < child.label.length()) {
+                        if (delta < 0) {
+                            return;
+                        }
+                        node = node.split(index, common);
+                    } else {
+                        node = child;
+                    }
+                    position += common;
+                }
+                path.add(node);
+            }
+
+            Suggestion suggestion = node.terms[type.ordinal()];
+            if (suggestion == null) {
+                if (delta < 0) {
+                    return;
+                }
+                suggestion = new Suggestion(text.trim(), type);
+                node.terms[type.ordinal()] = suggestion;
+            }
+            suggestion.count += delta;
+            if (suggestion.count <= 0) {
+                node.terms[type.ordinal()] = null;
+            }
+
+            if (rank) {
+                for (int i = path.size() - 1; i >= 0; i--) {
+                    Node onPath = path.get(i);
+                    onPath.rank();
+                    if (i > 0 && onPath.isEmpty()) {
+                        path.get(i - 1).removeChild(onPath);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks every trie position within {@code maxEdits} edits of the key,
+         * recording the node under which each full-key match ends, with the
+         * fewest edits it took.
+         *
+         * @param node     the current node
+         * @param position how much of the node's label has been consumed
+         * @param index    how much of the key has been consumed
+         */
+        private void search(Node node, int position, String key, int index, int edits, int maxEdits,
+                Map<Node, Integer> matches) {
+            if (index == key.length()) {
+                matches.merge(node, edits, Math::min);
+                return;
+            }
+            if (edits < maxEdits) {
+                // The key has an extra character
+                search(node, position, key, index + 1, edits + 1, maxEdits, matches);
+            }
+            if (position < node.label.length()) {
+                step(node, position + 1, node.label.charAt(position), key, index, edits, maxEdits, matches);
+            } else {
+                for (Node child : node.children) {
+                    step(child, 1, child.label.charAt(0), key, index, edits, maxEdits, matches);
+                }
+            }
+        }
+
+        /**
+         * Tries consuming trie character {@code c}, which leads to
+         * {@code (node, position)}, against the key at {@code index}.
+         */
+        private void step(Node node, int position, char c, String key, int index, int edits, int maxEdits,
+                Map<Node, Integer> matches) {
+            if (c == key.charAt(index)) {
+                search(node, position, key, index + 1, edits, maxEdits, matches);
+                return;
+            }
+            if (edits >= maxEdits) {
+                return;
+            }
+            // Substitution
+            search(node, position, key, index + 1, edits + 1, maxEdits, matches);
+            // The key is missing this character
+            search(node, position, key, index, edits + 1, maxEdits, matches);
+            // Two adjacent characters swapped
+            if (index + 1 < key.length() && c == key.charAt(index + 1)) {
+                char swapped = key.charAt(index);
+                if (position < node.label.length()) {
+                    if (node.label.charAt(position) == swapped) {
+                        search(node, position + 1, key, index + 2, edits + 1, maxEdits, matches);
+                    }
+                } else {
+                    int child = node.childIndex(swapped);
+                    if (child >= 0) {
+                        search(node.children[child], 1, key, index + 2, edits + 1, maxEdits, matches);
+                    }
+                }
+            }
+        }
+
+        private static int commonPrefixLength(String label, String key, int from) {
+            int length = 0;
+            while (length < label.length() && from + length < key.length()
+                    && label.charAt(length) == key.charAt(from + length)) {
+                length++;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * A trie node. The label is the edge from the parent; children are kept
+     * sorted by their label's first character.
+     */
+    static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        /** The suggestions ending here, by type ordinal. */
+        private final Suggestion[] terms = new Suggestion[SuggestionType.values().length];
+        /** The subtree's most popular suggestions, best first. */
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = children[middle].label.charAt(0);
+                if (current < c) {
+                    low = middle + 1;
+                } else if (current > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(Node child) {
+            int at = -(childIndex(child.label.charAt(0)) + 1);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int at = childIndex(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Splits the edge to a child after {@code length} characters.
+         *
+         * @return the new node in the middle of the edge
+         */
+        Node split(int index, int length) {
+            Node child = children[index];
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.children = new Node[] { child };
+            middle.top = child.top;
+            children[index] = middle;
+            return middle;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && top.length == 0;
+        }
+
+        void rank() {
+            List<Suggestion> candidates = new ArrayList<>();
+            for (Suggestion term : terms) {
+                if (term != null) {
+                    candidates.add(term);
+                }
+            }
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(Suggestion.RANKING);
+            top = candidates.stream().limit(MAX_SUGGESTIONS).toArray(Suggestion[]::new);
+        }
+
+        void rankAll() {
+            for (Node child : children) {
+                child.rankAll();
+            }
+            rank();
+        }
+    }
+
+    /**
+     * A suggestion and its popularity.
+     */
+    static final class Suggestion {
+
+        static final Comparator<Suggestion> RANKING = Comparator.<Suggestion>comparingLong(s -> s.count).reversed()
+                .thenComparing(s -> s.text, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(s -> s.type);
+
+        private final String text;
+        private final SuggestionType type;
+        private long count;
+
+        Suggestion(String text, SuggestionType type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final class PetTerms {
+
+        private final String name;
+        private final List<String> tags;
+        private final Long categoryId;
+
+        PetTerms(String name, List<String> tags, Long categoryId) {
+            this.name = name;
+            this.tags = tags;
+            this.categoryId = categoryId;
+        }
+    }
+
+    private static final class CategoryTerm {
+
+        private String name;
+        private int pets;
+
+        CategoryTerm(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.math.BigDecimal;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -14,6 +16,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
@@ -29,7 +32,8 @@ import jakarta.validation.constraints.NotNull;
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -47,6 +51,12 @@ public class CartItem {
     @NotNull(message = "Price is required")
     private BigDecimal price;
 
+    // Units of a pet sold by quantity, always 1 for a unique animal; the
+    // price is per unit
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    private int quantity = 1;
+
     /**
      * Gets the unique identifier of the cart item.
      * 
@@ -119,4 +129,22 @@ public class CartItem {
         this.price = price;
     }
 
+    /**
+     * Gets the number of units of the pet in the cart.
+     * 
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the number of units of the pet in the cart.
+     * 
+     * @param quantity the quantity
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
 }
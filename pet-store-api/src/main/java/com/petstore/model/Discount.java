@@ -19,7 +19,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 public class Discount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "discounts_seq")
+    @SequenceGenerator(name = "discounts_seq", sequenceName = "discounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false, length = 20)
@@ -5,6 +5,9 @@ import java.math.BigDecimal;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -12,6 +15,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
@@ -24,7 +28,8 @@ import jakarta.persistence.Table;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +43,12 @@ public class OrderItem {
 
     private BigDecimal price;
 
+    // Units of a pet sold by quantity, always 1 for a unique animal; the
+    // price is per unit
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    private int quantity = 1;
+
     /**
      * Gets the unique identifier of the order item.
      * 
@@ -110,4 +121,22 @@ public class OrderItem {
         this.price = price;
     }
 
+    /**
+     * Gets the number of units of the pet ordered.
+     * 
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the number of units of the pet ordered.
+     * 
+     * @param quantity the quantity
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
 }
@@ -15,8 +15,10 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
@@ -24,12 +26,16 @@ import jakarta.persistence.Table;
  * type, note, and timestamp.
  */
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // Finds asynchronous payments left pending, oldest first, for reconciliation
+        @Index(name = "idx_payments_status_requested", columnList = "status, requested_at")
+})
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -50,6 +56,19 @@ public class Payment {
 
     private LocalDateTime paidAt;
 
+    // Set once the gateway has approved an asynchronous payment
+    private String gatewayReference;
+
+    // Set when an asynchronous payment failed or was declined
+    private String failureReason;
+
+    // Set when an asynchronous payment is sent to its gateway, for reconciliation
+    @Column(length = 32)
+    private String gateway;
+
+    @Column(name = "requested_at")
+    private LocalDateTime requestedAt;
+
     /**
      * Gets the unique identifier of the payment.
      * 
@@ -176,4 +195,76 @@ public class Payment {
         this.paidAt = paidAt;
     }
 
+    /**
+     * Gets the gateway's reference for an approved asynchronous payment.
+     * 
+     * @return the gateway reference
+     */
+    public String getGatewayReference() {
+        return gatewayReference;
+    }
+
+    /**
+     * Sets the gateway's reference for an approved asynchronous payment.
+     * 
+     * @param gatewayReference the gateway reference
+     */
+    public void setGatewayReference(String gatewayReference) {
+        this.gatewayReference = gatewayReference;
+    }
+
+    /**
+     * Gets why an asynchronous payment failed.
+     * 
+     * @return the failure reason
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * Sets why an asynchronous payment failed.
+     * 
+     * @param failureReason the failure reason
+     */
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Gets the gateway an asynchronous payment was sent to.
+     * 
+     * @return the gateway name
+     */
+    public String getGateway() {
+        return gateway;
+    }
+
+    /**
+     * Sets the gateway an asynchronous payment was sent to.
+     * 
+     * @param gateway the gateway name
+     */
+    public void setGateway(String gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * Gets when an asynchronous payment was last sent to its gateway.
+     * 
+     * @return the request timestamp
+     */
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    /**
+     * Sets when an asynchronous payment was last sent to its gateway.
+     * 
+     * @param requestedAt the request timestamp
+     */
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
 }
@@ -1,14 +1,21 @@
 package com.petstore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.petstore.enums.PetStatus;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -23,13 +30,29 @@ import java.util.List;
  * Contains details about the pet, its category, owner, and audit information
  */
 @Entity
-@Table(name = "pets")
+@Table(name = "pets", indexes = {
+        // One index per side of the "my pets" owner/creator OR, merged by MySQL (index_merge union)
+        @Index(name = "idx_pets_owner_created", columnList = "owner_id, created_at"),
+        @Index(name = "idx_pets_creator_created", columnList = "created_by, created_at"),
+        // One index per catalog sort (PetSort), for status and category + status filters;
+        // price_desc reads the price index backwards
+        @Index(name = "idx_pets_status_created", columnList = "status, created_at DESC, id DESC"),
+        @Index(name = "idx_pets_status_price", columnList = "status, price, id"),
+        @Index(name = "idx_pets_status_name", columnList = "status, name, id"),
+        @Index(name = "idx_pets_category_status_created", columnList = "category_id, status, created_at DESC, id DESC"),
+        @Index(name = "idx_pets_category_status_price", columnList = "category_id, status, price, id"),
+        @Index(name = "idx_pets_category_status_name", columnList = "category_id, status, name, id"),
+        // Keyset scan of recently changed pets for the in-memory indexes' catch-up
+        @Index(name = "idx_pets_updated", columnList = "updated_at, id")
+})
+@DynamicUpdate
 @EntityListeners(AuditingEntityListener.class)
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Pet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pets_seq")
+    @SequenceGenerator(name = "pets_seq", sequenceName = "pets_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Pet name is required")
@@ -55,20 +78,27 @@ public class Pet {
     @Column(nullable = false)
     private PetStatus status = PetStatus.AVAILABLE;
 
+    // Units on hand for species sold by quantity (null = a unique animal);
+    // sales take units with a conditional decrement, never through this field
+    @PositiveOrZero(message = "Stock quantity cannot be negative")
+    @Column(name = "stock_quantity")
+    private Integer stockQuantity;
+
     // Owner of the pet (null = store inventory, not null = customer purchase)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
-    @ElementCollection
-    @CollectionTable(name = "pet_photos", joinColumns = @JoinColumn(name = "pet_id"))
-    @Column(name = "photo_url")
+    // Stored as JSON arrays on the pets row so a replaced list is a single
+    // column update instead of a delete-all/re-insert of the collection rows
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "photo_urls")
     private List<String> photoUrls;
 
-    @ElementCollection
-    @CollectionTable(name = "pet_tags", joinColumns = @JoinColumn(name = "pet_id"))
-    @Column(name = "tag")
-    private List<String> tags;
+    // Tags fit the CHAR(50) entries of the multi-valued index on tags (MySQL)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "tags")
+    private List<@Size(max = 50, message = "Tags cannot exceed 50 characters") String> tags;
 
     // Auditing fields
     @CreatedDate
@@ -87,6 +117,13 @@ public class Pet {
     @Column(name = "last_modified_by")
     private Long lastModifiedBy;
 
+    // When another shopper's cart or order reservation runs out; filled in
+    // for catalog responses, not stored on the pets row
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime reservedUntil;
+
     /**
      * Default constructor
      */
@@ -229,6 +266,34 @@ public class Pet {
         this.status = status;
     }
 
+    /**
+     * Gets the units on hand
+     *
+     * @return the stock quantity, or null if the pet is a unique animal
+     */
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    /**
+     * Sets the units on hand
+     *
+     * @param stockQuantity the stock quantity, or null for a unique animal
+     */
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    /**
+     * Checks whether the pet is sold by quantity rather than as a unique animal
+     *
+     * @return true if the pet has a stock quantity
+     */
+    @JsonIgnore
+    public boolean isStocked() {
+        return stockQuantity != null;
+    }
+
     /**
      * Gets the pet owner
      *
@@ -355,5 +420,22 @@ public class Pet {
         this.lastModifiedBy = lastModifiedBy;
     }
 
-    
-}
\ No newline at end of file
+    /**
+     * Gets when the pet's current reservation expires
+     *
+     * @return the reservation's expiry, or null if the pet is not reserved
+     */
+    public LocalDateTime getReservedUntil() {
+        return reservedUntil;
+    }
+
+    /**
+     * Sets when the pet's current reservation expires
+     *
+     * @param reservedUntil the reservation's expiry, or null
+     */
+    public void setReservedUntil(LocalDateTime reservedUntil) {
+        this.reservedUntil = reservedUntil;
+    }
+
+}
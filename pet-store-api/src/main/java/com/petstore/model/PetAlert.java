@@ -0,0 +1,145 @@
+package com.petstore.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Entity class representing a user's saved search: notify me when an
+ * available pet in this category, with this tag, and within this price range
+ * is listed or re-priced. Every criterion is optional, but an alert needs at
+ * least one. The category is kept as a plain ID, so deleting a category never
+ * fails on alerts; alerts for it simply stop matching.
+ */
+@Entity
+@Table(name = "pet_alerts", indexes = {
+        @Index(name = "idx_pet_alerts_user", columnList = "user_id"),
+        @Index(name = "idx_pet_alerts_created", columnList = "created_at, id")
+})
+@EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class PetAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pet_alerts_seq")
+    @SequenceGenerator(name = "pet_alerts_seq", sequenceName = "pet_alerts_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Size(max = 50, message = "Tag cannot exceed 50 characters")
+    @Column(length = 50)
+    private String tag;
+
+    @PositiveOrZero(message = "Minimum price cannot be negative")
+    @Column(name = "min_price", precision = 10, scale = 2)
+    private BigDecimal minPrice;
+
+    @PositiveOrZero(message = "Maximum price cannot be negative")
+    @Column(name = "max_price", precision = 10, scale = 2)
+    private BigDecimal maxPrice;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime createdAt;
+
+    public PetAlert() {
+    }
+
+    public PetAlert(Long categoryId, String tag, BigDecimal minPrice, BigDecimal maxPrice) {
+        this.categoryId = categoryId;
+        this.tag = tag;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PetAlert{id=" + id + ", categoryId=" + categoryId + ", tag=" + tag + ", minPrice=" + minPrice
+                + ", maxPrice=" + maxPrice + "}";
+    }
+}
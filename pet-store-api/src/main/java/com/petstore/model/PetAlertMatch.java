@@ -0,0 +1,95 @@
+package com.petstore.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class recording that a listed pet matched a {@link PetAlert}: the
+ * notification shown to the alert's owner. Rows are written in batches by
+ * {@link com.petstore.alert.PetAlertNotifier}, at most once per alert and
+ * pet; there are no foreign keys, and an alert's matches are removed with it.
+ */
+@Entity
+@Table(name = "pet_alert_matches")
+@IdClass(PetAlertMatch.Key.class)
+public class PetAlertMatch {
+
+    @Id
+    @Column(name = "alert_id")
+    private Long alertId;
+
+    @Id
+    @Column(name = "pet_id")
+    private Long petId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public PetAlertMatch() {
+    }
+
+    public PetAlertMatch(Long alertId, Long petId, LocalDateTime createdAt) {
+        this.alertId = alertId;
+        this.petId = petId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getAlertId() {
+        return alertId;
+    }
+
+    public void setAlertId(Long alertId) {
+        this.alertId = alertId;
+    }
+
+    public Long getPetId() {
+        return petId;
+    }
+
+    public void setPetId(Long petId) {
+        this.petId = petId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Primary key of {@link PetAlertMatch}.
+     */
+    public static class Key implements Serializable {
+
+        private Long alertId;
+        private Long petId;
+
+        public Key() {
+        }
+
+        public Key(Long alertId, Long petId) {
+            this.alertId = alertId;
+            this.petId = petId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(alertId, key.alertId)
+                    && Objects.equals(petId, key.petId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(alertId, petId);
+        }
+    }
+}
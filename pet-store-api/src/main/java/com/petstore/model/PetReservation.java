@@ -0,0 +1,78 @@
+package com.petstore.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class holding a pet's short-lived reservation for the user whose
+ * cart, or placed order, holds it. Rows are written and expired by
+ * {@link com.petstore.reservation.PetReservations}; the primary key on the
+ * pet keeps two users from holding it at once, and there are no foreign keys.
+ */
+@Entity
+@Table(name = "pet_reservations", indexes = {
+        @Index(name = "idx_pet_reservations_order", columnList = "order_id")
+})
+public class PetReservation {
+
+    @Id
+    @Column(name = "pet_id")
+    private Long petId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Set once the reservation is held by a placed order
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public PetReservation() {
+    }
+
+    public PetReservation(Long petId, Long userId, Long orderId, LocalDateTime expiresAt) {
+        this.petId = petId;
+        this.userId = userId;
+        this.orderId = orderId;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getPetId() {
+        return petId;
+    }
+
+    public void setPetId(Long petId) {
+        this.petId = petId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
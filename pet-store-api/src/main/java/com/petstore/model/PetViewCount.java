@@ -0,0 +1,52 @@
+package com.petstore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class holding how many times a pet's details were viewed. Rows are
+ * written in batches by {@link com.petstore.analytics.PetViewCounter}, never
+ * on the request path; there is no foreign key to {@code pets}, and a
+ * deleted pet's row is removed with it.
+ */
+@Entity
+@Table(name = "pet_view_counts", indexes = {
+        // Most viewed first, for the popular pets ranking
+        @Index(name = "idx_pet_view_counts_views", columnList = "view_count DESC, pet_id")
+})
+public class PetViewCount {
+
+    @Id
+    @Column(name = "pet_id")
+    private Long petId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    public PetViewCount() {
+    }
+
+    public PetViewCount(Long petId, long viewCount) {
+        this.petId = petId;
+        this.viewCount = viewCount;
+    }
+
+    public Long getPetId() {
+        return petId;
+    }
+
+    public void setPetId(Long petId) {
+        this.petId = petId;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(long viewCount) {
+        this.viewCount = viewCount;
+    }
+}
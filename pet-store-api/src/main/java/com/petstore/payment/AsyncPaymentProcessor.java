@@ -0,0 +1,108 @@
+package com.petstore.payment;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.event.PaymentRequestedEvent;
+import com.petstore.exception.PaymentGatewayUnavailableException;
+import com.petstore.service.OrderService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Charges payments recorded as pending through their gateway once the
+ * transaction that recorded them has committed, and settles them with
+ * {@link OrderService#completePayment}. A gateway that fails or is not taking
+ * charges fails the payment. A charge that times out may still have been
+ * taken, so its payment is left pending for {@link PaymentReconciler} to
+ * settle from the gateway's record; it is not failed, which would let the
+ * order be paid again.
+ *
+ * <p>
+ * Settlements run on their own few threads
+ * ({@code app.payments.async.completion-threads}) rather than the gateway
+ * pool's or the timer's that completes timed-out charges. Their queue is
+ * unbounded, but never holds more than the charges the gateways' bulkheads
+ * let in flight. A payment left pending by a replica that stopped before it
+ * was settled is reconciled the same way.
+ * </p>
+ */
+@Component
+public class AsyncPaymentProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPaymentProcessor.class);
+
+    private final PaymentGateways paymentGateways;
+
+    private final OrderService orderService;
+
+    private final ExecutorService completions;
+
+    public AsyncPaymentProcessor(PaymentGateways paymentGateways, OrderService orderService,
+            @Value("${app.payments.async.completion-threads:2}") int completionThreads) {
+        this.paymentGateways = paymentGateways;
+        this.orderService = orderService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.completions = Executors.newFixedThreadPool(completionThreads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-completion-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Charges a pending payment once the transaction that recorded it has
+     * committed.
+     *
+     * @param request the payment request
+     */
+    @TransactionalEventListener
+    public void onPaymentRequested(PaymentRequestedEvent request) {
+        paymentGateways.charge(request.getGateway(),
+                new PaymentCharge(request.getPaymentId(), request.getOrderId(), request.getAmount()))
+                .whenCompleteAsync((result, error) -> complete(request, result, error), completions);
+    }
+
+    @PreDestroy
+    public void close() {
+        completions.shutdown();
+    }
+
+    private void complete(PaymentRequestedEvent request, GatewayResult result, Throwable error) {
+        if (cause(error) instanceof TimeoutException) {
+            logger.warn("Payment {} timed out at gateway {}, leaving it pending for reconciliation",
+                    request.getPaymentId(), request.getGateway());
+            return;
+        }
+        if (error != null) {
+            result = GatewayResult.declined(reason(request.getGateway(), error));
+            logger.warn("Payment {} failed: {}", request.getPaymentId(), result.reason());
+        }
+        try {
+            orderService.completePayment(request.getPaymentId(), result);
+        } catch (RuntimeException e) {
+            logger.error("Could not settle payment {} with {}", request.getPaymentId(), result, e);
+        }
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static String reason(String gateway, Throwable error) {
+        Throwable cause = cause(error);
+        if (cause instanceof PaymentGatewayUnavailableException) {
+            return cause.getMessage();
+        }
+        return "Payment gateway " + gateway + " error: " + cause.getMessage();
+    }
+}
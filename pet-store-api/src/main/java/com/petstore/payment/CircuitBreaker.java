@@ -0,0 +1,137 @@
+package com.petstore.payment;
+
+import java.time.Clock;
+
+/**
+ * Circuit breaker for one payment gateway, over the outcomes of its last
+ * {@code window} calls. Once the window is full and at least the threshold
+ * share of it failed, the breaker opens and calls are refused for the open
+ * duration; then a single trial call is let through, which closes the breaker
+ * if it succeeds and opens it again if it fails.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Clock clock;
+
+    private final double failureThreshold;
+
+    private final long openMillis;
+
+    /** Ring of the last outcomes, true for a failure. */
+    private final boolean[] outcomes;
+
+    private int recorded;
+
+    private int failures;
+
+    private int next;
+
+    private State state = State.CLOSED;
+
+    private long openedAtMillis;
+
+    private boolean trialInFlight;
+
+    CircuitBreaker(Clock clock, int window, double failureThreshold, long openMillis) {
+        this.clock = clock;
+        this.outcomes = new boolean[window];
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Tells whether a call would be let through, without taking the trial
+     * call of a half-open breaker.
+     *
+     * @return whether calls are permitted
+     */
+    synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> clock.millis() - openedAtMillis >= openMillis;
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    /**
+     * Lets a call through if the breaker permits it. A call let through must
+     * be followed by {@link #onSuccess}, {@link #onFailure} or
+     * {@link #onSkipped}.
+     *
+     * @return whether the call may go ahead
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.millis() - openedAtMillis >= openMillis) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded == outcomes.length && failures >= failureThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Gives back a call that was let through but never reached the gateway.
+     */
+    synchronized void onSkipped() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = clock.millis();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.petstore.payment;
+
+/**
+ * A payment gateway's answer to a charge it processed: approved with the
+ * gateway's reference, or declined with a reason. A gateway that fails to
+ * answer throws instead, which counts against its circuit breaker.
+ *
+ * @param approved  whether the charge was approved
+ * @param reference the gateway's reference for an approved charge
+ * @param reason    why the charge was declined
+ */
+public record GatewayResult(boolean approved, String reference, String reason) {
+
+    public static GatewayResult approved(String reference) {
+        return new GatewayResult(true, reference, null);
+    }
+
+    public static GatewayResult declined(String reason) {
+        return new GatewayResult(false, null, reason);
+    }
+}
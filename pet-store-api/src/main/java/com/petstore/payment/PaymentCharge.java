@@ -0,0 +1,14 @@
+package com.petstore.payment;
+
+import java.math.BigDecimal;
+
+/**
+ * A charge sent to a payment gateway. The payment ID doubles as the
+ * gateway's idempotency reference, so a charge sent twice is taken once.
+ *
+ * @param paymentId the payment ID
+ * @param orderId   the order being paid for
+ * @param amount    the amount to charge
+ */
+public record PaymentCharge(Long paymentId, Long orderId, BigDecimal amount) {
+}
@@ -0,0 +1,35 @@
+package com.petstore.payment;
+
+/**
+ * Client of one payment gateway. Beans of this type replace the local
+ * {@link StubPaymentGatewayClient} for the gateway they name.
+ */
+public interface PaymentGatewayClient {
+
+    /**
+     * @return the gateway this client talks to, as named by
+     *         {@link PaymentGateways#gatewayFor}
+     */
+    String getGateway();
+
+    /**
+     * Charges a payment, blocking until the gateway answers; the caller
+     * enforces the timeout.
+     *
+     * @param charge the charge
+     * @return the gateway's answer
+     * @throws RuntimeException if the gateway failed or could not be reached
+     */
+    GatewayResult charge(PaymentCharge charge);
+
+    /**
+     * Asks the gateway what became of an earlier charge, by its idempotency
+     * reference, for a charge whose answer was lost to a timeout. Blocks until
+     * the gateway answers; the caller enforces the timeout.
+     *
+     * @param charge the charge sent earlier
+     * @return the gateway's answer to the charge, or null if it never received it
+     * @throws RuntimeException if the gateway failed or could not be reached
+     */
+    GatewayResult status(PaymentCharge charge);
+}
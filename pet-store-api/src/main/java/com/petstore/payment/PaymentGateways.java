@@ -0,0 +1,235 @@
+package com.petstore.payment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.WalletType;
+import com.petstore.exception.PaymentGatewayUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The payment gateways, one per {@link PaymentType} and, for e-wallets, per
+ * {@link WalletType}, each charged through a {@link PaymentGatewayClient}
+ * bean or else a local {@link StubPaymentGatewayClient}.
+ *
+ * <p>
+ * Charges run on one bounded pool ({@code app.payments.async.threads} and
+ * {@code queue-capacity}), off the request threads and outside any database
+ * transaction. Each gateway is isolated from the others by its own bulkhead,
+ * the number of its charges queued or running at once, its own timeout and
+ * its own {@link CircuitBreaker}, so a slow or failing gateway cannot take
+ * the pool's threads from the rest. Settings come from
+ * {@code app.payments.gateway.*} and can be overridden per gateway under
+ * {@code app.payments.gateway.<NAME>.*}, for example
+ * {@code app.payments.gateway.PAYPAL.timeout=PT10S}.
+ * </p>
+ */
+@Component
+public class PaymentGateways {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentGateways.class);
+
+    private static final String PREFIX = "app.payments.gateway.";
+
+    private final boolean asyncEnabled;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Gateway> gateways = new ConcurrentHashMap<>();
+
+    public PaymentGateways(List<PaymentGatewayClient> clients, Environment environment, Clock clock,
+            @Value("${app.payments.async.enabled:false}") boolean asyncEnabled,
+            @Value("${app.payments.async.threads:16}") int threads,
+            @Value("${app.payments.async.queue-capacity:1000}") int queueCapacity) {
+        this.asyncEnabled = asyncEnabled;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Map<String, PaymentGatewayClient> clientsByGateway = new ConcurrentHashMap<>();
+        for (PaymentGatewayClient client : clients) {
+            clientsByGateway.put(client.getGateway(), client);
+        }
+        for (PaymentType type : PaymentType.values()) {
+            if (type != PaymentType.E_WALLET) {
+                clientsByGateway.putIfAbsent(type.name(), stub(type.name(), environment));
+            }
+        }
+        for (WalletType type : WalletType.values()) {
+            clientsByGateway.putIfAbsent(type.name(), stub(type.name(), environment));
+        }
+        clientsByGateway.forEach((name, client) -> gateways.put(name, new Gateway(client,
+                new Semaphore(setting(environment, name, "max-concurrent", Integer.class, 8)),
+                Duration.parse(setting(environment, name, "timeout", String.class, "PT5S")),
+                new CircuitBreaker(clock, setting(environment, name, "window", Integer.class, 20),
+                        setting(environment, name, "failure-threshold", Double.class, 0.5),
+                        Duration.parse(setting(environment, name, "open-duration", String.class, "PT30S"))
+                                .toMillis()))));
+    }
+
+    /**
+     * Names the gateway that charges a payment type: the e-wallet's for
+     * e-wallet payments, else the payment type's.
+     *
+     * @param paymentType the payment type
+     * @param walletType  the e-wallet type, for e-wallet payments
+     * @return the gateway name
+     */
+    public static String gatewayFor(PaymentType paymentType, WalletType walletType) {
+        return paymentType == PaymentType.E_WALLET && walletType != null ? walletType.name() : paymentType.name();
+    }
+
+    /**
+     * @return whether payments are charged through the gateways off the
+     *         request thread ({@code app.payments.async.enabled})
+     */
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    /**
+     * Tells whether a gateway is taking charges: its circuit breaker lets
+     * calls through and its bulkhead has room.
+     *
+     * @param gateway the gateway name
+     * @return whether a charge would be attempted
+     */
+    public boolean isAvailable(String gateway) {
+        Gateway target = gateway(gateway);
+        return target.breaker.isCallPermitted() && target.bulkhead.availablePermits() > 0;
+    }
+
+    /**
+     * Charges a payment through its gateway on the gateway pool.
+     *
+     * @param gateway the gateway name
+     * @param charge  the charge
+     * @return the gateway's answer; completes exceptionally with a
+     *         {@link PaymentGatewayUnavailableException} if the gateway is not
+     *         taking charges, a {@link java.util.concurrent.TimeoutException}
+     *         if it did not answer in time, or the gateway's own failure
+     */
+    public CompletableFuture<GatewayResult> charge(String gateway, PaymentCharge charge) {
+        Gateway target = gateway(gateway);
+        if (!target.breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new PaymentGatewayUnavailableException(gateway));
+        }
+        if (!target.bulkhead.tryAcquire()) {
+            target.breaker.onSkipped();
+            return CompletableFuture.failedFuture(new PaymentGatewayUnavailableException(gateway));
+        }
+        CompletableFuture<GatewayResult> call;
+        try {
+            call = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return target.client.charge(charge);
+                } finally {
+                    target.bulkhead.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            target.bulkhead.release();
+            target.breaker.onSkipped();
+            return CompletableFuture.failedFuture(new PaymentGatewayUnavailableException(gateway));
+        }
+        // A charge that times out keeps its bulkhead slot until the client returns
+        return call.orTimeout(target.timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((result, error) -> {
+            if (error == null) {
+                target.breaker.onSuccess();
+            } else {
+                target.breaker.onFailure();
+                if (target.breaker.state() == CircuitBreaker.State.OPEN) {
+                    logger.warn("Payment gateway {} circuit open after: {}", gateway, error.toString());
+                }
+            }
+        });
+    }
+
+    /**
+     * Asks a gateway what became of an earlier charge, on the gateway pool,
+     * within the gateway's bulkhead and timeout. Lookups do not count
+     * towards the circuit breaker, which judges charges.
+     *
+     * @param gateway the gateway name
+     * @param charge  the charge sent earlier
+     * @return the gateway's answer to the charge, or null if it never received
+     *         it; completes exceptionally as {@link #charge} does
+     */
+    public CompletableFuture<GatewayResult> status(String gateway, PaymentCharge charge) {
+        Gateway target = gateway(gateway);
+        if (!target.bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new PaymentGatewayUnavailableException(gateway));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return target.client.status(charge);
+                } finally {
+                    target.bulkhead.release();
+                }
+            }, executor).orTimeout(target.timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            target.bulkhead.release();
+            return CompletableFuture.failedFuture(new PaymentGatewayUnavailableException(gateway));
+        }
+    }
+
+    /**
+     * @param gateway the gateway name
+     * @return the state of the gateway's circuit breaker, for tests and metrics
+     */
+    CircuitBreaker.State circuitState(String gateway) {
+        return gateway(gateway).breaker.state();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Gateway gateway(String gateway) {
+        Gateway target = gateways.get(gateway);
+        if (target == null) {
+            throw new PaymentGatewayUnavailableException(gateway);
+        }
+        return target;
+    }
+
+    private static StubPaymentGatewayClient stub(String gateway, Environment environment) {
+        return new StubPaymentGatewayClient(gateway,
+                Duration.parse(setting(environment, gateway, "stub-latency", String.class, "PT0.2S")),
+                setting(environment, gateway, "stub-failure-rate", Double.class, 0.0),
+                setting(environment, gateway, "stub-decline-rate", Double.class, 0.0));
+    }
+
+    private static <T> T setting(Environment environment, String gateway, String name, Class<T> type,
+            T defaultValue) {
+        return environment.getProperty(PREFIX + gateway + "." + name, type,
+                environment.getProperty(PREFIX + name, type, defaultValue));
+    }
+
+    private record Gateway(PaymentGatewayClient client, Semaphore bulkhead, Duration timeout,
+            CircuitBreaker breaker) {
+    }
+}
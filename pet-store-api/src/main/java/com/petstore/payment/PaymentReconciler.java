@@ -0,0 +1,138 @@
+package com.petstore.payment;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.petstore.enums.PaymentStatus;
+import com.petstore.scheduling.SchedulerLocks;
+import com.petstore.service.OrderService;
+
+/**
+ * Settles asynchronous payments still pending
+ * {@code app.payments.reconcile.after} after they were sent to their gateway:
+ * those whose charge timed out, and those left behind by a replica that
+ * stopped before settling them.
+ *
+ * <p>
+ * Each is looked up at its gateway by its payment ID, the charge's
+ * idempotency reference, and settled with the gateway's answer through
+ * {@link OrderService#completePayment}, as if the charge had answered in
+ * time. A charge the gateway never received is failed, so the order can be
+ * paid again. A payment whose lookup fails stays pending for the next run.
+ * Runs every {@code app.payments.reconcile.interval}, oldest payments first,
+ * at most {@code app.payments.reconcile.batch-size} of them, under a
+ * {@link SchedulerLocks} lease so that one replica reconciles at a time.
+ * </p>
+ */
+@Component
+public class PaymentReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciler.class);
+
+    static final String LOCK_NAME = "payment-reconciler";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PaymentGateways paymentGateways;
+
+    private final OrderService orderService;
+
+    private final SchedulerLocks schedulerLocks;
+
+    private final Clock clock;
+
+    private final Duration after;
+
+    private final int batchSize;
+
+    private final Duration lease;
+
+    public PaymentReconciler(JdbcTemplate jdbcTemplate, PaymentGateways paymentGateways,
+            OrderService orderService, SchedulerLocks schedulerLocks, Clock clock,
+            @Value("${app.payments.reconcile.after:PT2M}") Duration after,
+            @Value("${app.payments.reconcile.batch-size:100}") int batchSize,
+            @Value("${app.payments.reconcile.lease:PT5M}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentGateways = paymentGateways;
+        this.orderService = orderService;
+        this.schedulerLocks = schedulerLocks;
+        this.clock = clock;
+        this.after = after;
+        this.batchSize = batchSize;
+        this.lease = lease;
+    }
+
+    /**
+     * Settles the oldest payments left pending past the cut-off, unless
+     * another replica is already doing so.
+     *
+     * @return the number of payments settled
+     */
+    @Scheduled(initialDelayString = "${app.payments.reconcile.interval:PT1M}",
+            fixedDelayString = "${app.payments.reconcile.interval:PT1M}")
+    public int reconcile() {
+        if (!schedulerLocks.tryLock(LOCK_NAME, lease)) {
+            return 0;
+        }
+        int settled = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now(clock).minus(after);
+            List<Pending> pending = jdbcTemplate.query("SELECT id, order_id, amount, gateway FROM payments "
+                    + "WHERE status = ? AND requested_at < ? ORDER BY requested_at, id LIMIT ?",
+                    (rs, row) -> new Pending(new PaymentCharge(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3)),
+                            rs.getString(4)),
+                    PaymentStatus.PENDING.name(), Timestamp.valueOf(cutoff), batchSize);
+            for (Pending payment : pending) {
+                if (settle(payment)) {
+                    settled++;
+                }
+            }
+        } finally {
+            schedulerLocks.unlock(LOCK_NAME);
+        }
+        if (settled > 0) {
+            logger.info("Reconciled {} pending payments with their gateways", settled);
+        }
+        return settled;
+    }
+
+    private boolean settle(Pending payment) {
+        Long paymentId = payment.charge().paymentId();
+        GatewayResult result;
+        try {
+            result = paymentGateways.status(payment.gateway(), payment.charge()).get();
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            logger.warn("Could not look up payment {} at gateway {}, retrying later: {}", paymentId,
+                    payment.gateway(), cause.toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (result == null) {
+            result = GatewayResult.declined("Payment gateway " + payment.gateway() + " never received the charge");
+        }
+        try {
+            orderService.completePayment(paymentId, result);
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Could not settle payment {} with {}", paymentId, result, e);
+            return false;
+        }
+    }
+
+    private record Pending(PaymentCharge charge, String gateway) {
+    }
+}
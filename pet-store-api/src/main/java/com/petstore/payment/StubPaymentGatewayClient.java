@@ -0,0 +1,66 @@
+package com.petstore.payment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a payment gateway, used for every gateway without a
+ * {@link PaymentGatewayClient} bean. Each charge takes the configured latency,
+ * give or take half, and fails or is declined at the configured rates, so
+ * timeouts, bulkheads and circuit breakers can be exercised without a
+ * network. The latest answer for each payment is kept for {@link #status}.
+ */
+public class StubPaymentGatewayClient implements PaymentGatewayClient {
+
+    private final String gateway;
+
+    private final Duration latency;
+
+    private final double failureRate;
+
+    private final double declineRate;
+
+    private final Map<Long, GatewayResult> answers = new ConcurrentHashMap<>();
+
+    public StubPaymentGatewayClient(String gateway, Duration latency, double failureRate, double declineRate) {
+        this.gateway = gateway;
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.declineRate = declineRate;
+    }
+
+    @Override
+    public String getGateway() {
+        return gateway;
+    }
+
+    @Override
+    public GatewayResult charge(PaymentCharge charge) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nanos = latency.toNanos();
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos / 2 + random.nextLong(nanos + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while charging payment " + charge.paymentId(), e);
+            }
+        }
+        double draw = random.nextDouble();
+        if (draw < failureRate) {
+            throw new IllegalStateException(gateway + " gateway error for payment " + charge.paymentId());
+        }
+        GatewayResult result = draw < failureRate + declineRate ? GatewayResult.declined("Declined by " + gateway)
+                : GatewayResult.approved(gateway + "-" + charge.paymentId());
+        answers.put(charge.paymentId(), result);
+        return result;
+    }
+
+    @Override
+    public GatewayResult status(PaymentCharge charge) {
+        return answers.get(charge.paymentId());
+    }
+}
@@ -0,0 +1,31 @@
+package com.petstore.reconciliation;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * What a reconciliation of a settlement file found.
+ *
+ * @param bytes      the size of the file
+ * @param lines      the settled lines read, not counting a header or blank lines
+ * @param matched    the lines that matched their payment exactly
+ * @param mismatches the number of mismatches of each type
+ * @param elapsed    how long the reconciliation took
+ */
+public record ReconciliationSummary(long bytes, long lines, long matched,
+        Map<SettlementMismatch.Type, Long> mismatches, Duration elapsed) {
+
+    /**
+     * @return the total number of mismatches
+     */
+    public long mismatchCount() {
+        return mismatches.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the file read, in megabytes per second
+     */
+    public double megabytesPerSecond() {
+        return bytes / 1_000_000.0 / Math.max(elapsed.toNanos(), 1) * 1_000_000_000.0;
+    }
+}
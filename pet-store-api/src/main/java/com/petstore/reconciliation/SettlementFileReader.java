@@ -0,0 +1,226 @@
+package com.petstore.reconciliation;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.WalletType;
+
+/**
+ * Reads a settlement file: one settled charge per line, as
+ * {@code payment_id,gateway,amount}, with any further fields ignored and an
+ * optional header line. The gateway is named as by
+ * {@link com.petstore.payment.PaymentGateways#gatewayFor}, and the amount has
+ * at most two decimals.
+ *
+ * <p>
+ * Files of any size are memory-mapped a window at a time, and lines are
+ * parsed straight from the mapped bytes into primitives: no {@code String}
+ * or other object is created per line, so reading runs at close to the
+ * speed of the page cache and leaves nothing for the garbage collector.
+ * </p>
+ */
+final class SettlementFileReader {
+
+    /** Bytes mapped at once; a line may not be longer. */
+    static final long WINDOW_BYTES = 1L << 28;
+
+    /** Gateway names, indexed as passed to the handler. */
+    static final List<String> GATEWAYS;
+
+    private static final byte[][] GATEWAY_BYTES;
+
+    static {
+        List<String> gateways = new ArrayList<>();
+        for (PaymentType type : PaymentType.values()) {
+            if (type != PaymentType.E_WALLET) {
+                gateways.add(type.name());
+            }
+        }
+        for (WalletType type : WalletType.values()) {
+            gateways.add(type.name());
+        }
+        GATEWAYS = List.copyOf(gateways);
+        GATEWAY_BYTES = gateways.stream().map(name -> name.getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new);
+    }
+
+    /**
+     * Receives the lines of a settlement file, in file order.
+     */
+    interface LineHandler {
+
+        /**
+         * @param line        the line number, from 1
+         * @param paymentId   the payment ID
+         * @param gateway     the gateway, as an index into {@link #GATEWAYS}
+         * @param amountCents the settled amount, in hundredths
+         */
+        void settled(long line, long paymentId, int gateway, long amountCents);
+
+        /**
+         * @param line the number of a line that could not be parsed
+         */
+        void malformed(long line);
+    }
+
+    private final long windowBytes;
+
+    SettlementFileReader() {
+        this(WINDOW_BYTES);
+    }
+
+    SettlementFileReader(long windowBytes) {
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Reads a settlement file.
+     *
+     * @param file    the file
+     * @param handler receives each line
+     * @return the number of bytes read
+     * @throws IOException if the file cannot be read, or has a line longer
+     *                     than a window
+     */
+    long read(Path file, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long line = 0;
+            while (position < size) {
+                long length = Math.min(windowBytes, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    // Stop after the last whole line; the next window starts there
+                    while (end > 0 && buffer.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + windowBytes + " bytes at offset " + position
+                                + " of " + file);
+                    }
+                }
+                int start = 0;
+                while (start < end) {
+                    start = parseLine(buffer, start, end, ++line, handler);
+                }
+                position += end;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Parses the line starting at {@code start}.
+     *
+     * @return where the next line starts
+     */
+    private static int parseLine(MappedByteBuffer buffer, int start, int end, long line, LineHandler handler) {
+        int i = start;
+        long paymentId = 0;
+        int digits = 0;
+        byte b = 0;
+        while (i < end && (b = buffer.get(i)) >= '0' && b <= '9' && digits < 18) {
+            paymentId = paymentId * 10 + (b - '0');
+            digits++;
+            i++;
+        }
+        if (digits == 0 || i == end || b != ',') {
+            // A blank line, or a header in place of the first line
+            if (!isBlank(buffer, start, end) && (line > 1 || isDigit(buffer.get(start)))) {
+                handler.malformed(line);
+            }
+            return nextLine(buffer, i, end);
+        }
+
+        int gatewayStart = ++i;
+        while (i < end && (b = buffer.get(i)) != ',' && b != '\r' && b != '\n') {
+            i++;
+        }
+        int gateway = gateway(buffer, gatewayStart, i);
+        if (gateway < 0 || i == end || b != ',') {
+            handler.malformed(line);
+            return nextLine(buffer, i, end);
+        }
+
+        i++;
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long cents = 0;
+        digits = 0;
+        while (i < end && (b = buffer.get(i)) >= '0' && b <= '9' && digits < 16) {
+            cents = cents * 10 + (b - '0');
+            digits++;
+            i++;
+        }
+        int decimals = 0;
+        if (i < end && buffer.get(i) == '.') {
+            i++;
+            while (i < end && (b = buffer.get(i)) >= '0' && b <= '9' && decimals < 2) {
+                cents = cents * 10 + (b - '0');
+                decimals++;
+                i++;
+            }
+        }
+        for (; decimals < 2; decimals++) {
+            cents *= 10;
+        }
+        if (digits == 0 || i < end && (b = buffer.get(i)) != ',' && b != '\r' && b != '\n') {
+            handler.malformed(line);
+            return nextLine(buffer, i, end);
+        }
+        handler.settled(line, paymentId, gateway, negative ? -cents : cents);
+        return nextLine(buffer, i, end);
+    }
+
+    private static int gateway(MappedByteBuffer buffer, int start, int end) {
+        for (int gateway = 0; gateway < GATEWAY_BYTES.length; gateway++) {
+            byte[] name = GATEWAY_BYTES[gateway];
+            if (name.length != end - start) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length && buffer.get(start + i) == name[i]) {
+                i++;
+            }
+            if (i == name.length) {
+                return gateway;
+            }
+        }
+        return -1;
+    }
+
+    private static int nextLine(MappedByteBuffer buffer, int i, int end) {
+        while (i < end && buffer.get(i++) != '\n') {
+            // Skip the rest of the line
+        }
+        return i;
+    }
+
+    private static boolean isBlank(MappedByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                return true;
+            }
+            if (b != '\r' && b != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,41 @@
+package com.petstore.reconciliation;
+
+import java.math.BigDecimal;
+
+import com.petstore.enums.PaymentStatus;
+
+/**
+ * A difference between a settlement file and the {@code payments} table.
+ *
+ * @param type           what differs
+ * @param line           the line of the settlement file, or 0 for a payment
+ *                       the file does not settle
+ * @param paymentId      the payment ID, or null for a malformed line
+ * @param gateway        the gateway the file settled the payment through, or
+ *                       null
+ * @param settledAmount  the amount the file settled, or null
+ * @param recordedAmount the payment's amount, or null
+ * @param recordedStatus the payment's status, or null
+ */
+public record SettlementMismatch(Type type, long line, Long paymentId, String gateway, BigDecimal settledAmount,
+        BigDecimal recordedAmount, PaymentStatus recordedStatus) {
+
+    public enum Type {
+        /** The file settles a payment that does not exist. */
+        MISSING_PAYMENT,
+        /** The file settles a different amount than the payment's. */
+        AMOUNT_MISMATCH,
+        /** The file settles a payment that did not succeed. */
+        NOT_SUCCESSFUL,
+        /** The file settles a payment of another payment type. */
+        GATEWAY_MISMATCH,
+        /** A successful payment of the file's provider that the file does not settle. */
+        UNSETTLED,
+        /** The file settles a payment more than once. */
+        DUPLICATE,
+        /** A line out of payment ID order, which cannot be matched. */
+        UNSORTED,
+        /** A line that cannot be parsed. */
+        MALFORMED
+    }
+}
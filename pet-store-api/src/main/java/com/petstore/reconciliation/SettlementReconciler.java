@@ -0,0 +1,308 @@
+package com.petstore.reconciliation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.petstore.enums.PaymentStatus;
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.WalletType;
+
+/**
+ * Reconciles the {@code payments} table against the settlement files of the
+ * payment providers, reporting every payment the file and the table disagree
+ * on as a {@link SettlementMismatch}.
+ *
+ * <p>
+ * A file must be sorted by payment ID. It is read by a
+ * {@link SettlementFileReader} and merge-joined against the payments in its
+ * ID range, read in ID order a chunk at a time ({@code app.reconciliation.chunk-size})
+ * with keyset paging into reused arrays, so neither the file nor the table is
+ * ever held in memory and memory use does not grow with the file. Only
+ * mismatches allocate.
+ * </p>
+ *
+ * <p>
+ * Files dropped into {@code app.reconciliation.inbox}, named after their
+ * provider's gateway as in {@code GRABPAY-2026-10-18.csv}, are reconciled on
+ * {@code app.reconciliation.cron}. Each is claimed by an atomic move into
+ * {@code processing/}, so only one replica reconciles it, then its
+ * mismatches are written to {@code reports/} and it is moved to
+ * {@code done/}, or to {@code failed/} if it could not be read.
+ * </p>
+ */
+@Component
+public class SettlementReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementReconciler.class);
+
+    static final String REPORT_HEADER = "type,line,payment_id,gateway,settled_amount,recorded_amount,recorded_status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int chunkSize;
+
+    private final String inbox;
+
+    private final SettlementFileReader reader = new SettlementFileReader();
+
+    public SettlementReconciler(JdbcTemplate jdbcTemplate,
+            @Value("${app.reconciliation.chunk-size:5000}") int chunkSize,
+            @Value("${app.reconciliation.inbox:}") String inbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.inbox = inbox;
+    }
+
+    /**
+     * Reconciles a settlement file.
+     *
+     * <p>
+     * Payments the file does not settle are reported as
+     * {@linkplain SettlementMismatch.Type#UNSETTLED unsettled} only between its
+     * first and last payment IDs, and not for e-wallet providers, since a
+     * payment does not record which e-wallet paid it.
+     * </p>
+     *
+     * @param file       the settlement file
+     * @param provider   the gateway that settled it, as named by
+     *                   {@link com.petstore.payment.PaymentGateways#gatewayFor}
+     * @param mismatches receives each mismatch, in file order
+     * @return what the reconciliation found
+     * @throws IOException if the file cannot be read
+     */
+    public ReconciliationSummary reconcile(Path file, String provider, Consumer<SettlementMismatch> mismatches)
+            throws IOException {
+        long started = System.nanoTime();
+        Merge merge = new Merge(paymentType(provider), mismatches);
+        long bytes = reader.read(file, merge);
+        Map<SettlementMismatch.Type, Long> counts = new EnumMap<>(SettlementMismatch.Type.class);
+        for (SettlementMismatch.Type type : SettlementMismatch.Type.values()) {
+            if (merge.counts[type.ordinal()] > 0) {
+                counts.put(type, merge.counts[type.ordinal()]);
+            }
+        }
+        return new ReconciliationSummary(bytes, merge.lines, merge.matched, counts,
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * Reconciles the settlement files in the inbox, if one is configured.
+     */
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 2 * * *}")
+    public void reconcileInbox() {
+        if (inbox.isBlank()) {
+            return;
+        }
+        Path directory = Path.of(inbox);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.csv")) {
+            for (Path file : files) {
+                reconcileInboxFile(directory, file);
+            }
+        } catch (IOException e) {
+            logger.error("Cannot read the settlement inbox {}", directory, e);
+        }
+    }
+
+    private void reconcileInboxFile(Path directory, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int dash = name.indexOf('-');
+        String provider = (dash > 0 ? name.substring(0, dash) : name.substring(0, name.length() - 4))
+                .toUpperCase(Locale.ROOT);
+        Path claimed = directory.resolve("processing").resolve(name);
+        Files.createDirectories(claimed.getParent());
+        try {
+            Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            return; // Claimed by another replica
+        }
+
+        Path report = directory.resolve("reports").resolve(name.substring(0, name.length() - 4) + ".mismatches.csv");
+        Files.createDirectories(report.getParent());
+        Path destination;
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write(REPORT_HEADER);
+            writer.newLine();
+            ReconciliationSummary summary = reconcile(claimed, provider, mismatch -> write(writer, mismatch));
+            logger.info("Reconciled {} against payments: {} lines, {} matched, mismatches {}, {} MB/s", name,
+                    summary.lines(), summary.matched(), summary.mismatches(),
+                    String.format(Locale.ROOT, "%.1f", summary.megabytesPerSecond()));
+            destination = directory.resolve("done");
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            logger.error("Cannot reconcile settlement file {}", name, e);
+            destination = directory.resolve("failed");
+        }
+        Files.createDirectories(destination);
+        Files.move(claimed, destination.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(BufferedWriter writer, SettlementMismatch mismatch) {
+        try {
+            writer.write(mismatch.type() + "," + mismatch.line() + "," + text(mismatch.paymentId()) + ","
+                    + text(mismatch.gateway()) + "," + text(mismatch.settledAmount()) + ","
+                    + text(mismatch.recordedAmount()) + "," + text(mismatch.recordedStatus()));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+    }
+
+    private static PaymentType paymentType(String gateway) {
+        for (WalletType type : WalletType.values()) {
+            if (type.name().equals(gateway)) {
+                return PaymentType.E_WALLET;
+            }
+        }
+        return PaymentType.valueOf(gateway);
+    }
+
+    private static PaymentType[] gatewayPaymentTypes() {
+        return SettlementFileReader.GATEWAYS.stream().map(SettlementReconciler::paymentType)
+                .toArray(PaymentType[]::new);
+    }
+
+    /**
+     * Walks the payments in ID order alongside the file.
+     */
+    private final class Merge implements SettlementFileReader.LineHandler {
+
+        private final PaymentType[] gatewayTypes = gatewayPaymentTypes();
+
+        private final PaymentType provider;
+
+        private final Consumer<SettlementMismatch> mismatches;
+
+        private final long[] counts = new long[SettlementMismatch.Type.values().length];
+
+        private final long[] ids = new long[chunkSize];
+
+        /** Amounts in hundredths, or {@link Long#MIN_VALUE} if null. */
+        private final long[] amounts = new long[chunkSize];
+
+        private final PaymentStatus[] statuses = new PaymentStatus[chunkSize];
+
+        private final PaymentType[] types = new PaymentType[chunkSize];
+
+        private int size;
+
+        private int next;
+
+        private boolean exhausted;
+
+        private long lastSettledId = -1;
+
+        private long lines;
+
+        private long matched;
+
+        Merge(PaymentType provider, Consumer<SettlementMismatch> mismatches) {
+            this.provider = provider;
+            this.mismatches = mismatches;
+        }
+
+        @Override
+        public void settled(long line, long paymentId, int gateway, long amountCents) {
+            lines++;
+            if (paymentId <= lastSettledId) {
+                report(paymentId == lastSettledId ? SettlementMismatch.Type.DUPLICATE
+                        : SettlementMismatch.Type.UNSORTED, line, paymentId, gateway, amountCents, -1);
+                return;
+            }
+            if (lastSettledId < 0) {
+                load(paymentId - 1);
+            }
+            lastSettledId = paymentId;
+
+            while (current() >= 0 && ids[next] < paymentId) {
+                if (statuses[next] == PaymentStatus.SUCCESS && types[next] == provider
+                        && provider != PaymentType.E_WALLET) {
+                    report(SettlementMismatch.Type.UNSETTLED, 0, ids[next], -1, Long.MIN_VALUE, next);
+                }
+                next++;
+            }
+            int row = current();
+            if (row < 0 || ids[row] != paymentId) {
+                report(SettlementMismatch.Type.MISSING_PAYMENT, line, paymentId, gateway, amountCents, -1);
+                return;
+            }
+            next++;
+            if (statuses[row] != PaymentStatus.SUCCESS) {
+                report(SettlementMismatch.Type.NOT_SUCCESSFUL, line, paymentId, gateway, amountCents, row);
+            } else if (types[row] != gatewayTypes[gateway]) {
+                report(SettlementMismatch.Type.GATEWAY_MISMATCH, line, paymentId, gateway, amountCents, row);
+            } else if (amounts[row] != amountCents) {
+                report(SettlementMismatch.Type.AMOUNT_MISMATCH, line, paymentId, gateway, amountCents, row);
+            } else {
+                matched++;
+            }
+        }
+
+        @Override
+        public void malformed(long line) {
+            report(SettlementMismatch.Type.MALFORMED, line, null, -1, Long.MIN_VALUE, -1);
+        }
+
+        /**
+         * @return the index of the next payment, reading the next chunk if
+         *         needed, or -1 when there are no more
+         */
+        private int current() {
+            if (next == size && !exhausted) {
+                load(ids[size - 1]);
+            }
+            return next < size ? next : -1;
+        }
+
+        private void load(long afterId) {
+            size = 0;
+            next = 0;
+            jdbcTemplate.query("SELECT id, amount, status, payment_type FROM payments WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        ids[size] = rs.getLong(1);
+                        BigDecimal amount = rs.getBigDecimal(2);
+                        amounts[size] = amount == null ? Long.MIN_VALUE
+                                : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                        String status = rs.getString(3);
+                        statuses[size] = status == null ? null : PaymentStatus.valueOf(status);
+                        types[size] = PaymentType.valueOf(rs.getString(4));
+                        size++;
+                    }, afterId, chunkSize);
+            exhausted = size < chunkSize;
+        }
+
+        private void report(SettlementMismatch.Type type, long line, Long paymentId, int gateway, long amountCents,
+                int row) {
+            counts[type.ordinal()]++;
+            mismatches.accept(new SettlementMismatch(type, line, paymentId,
+                    gateway < 0 ? null : SettlementFileReader.GATEWAYS.get(gateway),
+                    amountCents == Long.MIN_VALUE ? null : BigDecimal.valueOf(amountCents, 2),
+                    row < 0 || amounts[row] == Long.MIN_VALUE ? null : BigDecimal.valueOf(amounts[row], 2),
+                    row < 0 ? null : statuses[row]));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.petstore.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.petstore.model.CartItem;
 
@@ -26,4 +29,14 @@ public interface CartItemRepository  extends JpaRepository<CartItem, Long>{
      * @return true if the cart item exists, false otherwise
      */
     boolean existsById(Long id);
+
+    /**
+     * Finds the IDs of the unique pets in a user's cart, leaving out pets sold
+     * by quantity, without loading the cart
+     *
+     * @param userId the user ID
+     * @return the IDs of the unique pets in the user's cart
+     */
+    @Query("SELECT i.pet.id FROM CartItem i WHERE i.cart.user.id = :userId AND i.pet.stockQuantity IS NULL")
+    List<Long> findUniquePetIdsByUserId(@Param("userId") Long userId);
 }
@@ -3,10 +3,17 @@ package com.petstore.repository;
 import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import com.petstore.model.Order;
 import com.petstore.model.Address;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 /**
@@ -20,8 +27,36 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @param userId the user ID to search for
      * @return list of orders belonging to the given user
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Order> findByUserId(Long userId);
 
+    /**
+     * Finds a user's orders with everything the order listing serializes
+     * (items and their pets, payment, delivery, user, billing address and
+     * discount) fetched in the same query, so the response does not lazy-load
+     * them order by order.
+     *
+     * @param userId the user ID to search for
+     * @return list of orders belonging to the given user
+     */
+    @EntityGraph(attributePaths = { "items", "items.pet", "items.pet.category", "payment", "delivery", "user",
+            "user.roles", "billingAddress", "discount" })
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId")
+    List<Order> findWithDetailsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Finds all orders with everything the order listing serializes fetched
+     * in the same query; see {@link #findWithDetailsByUserId(Long)}.
+     *
+     * @return list of all orders
+     */
+    @EntityGraph(attributePaths = { "items", "items.pet", "items.pet.category", "payment", "delivery", "user",
+            "user.roles", "billingAddress", "discount" })
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
+
     /**
      * Checks if an address is used as shipping or billing address in any order
      *
@@ -31,6 +66,26 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) > 0 FROM Order o WHERE o.shippingAddress = :address OR o.billingAddress = :address")
     boolean existsByAddressUsed(@Param("address") Address address);
 
+    /**
+     * Finds an order by its ID, locking its row until the end of the
+     * transaction so that it cannot be cancelled or paid concurrently
+     *
+     * @param orderId the order ID to search for
+     * @return an Optional containing the locked order if found, or empty if not
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    /**
+     * Checks if an order belongs to a user, without loading the order
+     *
+     * @param orderId the order ID to check
+     * @param userId the user ID to check
+     * @return true if the order exists and belongs to the user, false otherwise
+     */
+    boolean existsByIdAndUserId(Long orderId, Long userId);
+
     /**
      * Finds an order by its ID and user ID
      *
@@ -40,4 +95,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Optional<Order> findByIdAndUserId(Long orderId, Long userId);
 
+    /**
+     * Finds the IDs of the unique pets in an order, leaving out pets sold by
+     * quantity, without loading the order
+     *
+     * @param orderId the order ID
+     * @return the IDs of the order's unique pets
+     */
+    @Query("SELECT i.pet.id FROM OrderItem i WHERE i.order.id = :orderId AND i.pet.stockQuantity IS NULL")
+    List<Long> findUniquePetIdsByOrderId(@Param("orderId") Long orderId);
+
 }
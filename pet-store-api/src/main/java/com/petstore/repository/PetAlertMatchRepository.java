@@ -0,0 +1,39 @@
+package com.petstore.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.petstore.model.PetAlertMatch;
+
+/**
+ * Repository for reading pet alert matches; they are written by
+ * {@link com.petstore.alert.PetAlertNotifier}
+ */
+public interface PetAlertMatchRepository extends JpaRepository<PetAlertMatch, PetAlertMatch.Key> {
+
+        /**
+         * Finds the matches of a user's alerts, newest first
+         *
+         * @param userId   the alerts' owner
+         * @param pageable the page to read
+         * @return the matches
+         */
+        @Query("SELECT m FROM PetAlertMatch m WHERE m.alertId IN "
+                        + "(SELECT a.id FROM PetAlert a WHERE a.user.id = :userId) "
+                        + "ORDER BY m.createdAt DESC, m.alertId, m.petId")
+        List<PetAlertMatch> findByUserId(@Param("userId") Long userId, Pageable pageable);
+
+        /**
+         * Deletes an alert's matches
+         *
+         * @param alertId the alert ID
+         */
+        @Modifying
+        @Query("DELETE FROM PetAlertMatch m WHERE m.alertId = :alertId")
+        void deleteByAlertId(@Param("alertId") Long alertId);
+}
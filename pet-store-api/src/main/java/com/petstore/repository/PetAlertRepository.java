@@ -0,0 +1,39 @@
+package com.petstore.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.petstore.model.PetAlert;
+
+/**
+ * Repository for managing pet alert entities in the database
+ */
+public interface PetAlertRepository extends JpaRepository<PetAlert, Long> {
+
+        /**
+         * Finds a user's alerts, newest first
+         *
+         * @param userId the owner's user ID
+         * @return the user's alerts
+         */
+        List<PetAlert> findByUserIdOrderByIdDesc(Long userId);
+
+        /**
+         * Finds an alert if it belongs to the given user
+         *
+         * @param id     the alert ID
+         * @param userId the owner's user ID
+         * @return the alert, or empty if it does not exist or belongs to someone else
+         */
+        Optional<PetAlert> findByIdAndUserId(Long id, Long userId);
+
+        /**
+         * Counts a user's alerts
+         *
+         * @param userId the owner's user ID
+         * @return the number of alerts
+         */
+        long countByUserId(Long userId);
+}
@@ -1,23 +1,38 @@
 package com.petstore.repository;
 
+import com.petstore.enums.PetSort;
 import com.petstore.enums.PetStatus;
 import com.petstore.model.Pet;
 import com.petstore.model.User;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository for managing pet entities in the database
  */
 @Repository
-public interface PetRepository extends JpaRepository<Pet, Long> {
+public interface PetRepository extends JpaRepository<Pet, Long>, JpaSpecificationExecutor<Pet> {
+
+    /** Default catalog order: newest first, id as a stable tie-breaker. */
+    Sort NEWEST_FIRST = PetSort.NEWEST.getSort();
 
     /**
      * Finds pets by their status
@@ -72,27 +87,97 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
             Pageable pageable);
 
     /**
-     * Finds pets matching multiple filter criteria (paginated), including those associated with a user if user is provided
+     * Finds pets matching multiple filter criteria (paginated), including those associated with a user if user is provided.
+     * The query is built from {@link PetSpecifications}, so only the filters that are present are rendered, and the
+     * owner/creator case runs as an OR of two indexed lookups. Unsorted pages are ordered newest first, with the id
+     * as a tie-breaker (see {@link PetSort} for the other orders).
      *
      * @param name optional pet name filter
      * @param categoryId optional category ID filter
      * @param status optional pet status filter
-     * @param user the user to filter pets by
+     * @param userId optional user whose owned or created pets to return
      * @param pageable pagination parameters
-     * @return paginated result of pets ordered by creation date
+     * @return paginated result of pets
      */
-    @Query("SELECT p FROM Pet p WHERE " +
-            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
-            "(:status IS NULL OR p.status = :status) AND " +
-            "(:userId IS NULL OR p.owner.id = :userId OR p.createdBy = :userId) " +
-            "ORDER BY p.createdAt DESC")
-    Page<Pet> findPetsByFiltersPaginated(
-            @Param("name") String name,
-            @Param("categoryId") Long categoryId,
-            @Param("status") PetStatus status,
-            @Param("userId") Long userId, 
-            Pageable pageable);
+    default Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, Long userId,
+            Pageable pageable) {
+        return findPetsByFiltersPaginated(name, categoryId, status, null, null, userId, pageable);
+    }
+
+    /**
+     * Finds pets matching multiple filter criteria (paginated), as
+     * {@link #findPetsByFiltersPaginated(String, Long, PetStatus, Long, Pageable)}, within an optional price range.
+     *
+     * @param name optional pet name filter
+     * @param categoryId optional category ID filter
+     * @param status optional pet status filter
+     * @param minPrice optional inclusive lower price bound
+     * @param maxPrice optional inclusive upper price bound
+     * @param userId optional user whose owned or created pets to return
+     * @param pageable pagination parameters
+     * @return paginated result of pets
+     */
+    default Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice, Long userId, Pageable pageable) {
+        return findPetsByFiltersPaginated(name, categoryId, status, minPrice, maxPrice, null, userId, pageable);
+    }
+
+    /**
+     * Finds pets matching multiple filter criteria (paginated), as
+     * {@link #findPetsByFiltersPaginated(String, Long, PetStatus, BigDecimal, BigDecimal, Long, Pageable)}, tagged
+     * with every one of the given tags. Each tag is a {@code MEMBER OF} lookup in the multi-valued index on
+     * {@code tags} (MySQL).
+     *
+     * @param name optional pet name filter
+     * @param categoryId optional category ID filter
+     * @param status optional pet status filter
+     * @param minPrice optional inclusive lower price bound
+     * @param maxPrice optional inclusive upper price bound
+     * @param tags optional tags, all of which must match
+     * @param userId optional user whose owned or created pets to return
+     * @param pageable pagination parameters
+     * @return paginated result of pets
+     */
+    default Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice, List<String> tags, Long userId, Pageable pageable) {
+        Specification<Pet> specification = PetSpecifications.matching(name, categoryId, status, minPrice, maxPrice,
+                tags);
+        if (userId != null) {
+            specification = specification.and(PetSpecifications.ownedOrCreatedBy(userId));
+        }
+        if (pageable.isPaged()) {
+            Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : NEWEST_FIRST;
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    leadWithFilterColumns(sort, categoryId, status));
+        }
+        return findAll(specification, pageable);
+    }
+
+    /**
+     * Prefixes a sort with the columns the filters pin to a single value. The
+     * order is unchanged, but the planner can then see that the matching
+     * {@code (category_id, status, <sort keys>)} index already returns rows in
+     * page order, and stop after the page instead of sorting every match.
+     */
+    private static Sort leadWithFilterColumns(Sort sort, Long categoryId, PetStatus status) {
+        if (status == null) {
+            return sort;
+        }
+        Sort lead = categoryId != null ? Sort.by("category.id", "status") : Sort.by("status");
+        return lead.and(sort);
+    }
+
+    /**
+     * Finds a page of pets matching a specification. Loaded pets are read-only
+     * (not dirty-checked), as this only backs the catalog listings.
+     *
+     * @param specification the filter specification
+     * @param pageable pagination and sort parameters
+     * @return paginated result of pets
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<Pet> findAll(Specification<Pet> specification, Pageable pageable);
 
     /**
      * Finds the most recently added pets with a specific status
@@ -102,8 +187,49 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
      * @return list of pets ordered by creation date
      */
     @Query("SELECT p FROM Pet p WHERE p.status = :status ORDER BY p.createdAt DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Pet> findLatestPetsByStatus(@Param("status") PetStatus status, Pageable pageable);
 
+    /**
+     * Finds the next batch of pets after the given ID, in ID order, for
+     * rebuilding in-memory catalog indexes with keyset pagination
+     *
+     * @param afterId the last pet ID of the previous batch (0 for the first)
+     * @param pageable the batch size
+     * @return up to one batch of pets with their categories
+     */
+    @Query("SELECT p FROM Pet p JOIN FETCH p.category WHERE p.id > :afterId ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Pet> findBatchAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Finds one batch of pets updated at or after a time, with their categories,
+     * in {@code (updatedAt, id)} order, for the in-memory indexes to catch up
+     * with other replicas. Pass the last pet of the previous batch to continue.
+     *
+     * @param since the earliest update time, or the last update time of the previous batch
+     * @param afterId the last pet ID of the previous batch (0 for the first)
+     * @param pageable the batch size
+     * @return up to one batch of pets with their categories
+     */
+    @Query("SELECT p FROM Pet p JOIN FETCH p.category WHERE p.updatedAt >= :since"
+            + " AND (p.updatedAt > :since OR p.id > :afterId) ORDER BY p.updatedAt, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Pet> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Finds the pets with the given IDs, with their categories, in one query.
+     * Loaded pets are read-only, as this backs catalog pages whose order was
+     * computed elsewhere.
+     *
+     * @param ids the pet IDs
+     * @return the pets found, in no particular order
+     */
+    @Query("SELECT p FROM Pet p JOIN FETCH p.category WHERE p.id IN :ids")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Pet> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Check if Pet status is still AVAILABLE
      * 
@@ -0,0 +1,179 @@
+package com.petstore.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.petstore.config.JsonFunctionContributor;
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Pet;
+
+/**
+ * Reusable {@link Specification}s for filtering pets. Each factory covers a
+ * single filter, and {@link #matching} only combines the filters that are
+ * actually present, so no {@code :x IS NULL OR ...} guards reach the SQL.
+ */
+public final class PetSpecifications {
+
+    private PetSpecifications() {
+    }
+
+    /**
+     * Pets whose name contains the given text, ignoring case.
+     *
+     * @param name the text to search for
+     * @return the specification
+     */
+    public static Specification<Pet> nameContains(String name) {
+        String pattern = "%" + name.toLowerCase() + "%";
+        return (pet, query, cb) -> cb.like(cb.lower(pet.get("name")), pattern);
+    }
+
+    /**
+     * Pets in the given category.
+     *
+     * @param categoryId the category ID
+     * @return the specification
+     */
+    public static Specification<Pet> inCategory(Long categoryId) {
+        return (pet, query, cb) -> cb.equal(pet.get("category").get("id"), categoryId);
+    }
+
+    /**
+     * Pets with the given status.
+     *
+     * @param status the pet status
+     * @return the specification
+     */
+    public static Specification<Pet> hasStatus(PetStatus status) {
+        return (pet, query, cb) -> cb.equal(pet.get("status"), status);
+    }
+
+    /**
+     * Pets priced within the given bounds, both inclusive.
+     *
+     * @param minPrice optional lower bound
+     * @param maxPrice optional upper bound
+     * @return the specification
+     */
+    public static Specification<Pet> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return (pet, query, cb) -> {
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(pet.get("price"), maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(pet.get("price"), minPrice);
+            }
+            return cb.between(pet.get("price"), minPrice, maxPrice);
+        };
+    }
+
+    /**
+     * Pets tagged with the given tag (exact match).
+     *
+     * <p>
+     * Rendered as {@code ? MEMBER OF(tags)} on MySQL, so the lookup is served
+     * by the multi-valued index {@code idx_pets_tags} over the tags array.
+     * </p>
+     *
+     * @param tag the tag
+     * @return the specification
+     */
+    public static Specification<Pet> hasTag(String tag) {
+        return (pet, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            return cb.isTrue(cb.function(JsonFunctionContributor.JSON_MEMBER_OF, Boolean.class, hcb.value(tag),
+                    pet.get("tags")));
+        };
+    }
+
+    /**
+     * Pets owned or created by the given user.
+     *
+     * <p>
+     * Rendered as {@code (owner_id = ? OR created_by = ?)}, each side led by
+     * its own index ({@code idx_pets_owner_created} /
+     * {@code idx_pets_creator_created}), so MySQL reads both and merges the
+     * row IDs (an {@code index_merge} union) instead of scanning pets. An
+     * {@code id IN (... UNION ...)} subquery is not used: MySQL cannot turn
+     * it into a semi-join and runs it as a dependent subquery for every row.
+     * </p>
+     *
+     * @param userId the user ID
+     * @return the specification
+     */
+    public static Specification<Pet> ownedOrCreatedBy(Long userId) {
+        return (pet, query, cb) -> cb.or(cb.equal(pet.get("owner").get("id"), userId),
+                cb.equal(pet.get("createdBy"), userId));
+    }
+
+    /**
+     * Combines the catalog filters that are present; {@code null} (or blank
+     * name) filters are left out entirely.
+     *
+     * @param name       optional name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @return the combined specification (matches everything if no filter is
+     *         present)
+     */
+    public static Specification<Pet> matching(String name, Long categoryId, PetStatus status) {
+        return matching(name, categoryId, status, null, null);
+    }
+
+    /**
+     * Combines the catalog filters that are present, including an optional
+     * price range; {@code null} (or blank name) filters are left out entirely.
+     *
+     * @param name       optional name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @return the combined specification (matches everything if no filter is
+     *         present)
+     */
+    public static Specification<Pet> matching(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice) {
+        return matching(name, categoryId, status, minPrice, maxPrice, null);
+    }
+
+    /**
+     * Combines the catalog filters that are present, including an optional
+     * price range and tags; {@code null} (or blank name and tags) filters are
+     * left out entirely.
+     *
+     * @param name       optional name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @param tags       optional tags, all of which must match
+     * @return the combined specification (matches everything if no filter is
+     *         present)
+     */
+    public static Specification<Pet> matching(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice, List<String> tags) {
+        List<Specification<Pet>> specifications = new ArrayList<>();
+        if (name != null && !name.isBlank()) {
+            specifications.add(nameContains(name));
+        }
+        if (categoryId != null) {
+            specifications.add(inCategory(categoryId));
+        }
+        if (status != null) {
+            specifications.add(hasStatus(status));
+        }
+        if (minPrice != null || maxPrice != null) {
+            specifications.add(priceBetween(minPrice, maxPrice));
+        }
+        if (tags != null) {
+            tags.stream().filter(tag -> tag != null && !tag.isBlank()).distinct()
+                    .forEach(tag -> specifications.add(hasTag(tag)));
+        }
+        return Specification.allOf(specifications);
+    }
+}
@@ -0,0 +1,326 @@
+package com.petstore.reservation;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.exception.PetReservedException;
+
+/**
+ * Short-lived soft reservations of pets, taken when a pet enters a cart and
+ * renewed when an order is placed, so a pet is held by one shopper at a time
+ * instead of failing every other checkout late.
+ *
+ * <p>
+ * {@code pet_reservations} is the source of truth: a reservation is taken
+ * with a conditional update of the pet's row, if it is the caller's or has
+ * expired, or else an insert that the primary key refuses while another user
+ * holds the pet. Committed reservations are mirrored in memory for the
+ * catalog, and their expiry is driven by a {@link TimingWheel} advanced every
+ * second, so no query polls for expired rows: only reservations that actually
+ * expire are deleted. The wheel is rebuilt from the table on startup.
+ * Reservations taken on another replica show in this replica's catalog after
+ * its next restart, but are enforced everywhere.
+ * </p>
+ */
+@Component
+public class PetReservations {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetReservations.class);
+
+    static final long TICK_MILLIS = 1_000;
+
+    static final int WHEEL_SLOTS = 64;
+
+    static final int WHEEL_LEVELS = 4;
+
+    static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final Duration cartTtl;
+
+    private final Duration orderTtl;
+
+    /** Committed reservations by pet ID. */
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+
+    /** Guarded by itself. */
+    private final TimingWheel wheel;
+
+    public PetReservations(JdbcTemplate jdbcTemplate, Clock clock,
+            @Value("${app.reservations.cart-ttl:PT10M}") Duration cartTtl,
+            @Value("${app.reservations.order-ttl:PT10M}") Duration orderTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.cartTtl = cartTtl;
+        this.orderTtl = orderTtl;
+        this.wheel = new TimingWheel(TICK_MILLIS, WHEEL_SLOTS, WHEEL_LEVELS, clock.millis());
+    }
+
+    /**
+     * Reserves a pet for a user's cart, or renews the user's reservation.
+     *
+     * @param petId  the pet ID
+     * @param userId the user ID
+     * @throws PetReservedException if another user holds the pet
+     */
+    public void reserveForCart(Long petId, Long userId) {
+        reserve(petId, userId, null, cartTtl);
+    }
+
+    /**
+     * Reserves an order's pets for its user, or renews the user's
+     * reservations. Within a transaction, the reservations roll back with it.
+     *
+     * @param orderId the order ID
+     * @param userId  the user ID
+     * @param petIds  the order's pet IDs
+     * @throws PetReservedException if another user holds one of the pets
+     */
+    public void reserveForOrder(Long orderId, Long userId, Collection<Long> petIds) {
+        for (Long petId : petIds) {
+            reserve(petId, userId, orderId, orderTtl);
+        }
+    }
+
+    /**
+     * Releases a user's reservation of a pet, if the user holds it.
+     *
+     * @param petId  the pet ID
+     * @param userId the user ID
+     */
+    public void release(Long petId, Long userId) {
+        if (jdbcTemplate.update("DELETE FROM pet_reservations WHERE pet_id = ? AND user_id = ?", petId,
+                userId) > 0) {
+            afterCommit(() -> reservations.computeIfPresent(petId,
+                    (id, reservation) -> reservation.userId == userId ? null : reservation));
+        }
+    }
+
+    /**
+     * Releases the reservations an order holds.
+     *
+     * @param orderId the order ID
+     * @param petIds  the order's pet IDs
+     */
+    public void releaseOrder(Long orderId, Collection<Long> petIds) {
+        for (Long petId : petIds) {
+            if (jdbcTemplate.update("DELETE FROM pet_reservations WHERE pet_id = ? AND order_id = ?", petId,
+                    orderId) > 0) {
+                afterCommit(() -> reservations.computeIfPresent(petId,
+                        (id, reservation) -> orderId.equals(reservation.orderId) ? null : reservation));
+            }
+        }
+    }
+
+    /**
+     * Releases the reservations held by any of several orders, with one
+     * statement.
+     *
+     * @param orderIds the order IDs
+     */
+    public void releaseOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        if (jdbcTemplate.update("DELETE FROM pet_reservations WHERE order_id IN (" + placeholders + ")",
+                orderIds.toArray()) > 0) {
+            Set<Long> released = Set.copyOf(orderIds);
+            afterCommit(() -> reservations.values()
+                    .removeIf(reservation -> reservation.orderId != null && released.contains(reservation.orderId)));
+        }
+    }
+
+    /**
+     * Tells until when a pet is reserved, for the catalog.
+     *
+     * @param petId the pet ID
+     * @return when the pet's reservation expires, or null if it is not reserved
+     */
+    public LocalDateTime reservedUntil(Long petId) {
+        Reservation reservation = reservations.get(petId);
+        if (reservation == null || reservation.expiresAtMillis <= clock.millis()) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(reservation.expiresAtMillis), clock.getZone());
+    }
+
+    /**
+     * @return the number of reservations held in memory
+     */
+    public int size() {
+        return reservations.size();
+    }
+
+    /**
+     * Rebuilds the reservations and their timers from the table, in batches
+     * of pet IDs. Reservations that expired while the application was down
+     * expire on the next tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        int loaded = 0;
+        List<Long> batch;
+        do {
+            List<Long> petIds = new ArrayList<>();
+            jdbcTemplate.query("SELECT pet_id, user_id, order_id, expires_at FROM pet_reservations "
+                    + "WHERE pet_id > ? ORDER BY pet_id LIMIT ?", rs -> {
+                        long petId = rs.getLong(1);
+                        long orderId = rs.getLong(3);
+                        Long order = rs.wasNull() ? null : orderId;
+                        Reservation reservation = new Reservation(rs.getLong(2), order,
+                                millis(rs.getTimestamp(4).toLocalDateTime()));
+                        petIds.add(petId);
+                        reservations.merge(petId, reservation, (current, stored) ->
+                                current.expiresAtMillis >= stored.expiresAtMillis ? current : stored);
+                        synchronized (wheel) {
+                            wheel.schedule(petId, reservation.expiresAtMillis);
+                        }
+                    }, afterId, LOAD_BATCH_SIZE);
+            batch = petIds;
+            loaded += batch.size();
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        logger.info("PetReservations loaded {} reservations", loaded);
+    }
+
+    /**
+     * Advances the timing wheel and deletes the reservations that expired.
+     */
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        long now = clock.millis();
+        List<Long> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(now, petId -> {
+                Reservation reservation = reservations.get(petId);
+                if (reservation != null && reservation.expiresAtMillis <= now
+                        && reservations.remove(petId, reservation)) {
+                    expired.add(petId);
+                }
+            });
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(toLocalDateTime(now));
+        jdbcTemplate.batchUpdate("DELETE FROM pet_reservations WHERE pet_id = ? AND expires_at <= ?",
+                expired.stream().map(petId -> new Object[] { petId, cutoff }).toList());
+        logger.debug("Expired {} pet reservations", expired.size());
+    }
+
+    /**
+     * Drops a pet's reservation once it is sold or deleted, after its
+     * transaction has committed.
+     *
+     * @param change the pet change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent change) {
+        if (!change.isDeleted() && change.getStatus() == PetStatus.AVAILABLE) {
+            return;
+        }
+        if (reservations.remove(change.getPetId()) != null || change.isDeleted()) {
+            jdbcTemplate.update("DELETE FROM pet_reservations WHERE pet_id = ?", change.getPetId());
+        }
+    }
+
+    private void reserve(Long petId, Long userId, Long orderId, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime expiresAt = now.plus(ttl);
+        int updated = jdbcTemplate.update("UPDATE pet_reservations SET user_id = ?, order_id = ?, expires_at = ? "
+                + "WHERE pet_id = ? AND (user_id = ? OR expires_at <= ?)", userId, orderId,
+                Timestamp.valueOf(expiresAt), petId, userId, Timestamp.valueOf(now));
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO pet_reservations (pet_id, user_id, order_id, expires_at) "
+                        + "VALUES (?, ?, ?, ?)", petId, userId, orderId, Timestamp.valueOf(expiresAt));
+            } catch (DataIntegrityViolationException e) {
+                throw new PetReservedException(petId, jdbcTemplate.query(
+                        "SELECT expires_at FROM pet_reservations WHERE pet_id = ?",
+                        rs -> rs.next() ? rs.getTimestamp(1).toLocalDateTime() : expiresAt, petId));
+            }
+        }
+        Reservation reservation = new Reservation(userId, orderId, millis(expiresAt));
+        afterCommit(() -> track(petId, reservation));
+    }
+
+    private void track(Long petId, Reservation reservation) {
+        reservations.put(petId, reservation);
+        synchronized (wheel) {
+            wheel.schedule(petId, reservation.expiresAtMillis);
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or right away
+     * outside one.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private long millis(LocalDateTime time) {
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    /**
+     * A committed reservation.
+     */
+    private static final class Reservation {
+
+        private final long userId;
+        private final Long orderId;
+        private final long expiresAtMillis;
+
+        private Reservation(long userId, Long orderId, long expiresAtMillis) {
+            this.userId = userId;
+            this.orderId = orderId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
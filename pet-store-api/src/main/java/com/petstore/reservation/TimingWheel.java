@@ -0,0 +1,170 @@
+package com.petstore.reservation;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of keyed deadlines, in the style of Kafka's and
+ * Netty's timers. Not thread-safe.
+ *
+ * <p>
+ * Level 0 has {@code slots} buckets of one tick each; every higher level has
+ * {@code slots} buckets spanning a full turn of the level below. A timer goes
+ * to the lowest level whose span reaches its deadline, and when a higher
+ * level's bucket comes due its timers are cascaded down, so scheduling is
+ * O(1) and each timer is touched once per level on its way to expiry.
+ * Timers beyond the top level's span are parked in its farthest bucket and
+ * re-placed when it comes due. There is no cancel: callers keep the current
+ * deadline per key and ignore stale expiries.
+ * </p>
+ */
+final class TimingWheel {
+
+    private final long tickMillis;
+
+    private final int slots;
+
+    private final Bucket[][] levels;
+
+    /** Timers at or before the current tick, expired on the next advance. */
+    private Bucket due = new Bucket();
+
+    private long currentTick;
+
+    private int size;
+
+    TimingWheel(long tickMillis, int slots, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = slots;
+        this.levels = new Bucket[levelCount][slots];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * @return the number of scheduled timers, stale ones included
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a timer.
+     *
+     * @param key            the timer's key
+     * @param deadlineMillis when the timer expires, in epoch milliseconds
+     */
+    void schedule(long key, long deadlineMillis) {
+        size++;
+        place(key, deadlineMillis);
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis}, expiring the timers due by then.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @param expired   receives each expired timer's key
+     */
+    void advance(long nowMillis, LongConsumer expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        expireDue(expired);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            for (int level = levels.length - 1; level >= 1; level--) {
+                long levelSpan = pow(slots, level);
+                if (currentTick % levelSpan == 0) {
+                    cascade(levels[level], (int) Math.floorMod(currentTick / levelSpan, (long) slots));
+                }
+            }
+            int slot = (int) Math.floorMod(currentTick, (long) slots);
+            Bucket bucket = levels[0][slot];
+            if (bucket != null) {
+                levels[0][slot] = null;
+                expire(bucket, expired);
+            }
+            expireDue(expired);
+        }
+    }
+
+    private void place(long key, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis, tickMillis);
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            due.add(key, deadlineTick);
+            return;
+        }
+        long span = 1;
+        for (int level = 0; level < levels.length; level++) {
+            long nextSpan = span * slots;
+            if (delta < nextSpan || level == levels.length - 1) {
+                long levelTick = delta < nextSpan ? deadlineTick / span : (currentTick + nextSpan - 1) / span;
+                int slot = (int) Math.floorMod(levelTick, (long) slots);
+                Bucket bucket = levels[level][slot];
+                if (bucket == null) {
+                    bucket = new Bucket();
+                    levels[level][slot] = bucket;
+                }
+                bucket.add(key, deadlineTick);
+                return;
+            }
+            span = nextSpan;
+        }
+    }
+
+    private void cascade(Bucket[] level, int slot) {
+        Bucket bucket = level[slot];
+        if (bucket == null) {
+            return;
+        }
+        level[slot] = null;
+        for (int i = 0; i < bucket.count; i++) {
+            place(bucket.keys[i], bucket.deadlineTicks[i] * tickMillis);
+        }
+    }
+
+    private void expireDue(LongConsumer expired) {
+        if (due.count > 0) {
+            Bucket expiring = due;
+            due = new Bucket();
+            expire(expiring, expired);
+        }
+    }
+
+    private void expire(Bucket bucket, LongConsumer expired) {
+        for (int i = 0; i < bucket.count; i++) {
+            size--;
+            expired.accept(bucket.keys[i]);
+        }
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    /**
+     * Growable arrays of keys and deadline ticks.
+     */
+    private static final class Bucket {
+
+        private long[] keys = new long[4];
+        private long[] deadlineTicks = new long[4];
+        private int count;
+
+        void add(long key, long deadlineTick) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                deadlineTicks = Arrays.copyOf(deadlineTicks, count * 2);
+            }
+            keys[count] = key;
+            deadlineTicks[count] = deadlineTick;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.petstore.scheduling;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leases on scheduled jobs, so that a job every replica schedules runs on one
+ * of them at a time.
+ *
+ * <p>
+ * {@code scheduler_locks} is the source of truth: a replica takes a lease
+ * with a conditional update of the job's row, if the lease has expired or is
+ * its own, or else an insert that the primary key refuses while another
+ * replica holds it. A job renews its lease as it goes, so a replica that dies
+ * mid-job holds it for at most one lease, and one that loses its lease finds
+ * out at its next renewal.
+ * </p>
+ */
+@Component
+public class SchedulerLocks {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    public SchedulerLocks(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes or renews this replica's lease on a job.
+     *
+     * @param name  the job name
+     * @param lease how long the lease lasts unless renewed
+     * @return whether this replica holds the lease
+     */
+    public boolean tryLock(String name, Duration lease) {
+        long now = clock.millis();
+        Timestamp lockedUntil = timestamp(now + lease.toMillis());
+        if (jdbcTemplate.update("UPDATE scheduler_locks SET locked_by = ?, locked_until = ? "
+                + "WHERE name = ? AND (locked_by = ? OR locked_until <= ?)",
+                owner, lockedUntil, name, owner, timestamp(now)) > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO scheduler_locks (name, locked_by, locked_until) VALUES (?, ?, ?)",
+                    name, owner, lockedUntil);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives up this replica's lease on a job, if it holds it.
+     *
+     * @param name the job name
+     */
+    public void unlock(String name) {
+        jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = ? WHERE name = ? AND locked_by = ?",
+                timestamp(clock.millis()), name, owner);
+    }
+
+    private Timestamp timestamp(long epochMillis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), clock.getZone()));
+    }
+}
@@ -0,0 +1,165 @@
+package com.petstore.scheduling;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.enums.AuditOrderAction;
+import com.petstore.enums.OrderStatus;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.model.AuditLog;
+import com.petstore.model.Order;
+import com.petstore.repository.AuditLogRepository;
+import com.petstore.reservation.PetReservations;
+
+/**
+ * Cancels orders left {@code PLACED} for longer than
+ * {@code app.order-sweeper.placed-ttl}, so that unpaid orders do not pile up
+ * and their pets are reserved no longer than needed.
+ *
+ * <p>
+ * Stale orders are found oldest first through the {@code (status, created_at)}
+ * index and cancelled a chunk ({@code app.order-sweeper.chunk-size}) per
+ * transaction: the chunk's rows are locked by the query that finds them, then
+ * cancelled by one update, audited by one batch of inserts and their pet
+ * reservations released by one delete. Orders with a payment still pending
+ * with its gateway, or one that succeeded, are left alone. A sweep holds a
+ * {@link SchedulerLocks} lease, renewed before every chunk, so each chunk is
+ * run by one replica; a sweep stops after {@code app.order-sweeper.max-chunks}
+ * chunks and the next one carries on.
+ * </p>
+ */
+@Component
+public class UnpaidOrderSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnpaidOrderSweeper.class);
+
+    static final String LOCK_NAME = "unpaid-order-sweeper";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AuditLogRepository auditLogRepository;
+
+    private final PetReservations petReservations;
+
+    private final SchedulerLocks schedulerLocks;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Clock clock;
+
+    private final Duration placedTtl;
+
+    private final int chunkSize;
+
+    private final int maxChunks;
+
+    private final Duration lease;
+
+    public UnpaidOrderSweeper(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            AuditLogRepository auditLogRepository, PetReservations petReservations, SchedulerLocks schedulerLocks,
+            ApplicationEventPublisher eventPublisher, Clock clock,
+            @Value("${app.order-sweeper.placed-ttl:PT1H}") Duration placedTtl,
+            @Value("${app.order-sweeper.chunk-size:500}") int chunkSize,
+            @Value("${app.order-sweeper.max-chunks:100}") int maxChunks,
+            @Value("${app.order-sweeper.lease:PT5M}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.auditLogRepository = auditLogRepository;
+        this.petReservations = petReservations;
+        this.schedulerLocks = schedulerLocks;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.placedTtl = placedTtl;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.lease = lease;
+    }
+
+    /**
+     * Cancels stale unpaid orders, unless another replica is already doing so
+     * or the sweeper is turned off with a zero TTL.
+     *
+     * @return the number of orders cancelled
+     */
+    @Scheduled(initialDelayString = "${app.order-sweeper.interval:PT5M}",
+            fixedDelayString = "${app.order-sweeper.interval:PT5M}")
+    public int sweep() {
+        if (placedTtl.isZero()) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(placedTtl);
+        int cancelled = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                if (!schedulerLocks.tryLock(LOCK_NAME, lease)) {
+                    break;
+                }
+                Integer count = transactionTemplate.execute(status -> cancelChunk(cutoff));
+                cancelled += count;
+                if (count < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            schedulerLocks.unlock(LOCK_NAME);
+        }
+        if (cancelled > 0) {
+            logger.info("Cancelled {} orders left unpaid since before {}", cancelled, cutoff);
+        }
+        return cancelled;
+    }
+
+    private int cancelChunk(LocalDateTime cutoff) {
+        List<Long> orderIds = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        jdbcTemplate.query("SELECT o.id, o.user_id FROM orders o "
+                + "WHERE o.status = ? AND o.created_at < ? AND NOT EXISTS (SELECT 1 FROM payments p "
+                + "WHERE p.order_id = o.id AND p.status IN ('PENDING', 'SUCCESS')) "
+                + "ORDER BY o.created_at, o.id LIMIT ? FOR UPDATE",
+                rs -> {
+                    orderIds.add(rs.getLong(1));
+                    userIds.add(rs.getLong(2));
+                }, OrderStatus.PLACED.name(), Timestamp.valueOf(cutoff), chunkSize);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        List<Object> arguments = new ArrayList<>();
+        arguments.add(OrderStatus.CANCELLED.name());
+        arguments.add(Timestamp.valueOf(LocalDateTime.now(clock)));
+        arguments.addAll(orderIds);
+        jdbcTemplate.update("UPDATE orders SET status = ?, updated_at = ? WHERE id IN (" + placeholders + ")",
+                arguments.toArray());
+
+        List<AuditLog> auditLogs = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            // No user: cancelled by the system
+            auditLogs.add(new AuditLog(Order.class.getName(), orderId, null, AuditOrderAction.CANCEL_ORDER.name(),
+                    OrderStatus.PLACED.name(), OrderStatus.CANCELLED.name()));
+        }
+        auditLogRepository.saveAll(auditLogs);
+        petReservations.releaseOrders(orderIds);
+        for (int i = 0; i < orderIds.size(); i++) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(userIds.get(i), orderIds.get(i),
+                    OrderStatus.CANCELLED, null));
+        }
+        return orderIds.size();
+    }
+}
@@ -1,21 +1,36 @@
 package com.petstore.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.petstore.dto.CoPurchaseRecommendation;
 import com.petstore.enums.PetStatus;
+import com.petstore.enums.RecommendationType;
+import com.petstore.event.PetChangedEvent;
 import com.petstore.exception.CartItemNotFoundException;
 import com.petstore.exception.PetAlreadyExistInUserCartException;
 import com.petstore.exception.PetAlreadySoldException;
 import com.petstore.exception.PetNotFoundException;
+import com.petstore.exception.PetOutOfStockException;
+import com.petstore.exception.PetReservedException;
+import com.petstore.index.CoPurchaseIndex;
 import com.petstore.model.Cart;
 import com.petstore.model.CartItem;
+import com.petstore.model.Category;
 import com.petstore.model.Pet;
 import com.petstore.model.User;
 import com.petstore.repository.CartItemRepository;
 import com.petstore.repository.CartRepository;
+import com.petstore.repository.CategoryRepository;
 import com.petstore.repository.PetRepository;
+import com.petstore.reservation.PetReservations;
 
 /**
  * Service for managing user carts in the store
@@ -28,15 +43,23 @@ public class CartService {
     private final CartRepository cartRepository;
     private final PetRepository petRepository;
     private final CartItemRepository cartItemRepository;
+    private final CategoryRepository categoryRepository;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final PetReservations petReservations;
 
-    public CartService(CartRepository cartRepository, PetRepository petRepository, CartItemRepository cartItemRepository) {
+    public CartService(CartRepository cartRepository, PetRepository petRepository, CartItemRepository cartItemRepository,
+            CategoryRepository categoryRepository, CoPurchaseIndex coPurchaseIndex, PetReservations petReservations) {
         this.cartRepository = cartRepository;
         this.petRepository = petRepository;
         this.cartItemRepository = cartItemRepository;
+        this.categoryRepository = categoryRepository;
+        this.coPurchaseIndex = coPurchaseIndex;
+        this.petReservations = petReservations;
     }
 
     /**
-     * Adds a pet to the user's cart
+     * Adds a pet to the user's cart and reserves it for the user for a short
+     * while; for a pet sold by quantity, adds one unit
      *
      * @param userId the user ID
      * @param petId the pet ID to add
@@ -44,14 +67,46 @@ public class CartService {
      * @throws PetNotFoundException if the pet does not exist
      * @throws PetAlreadySoldException if the pet is already sold
      * @throws PetAlreadyExistInUserCartException if the pet is already in the cart
+     * @throws PetReservedException if another user has the pet reserved
+     * @throws PetOutOfStockException if no unit of the pet is in stock
      */
     public Cart addPetToCart(Long userId, Long petId) {
+        return addPetToCart(userId, petId, 1);
+    }
+
+    /**
+     * Adds a pet to the user's cart. A unique animal is reserved for the user
+     * for a short while; units of a pet sold by quantity are added to the ones
+     * already in the cart, and only taken from stock at payment
+     *
+     * @param userId the user ID
+     * @param petId the pet ID to add
+     * @param quantity the number of units, 1 for a unique animal
+     * @return the updated cart
+     * @throws IllegalArgumentException if the quantity is below 1, or above 1
+     *         for a unique animal
+     * @throws PetNotFoundException if the pet does not exist
+     * @throws PetAlreadySoldException if the pet is already sold
+     * @throws PetAlreadyExistInUserCartException if the unique animal is already
+     *         in the cart
+     * @throws PetReservedException if another user has the pet reserved
+     * @throws PetOutOfStockException if fewer units of the pet are in stock than
+     *         the cart would hold
+     */
+    public Cart addPetToCart(Long userId, Long petId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new PetNotFoundException(petId));
 
         if (pet.getStatus() == PetStatus.SOLD) {
             throw new PetAlreadySoldException(petId);
         }
+        if (!pet.isStocked() && quantity != 1) {
+            throw new IllegalArgumentException("Only pets sold by quantity can be added more than once");
+        }
 
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseGet(() -> {
@@ -60,17 +115,33 @@ public class CartService {
                     return cartRepository.save(newCart);
                 });
 
-        boolean alreadyExists = cart.getItems().stream()
-                .anyMatch(item -> item.getPet().getId().equals(petId));
-
-        if (alreadyExists) {
-            throw new PetAlreadyExistInUserCartException(petId);
+        CartItem existing = cart.getItems().stream()
+                .filter(item -> item.getPet().getId().equals(petId))
+                .findFirst()
+                .orElse(null);
+
+        if (pet.isStocked()) {
+            int units = quantity + (existing != null ? existing.getQuantity() : 0);
+            if (pet.getStockQuantity() < units) {
+                throw new PetOutOfStockException(petId, units);
+            }
+            if (existing != null) {
+                existing.setQuantity(units);
+                return cartRepository.save(cart);
+            }
+        } else {
+            if (existing != null) {
+                throw new PetAlreadyExistInUserCartException(petId);
+            }
+
+            petReservations.reserveForCart(petId, userId);
         }
 
         CartItem item = new CartItem();
         item.setCart(cart);
         item.setPet(pet);
         item.setPrice(pet.getPrice());
+        item.setQuantity(quantity);
 
         cart.getItems().add(item);
 
@@ -98,17 +169,59 @@ public class CartService {
     }
 
     /**
-     * Removes a cart item by its ID
+     * Removes a cart item by its ID, releasing the cart owner's reservation
+     * of its pet
      *
      * @param cartItemId the cart item ID to remove
      * @throws CartItemNotFoundException if the cart item does not exist
      */
+    @Transactional
     public void removeCartItem(Long cartItemId) {
 
-        if (!cartItemRepository.existsById(cartItemId)) {
-            throw new CartItemNotFoundException(cartItemId);
+        CartItem item = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new CartItemNotFoundException(cartItemId));
+        cartItemRepository.delete(item);
+        if (!item.getPet().isStocked()) {
+            petReservations.release(item.getPet().getId(), item.getCart().getUser().getId());
         }
-        cartItemRepository.deleteById(cartItemId);
     }
 
+    /**
+     * Recommends the categories and tags most often bought together with the
+     * ones in the user's cart, from the in-memory co-purchase matrix
+     *
+     * @param userId the user ID
+     * @param limit the maximum number of recommendations
+     * @return the recommendations, best first, with category names filled in
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public List<CoPurchaseRecommendation> getRecommendations(Long userId, int limit) {
+
+        if (limit < 1 || limit > CoPurchaseIndex.MAX_RECOMMENDATIONS) {
+            throw new IllegalArgumentException(
+                    "Recommendation limit must be between 1 and " + CoPurchaseIndex.MAX_RECOMMENDATIONS);
+        }
+        List<PetChangedEvent> pets = getCartByUserId(userId).getItems().stream()
+                .map(item -> PetChangedEvent.saved(item.getPet())).toList();
+        List<CoPurchaseRecommendation> recommendations = coPurchaseIndex.recommend(pets, limit);
+
+        List<Long> categoryIds = recommendations.stream()
+                .filter(recommendation -> recommendation.getType() == RecommendationType.CATEGORY)
+                .map(CoPurchaseRecommendation::getCategoryId).toList();
+        Map<Long, Category> categories = categoryIds.isEmpty() ? Map.of()
+                : categoryRepository.findAllById(categoryIds).stream()
+                        .collect(Collectors.toMap(Category::getId, Function.identity()));
+        List<CoPurchaseRecommendation> named = new ArrayList<>();
+        for (CoPurchaseRecommendation recommendation : recommendations) {
+            if (recommendation.getType() == RecommendationType.CATEGORY) {
+                Category category = categories.get(recommendation.getCategoryId());
+                if (category == null) {
+                    continue; // Deleted since it was bought
+                }
+                recommendation.setName(category.getName());
+            }
+            named.add(recommendation);
+        }
+        return named;
+    }
 }
@@ -1,5 +1,6 @@
 package com.petstore.service;
 
+import com.petstore.event.CategoryChangedEvent;
 import com.petstore.exception.CategoryAlreadyExistsException;
 import com.petstore.exception.CategoryInUseException;
 import com.petstore.exception.CategoryNotFoundException;
@@ -8,7 +9,9 @@ import com.petstore.model.Category;
 import com.petstore.model.Pet;
 import com.petstore.repository.CategoryRepository;
 import com.petstore.repository.PetRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -22,9 +25,13 @@ public class CategoryService {
 
     private final PetRepository petRepository;
 
-    public CategoryService(CategoryRepository categoryRepository, PetRepository petRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryService(CategoryRepository categoryRepository, PetRepository petRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.petRepository = petRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -32,6 +39,7 @@ public class CategoryService {
      *
      * @return list of all categories
      */
+    @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
@@ -95,7 +103,9 @@ public class CategoryService {
 
         existing.setName(newName);
 
-        return categoryRepository.save(existing);
+        Category saved = categoryRepository.save(existing);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), saved.getName()));
+        return saved;
     }
 
     /**
@@ -6,6 +6,7 @@ import java.util.Optional;
 
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.petstore.exception.DiscountAlreadyExistsException;
 import com.petstore.exception.DiscountInUseException;
@@ -31,6 +32,7 @@ public class DiscountService {
      *
      * @return list of all discounts
      */
+    @Transactional(readOnly = true)
     public List<Discount> getAllDiscounts() {
         return discountRepository.findAll();
     }
@@ -118,6 +120,7 @@ public class DiscountService {
      *
      * @return list of active discounts
      */
+    @Transactional(readOnly = true)
     public List<Discount> getAllActiveDiscounts() {
         return discountRepository.findAll()
                 .stream()
@@ -0,0 +1,113 @@
+package com.petstore.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.PaymentStatus;
+import com.petstore.event.PaymentCompletedEvent;
+import com.petstore.exception.OrderNotFoundException;
+import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.flashsale.FlashSaleShards;
+import com.petstore.model.Order;
+import com.petstore.model.Payment;
+import com.petstore.repository.CartItemRepository;
+import com.petstore.repository.OrderRepository;
+
+/**
+ * Checkout and payment in flash sale mode ({@code app.flash-sale.enabled}).
+ * An order's pets are claimed through {@link FlashSaleShards} before its
+ * payment transaction starts, so only one buyer per pet ever gets that far and
+ * the rest are told the pet is sold without touching its row. Pets sold by
+ * quantity are not claimed; their units are taken at payment as usual.
+ */
+@Service
+public class FlashSaleService {
+
+    private final FlashSaleShards flashSaleShards;
+
+    private final OrderService orderService;
+
+    private final OrderRepository orderRepository;
+
+    private final CartItemRepository cartItemRepository;
+
+    public FlashSaleService(FlashSaleShards flashSaleShards, OrderService orderService,
+            OrderRepository orderRepository, CartItemRepository cartItemRepository) {
+        this.flashSaleShards = flashSaleShards;
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.cartItemRepository = cartItemRepository;
+    }
+
+    /**
+     * @return whether checkout and payment should go through this service
+     */
+    public boolean isEnabled() {
+        return flashSaleShards.isEnabled();
+    }
+
+    /**
+     * Checks out a user's cart, turning it away at once if one of its pets
+     * has been claimed.
+     *
+     * @param userId       the user ID
+     * @param discountCode the discount code to apply (optional)
+     * @return the created order
+     * @throws PetAlreadySoldException if a pet in the cart is claimed or sold
+     */
+    public Order checkout(Long userId, String discountCode) {
+
+        for (Long petId : cartItemRepository.findUniquePetIdsByUserId(userId)) {
+            if (flashSaleShards.isClaimed(petId)) {
+                throw new PetAlreadySoldException(petId);
+            }
+        }
+        return orderService.checkout(userId, discountCode);
+    }
+
+    /**
+     * Claims an order's pets and pays for it. The claims are released if the
+     * payment fails, here or, for asynchronous payments, once its gateway
+     * has declined it.
+     *
+     * @param orderId             the order ID
+     * @param paymentOrderRequest the payment request details
+     * @return the created payment
+     * @throws OrderNotFoundException  if the order does not exist
+     * @throws PetAlreadySoldException if another order claimed one of the pets
+     */
+    public Payment makePayment(Long orderId, PaymentOrderRequest paymentOrderRequest) {
+
+        List<Long> petIds = orderRepository.findUniquePetIdsByOrderId(orderId);
+        if (petIds.isEmpty()) {
+            return orderService.makePayment(orderId, paymentOrderRequest);
+        }
+        Long taken = flashSaleShards.claim(orderId, petIds);
+        if (taken != null) {
+            throw new PetAlreadySoldException(taken);
+        }
+        try {
+            return orderService.makePayment(orderId, paymentOrderRequest);
+        } catch (RuntimeException e) {
+            flashSaleShards.release(orderId, petIds);
+            throw e;
+        }
+    }
+
+    /**
+     * Releases an order's claims once its asynchronous payment has failed,
+     * so its pets can be bought again.
+     *
+     * @param completion the settled payment
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentCompleted(PaymentCompletedEvent completion) {
+        if (isEnabled() && completion.getStatus() == PaymentStatus.FAILED) {
+            flashSaleShards.release(completion.getOrderId(),
+                    orderRepository.findUniquePetIdsByOrderId(completion.getOrderId()));
+        }
+    }
+}
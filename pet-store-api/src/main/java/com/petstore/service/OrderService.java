@@ -2,11 +2,14 @@ package com.petstore.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.petstore.dto.PaymentOrderRequest;
 import com.petstore.enums.AuditOrderAction;
@@ -14,11 +17,20 @@ import com.petstore.enums.DeliveryStatus;
 import com.petstore.enums.OrderStatus;
 import com.petstore.enums.PaymentStatus;
 import com.petstore.enums.PetStatus;
+import com.petstore.event.OrderApprovedEvent;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.event.PaymentCompletedEvent;
+import com.petstore.event.PaymentRequestedEvent;
+import com.petstore.event.PetChangedEvent;
 import com.petstore.exception.AddressNotFoundException;
 import com.petstore.exception.CartEmptyException;
+import com.petstore.exception.InvalidPaymentException;
 import com.petstore.exception.InvalidUserException;
 import com.petstore.exception.OrderNotFoundException;
+import com.petstore.exception.PaymentGatewayUnavailableException;
 import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.exception.PetOutOfStockException;
+import com.petstore.exception.PetReservedException;
 import com.petstore.exception.UserCartNotFoundException;
 import com.petstore.generator.OrderNumberGenerator;
 import com.petstore.model.Address;
@@ -31,6 +43,8 @@ import com.petstore.model.Order;
 import com.petstore.model.OrderItem;
 import com.petstore.model.Payment;
 import com.petstore.model.Pet;
+import com.petstore.payment.GatewayResult;
+import com.petstore.payment.PaymentGateways;
 import com.petstore.repository.AddressRepository;
 import com.petstore.repository.AuditLogRepository;
 import com.petstore.repository.CartRepository;
@@ -38,11 +52,11 @@ import com.petstore.repository.DeliveryRepository;
 import com.petstore.repository.OrderRepository;
 import com.petstore.repository.PaymentRepository;
 import com.petstore.repository.PetRepository;
+import com.petstore.reservation.PetReservations;
+import com.petstore.stock.StockReservations;
 import com.petstore.strategy.PaymentStrategyFactory;
 import com.petstore.strategy.payment.PaymentStrategy;
 
-import jakarta.transaction.Transactional;
-
 /**
  * Service for managing orders in the store
  */
@@ -61,11 +75,17 @@ public class OrderService {
     private final DiscountService discountService;
     private final OrderNumberGenerator orderNumberGenerator;
     private final PaymentStrategyFactory paymentStrategyFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PetReservations petReservations;
+    private final StockReservations stockReservations;
+    private final PaymentGateways paymentGateways;
 
     public OrderService(CartRepository cartRepository, OrderRepository orderRepository,
             PetRepository petRepository, AuditLogRepository auditLogRepository,
             PaymentRepository paymentRepository, DeliveryRepository deliveryRepository,
-            AddressRepository addressRepository, DiscountService discountService, OrderNumberGenerator orderNumberGenerator, PaymentStrategyFactory paymentStrategyFactory) {
+            AddressRepository addressRepository, DiscountService discountService, OrderNumberGenerator orderNumberGenerator, PaymentStrategyFactory paymentStrategyFactory,
+            ApplicationEventPublisher eventPublisher, PetReservations petReservations,
+            StockReservations stockReservations, PaymentGateways paymentGateways) {
         this.cartRepository = cartRepository;
         this.orderRepository = orderRepository;
         this.petRepository = petRepository;
@@ -76,6 +96,10 @@ public class OrderService {
         this.discountService = discountService;
         this.orderNumberGenerator = orderNumberGenerator;
         this.paymentStrategyFactory = paymentStrategyFactory;
+        this.eventPublisher = eventPublisher;
+        this.petReservations = petReservations;
+        this.stockReservations = stockReservations;
+        this.paymentGateways = paymentGateways;
     }
 
     /**
@@ -83,8 +107,9 @@ public class OrderService {
      *
      * @return list of all orders
      */
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        return orderRepository.findAllWithDetails();
     }
 
     /**
@@ -93,13 +118,14 @@ public class OrderService {
      * @param userId the user ID
      * @return list of orders belonging to the user
      */
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByUserId(Long userId) {
 
         if (userId == null) {
             throw new InvalidUserException("User ID cannot be null");
         }
 
-        return orderRepository.findByUserId(userId);
+        return orderRepository.findWithDetailsByUserId(userId);
     }
 
     /**
@@ -134,13 +160,17 @@ public class OrderService {
     }
 
     /**
-     * Performs checkout for a user's cart, creating an order.
+     * Performs checkout for a user's cart, creating an order. The order's
+     * unique pets are reserved for the user for a short while; units of pets
+     * sold by quantity are only taken at payment.
      *
      * @param userId       the user ID
      * @param discountCode the discount code to apply (optional)
      * @return the created order
      * @throws UserCartNotFoundException if the user's cart does not exist
      * @throws PetAlreadySoldException   if any pet in the cart is already sold
+     * @throws PetReservedException      if another user has a pet in the cart
+     *                                   reserved
      */
     @Transactional
     public Order checkout(Long userId, String discountCode) {
@@ -158,7 +188,7 @@ public class OrderService {
         order.setStatus(OrderStatus.PLACED);
 
         BigDecimal total = cart.getItems().stream()
-                .map(CartItem::getPrice)
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Apply discount and capture snapshot values
@@ -190,10 +220,14 @@ public class OrderService {
             orderItem.setOrder(order);
             orderItem.setPet(cartItem.getPet());
             orderItem.setPrice(cartItem.getPrice());
+            orderItem.setQuantity(cartItem.getQuantity());
             order.getItems().add(orderItem);
         }
 
         orderRepository.save(order);
+        petReservations.reserveForOrder(order.getId(), order.getUser().getId(),
+                order.getItems().stream().map(OrderItem::getPet).filter(pet -> !pet.isStocked())
+                        .map(Pet::getId).toList());
         cartRepository.delete(cart); // empty cart after checkout
 
         AuditLog auditLog = new AuditLog(Order.class.getName(), order.getId(), order.getUser(),
@@ -204,59 +238,222 @@ public class OrderService {
     }
 
     /**
-     * Makes a payment for an order.
+     * Makes a payment for an order. Unique pets are sold to the customer;
+     * pets sold by quantity have the ordered units taken from stock, and are
+     * marked sold once none are left.
+     * <p>
+     * With {@code app.payments.async.enabled}, the payment is only recorded
+     * as {@link PaymentStatus#PENDING} with the order's addresses and taken
+     * units, and charged through its gateway once this transaction commits;
+     * the order is approved, or the payment failed, by
+     * {@link #completePayment}. A failed payment can be made again.
+     * </p>
      *
      * @param orderId             the order ID
      * @param paymentOrderRequest the payment request details
      * @return the created payment
-     * @throws OrderNotFoundException   if the order does not exist
-     * @throws AddressNotFoundException if the shipping or billing address does not
-     *                                  exist
+     * @throws OrderNotFoundException             if the order does not exist
+     * @throws AddressNotFoundException           if the shipping or billing
+     *                                            address does not exist
+     * @throws PetOutOfStockException             if fewer units of a pet are in
+     *                                            stock than ordered
+     * @throws InvalidPaymentException            if the order is no longer
+     *                                            placed, or already has a
+     *                                            pending or successful payment
+     * @throws PaymentGatewayUnavailableException if the payment's gateway is not
+     *                                            taking charges
      */
     @Transactional
     public Payment makePayment(Long orderId, PaymentOrderRequest paymentOrderRequest) {
 
-        Order order = orderRepository.findById(orderId)
+        // Locked until the payment is recorded, so the unpaid order sweeper
+        // cannot cancel the order while it is being paid
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
+        if (order.getStatus() != OrderStatus.PLACED) {
+            throw new InvalidPaymentException(
+                    "Order " + orderId + " is " + order.getStatus() + " and can no longer be paid.");
+        }
 
         PaymentStrategy paymentStrategy = paymentStrategyFactory.getStrategy(
             paymentOrderRequest.getPaymentType());
     
-        logger.error("Using payment strategy: paymentOrderRequest {}", paymentOrderRequest);
+        logger.debug("Paying order {} by {}", orderId, paymentOrderRequest.getPaymentType());
         paymentStrategy.validatePayment(paymentOrderRequest);
-        
 
-        Payment payment = new Payment();
+        boolean async = paymentGateways.isAsyncEnabled();
+        String gateway = PaymentGateways.gatewayFor(paymentOrderRequest.getPaymentType(),
+                paymentOrderRequest.getWalletType());
+        Payment payment = async ? order.getPayment() : null;
+        if (payment != null && payment.getStatus() != PaymentStatus.FAILED) {
+            throw new InvalidPaymentException(
+                    "Order " + orderId + " already has a " + payment.getStatus() + " payment.");
+        }
+        if (async && !paymentGateways.isAvailable(gateway)) {
+            throw new PaymentGatewayUnavailableException(gateway);
+        }
+
+        // Take units of pets sold by quantity before anything is recorded, so
+        // buyers of a sold-out pet are turned away early
+        List<PetChangedEvent> soldPets = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            Pet pet = item.getPet();
+            if (!pet.isStocked()) {
+                continue;
+            }
+            soldPets.add(PetChangedEvent.saved(pet));
+            if (stockReservations.take(pet.getId(), item.getQuantity()) == 0) {
+                // Last units sold: the row lock is held, so these are the
+                // current values
+                pet.setStockQuantity(0);
+                pet.setStatus(PetStatus.SOLD);
+                petRepository.save(pet);
+                eventPublisher.publishEvent(PetChangedEvent.saved(pet));
+                auditLogRepository.save(new AuditLog(Pet.class.getName(), pet.getId(), order.getUser(),
+                        "CHANGE_PET_STATUS", PetStatus.AVAILABLE.name(), PetStatus.SOLD.name()));
+            }
+        }
+
+        if (payment == null) {
+            payment = new Payment();
+        }
         payment.setOrder(order);
         payment.setAmount(order.getTotalAmount());
-        payment.setStatus(PaymentStatus.SUCCESS);
-        payment.setPaidAt(LocalDateTime.now());
         payment.setPaymentType(paymentOrderRequest.getPaymentType());
        //payment.setPaymentNote(paymentOrderRequest.getPaymentNote());
         paymentStrategy.processPayment(payment, paymentOrderRequest);
 
+        order.setShippingAddress(addressRepository.findById(paymentOrderRequest.getShippingAddressId())
+                .orElseThrow(() -> new AddressNotFoundException(paymentOrderRequest.getShippingAddressId())));
+        if (paymentOrderRequest.getBillingAddressId() != null) {
+            order.setBillingAddress(addressRepository.findById(paymentOrderRequest.getBillingAddressId())
+                    .orElseThrow(() -> new AddressNotFoundException(paymentOrderRequest.getBillingAddressId())));
+        } else {
+            order.setBillingAddress(order.getShippingAddress());
+        }
+
+        if (async) {
+            payment.setStatus(PaymentStatus.PENDING);
+            payment.setFailureReason(null);
+            payment.setGateway(gateway);
+            payment.setRequestedAt(LocalDateTime.now());
+            paymentRepository.save(payment);
+            orderRepository.save(order);
+            eventPublisher.publishEvent(new PaymentRequestedEvent(payment.getId(), order.getId(), gateway,
+                    payment.getAmount()));
+            return payment;
+        }
+
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setPaidAt(LocalDateTime.now());
         paymentRepository.save(payment);
+        approve(order, soldPets);
+
+        return payment;
+    }
 
-        // Update pets
+    /**
+     * Settles a pending payment with its gateway's answer. An approved
+     * payment approves its order as {@link #makePayment} does; a failed one
+     * puts the units it took back in stock, and leaves the order placed, with
+     * its pets still reserved, so it can be paid again. A payment approved
+     * after its order was cancelled fails too, keeping its gateway reference
+     * so that the charge can be refunded. Payments already settled are left
+     * alone.
+     *
+     * @param paymentId the payment ID
+     * @param result    the gateway's answer
+     */
+    @Transactional
+    public void completePayment(Long paymentId, GatewayResult result) {
+
+        Payment payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || payment.getStatus() != PaymentStatus.PENDING) {
+            logger.warn("Payment {} is not pending, ignoring gateway result {}", paymentId, result);
+            return;
+        }
+        Order order = payment.getOrder();
+
+        if (result.approved() && order.getStatus() != OrderStatus.PLACED) {
+            logger.warn("Payment {} approved after order {} became {}, refund {} is needed", paymentId,
+                    order.getId(), order.getStatus(), result.reference());
+            payment.setGatewayReference(result.reference());
+            failPayment(payment, order, "Order " + order.getId() + " was " + order.getStatus()
+                    + " before the payment was approved; the charge is to be refunded.");
+        } else if (result.approved()) {
+            payment.setStatus(PaymentStatus.SUCCESS);
+            payment.setPaidAt(LocalDateTime.now());
+            payment.setGatewayReference(result.reference());
+            paymentRepository.save(payment);
+            List<PetChangedEvent> soldPets = new ArrayList<>();
+            for (OrderItem item : order.getItems()) {
+                if (item.getPet().isStocked()) {
+                    soldPets.add(PetChangedEvent.saved(item.getPet()));
+                }
+            }
+            approve(order, soldPets);
+        } else {
+            failPayment(payment, order, result.reason());
+        }
+        eventPublisher.publishEvent(new PaymentCompletedEvent(payment.getId(), order.getId(), payment.getStatus()));
+    }
+
+    /**
+     * Fails a pending payment and puts the units of pets it took back in
+     * stock, making a pet sold out by the payment available again.
+     *
+     * @param payment the pending payment
+     * @param order   the payment's order
+     * @param reason  why the payment failed
+     */
+    private void failPayment(Payment payment, Order order, String reason) {
+
+        payment.setStatus(PaymentStatus.FAILED);
+        payment.setFailureReason(reason);
+        paymentRepository.save(payment);
         for (OrderItem item : order.getItems()) {
             Pet pet = item.getPet();
+            if (!pet.isStocked()) {
+                continue;
+            }
+            int units = stockReservations.restore(pet.getId(), item.getQuantity());
+            if (pet.getStatus() == PetStatus.SOLD) {
+                pet.setStockQuantity(units);
+                pet.setStatus(PetStatus.AVAILABLE);
+                petRepository.save(pet);
+                eventPublisher.publishEvent(PetChangedEvent.saved(pet));
+                auditLogRepository.save(new AuditLog(Pet.class.getName(), pet.getId(), order.getUser(),
+                        "CHANGE_PET_STATUS", PetStatus.SOLD.name(), PetStatus.AVAILABLE.name()));
+            }
+        }
+    }
+
+    /**
+     * Sells a paid order's unique pets and approves it for delivery.
+     *
+     * @param order    the paid order, with its addresses set
+     * @param soldPets snapshots of the order's pets sold by quantity
+     */
+    private void approve(Order order, List<PetChangedEvent> soldPets) {
+
+        // Update unique pets
+        for (OrderItem item : order.getItems()) {
+            Pet pet = item.getPet();
+            if (pet.isStocked()) {
+                continue;
+            }
             pet.setStatus(PetStatus.SOLD);
             pet.setOwner(order.getUser());
             petRepository.save(pet);
+            PetChangedEvent soldPet = PetChangedEvent.saved(pet);
+            eventPublisher.publishEvent(soldPet);
+            soldPets.add(soldPet);
 
             auditLogRepository.save(new AuditLog(Pet.class.getName(), pet.getId(), order.getUser(),
                     "CHANGE_PET_STATUS", PetStatus.AVAILABLE.name(), PetStatus.SOLD.name()));
         }
         // Update order
         order.setStatus(OrderStatus.APPROVED);
-        order.setShippingAddress(addressRepository.findById(paymentOrderRequest.getShippingAddressId())
-                .orElseThrow(() -> new AddressNotFoundException(paymentOrderRequest.getShippingAddressId())));
-        if (paymentOrderRequest.getBillingAddressId() != null) {
-            order.setBillingAddress(addressRepository.findById(paymentOrderRequest.getBillingAddressId())
-                    .orElseThrow(() -> new AddressNotFoundException(paymentOrderRequest.getBillingAddressId())));
-        } else {
-            order.setBillingAddress(order.getShippingAddress());
-        }
         orderRepository.save(order);
 
         // Create delivery
@@ -271,12 +468,13 @@ public class OrderService {
 
         auditLogRepository.save(new AuditLog(Order.class.getName(), order.getId(), order.getUser(),
                 AuditOrderAction.CHECKOUT_ORDER.name(), OrderStatus.PLACED.name(), OrderStatus.APPROVED.name()));
-
-        return payment;
+        eventPublisher.publishEvent(new OrderApprovedEvent(order.getId(), soldPets));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getUser().getId(), order.getId(),
+                OrderStatus.APPROVED, DeliveryStatus.PENDING));
     }
 
     /**
-     * Cancels an order by its ID.
+     * Cancels an order by its ID, releasing its pet reservations.
      *
      * @param orderId the order ID
      * @throws OrderNotFoundException if the order does not exist
@@ -288,9 +486,13 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        petReservations.releaseOrder(order.getId(),
+                order.getItems().stream().map(item -> item.getPet().getId()).toList());
 
         auditLogRepository.save(new AuditLog(Order.class.getName(), order.getId(), order.getUser(),
                 AuditOrderAction.CANCEL_ORDER.name(), OrderStatus.PLACED.name(), OrderStatus.CANCELLED.name()));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getUser().getId(), order.getId(),
+                OrderStatus.CANCELLED, order.getDelivery() != null ? order.getDelivery().getStatus() : null));
     }
 
     /**
@@ -306,7 +508,8 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
-
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getUser().getId(), order.getId(),
+                OrderStatus.CANCELLED, order.getDelivery() != null ? order.getDelivery().getStatus() : null));
     }
 
     /**
@@ -345,6 +548,8 @@ public class OrderService {
                     AuditOrderAction.UPDATE_DELIVERY_STATUS.name(), DeliveryStatus.SHIPPED.name(),
                     DeliveryStatus.DELIVERED.name()));
         }
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getUser().getId(), order.getId(),
+                order.getStatus(), delivery.getStatus()));
     }
 
     /**
@@ -356,9 +561,9 @@ public class OrderService {
      */
     public boolean isOrderOwnedByUser(Long orderId, Long userId) {
 
-        return orderRepository.findById(orderId)
-                .map(order -> order.getUser().getId().equals(userId))
-                .orElse(false);
+        // Not loaded, so that a payment made in the same request reads the
+        // order when it locks it
+        return orderRepository.existsByIdAndUserId(orderId, userId);
     }
 
     /**
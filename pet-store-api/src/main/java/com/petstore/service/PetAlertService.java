@@ -0,0 +1,131 @@
+package com.petstore.service;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.event.PetAlertChangedEvent;
+import com.petstore.exception.InvalidPetAlertException;
+import com.petstore.exception.PetAlertNotFoundException;
+import com.petstore.exception.UserNotFoundException;
+import com.petstore.model.PetAlert;
+import com.petstore.model.PetAlertMatch;
+import com.petstore.model.User;
+import com.petstore.repository.PetAlertMatchRepository;
+import com.petstore.repository.PetAlertRepository;
+import com.petstore.repository.UserRepository;
+
+/**
+ * Service for managing users' pet alerts (saved searches) and reading their
+ * matches. Matching itself happens in {@link com.petstore.alert.PetAlertIndex}.
+ */
+@Service
+public class PetAlertService {
+
+    /** Most alerts one user can keep. */
+    public static final int MAX_ALERTS_PER_USER = 50;
+
+    /** Most matches returned at once. */
+    public static final int MAX_MATCHES = 100;
+
+    private final PetAlertRepository petAlertRepository;
+
+    private final PetAlertMatchRepository petAlertMatchRepository;
+
+    private final UserRepository userRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PetAlertService(PetAlertRepository petAlertRepository, PetAlertMatchRepository petAlertMatchRepository,
+            UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
+        this.petAlertRepository = petAlertRepository;
+        this.petAlertMatchRepository = petAlertMatchRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Retrieves a user's alerts
+     *
+     * @param userId the user ID
+     * @return the user's alerts, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<PetAlert> getUserAlerts(Long userId) {
+        return petAlertRepository.findByUserIdOrderByIdDesc(userId);
+    }
+
+    /**
+     * Creates an alert for a user. The tag is trimmed and lower-cased.
+     *
+     * @param userId  the user ID
+     * @param request the alert's criteria
+     * @return the created alert
+     * @throws InvalidPetAlertException if the alert has no criteria, an
+     *                                  inverted price range, or the user has
+     *                                  too many alerts
+     */
+    @Transactional
+    public PetAlert createAlert(Long userId, PetAlert request) {
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+        String tag = request.getTag() == null || request.getTag().isBlank() ? null
+                : request.getTag().trim().toLowerCase(Locale.ROOT);
+        if (request.getCategoryId() == null && tag == null && request.getMinPrice() == null
+                && request.getMaxPrice() == null) {
+            throw new InvalidPetAlertException("An alert needs a category, a tag or a price limit");
+        }
+        if (request.getMinPrice() != null && request.getMaxPrice() != null
+                && request.getMinPrice().compareTo(request.getMaxPrice()) > 0) {
+            throw new InvalidPetAlertException("Minimum price cannot exceed maximum price");
+        }
+        if (petAlertRepository.countByUserId(userId) >= MAX_ALERTS_PER_USER) {
+            throw new InvalidPetAlertException("A user can keep at most " + MAX_ALERTS_PER_USER + " alerts");
+        }
+
+        PetAlert alert = new PetAlert(request.getCategoryId(), tag, request.getMinPrice(), request.getMaxPrice());
+        alert.setUser(user);
+        PetAlert saved = petAlertRepository.save(alert);
+        eventPublisher.publishEvent(PetAlertChangedEvent.saved(saved));
+        return saved;
+    }
+
+    /**
+     * Deletes one of a user's alerts, with its matches
+     *
+     * @param userId  the user ID
+     * @param alertId the alert ID
+     * @throws PetAlertNotFoundException if the user has no such alert
+     */
+    @Transactional
+    public void deleteAlert(Long userId, Long alertId) {
+
+        PetAlert alert = petAlertRepository.findByIdAndUserId(alertId, userId)
+                .orElseThrow(() -> new PetAlertNotFoundException(alertId));
+        petAlertMatchRepository.deleteByAlertId(alertId);
+        petAlertRepository.delete(alert);
+        eventPublisher.publishEvent(PetAlertChangedEvent.deleted(alertId));
+    }
+
+    /**
+     * Retrieves the pets that matched a user's alerts
+     *
+     * @param userId the user ID
+     * @param limit  the maximum number of matches
+     * @return the matches, newest first
+     * @throws InvalidPetAlertException if the limit is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<PetAlertMatch> getMatches(Long userId, int limit) {
+
+        if (limit < 1 || limit > MAX_MATCHES) {
+            throw new InvalidPetAlertException("Match limit must be between 1 and " + MAX_MATCHES);
+        }
+        return petAlertMatchRepository.findByUserId(userId, PageRequest.of(0, limit));
+    }
+}
@@ -1,20 +1,47 @@
 package com.petstore.service;
 
 import com.petstore.model.Pet;
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.dto.PetSuggestion;
+import com.petstore.enums.PetSort;
 import com.petstore.enums.PetStatus;
 import com.petstore.exception.InvalidPetException;
 import com.petstore.exception.PetNotFoundException;
 import com.petstore.exception.CategoryNotFoundException;
 import com.petstore.model.Category;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.analytics.PetViewCounter;
+import com.petstore.index.PetCatalogSnapshot;
+import com.petstore.index.PetFacetIndex;
+import com.petstore.index.PetSimilarityIndex;
+import com.petstore.index.PetSuggestionIndex;
 import com.petstore.repository.PetRepository;
 import com.petstore.repository.CategoryRepository;
+import com.petstore.reservation.PetReservations;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing pets in the store
@@ -22,13 +49,43 @@ import java.util.List;
 @Service
 public class PetService {
 
+    /** The most popular pets a request can ask for. */
+    public static final int MAX_POPULAR_PETS = 20;
+
     private final PetRepository petRepository;
 
     private final CategoryRepository categoryRepository;
 
-    public PetService(PetRepository petRepository, CategoryRepository categoryRepository) {
+    private final Validator validator;
+
+    private final PetFacetIndex petFacetIndex;
+
+    private final PetCatalogSnapshot petCatalogSnapshot;
+
+    private final PetSuggestionIndex petSuggestionIndex;
+
+    private final PetSimilarityIndex petSimilarityIndex;
+
+    private final PetViewCounter petViewCounter;
+
+    private final PetReservations petReservations;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PetService(PetRepository petRepository, CategoryRepository categoryRepository, Validator validator,
+            PetFacetIndex petFacetIndex, PetCatalogSnapshot petCatalogSnapshot, PetSuggestionIndex petSuggestionIndex,
+            PetSimilarityIndex petSimilarityIndex, PetViewCounter petViewCounter, PetReservations petReservations,
+            ApplicationEventPublisher eventPublisher) {
         this.petRepository = petRepository;
         this.categoryRepository = categoryRepository;
+        this.validator = validator;
+        this.petFacetIndex = petFacetIndex;
+        this.petCatalogSnapshot = petCatalogSnapshot;
+        this.petSuggestionIndex = petSuggestionIndex;
+        this.petSimilarityIndex = petSimilarityIndex;
+        this.petViewCounter = petViewCounter;
+        this.petReservations = petReservations;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -41,10 +98,169 @@ public class PetService {
      * @param size       page size
      * @return paginated result of pets
      */
+    @Transactional(readOnly = true)
     public Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, Long userId, int page,
             int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return petRepository.findPetsByFiltersPaginated(name, categoryId, status, userId, pageable);
+        return findPetsByFiltersPaginated(name, categoryId, status, userId, PetSort.NEWEST, page, size);
+    }
+
+    /**
+     * Searches pets using multiple filters with pagination, in the given order
+     *
+     * @param name       optional pet name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param userId     optional user whose owned or created pets to return
+     * @param sort       the sort option
+     * @param page       page number (zero-based)
+     * @param size       page size
+     * @return paginated result of pets
+     */
+    @Transactional(readOnly = true)
+    public Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, Long userId,
+            PetSort sort, int page, int size) {
+        return findPetsByFiltersPaginated(name, categoryId, status, null, null, userId, sort, page, size);
+    }
+
+    /**
+     * Searches pets using multiple filters and an optional price range with
+     * pagination, in the given order. Price-range and price-sorted catalog
+     * pages within {@link PetCatalogSnapshot#MAX_TOP_K} are answered from the
+     * in-memory catalog snapshot, which then only loads the page's pets;
+     * everything else (and everything before the snapshot is loaded) queries
+     * the database. Reserved pets carry their reservation's expiry.
+     *
+     * @param name       optional pet name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @param userId     optional user whose owned or created pets to return
+     * @param sort       the sort option
+     * @param page       page number (zero-based)
+     * @param size       page size
+     * @return paginated result of pets
+     */
+    @Transactional(readOnly = true)
+    public Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice, Long userId, PetSort sort, int page, int size) {
+        return findPetsByFiltersPaginated(name, categoryId, status, minPrice, maxPrice, null, userId, sort, page,
+                size);
+    }
+
+    /**
+     * Searches pets using multiple filters, an optional price range and tags
+     * with pagination, in the given order, as
+     * {@link #findPetsByFiltersPaginated(String, Long, PetStatus, BigDecimal, BigDecimal, Long, PetSort, int, int)}.
+     * Tag-filtered pages always query the database.
+     *
+     * @param name       optional pet name filter
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param minPrice   optional inclusive lower price bound
+     * @param maxPrice   optional inclusive upper price bound
+     * @param tags       optional tags, all of which must match
+     * @param userId     optional user whose owned or created pets to return
+     * @param sort       the sort option
+     * @param page       page number (zero-based)
+     * @param size       page size
+     * @return paginated result of pets
+     */
+    @Transactional(readOnly = true)
+    public Page<Pet> findPetsByFiltersPaginated(String name, Long categoryId, PetStatus status, BigDecimal minPrice,
+            BigDecimal maxPrice, List<String> tags, Long userId, PetSort sort, int page, int size) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidPetException("minPrice cannot be greater than maxPrice");
+        }
+        Pageable pageable = PageRequest.of(page, size, sort.getSort());
+        if ((tags == null || tags.isEmpty()) && useCatalogSnapshot(name, userId, minPrice, maxPrice, sort, pageable)) {
+            PetCatalogSnapshot.Matches matches = petCatalogSnapshot.find(categoryId, status, minPrice, maxPrice, sort,
+                    (int) pageable.getOffset(), size);
+            return withReservations(
+                    new PageImpl<>(findAllInOrder(matches.getIds()), pageable, matches.getTotal()));
+        }
+        return withReservations(petRepository.findPetsByFiltersPaginated(name, categoryId, status, minPrice,
+                maxPrice, tags, userId, pageable));
+    }
+
+    private Page<Pet> withReservations(Page<Pet> pets) {
+        for (Pet pet : pets) {
+            if (pet.getStatus() == PetStatus.AVAILABLE) {
+                pet.setReservedUntil(petReservations.reservedUntil(pet.getId()));
+            }
+        }
+        return pets;
+    }
+
+    private boolean useCatalogSnapshot(String name, Long userId, BigDecimal minPrice, BigDecimal maxPrice,
+            PetSort sort, Pageable pageable) {
+        boolean priceQuery = minPrice != null || maxPrice != null || sort == PetSort.PRICE_ASC
+                || sort == PetSort.PRICE_DESC;
+        return priceQuery && (name == null || name.isBlank()) && userId == null
+                && PetCatalogSnapshot.supports(sort)
+                && pageable.getOffset() + pageable.getPageSize() <= PetCatalogSnapshot.MAX_TOP_K
+                && petCatalogSnapshot.isReady();
+    }
+
+    /**
+     * Loads pets by ID, in the order of the IDs. IDs of pets deleted since
+     * the snapshot was read are skipped.
+     */
+    private List<Pet> findAllInOrder(long[] ids) {
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Pet> pets = petRepository.findAllWithCategoryByIdIn(idList).stream()
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        return idList.stream().map(pets::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Counts catalog pets per category, status and tag for the given filters,
+     * from the in-memory facet index
+     *
+     * @param categoryId optional category filter
+     * @param status     optional status filter
+     * @param tags       optional tags, all of which must match
+     * @return the matching total and the facet counts
+     */
+    public PetFacetsResponse getFacets(Long categoryId, PetStatus status, List<String> tags) {
+        return petFacetIndex.facets(categoryId, status, tags);
+    }
+
+    /**
+     * Suggests pet names, tags and category names for a search box query,
+     * from the in-memory suggestion index
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return the suggestions, most popular first
+     * @throws InvalidPetException if the limit is out of range
+     */
+    public List<PetSuggestion> suggest(String query, int limit) {
+        if (limit < 1 || limit > PetSuggestionIndex.MAX_SUGGESTIONS) {
+            throw new InvalidPetException(
+                    "Suggestion limit must be between 1 and " + PetSuggestionIndex.MAX_SUGGESTIONS);
+        }
+        return petSuggestionIndex.suggest(query, limit);
+    }
+
+    /**
+     * Finds available pets similar to the given pet by tags, category and
+     * price band, from the in-memory similarity index
+     *
+     * @param id    the pet ID
+     * @param limit the maximum number of pets
+     * @return the similar pets, most similar first
+     * @throws PetNotFoundException if the pet doesn't exist
+     * @throws InvalidPetException  if the limit is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<Pet> getSimilarPets(Long id, int limit) {
+        if (limit < 1 || limit > PetSimilarityIndex.MAX_SIMILAR) {
+            throw new InvalidPetException(
+                    "Similar pets limit must be between 1 and " + PetSimilarityIndex.MAX_SIMILAR);
+        }
+        Pet pet = getPetById(id);
+        return findAllInOrder(petSimilarityIndex.similar(PetChangedEvent.saved(pet), limit));
     }
 
     /**
@@ -63,12 +279,47 @@ public class PetService {
                 .orElseThrow(() -> new PetNotFoundException(id));
     }
 
+    /**
+     * Retrieves a pet for its details page, with its reservation's expiry if
+     * it is reserved, and counts the view. The count is kept in memory and
+     * written to the database in the background.
+     *
+     * @param id the pet ID
+     * @return the pet if found
+     * @throws PetNotFoundException if the pet doesn't exist
+     */
+    public Pet viewPet(Long id) {
+        Pet pet = getPetById(id);
+        petViewCounter.recordView(id);
+        if (pet.getStatus() == PetStatus.AVAILABLE) {
+            pet.setReservedUntil(petReservations.reservedUntil(id));
+        }
+        return pet;
+    }
+
+    /**
+     * Gets the most viewed available pets, from the in-memory view ranking
+     *
+     * @param limit the maximum number of pets
+     * @return the popular pets, most viewed first
+     * @throws InvalidPetException if the limit is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<Pet> getPopularPets(int limit) {
+        if (limit < 1 || limit > MAX_POPULAR_PETS) {
+            throw new InvalidPetException("Popular pets limit must be between 1 and " + MAX_POPULAR_PETS);
+        }
+        return findAllInOrder(petViewCounter.popular()).stream()
+                .filter(pet -> pet.getStatus() == PetStatus.AVAILABLE).limit(limit).toList();
+    }
+
     /**
      * Gets the most recently added available pets
      *
      * @param limit maximum number of pets to return
      * @return list of available pets ordered by creation date
      */
+    @Transactional(readOnly = true)
     public List<Pet> getLatestAvailablePets(int limit) {
         Pageable pageable = PageRequest.of(0, limit);
         return petRepository.findLatestPetsByStatus(PetStatus.AVAILABLE, pageable);
@@ -85,7 +336,9 @@ public class PetService {
         if (pet == null) {
             throw new InvalidPetException("Pet cannot be null");
         }
-        return petRepository.save(pet);
+        Pet savedPet = petRepository.save(pet);
+        eventPublisher.publishEvent(PetChangedEvent.saved(savedPet));
+        return savedPet;
     }
 
     /**
@@ -105,6 +358,7 @@ public class PetService {
         existingPet.setDescription(petDetails.getDescription());
         existingPet.setPrice(petDetails.getPrice());
         existingPet.setStatus(petDetails.getStatus());
+        existingPet.setStockQuantity(petDetails.getStockQuantity());
         existingPet.setPhotoUrls(petDetails.getPhotoUrls());
         existingPet.setTags(petDetails.getTags());
 
@@ -120,7 +374,181 @@ public class PetService {
             existingPet.setOwner(petDetails.getOwner());
         }
 
-        return petRepository.save(existingPet);
+        Pet savedPet = petRepository.save(existingPet);
+        eventPublisher.publishEvent(PetChangedEvent.saved(savedPet));
+        return savedPet;
+    }
+
+    /**
+     * Partially updates an existing pet using JSON Merge Patch (RFC 7396)
+     * semantics. Only fields present in the patch are considered, and a field
+     * is only written when its value actually changes, so Hibernate's dynamic
+     * update SQL touches just those columns. The category is only looked up
+     * when the patch moves the pet to a different category.
+     *
+     * @param id    the pet ID to patch
+     * @param patch the merge patch document
+     * @return the patched pet (unchanged and not saved if the patch is a no-op)
+     * @throws PetNotFoundException      if the pet does not exist
+     * @throws CategoryNotFoundException if the patched category does not exist
+     * @throws InvalidPetException       if the patch is malformed or leaves the
+     *                                   pet invalid
+     */
+    @Transactional
+    public Pet patchPet(Long id, JsonNode patch) {
+
+        if (id == null) {
+            throw new InvalidPetException("Pet ID cannot be null");
+        }
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidPetException("Patch must be a JSON object");
+        }
+
+        Pet existingPet = petRepository.findById(id)
+                .orElseThrow(() -> new PetNotFoundException(id));
+
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+
+            switch (field.getKey()) {
+                case "name" -> {
+                    String name = requiredText(field.getKey(), value);
+                    if (!name.equals(existingPet.getName())) {
+                        existingPet.setName(name);
+                        changed = true;
+                    }
+                }
+                case "description" -> {
+                    String description = value.isNull() ? null : requiredText(field.getKey(), value);
+                    if (!Objects.equals(description, existingPet.getDescription())) {
+                        existingPet.setDescription(description);
+                        changed = true;
+                    }
+                }
+                case "price" -> {
+                    if (!value.isNumber()) {
+                        throw new InvalidPetException("Price must be a number");
+                    }
+                    BigDecimal price = value.decimalValue();
+                    if (existingPet.getPrice() == null || price.compareTo(existingPet.getPrice()) != 0) {
+                        existingPet.setPrice(price);
+                        changed = true;
+                    }
+                }
+                case "status" -> {
+                    PetStatus status = parseStatus(requiredText(field.getKey(), value));
+                    if (status != existingPet.getStatus()) {
+                        existingPet.setStatus(status);
+                        changed = true;
+                    }
+                }
+                case "stockQuantity" -> {
+                    if (!value.isNull() && !(value.isIntegralNumber() && value.canConvertToInt())) {
+                        throw new InvalidPetException("Stock quantity must be a whole number");
+                    }
+                    Integer stockQuantity = value.isNull() ? null : value.intValue();
+                    if (!Objects.equals(stockQuantity, existingPet.getStockQuantity())) {
+                        existingPet.setStockQuantity(stockQuantity);
+                        changed = true;
+                    }
+                }
+                case "photoUrls" -> {
+                    List<String> photoUrls = textList(field.getKey(), value);
+                    if (!Objects.equals(photoUrls, existingPet.getPhotoUrls())) {
+                        existingPet.setPhotoUrls(photoUrls);
+                        changed = true;
+                    }
+                }
+                case "tags" -> {
+                    List<String> tags = textList(field.getKey(), value);
+                    if (!Objects.equals(tags, existingPet.getTags())) {
+                        existingPet.setTags(tags);
+                        changed = true;
+                    }
+                }
+                case "category" -> {
+                    JsonNode categoryId = value.path("id");
+                    if (!categoryId.canConvertToLong()) {
+                        throw new InvalidPetException("Category id is required");
+                    }
+                    Long newCategoryId = categoryId.longValue();
+                    Category current = existingPet.getCategory();
+                    if (current == null || !newCategoryId.equals(current.getId())) {
+                        Category category = categoryRepository.findById(newCategoryId)
+                                .orElseThrow(() -> new CategoryNotFoundException(newCategoryId));
+                        existingPet.setCategory(category);
+                        changed = true;
+                    }
+                }
+                default -> throw new InvalidPetException(
+                        String.format("Field '%s' cannot be patched", field.getKey()));
+            }
+        }
+
+        if (!changed) {
+            return existingPet;
+        }
+
+        Set<ConstraintViolation<Pet>> violations = validator.validate(existingPet);
+        if (!violations.isEmpty()) {
+            throw new InvalidPetException(violations.iterator().next().getMessage());
+        }
+
+        Pet savedPet = petRepository.save(existingPet);
+        eventPublisher.publishEvent(PetChangedEvent.saved(savedPet));
+        return savedPet;
+    }
+
+    /**
+     * Reads a required, non-null text value from a patch field
+     *
+     * @param field the field name
+     * @param value the patch value
+     * @return the text value
+     */
+    private String requiredText(String field, JsonNode value) {
+        if (value == null || !value.isTextual()) {
+            throw new InvalidPetException(String.format("Field '%s' must be a non-null string", field));
+        }
+        return value.textValue();
+    }
+
+    /**
+     * Parses a pet status name from a patch value
+     *
+     * @param status the status name
+     * @return the matching status
+     */
+    private PetStatus parseStatus(String status) {
+        try {
+            return PetStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPetException(String.format("Invalid pet status '%s'", status));
+        }
+    }
+
+    /**
+     * Reads a list of strings from a patch field, where null clears the list
+     *
+     * @param field the field name
+     * @param value the patch value
+     * @return the list, or null if the patch removes it
+     */
+    private List<String> textList(String field, JsonNode value) {
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isArray()) {
+            throw new InvalidPetException(String.format("Field '%s' must be an array of strings", field));
+        }
+        List<String> values = new ArrayList<>(value.size());
+        for (JsonNode element : value) {
+            values.add(requiredText(field, element));
+        }
+        return values;
     }
 
     /**
@@ -139,6 +567,7 @@ public class PetService {
                 .orElseThrow(() -> new PetNotFoundException(id));
 
         petRepository.delete(pet);
+        eventPublisher.publishEvent(PetChangedEvent.deleted(id));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.petstore.stock;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.petstore.event.PetChangedEvent;
+import com.petstore.exception.PetOutOfStockException;
+
+/**
+ * Takes units of pets sold by quantity at payment time.
+ *
+ * <p>
+ * The {@code pets} row is the source of truth: units are taken with one
+ * conditional decrement, {@code UPDATE pets SET stock_quantity =
+ * stock_quantity - ? WHERE id = ? AND stock_quantity >= ?}, so two payments
+ * can never sell the same unit, on any replica. In front of it, each pet's
+ * units are mirrored in a {@link StripedStock}, loaded on first use; a
+ * payment reserves its units there first, so once a hot pet sells out the
+ * remaining buyers are turned away from memory without queueing on the row
+ * lock. Reserved units go back if the payment rolls back. The mirror is
+ * dropped when the pet changes, and re-read when the database refuses a
+ * decrement it allowed, or when it has run out and is older than
+ * {@value #REFRESH_MILLIS} ms, so restocks on other replicas show up.
+ * </p>
+ */
+@Component
+public class StockReservations {
+
+    static final long REFRESH_MILLIS = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final int stripes;
+
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+
+    public StockReservations(JdbcTemplate jdbcTemplate, Clock clock,
+            @Value("${app.stock.stripes:8}") int stripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.stripes = stripes;
+    }
+
+    /**
+     * Takes units of a pet within the current transaction.
+     *
+     * @param petId    the pet ID
+     * @param quantity the number of units
+     * @return the units left on hand once taken
+     * @throws PetOutOfStockException if fewer units are on hand
+     */
+    public int take(Long petId, int quantity) {
+        StripedStock stock = reserve(petId, quantity);
+        afterRollback(() -> stock.put(quantity));
+        int updated = jdbcTemplate.update("UPDATE pets SET stock_quantity = stock_quantity - ?, updated_at = ? "
+                + "WHERE id = ? AND stock_quantity >= ?", quantity, Timestamp.valueOf(LocalDateTime.now(clock)),
+                petId, quantity);
+        if (updated == 0) {
+            stocks.remove(petId, stock);
+            throw new PetOutOfStockException(petId, quantity);
+        }
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM pets WHERE id = ?", Integer.class, petId);
+    }
+
+    /**
+     * Puts units of a pet back on hand within the current transaction, for a
+     * sale whose payment failed after it committed. The mirror is read again
+     * on next use once the transaction commits.
+     *
+     * @param petId    the pet ID
+     * @param quantity the number of units
+     * @return the units on hand once put back
+     */
+    public int restore(Long petId, int quantity) {
+        jdbcTemplate.update("UPDATE pets SET stock_quantity = stock_quantity + ?, updated_at = ? WHERE id = ?",
+                quantity, Timestamp.valueOf(LocalDateTime.now(clock)), petId);
+        afterCommit(() -> stocks.remove(petId));
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM pets WHERE id = ?", Integer.class, petId);
+    }
+
+    /**
+     * Tells how many units of a pet the mirror holds, for tests and metrics.
+     *
+     * @param petId the pet ID
+     * @return the mirrored units, or null if the pet is not mirrored
+     */
+    public Long available(Long petId) {
+        StripedStock stock = stocks.get(petId);
+        return stock != null ? stock.available() : null;
+    }
+
+    /**
+     * Drops a pet's mirrored units once a change to it has committed, so a
+     * restock is read on next use.
+     *
+     * @param change the pet change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent change) {
+        stocks.remove(change.getPetId());
+    }
+
+    private StripedStock reserve(Long petId, int quantity) {
+        StripedStock stock = stock(petId);
+        if (stock.tryTake(quantity)) {
+            return stock;
+        }
+        if (clock.millis() - stock.loadedAtMillis() >= REFRESH_MILLIS) {
+            StripedStock fresh = load(petId);
+            stock = stocks.replace(petId, stock, fresh) ? fresh : stock(petId);
+            if (stock.tryTake(quantity)) {
+                return stock;
+            }
+        }
+        throw new PetOutOfStockException(petId, quantity);
+    }
+
+    private StripedStock stock(Long petId) {
+        StripedStock stock = stocks.get(petId);
+        if (stock == null) {
+            // Read outside computeIfAbsent, which would hold the map's bin lock
+            StripedStock loaded = load(petId);
+            stock = stocks.putIfAbsent(petId, loaded);
+            if (stock == null) {
+                stock = loaded;
+            }
+        }
+        return stock;
+    }
+
+    private StripedStock load(Long petId) {
+        Integer units = jdbcTemplate.query("SELECT stock_quantity FROM pets WHERE id = ?",
+                rs -> rs.next() ? (Integer) rs.getObject(1, Integer.class) : null, petId);
+        return new StripedStock(units != null ? units : 0, stripes, clock.millis());
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or right away
+     * outside one.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs an action if the current transaction rolls back; outside one there
+     * is nothing to roll back.
+     */
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
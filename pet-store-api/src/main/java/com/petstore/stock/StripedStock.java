@@ -0,0 +1,97 @@
+package com.petstore.stock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Units of one pet sold by quantity, split over a few counters so that
+ * concurrent buyers of a hot pet mostly update different cache lines instead
+ * of all retrying a compare-and-set on one. A buyer takes from the stripe its
+ * thread maps to and, when that runs short, from the others; units that could
+ * not make up a whole request are put back.
+ */
+final class StripedStock {
+
+    /** Longs per 64-byte cache line, so that stripes don't share one. */
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+
+    private final int stripes;
+
+    private final long loadedAtMillis;
+
+    StripedStock(long units, int stripes, long loadedAtMillis) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PAD);
+        this.loadedAtMillis = loadedAtMillis;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            cells.set(stripe * PAD, units / stripes + (stripe < units % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return when the units were read from the database, in epoch milliseconds
+     */
+    long loadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    /**
+     * Takes units, all or none.
+     *
+     * @param quantity the number of units
+     * @return whether the units were taken
+     */
+    boolean tryTake(int quantity) {
+        int home = home();
+        // A second pass covers units another buyer held briefly and put back
+        for (int attempt = 0; attempt < 2; attempt++) {
+            long remaining = quantity;
+            for (int i = 0; i < stripes && remaining > 0; i++) {
+                int cell = ((home + i) % stripes) * PAD;
+                long units = cells.get(cell);
+                while (units > 0) {
+                    long taken = Math.min(units, remaining);
+                    if (cells.compareAndSet(cell, units, units - taken)) {
+                        remaining -= taken;
+                        break;
+                    }
+                    units = cells.get(cell);
+                }
+            }
+            if (remaining == 0) {
+                return true;
+            }
+            cells.addAndGet(home * PAD, quantity - remaining);
+            if (available() < quantity) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts units back, for a sale that was rolled back.
+     *
+     * @param quantity the number of units
+     */
+    void put(int quantity) {
+        cells.addAndGet(home() * PAD, quantity);
+    }
+
+    /**
+     * @return the units left, summed over the stripes without locking
+     */
+    long available() {
+        long units = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            units += cells.get(stripe * PAD);
+        }
+        return units;
+    }
+
+    private int home() {
+        long mixed = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed >>> 32, (long) stripes);
+    }
+}
@@ -24,8 +24,8 @@ public class CreditCardPaymentStrategy implements PaymentStrategy {
         
         logger.info("Processing credit card payment for amount: {}", payment.getAmount());
 
-        // Add credit card specific details to payment note if needed
-        payment.setPaymentNote(request.getCardNumber());
+        // Only the last digits: the note is stored and returned with the payment
+        payment.setPaymentNote(PaymentStrategy.maskCardNumber(request.getCardNumber()));
     }
 
     @Override
@@ -23,7 +23,8 @@ public class DebitCardPaymentStrategy implements PaymentStrategy {
     public void processPayment(Payment payment, PaymentOrderRequest request) {
 
         logger.info("Processing debit card payment for amount: {}", payment.getAmount());
-        payment.setPaymentNote(request.getCardNumber());
+        // Only the last digits: the note is stored and returned with the payment
+        payment.setPaymentNote(PaymentStrategy.maskCardNumber(request.getCardNumber()));
     }
 
     @Override
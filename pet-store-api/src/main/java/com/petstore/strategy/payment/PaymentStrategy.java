@@ -9,5 +9,21 @@ public interface PaymentStrategy {
     PaymentType getPaymentType();
     void processPayment(Payment payment, PaymentOrderRequest request);
     void validatePayment(PaymentOrderRequest request);
-    
+
+    /**
+     * Masks all but the last four digits of a card number, for the payment
+     * note: a card number must not be stored, returned or logged in full.
+     *
+     * @param cardNumber the card number, possibly with separators
+     * @return the masked number, for example {@code ************1111}
+     */
+    static String maskCardNumber(String cardNumber) {
+        long digits = cardNumber.chars().filter(Character::isDigit).count();
+        StringBuilder masked = new StringBuilder(cardNumber.length());
+        for (char c : cardNumber.toCharArray()) {
+            masked.append(Character.isDigit(c) && digits-- > 4 ? '*' : c);
+        }
+        return masked.toString();
+    }
+
 }
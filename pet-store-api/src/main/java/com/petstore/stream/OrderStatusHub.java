@@ -0,0 +1,330 @@
+package com.petstore.stream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.petstore.event.OrderStatusChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans order and delivery status changes out to their owners' Server-Sent
+ * Events streams, once the transaction that made them has committed.
+ *
+ * <p>
+ * An open stream holds no thread: it is an asynchronous request parked in
+ * the servlet container, so idle streams cost only their connection and a
+ * small entry here. Events are written by a few sender threads
+ * ({@code app.order-events.sender-threads}), one stream at a time, so a
+ * publisher never waits on a client. A send to a client that has stopped
+ * reading blocks its sender until Tomcat's write timeout
+ * ({@code server.tomcat.connection-timeout}) fails it, which closes the
+ * stream, so stalled clients cannot hold the senders for long. The
+ * response carries {@code X-Accel-Buffering: no} so that nginx passes
+ * events through as they are written. A slow client does not build up a
+ * backlog either: its pending events are kept one per order, latest status
+ * only, and a stream that still falls more than
+ * {@code app.order-events.max-pending} orders behind is closed, for the
+ * client to reconnect and reload its orders. Every
+ * {@code app.order-events.heartbeat} a comment is sent on streams that had
+ * nothing else to send, to keep proxies from closing them and to notice
+ * clients that have gone. A user keeps at most
+ * {@code app.order-events.max-streams-per-user} streams, the oldest being
+ * closed first, and each is closed after {@code app.order-events.timeout}.
+ * Only this replica's streams are told; the change must be made here.
+ * </p>
+ */
+@Component
+public class OrderStatusHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusHub.class);
+
+    static final String EVENT_NAME = "order-status";
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ExecutorService senders;
+
+    private final Duration timeout;
+
+    private final int maxStreamsPerUser;
+
+    private final int maxPending;
+
+    public OrderStatusHub(@Value("${app.order-events.sender-threads:8}") int senderThreads,
+            @Value("${app.order-events.timeout:PT30M}") Duration timeout,
+            @Value("${app.order-events.max-streams-per-user:5}") int maxStreamsPerUser,
+            @Value("${app.order-events.max-pending:100}") int maxPending) {
+        this.timeout = timeout;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.maxPending = maxPending;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a stream of a user's order and delivery status changes.
+     *
+     * @param userId the user
+     * @return the stream, to be returned from the request handler
+     */
+    public SseEmitter subscribe(Long userId) {
+        Subscriber subscriber = new Subscriber(userId, newEmitter(timeout.toMillis()));
+        subscriber.emitter.onCompletion(subscriber::closed);
+        subscriber.emitter.onError(error -> subscriber.closed());
+        subscriber.emitter.onTimeout(subscriber::close);
+
+        Subscriber[] evicted = new Subscriber[1];
+        subscribers.compute(userId, (id, streams) -> {
+            List<Subscriber> updated = streams != null ? streams : new CopyOnWriteArrayList<>();
+            updated.add(subscriber);
+            if (updated.size() > maxStreamsPerUser) {
+                evicted[0] = updated.remove(0);
+            }
+            return updated;
+        });
+        if (evicted[0] != null) {
+            evicted[0].close();
+        }
+        // Sends the response headers at once, rather than with the first event
+        subscriber.heartbeat();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Sends a status change to its owner's streams, if any are open here.
+     *
+     * @param event the status change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Subscriber> streams = subscribers.get(event.getUserId());
+        if (streams == null) {
+            return;
+        }
+        for (Subscriber subscriber : streams) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * Sends a heartbeat on every stream that has had nothing to send since
+     * the last one.
+     */
+    @Scheduled(initialDelayString = "${app.order-events.heartbeat:PT15S}",
+            fixedRateString = "${app.order-events.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (List<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    /**
+     * @return the number of open streams, for tests and metrics
+     */
+    int streamCount() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    @PreDestroy
+    public void close() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Creates a stream's emitter; overridden by tests.
+     */
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    /**
+     * One open stream. Only a sender thread writes to or completes its
+     * emitter, and only one at a time, so a client that is slow to read holds
+     * up no one but itself.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final Long userId;
+
+        private final SseEmitter emitter;
+
+        /** Latest unsent change per order, in the order they last changed; guarded by this. */
+        private final LinkedHashMap<Long, OrderStatusChangedEvent> pending = new LinkedHashMap<>();
+
+        private boolean heartbeatDue;
+
+        private boolean closing;
+
+        private boolean closed;
+
+        /** Whether a sender is draining this stream or about to. */
+        private boolean scheduled;
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(OrderStatusChangedEvent event) {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                pending.remove(event.getOrderId());
+                pending.put(event.getOrderId(), event);
+                if (pending.size() > maxPending) {
+                    logger.info("Closing a status stream of user {} that fell {} orders behind", userId, maxPending);
+                    pending.clear();
+                    closing = true;
+                }
+                if (!schedule()) {
+                    return;
+                }
+            }
+            submit();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                heartbeatDue = true;
+                if (!schedule()) {
+                    return;
+                }
+            }
+            submit();
+        }
+
+        /**
+         * Completes the stream, on a sender thread.
+         */
+        void close() {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                pending.clear();
+                closing = true;
+                if (!schedule()) {
+                    return;
+                }
+            }
+            submit();
+        }
+
+        /**
+         * Forgets a stream the container has completed.
+         */
+        void closed() {
+            synchronized (this) {
+                pending.clear();
+                closing = true;
+                closed = true;
+            }
+            remove(this);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                OrderStatusChangedEvent next = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (closed) {
+                        scheduled = false;
+                        return;
+                    }
+                    Iterator<OrderStatusChangedEvent> iterator = pending.values().iterator();
+                    if (iterator.hasNext()) {
+                        next = iterator.next();
+                        iterator.remove();
+                    } else if (closing) {
+                        complete = true;
+                    } else if (!heartbeatDue) {
+                        scheduled = false;
+                        return;
+                    }
+                    // Any event sent serves as the heartbeat
+                    heartbeatDue = false;
+                }
+                if (complete) {
+                    remove(this);
+                    emitter.complete();
+                    synchronized (this) {
+                        closed = true;
+                        scheduled = false;
+                    }
+                    return;
+                }
+                try {
+                    emitter.send(next != null
+                            ? SseEmitter.event().name(EVENT_NAME).data(next, MediaType.APPLICATION_JSON)
+                            : SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    // The client has gone; the container completes the stream
+                    closed();
+                    synchronized (this) {
+                        scheduled = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return whether the caller must submit this stream to a sender
+         */
+        private boolean schedule() {
+            if (scheduled || closed) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        private void submit() {
+            try {
+                senders.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+    }
+}
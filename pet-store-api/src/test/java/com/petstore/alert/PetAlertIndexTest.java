@@ -0,0 +1,140 @@
+package com.petstore.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetAlertChangedEvent;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.PetAlert;
+
+/**
+ * Unit tests for {@link PetAlertIndex}.
+ */
+@DisplayName("Pet Alert Index Tests")
+class PetAlertIndexTest {
+
+    private PetAlertNotifier petAlertNotifier;
+
+    private PetAlertIndex petAlertIndex;
+
+    @BeforeEach
+    void setUp() {
+        petAlertNotifier = mock(PetAlertNotifier.class);
+        petAlertIndex = new PetAlertIndex(null, petAlertNotifier);
+        alert(1L, 1L, "golden retriever", null, "1000");
+        alert(2L, 1L, null, null, null);
+        alert(3L, null, "Golden Retriever", "500", null);
+        alert(4L, 2L, "golden retriever", null, null);
+        alert(5L, null, null, "999.99", "1000.00");
+        alert(6L, null, null, null, "999.99");
+    }
+
+    /**
+     * Test: a pet matches exactly the alerts whose category, tag (any case)
+     * and price range it satisfies, including alerts leaving criteria open
+     * and prices on the range bounds.
+     */
+    @Test
+    @DisplayName("Match - Should find alerts satisfied by category, tag and price")
+    void match_ShouldFindSatisfiedAlerts() {
+        assertThat(petAlertIndex.match(1L, List.of("Golden Retriever", "puppy"), new BigDecimal("1000.00")))
+                .containsExactly(1L, 2L, 3L, 5L);
+        assertThat(petAlertIndex.match(1L, List.of("puppy"), new BigDecimal("999.99")))
+                .containsExactly(2L, 5L, 6L);
+        assertThat(petAlertIndex.match(2L, List.of("golden retriever"), new BigDecimal("1000.01")))
+                .containsExactly(3L, 4L);
+        assertThat(petAlertIndex.match(null, List.of(), new BigDecimal("0.50"))).containsExactly(6L);
+        assertThat(petAlertIndex.size()).isEqualTo(6);
+    }
+
+    /**
+     * Test: saved available pets are matched and queued for notification;
+     * unavailable and deleted pets are not, and deleted alerts stop matching.
+     */
+    @Test
+    @DisplayName("On pet changed - Should queue matches of available pets only")
+    void onPetChanged_ShouldQueueMatchesOfAvailablePets() {
+        Category dogs = new Category("Dogs");
+        dogs.setId(1L);
+        Pet pet = new Pet("Goldie", dogs, new BigDecimal("900.00"));
+        pet.setId(42L);
+        pet.setTags(List.of("golden retriever"));
+
+        petAlertIndex.onPetChanged(PetChangedEvent.saved(pet));
+        verify(petAlertNotifier).enqueue(eq(42L), eq(new long[] { 1L, 2L, 3L, 6L }));
+
+        petAlertIndex.onAlertChanged(PetAlertChangedEvent.deleted(2L));
+        petAlertIndex.onAlertChanged(PetAlertChangedEvent.deleted(6L));
+        pet.setPrice(new BigDecimal("950.00"));
+        petAlertIndex.onPetChanged(PetChangedEvent.saved(pet));
+        verify(petAlertNotifier).enqueue(eq(42L), eq(new long[] { 1L, 3L }));
+
+        pet.setStatus(PetStatus.SOLD);
+        petAlertIndex.onPetChanged(PetChangedEvent.saved(pet));
+        petAlertIndex.onPetChanged(PetChangedEvent.deleted(42L));
+        verify(petAlertNotifier, times(2)).enqueue(any(), any());
+        assertThat(petAlertIndex.size()).isEqualTo(4);
+    }
+
+    /**
+     * Test: alerts created on another replica, even with a lower ID from an
+     * earlier sequence block, are caught up by creation time, and alerts
+     * deleted there are swept out and not brought back by a later catch-up.
+     */
+    @Test
+    @DisplayName("Catch up and sweep - Should follow alerts created and deleted on other replicas")
+    void catchUpAndSweep_ShouldFollowOtherReplicas() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:pet-alert-index;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE pet_alerts (id BIGINT PRIMARY KEY, category_id BIGINT, "
+                + "tag VARCHAR(50), min_price DECIMAL(10,2), max_price DECIMAL(10,2), created_at TIMESTAMP)");
+        try {
+            insertAlert(jdbcTemplate, 60L, 1L);
+            PetAlertIndex index = new PetAlertIndex(jdbcTemplate, petAlertNotifier);
+            index.load();
+            assertThat(index.match(1L, List.of(), BigDecimal.TEN)).containsExactly(60L);
+
+            insertAlert(jdbcTemplate, 7L, 1L);
+            index.catchUp();
+            assertThat(index.match(1L, List.of(), BigDecimal.TEN)).containsExactly(7L, 60L);
+
+            jdbcTemplate.update("DELETE FROM pet_alerts WHERE id = 60");
+            index.sweep();
+            index.catchUp();
+            assertThat(index.match(1L, List.of(), BigDecimal.TEN)).containsExactly(7L);
+            assertThat(index.size()).isEqualTo(1);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE pet_alerts");
+        }
+    }
+
+    private static void insertAlert(JdbcTemplate jdbcTemplate, long id, long categoryId) {
+        jdbcTemplate.update("INSERT INTO pet_alerts (id, category_id, created_at) VALUES (?, ?, ?)", id,
+                categoryId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void alert(Long id, Long categoryId, String tag, String minPrice, String maxPrice) {
+        PetAlert alert = new PetAlert(categoryId, tag, minPrice != null ? new BigDecimal(minPrice) : null,
+                maxPrice != null ? new BigDecimal(maxPrice) : null);
+        alert.setId(id);
+        petAlertIndex.onAlertChanged(PetAlertChangedEvent.saved(alert));
+    }
+}
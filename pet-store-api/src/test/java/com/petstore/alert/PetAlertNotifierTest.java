@@ -0,0 +1,73 @@
+package com.petstore.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+
+/**
+ * Tests for {@link PetAlertNotifier} against the H2 test database. Runs
+ * without a test transaction, so every write commits; the worker thread is
+ * not started, and the queue is drained explicitly.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pet Alert Notifier Tests")
+class PetAlertNotifierTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pet_alert_matches");
+    }
+
+    /**
+     * Test: queued matches are written in batches, once per alert and pet,
+     * and matches that do not fit in the queue are dropped and counted.
+     */
+    @Test
+    @DisplayName("Drain - Should write each alert and pet pair once and drop overflow")
+    void drain_ShouldWriteEachPairOnceAndDropOverflow() {
+        PetAlertNotifier notifier = new PetAlertNotifier(jdbcTemplate, CLOCK, 3);
+
+        assertThat(notifier.enqueue(1L, LongStream.rangeClosed(1, 2_500).toArray())).isTrue();
+        assertThat(notifier.enqueue(2L, new long[] { 1L, 2L })).isTrue();
+        assertThat(notifier.enqueue(1L, new long[] { 1L, 2_501L })).isTrue();
+        assertThat(notifier.enqueue(3L, new long[] { 1L, 2L, 3L })).isFalse();
+        notifier.drain();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pet_alert_matches WHERE pet_id = 1",
+                Integer.class)).isEqualTo(2_501);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pet_alert_matches WHERE pet_id = 2",
+                Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pet_alert_matches WHERE pet_id = 3",
+                Integer.class)).isZero();
+        assertThat(notifier.getDropped()).isEqualTo(3);
+
+        notifier.enqueue(2L, new long[] { 2L, 3L });
+        notifier.drain();
+        assertThat(jdbcTemplate.queryForList("SELECT alert_id FROM pet_alert_matches WHERE pet_id = 2 "
+                + "ORDER BY alert_id", Long.class)).containsExactly(1L, 2L, 3L);
+    }
+}
@@ -0,0 +1,191 @@
+package com.petstore.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+
+/**
+ * Tests for {@link PetViewCounter} against the H2 test database. Runs without
+ * a test transaction, so every flush commits.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pet View Counter Tests")
+class PetViewCounterTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PetViewCounter petViewCounter;
+
+    @BeforeEach
+    void setUp() {
+        petViewCounter = new PetViewCounter(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (1, 'Dogs')");
+        List<Object[]> pets = new ArrayList<>();
+        for (long id = 1; id <= PetViewCounter.TRACKED + 20; id++) {
+            pets.add(new Object[] { id, "Pet " + id, PetStatus.AVAILABLE.name() });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO pets (id, name, category_id, price, status) VALUES (?, ?, 1, 10, ?)",
+                pets);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pet_view_counts");
+        jdbcTemplate.update("DELETE FROM pets");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    /**
+     * Test: views recorded from many threads are all written on flush, added
+     * to the stored counts, and nothing is written without new views.
+     */
+    @Test
+    @DisplayName("Flush - Should add concurrent views to the stored counts")
+    void flush_ShouldAddConcurrentViewsToStoredCounts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> views = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            views.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    petViewCounter.recordView(1L + i % 3);
+                }
+            }));
+        }
+        for (Future<?> view : views) {
+            view.get();
+        }
+        executor.shutdown();
+
+        petViewCounter.flush();
+        petViewCounter.recordView(1L);
+        petViewCounter.recordView(4L);
+        petViewCounter.flush();
+        petViewCounter.flush();
+
+        assertThat(storedViews(1L)).isEqualTo(13_337);
+        assertThat(storedViews(2L)).isEqualTo(13_332);
+        assertThat(storedViews(3L)).isEqualTo(13_332);
+        assertThat(storedViews(4L)).isEqualTo(1);
+    }
+
+    /**
+     * Test: the ranking follows flushed totals, including views flushed by
+     * another counter (another replica), and is loaded back from the table.
+     */
+    @Test
+    @DisplayName("Popular - Should rank flushed totals and reload them")
+    void popular_ShouldRankFlushedTotalsAndReload() {
+        record(1L, 3);
+        record(2L, 5);
+        record(3L, 3);
+        petViewCounter.flush();
+        assertThat(petViewCounter.popular()).containsExactly(2L, 1L, 3L);
+
+        PetViewCounter otherReplica = new PetViewCounter(jdbcTemplate);
+        for (int i = 0; i < 4; i++) {
+            otherReplica.recordView(3L);
+        }
+        otherReplica.flush();
+        record(3L, 1);
+        petViewCounter.flush();
+        assertThat(petViewCounter.popular()).containsExactly(3L, 2L, 1L);
+
+        PetViewCounter restarted = new PetViewCounter(jdbcTemplate);
+        restarted.loadRanking();
+        assertThat(restarted.popular()).containsExactly(3L, 2L, 1L);
+    }
+
+    /**
+     * Test: only the top {@link PetViewCounter#TRACKED} pets are ranked, and a
+     * deleted pet leaves the ranking and the table.
+     */
+    @Test
+    @DisplayName("Popular - Should keep the top pets and drop deleted ones")
+    void popular_ShouldKeepTopPetsAndDropDeletedOnes() {
+        for (long id = 1; id <= PetViewCounter.TRACKED + 20; id++) {
+            record(id, (int) id);
+        }
+        petViewCounter.flush();
+
+        long[] popular = petViewCounter.popular();
+        assertThat(popular).hasSize(PetViewCounter.TRACKED).startsWith(120L, 119L).endsWith(21L);
+
+        petViewCounter.onPetChanged(PetChangedEvent.deleted(120L));
+        assertThat(petViewCounter.popular()).startsWith(119L).doesNotContain(120L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pet_view_counts WHERE pet_id = 120",
+                Integer.class)).isZero();
+    }
+
+    /**
+     * Test: a pet that is sold leaves the ranking right away, keeps leaving
+     * it on later flushes, and is not loaded back, while the other ranks are.
+     */
+    @Test
+    @DisplayName("Popular - Should drop pets that are no longer available")
+    void popular_ShouldDropPetsNoLongerAvailable() {
+        record(1L, 3);
+        record(2L, 5);
+        record(3L, 4);
+        petViewCounter.flush();
+
+        jdbcTemplate.update("UPDATE pets SET status = ? WHERE id = 2", PetStatus.SOLD.name());
+        petViewCounter.onPetChanged(PetChangedEvent.saved(pet(2L, PetStatus.SOLD)));
+        assertThat(petViewCounter.popular()).containsExactly(3L, 1L);
+
+        record(2L, 1);
+        petViewCounter.flush();
+        assertThat(petViewCounter.popular()).containsExactly(3L, 1L);
+
+        jdbcTemplate.update("UPDATE pets SET status = ? WHERE id = 3", PetStatus.PENDING.name());
+        petViewCounter.loadRanking();
+        assertThat(petViewCounter.popular()).containsExactly(1L);
+
+        petViewCounter.onPetChanged(PetChangedEvent.saved(pet(1L, PetStatus.AVAILABLE)));
+        assertThat(petViewCounter.popular()).containsExactly(1L);
+    }
+
+    private static Pet pet(long id, PetStatus status) {
+        Pet pet = new Pet("Pet " + id, new Category("Dogs"), BigDecimal.TEN);
+        pet.setId(id);
+        pet.setStatus(status);
+        return pet;
+    }
+
+    private void record(long petId, int views) {
+        for (int i = 0; i < views; i++) {
+            petViewCounter.recordView(petId);
+        }
+    }
+
+    private long storedViews(long petId) {
+        return jdbcTemplate.queryForObject("SELECT view_count FROM pet_view_counts WHERE pet_id = ?", Long.class,
+                petId);
+    }
+}
@@ -0,0 +1,115 @@
+package com.petstore.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.petstore.dto.SearchTermCount;
+import com.petstore.dto.SearchTermsReport;
+import com.petstore.enums.AnalyticsWindow;
+import com.petstore.enums.PetStatus;
+
+/**
+ * Unit tests for {@link SearchTermAnalytics}.
+ */
+@DisplayName("Search Term Analytics Tests")
+class SearchTermAnalyticsTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private long now;
+
+    private SearchTermAnalytics searchTermAnalytics;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        now = 100 * MINUTE + 5_000;
+        searchTermAnalytics = new SearchTermAnalytics(clock);
+    }
+
+    /**
+     * Test: searches are grouped by their normalized filter combination and
+     * ranked by count, zero-result searches are reported separately, and
+     * plain browsing is not counted.
+     */
+    @Test
+    @DisplayName("Report - Should rank search terms and zero-result terms")
+    void report_ShouldRankTermsAndZeroHitTerms() {
+        search(" Rex ", 1L, null, false, 3);
+        search("rex", 1L, null, false, 1);
+        search(null, 2L, PetStatus.AVAILABLE, false, 2);
+        search("unicorn", null, null, true, 3);
+        search(null, null, null, false, 5);
+        search("", null, null, false, 5);
+
+        SearchTermsReport report = searchTermAnalytics.report(AnalyticsWindow.MINUTE, 10);
+
+        assertThat(report.getSearches()).isEqualTo(9);
+        assertThat(report.getZeroHitSearches()).isEqualTo(3);
+        assertThat(report.getFrom()).isEqualTo(LocalDateTime.of(1970, 1, 1, 1, 40));
+        assertThat(report.getTopTerms()).extracting(SearchTermCount::getName, SearchTermCount::getCategoryId,
+                SearchTermCount::getStatus, SearchTermCount::getCount).containsExactly(
+                        tuple("rex", 1L, null, 4L),
+                        tuple("unicorn", null, null, 3L),
+                        tuple(null, 2L, PetStatus.AVAILABLE, 2L));
+        assertThat(report.getZeroHitTerms()).extracting(SearchTermCount::getName, SearchTermCount::getCount)
+                .containsExactly(tuple("unicorn", 3L));
+        assertThat(searchTermAnalytics.report(AnalyticsWindow.HOUR, 1).getTopTerms())
+                .extracting(SearchTermCount::getName).containsExactly("rex");
+    }
+
+    /**
+     * Test: a report covers the current and previous window only, and a gap
+     * of more than one window clears both.
+     */
+    @Test
+    @DisplayName("Report - Should cover the current and previous window")
+    void report_ShouldCoverCurrentAndPreviousWindow() {
+        search("rex", null, null, false, 2);
+        now += MINUTE;
+        search("milo", null, null, false, 1);
+
+        SearchTermsReport report = searchTermAnalytics.report(AnalyticsWindow.MINUTE, 10);
+        assertThat(report.getSearches()).isEqualTo(3);
+        assertThat(report.getFrom()).isEqualTo(LocalDateTime.of(1970, 1, 1, 1, 40));
+
+        now += MINUTE;
+        assertThat(searchTermAnalytics.report(AnalyticsWindow.MINUTE, 10).getTopTerms())
+                .extracting(SearchTermCount::getName).containsExactly("milo");
+
+        now += 2 * MINUTE;
+        assertThat(searchTermAnalytics.report(AnalyticsWindow.MINUTE, 10).getSearches()).isZero();
+        assertThat(searchTermAnalytics.report(AnalyticsWindow.HOUR, 10).getSearches()).isEqualTo(3);
+    }
+
+    /**
+     * Test: out-of-range limits are rejected.
+     */
+    @Test
+    @DisplayName("Report - Should reject an invalid limit")
+    void report_ShouldRejectInvalidLimit() {
+        assertThatThrownBy(() -> searchTermAnalytics.report(AnalyticsWindow.HOUR, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> searchTermAnalytics.report(AnalyticsWindow.HOUR, SearchTermAnalytics.MAX_TERMS + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void search(String name, Long categoryId, PetStatus status, boolean zeroHits, int times) {
+        for (int i = 0; i < times; i++) {
+            searchTermAnalytics.recordSearch(name, categoryId, status, zeroHits);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.petstore.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link SpaceSavingTracker} and {@link CountMinSketch}.
+ */
+@DisplayName("Space Saving Tracker Tests")
+class SpaceSavingTrackerTest {
+
+    /**
+     * Test: on a skewed stream with far more distinct keys than counters,
+     * every heavy key stays monitored, and both structures' counts bound the
+     * true counts from above within their error guarantees.
+     */
+    @Test
+    @DisplayName("Offer - Should keep heavy hitters and never undercount")
+    void offer_ShouldKeepHeavyHittersAndNeverUndercount() {
+        SpaceSavingTracker tracker = new SpaceSavingTracker(50);
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        int total = 100_000;
+
+        for (int i = 0; i < total; i++) {
+            String key = random.nextInt(4) == 0 ? "heavy-" + random.nextInt(10) : "rare-" + random.nextInt(20_000);
+            expected.merge(key, 1L, Long::sum);
+            tracker.offer(key);
+            sketch.add(SearchTermAnalytics.hash(key), 1);
+        }
+
+        Map<String, Long> monitored = new HashMap<>();
+        for (int i = 0; i < tracker.size(); i++) {
+            String key = tracker.key(i);
+            monitored.put(key, tracker.count(i));
+            assertThat(tracker.count(i)).isGreaterThanOrEqualTo(expected.get(key))
+                    .isLessThanOrEqualTo(expected.get(key) + tracker.error(i));
+        }
+        assertThat(tracker.size()).isEqualTo(50);
+        for (int heavy = 0; heavy < 10; heavy++) {
+            assertThat(monitored).containsKey("heavy-" + heavy);
+        }
+        expected.forEach((key, count) -> assertThat(sketch.estimate(SearchTermAnalytics.hash(key)))
+                .isGreaterThanOrEqualTo(count));
+        assertThat(sketch.estimate(SearchTermAnalytics.hash("heavy-0")))
+                .isLessThanOrEqualTo(expected.get("heavy-0") + total * 3 / 1024);
+
+        tracker.clear();
+        sketch.clear();
+        assertThat(tracker.size()).isZero();
+        assertThat(sketch.estimate(SearchTermAnalytics.hash("heavy-0"))).isZero();
+    }
+}
@@ -0,0 +1,169 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.OrderStatus;
+import com.petstore.enums.PaymentType;
+import com.petstore.model.Address;
+import com.petstore.model.Category;
+import com.petstore.model.Order;
+import com.petstore.model.Pet;
+import com.petstore.model.User;
+import com.petstore.repository.AddressRepository;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.OrderRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.repository.UserRepository;
+import com.petstore.service.CartService;
+import com.petstore.service.OrderService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Opt-in benchmark for {@link OrderService#checkout} followed by
+ * {@link OrderService#makePayment} on a 10-item cart.
+ * <p>
+ * Run with {@code mvn test -Dtest=CheckoutBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.orders=500}). Each order is committed, so
+ * the reported latency and JDBC statements per order include id generation
+ * and insert/update batching.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Checkout Benchmark")
+class CheckoutBenchmarkTest {
+
+    private static final int CART_SIZE = 10;
+    private static final int WARMUP_ORDERS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Checkout and payment cost for a 10-item cart")
+    void checkoutAndPaymentCost() {
+
+        int orders = Integer.getInteger("benchmark.orders", 200);
+        Category category = categoryRepository.save(new Category("Benchmark"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < WARMUP_ORDERS; i++) {
+            placeAndPay(prepareCart("warmup-" + i, category));
+        }
+
+        long checkoutNanos = 0;
+        long paymentNanos = 0;
+        long checkoutStatements = 0;
+        long paymentStatements = 0;
+        for (int i = 0; i < orders; i++) {
+            Buyer buyer = prepareCart("buyer-" + i, category);
+
+            statistics.clear();
+            long start = System.nanoTime();
+            Order order = orderService.checkout(buyer.userId(), null);
+            checkoutNanos += System.nanoTime() - start;
+            checkoutStatements += statistics.getPrepareStatementCount();
+
+            statistics.clear();
+            start = System.nanoTime();
+            orderService.makePayment(order.getId(), paymentRequest(buyer.addressId()));
+            paymentNanos += System.nanoTime() - start;
+            paymentStatements += statistics.getPrepareStatementCount();
+        }
+
+        report("checkout (" + CART_SIZE + " items)", checkoutNanos, checkoutStatements, orders);
+        report("makePayment (" + CART_SIZE + " items)", paymentNanos, paymentStatements, orders);
+
+        assertThat(orderRepository.findAll()).filteredOn(o -> o.getStatus() == OrderStatus.APPROVED)
+                .hasSize(orders + WARMUP_ORDERS);
+    }
+
+    private void placeAndPay(Buyer buyer) {
+        Order order = orderService.checkout(buyer.userId(), null);
+        orderService.makePayment(order.getId(), paymentRequest(buyer.addressId()));
+    }
+
+    private Buyer prepareCart(String name, Category category) {
+        return transactionTemplate.execute(status -> createBuyerWithCart(name, category));
+    }
+
+    private Buyer createBuyerWithCart(String name, Category category) {
+        User user = userRepository.save(new User(name + "@example.com", "password", "Bench", name));
+
+        Address address = new Address();
+        address.setUser(user);
+        address.setFullName("Bench " + name);
+        address.setPhoneNumber("1234567890");
+        address.setStreet("1 Benchmark Way");
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("11111");
+        address.setCountry("USA");
+        address = addressRepository.save(address);
+
+        List<Pet> pets = new ArrayList<>(CART_SIZE);
+        for (int i = 0; i < CART_SIZE; i++) {
+            pets.add(new Pet(name + "-pet-" + i, category, new BigDecimal("100.00")));
+        }
+        for (Pet pet : petRepository.saveAll(pets)) {
+            cartService.addPetToCart(user.getId(), pet.getId());
+        }
+        return new Buyer(user.getId(), address.getId());
+    }
+
+    private PaymentOrderRequest paymentRequest(Long addressId) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setPaymentType(PaymentType.CREDIT_CARD);
+        request.setCardNumber("4111111111111111");
+        request.setShippingAddressId(addressId);
+        return request;
+    }
+
+    private void report(String operation, long nanos, long statements, int orders) {
+        System.out.printf("[benchmark] %-28s avg %.1f us/op, %.1f statements/op%n", operation,
+                nanos / 1_000.0 / orders, (double) statements / orders);
+    }
+
+    private record Buyer(Long userId, Long addressId) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.petstore.delivery.DeliveryStatusImporter;
+import com.petstore.dto.DeliveryImportReport;
+
+/**
+ * Opt-in measurement of the bulk delivery status import: a CSV of carrier
+ * events shipping every delivery, then one delivering them all. Reports the
+ * updates applied per minute and fails below
+ * {@code benchmark.target-updates-per-minute} (100,000 by default).
+ * <p>
+ * Run with {@code mvn test -Dtest=DeliveryImportBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.deliveries=500000}).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Delivery Import Benchmark")
+class DeliveryImportBenchmarkTest {
+
+    private static final long FIRST_ID = 20_000_000;
+
+    @Autowired
+    private DeliveryStatusImporter deliveryStatusImporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Carrier events applied in bulk")
+    void importCarrierEvents() throws IOException {
+
+        int deliveries = Integer.getInteger("benchmark.deliveries", 100_000);
+        insertDeliveries(deliveries);
+
+        try {
+            long started = System.nanoTime();
+            DeliveryImportReport shipped = deliveryStatusImporter.importEvents(events(deliveries, "SHIPPED"),
+                    DeliveryStatusImporter.Format.CSV, null);
+            DeliveryImportReport delivered = deliveryStatusImporter.importEvents(events(deliveries, "DELIVERED"),
+                    DeliveryStatusImporter.Format.CSV, null);
+            long elapsedNanos = System.nanoTime() - started;
+
+            long updates = shipped.getUpdated() + delivered.getUpdated();
+            double perMinute = updates * 60e9 / elapsedNanos;
+            System.out.printf("[benchmark] %,d delivery updates in %d ms: %,.0f updates/min%n", updates,
+                    elapsedNanos / 1_000_000, perMinute);
+
+            assertThat(updates).isEqualTo(2L * deliveries);
+            assertThat(shipped.getFailed() + delivered.getFailed()).isZero();
+            double target = Double.parseDouble(System.getProperty("benchmark.target-updates-per-minute", "100000"));
+            assertThat(perMinute).isGreaterThanOrEqualTo(target);
+        } finally {
+            jdbcTemplate.update("DELETE FROM audit_logs WHERE entity_id >= ?", FIRST_ID);
+            jdbcTemplate.update("DELETE FROM deliveries WHERE order_id >= ?", FIRST_ID);
+            jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", FIRST_ID);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", FIRST_ID);
+        }
+    }
+
+    private void insertDeliveries(int count) {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, first_name, last_name) VALUES (?, ?, ?, ?, ?)",
+                FIRST_ID, "carrier-benchmark@example.com", "secret", "Carrier", "Benchmark");
+        List<Object[]> orders = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (long id = FIRST_ID; id < FIRST_ID + count; id++) {
+            orders.add(new Object[] { id, "BENCH-" + id, FIRST_ID, "APPROVED", 100 });
+            rows.add(new Object[] { id, id, "Carrier Benchmark", "0123456789", "1 Benchmark Street", "PENDING" });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, user_id, status, total_amount) "
+                + "VALUES (?, ?, ?, ?, ?)", orders);
+        jdbcTemplate.batchUpdate("INSERT INTO deliveries (id, order_id, name, phone, address, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static ByteArrayInputStream events(int count, String status) {
+        StringBuilder csv = new StringBuilder("order_id,status\n");
+        for (long id = FIRST_ID; id < FIRST_ID + count; id++) {
+            csv.append(id).append(',').append(status).append('\n');
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,180 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.OrderStatus;
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.PetStatus;
+import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.model.Address;
+import com.petstore.model.Category;
+import com.petstore.model.Order;
+import com.petstore.model.Pet;
+import com.petstore.model.User;
+import com.petstore.repository.AddressRepository;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.OrderRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.repository.UserRepository;
+import com.petstore.service.CartService;
+import com.petstore.service.FlashSaleService;
+
+/**
+ * Opt-in stress test of flash sale mode: thousands of buyers check out carts
+ * holding one of a few hot pets, then all pay at once.
+ * <p>
+ * Run with {@code mvn test -Dtest=FlashSaleBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.buyers=5000 -Dbenchmark.pets=20}). Each pet
+ * must end up in exactly one approved order; the report separates the
+ * latency of winners, who pay, from that of losers, who are told the pet is
+ * sold. Reservations are turned off with zero TTLs so that every buyer can
+ * put a hot pet in their cart.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = { "app.flash-sale.enabled=true",
+        "app.reservations.cart-ttl=PT0S", "app.reservations.order-ttl=PT0S" })
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Flash Sale Benchmark")
+class FlashSaleBenchmarkTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Concurrent buyers of a few hot pets")
+    void concurrentBuyers() throws Exception {
+
+        int buyerCount = Integer.getInteger("benchmark.buyers", 2_000);
+        int petCount = Integer.getInteger("benchmark.pets", 10);
+        Category category = categoryRepository.save(new Category("Flash Sale Benchmark"));
+        List<Pet> pets = new ArrayList<>(petCount);
+        for (int i = 0; i < petCount; i++) {
+            pets.add(new Pet("hot-pet-" + i, category, new BigDecimal("100.00")));
+        }
+        List<Long> petIds = petRepository.saveAll(pets).stream().map(Pet::getId).toList();
+
+        List<Buyer> buyers = new ArrayList<>(buyerCount);
+        for (int i = 0; i < buyerCount; i++) {
+            Long petId = petIds.get(i % petCount);
+            String name = "flash-" + i;
+            Buyer buyer = transactionTemplate.execute(status -> createBuyerWithCart(name, petId));
+            buyers.add(new Buyer(buyer.userId(), buyer.addressId(),
+                    flashSaleService.checkout(buyer.userId(), null).getId()));
+        }
+
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger losers = new AtomicInteger();
+        AtomicLong winnerNanos = new AtomicLong();
+        AtomicLong loserNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        try {
+            List<Future<?>> payments = new ArrayList<>(buyerCount);
+            for (Buyer buyer : buyers) {
+                payments.add(executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    try {
+                        flashSaleService.makePayment(buyer.orderId(), paymentRequest(buyer.addressId()));
+                        winnerNanos.addAndGet(System.nanoTime() - begin);
+                        winners.incrementAndGet();
+                    } catch (PetAlreadySoldException e) {
+                        loserNanos.addAndGet(System.nanoTime() - begin);
+                        losers.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> payment : payments) {
+                payment.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+        }
+
+        System.out.printf("[benchmark] %,d buyers for %d pets on %d threads: %.0f ms total, "
+                + "winners %.1f ms/op, losers %.1f ms/op%n", buyerCount, petCount, THREADS, elapsed / 1e6,
+                winnerNanos.get() / 1e6 / Math.max(1, winners.get()), loserNanos.get() / 1e6 / Math.max(1, losers.get()));
+
+        assertThat(winners).hasValue(petCount);
+        assertThat(losers).hasValue(buyerCount - petCount);
+        assertThat(orderRepository.findAll()).filteredOn(order -> order.getStatus() == OrderStatus.APPROVED)
+                .hasSize(petCount);
+        assertThat(petRepository.findAllById(petIds)).extracting(Pet::getStatus).containsOnly(PetStatus.SOLD);
+    }
+
+    private Buyer createBuyerWithCart(String name, Long petId) {
+        User user = userRepository.save(new User(name + "@example.com", "password", "Flash", name));
+
+        Address address = new Address();
+        address.setUser(user);
+        address.setFullName("Flash " + name);
+        address.setPhoneNumber("1234567890");
+        address.setStreet("1 Benchmark Way");
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("11111");
+        address.setCountry("USA");
+        address = addressRepository.save(address);
+
+        cartService.addPetToCart(user.getId(), petId);
+        return new Buyer(user.getId(), address.getId(), null);
+    }
+
+    private PaymentOrderRequest paymentRequest(Long addressId) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setPaymentType(PaymentType.CREDIT_CARD);
+        request.setCardNumber("4111111111111111");
+        request.setShippingAddressId(addressId);
+        return request;
+    }
+
+    private record Buyer(Long userId, Long addressId, Long orderId) {
+    }
+}
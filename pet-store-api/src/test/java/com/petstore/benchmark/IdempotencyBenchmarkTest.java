@@ -0,0 +1,82 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.idempotency.IdempotencyStore;
+
+/**
+ * Opt-in measurement of idempotent retries: how long a first request spends
+ * claiming its key and storing its response, and how long a retry takes to be
+ * answered from memory and, as on another replica, from the database.
+ * <p>
+ * Run with {@code mvn test -Dtest=IdempotencyBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.keys=50000}).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Idempotency Benchmark")
+class IdempotencyBenchmarkTest {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Clock clock;
+
+    @Test
+    @DisplayName("First requests and retries by idempotency key")
+    void firstRequestsAndRetries() {
+
+        int keys = Integer.getInteger("benchmark.keys", 10_000);
+        AtomicInteger runs = new AtomicInteger();
+        Map<String, Object> order = Map.of("id", 400, "status", "PLACED", "totalPrice", 1250.00);
+        String fingerprint = idempotencyStore.fingerprint("POST /checkout?discountCode=null", null);
+
+        long first = time(idempotencyStore, keys, fingerprint, runs, order);
+        long fromMemory = time(idempotencyStore, keys, fingerprint, runs, order);
+        IdempotencyStore otherReplica = new IdempotencyStore(jdbcTemplate, objectMapper, clock,
+                Duration.ofHours(24), Duration.ofMinutes(1), keys);
+        long fromDatabase = time(otherReplica, keys, fingerprint, runs, order);
+
+        System.out.printf("[benchmark] %,d idempotency keys: first request %.1f us/op, retry from memory "
+                + "%.2f us/op, retry on another replica %.1f us/op%n", keys, first / 1e3 / keys,
+                fromMemory / 1e3 / keys, fromDatabase / 1e3 / keys);
+
+        assertThat(runs).hasValue(keys);
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    private static long time(IdempotencyStore store, int keys, String fingerprint, AtomicInteger runs,
+            Map<String, Object> order) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < keys; i++) {
+            store.execute(1L, "benchmark-" + i, fingerprint, () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.ok(order);
+            });
+        }
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,122 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.petstore.alert.PetAlertIndex;
+import com.petstore.alert.PetAlertNotifier;
+import com.petstore.event.PetAlertChangedEvent;
+import com.petstore.model.PetAlert;
+
+/**
+ * Opt-in benchmark for matching new pets against {@link PetAlertIndex}.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetAlertBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.alerts=200000}; the default is one million).
+ * Alerts get one of 20 categories (2% any), one of 300 tags (5% any), a
+ * maximum price up to 2,000 (30% none) and sometimes a minimum price. Each
+ * generated pet is matched through the index and, as the baseline, by checking
+ * every alert in turn; both must find the same alerts.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Alert Benchmark")
+class PetAlertBenchmarkTest {
+
+    private static final int QUERIES = 200;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 10;
+
+    @Test
+    @DisplayName("New pet matching latency, index vs linear scan")
+    void matchLatency() {
+
+        int alertCount = Integer.getInteger("benchmark.alerts", 1_000_000);
+        PetAlertIndex index = new PetAlertIndex(null, mock(PetAlertNotifier.class));
+        Random random = new Random(42);
+        long[] categories = new long[alertCount + 1];
+        String[] tags = new String[alertCount + 1];
+        long[] minCents = new long[alertCount + 1];
+        long[] maxCents = new long[alertCount + 1];
+
+        long start = System.nanoTime();
+        for (int id = 1; id <= alertCount; id++) {
+            categories[id] = random.nextInt(100) < 2 ? 0 : 1 + random.nextInt(20);
+            tags[id] = random.nextInt(100) < 5 ? null : "tag" + random.nextInt(300);
+            maxCents[id] = random.nextInt(100) < 30 ? Long.MAX_VALUE : (1 + random.nextInt(2_000)) * 100L;
+            minCents[id] = random.nextInt(100) < 20 ? random.nextInt(500) * 100L : 0;
+            PetAlert alert = new PetAlert(categories[id] == 0 ? null : categories[id], tags[id],
+                    BigDecimal.valueOf(minCents[id], 2),
+                    maxCents[id] == Long.MAX_VALUE ? null : BigDecimal.valueOf(maxCents[id], 2));
+            alert.setId((long) id);
+            index.onAlertChanged(PetAlertChangedEvent.saved(alert));
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<Long> petCategories = new ArrayList<>();
+        List<List<String>> petTags = new ArrayList<>();
+        List<BigDecimal> petPrices = new ArrayList<>();
+        Random queryRandom = new Random(7);
+        for (int i = 0; i < QUERIES; i++) {
+            petCategories.add(1L + queryRandom.nextInt(20));
+            petTags.add(List.of("tag" + queryRandom.nextInt(300), "tag" + queryRandom.nextInt(300)));
+            petPrices.add(BigDecimal.valueOf(1 + queryRandom.nextInt(2_000)));
+        }
+
+        for (int i = 0; i < QUERIES; i++) {
+            assertThat(index.match(petCategories.get(i), petTags.get(i), petPrices.get(i)))
+                    .containsExactly(scan(categories, tags, minCents, maxCents, petCategories.get(i), petTags.get(i),
+                            petPrices.get(i)));
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (int q = 0; q < QUERIES; q++) {
+                index.match(petCategories.get(q), petTags.get(q), petPrices.get(q));
+                scan(categories, tags, minCents, maxCents, petCategories.get(q), petTags.get(q), petPrices.get(q));
+            }
+        }
+        start = System.nanoTime();
+        long matches = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (int q = 0; q < QUERIES; q++) {
+                matches += index.match(petCategories.get(q), petTags.get(q), petPrices.get(q)).length;
+            }
+        }
+        double indexMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS / QUERIES;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (int q = 0; q < QUERIES; q++) {
+                scan(categories, tags, minCents, maxCents, petCategories.get(q), petTags.get(q), petPrices.get(q));
+            }
+        }
+        double scanMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS / QUERIES;
+        System.out.printf("[benchmark] alerts %,10d: load %,d ms, index %.1f us/op, linear scan %.1f us/op, "
+                + "%.1f matches%n", alertCount, loadMillis, indexMicros, scanMicros,
+                (double) matches / ITERATIONS / QUERIES);
+    }
+
+    private static long[] scan(long[] categories, String[] tags, long[] minCents, long[] maxCents, long category,
+            List<String> petTags, BigDecimal price) {
+        long cents = price.movePointRight(2).longValue();
+        long[] matches = new long[categories.length];
+        int count = 0;
+        for (int id = 1; id < categories.length; id++) {
+            if ((categories[id] == 0 || categories[id] == category)
+                    && (tags[id] == null || petTags.contains(tags[id]))
+                    && minCents[id] <= cents && cents <= maxCents[id]) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+}
@@ -0,0 +1,214 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetSort;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.index.PetCatalogSnapshot;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Opt-in benchmark comparing price-range and price-sorted catalog pages
+ * answered by the JPQL query against the {@link PetCatalogSnapshot}, and
+ * reporting the snapshot's memory footprint.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetCatalogSnapshotBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.pets=200000}; the default is one million).
+ * Each query is warmed up, then timed over a fixed number of iterations; the
+ * snapshot is timed for its scan alone and with loading the page's pets. The
+ * footprint report compares the heap retained by the snapshot with its direct
+ * buffers, and with the heap a list of per-pet change events over the same
+ * rows needs.
+ * </p>
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Catalog Snapshot Benchmark")
+class PetCatalogSnapshotBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 100;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int ITERATIONS = 5;
+    private static final int CATEGORIES = 20;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        // In chunks, so H2's undo log for a million rows never has to fit in memory at once
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM pets", Long.class);
+        for (long upTo = BATCH_SIZE * 10L; upTo - BATCH_SIZE * 10L < maxId; upTo += BATCH_SIZE * 10L) {
+            jdbcTemplate.update("DELETE FROM pets WHERE id <= ?", upTo);
+        }
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    @DisplayName("Catalog snapshot vs JPQL, and snapshot footprint")
+    void snapshotVersusJpql() {
+
+        int petCount = Integer.getInteger("benchmark.pets", 1_000_000);
+        seed(petCount);
+        jdbcTemplate.execute("ANALYZE");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long heapBefore = usedHeap();
+        PetCatalogSnapshot snapshot = new PetCatalogSnapshot(petRepository, true);
+        long start = System.nanoTime();
+        snapshot.rebuild();
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        long snapshotHeap = usedHeap() - heapBefore;
+        assertThat(snapshot.size()).isEqualTo(petCount);
+
+        Long categoryId = 1L;
+        BigDecimal min = new BigDecimal("10");
+        BigDecimal max = new BigDecimal("50");
+        measure(statistics, snapshot, "range cat", categoryId, min, max, PetSort.PRICE_ASC, 0);
+        measure(statistics, snapshot, "range", null, min, max, PetSort.PRICE_ASC, 0);
+        measure(statistics, snapshot, "range", null, min, max, PetSort.NEWEST, 0);
+        measure(statistics, snapshot, "cheapest cat", categoryId, null, null, PetSort.PRICE_ASC, 0);
+        measure(statistics, snapshot, "priciest", null, null, null, PetSort.PRICE_DESC, 0);
+        measure(statistics, snapshot, "cheapest", null, null, null, PetSort.PRICE_ASC, DEEP_PAGE);
+
+        heapBefore = usedHeap();
+        List<PetChangedEvent> rows = loadRowObjects();
+        long rowObjectsHeap = usedHeap() - heapBefore;
+        assertThat(rows).hasSize(petCount);
+
+        System.out.printf("[benchmark] footprint %,d pets: snapshot rebuild %,d ms, heap %,d KB, off-heap %,d KB; "
+                + "per-row objects heap %,d KB%n", petCount, rebuildMillis, snapshotHeap / 1024,
+                snapshot.offHeapBytes() / 1024, rowObjectsHeap / 1024);
+    }
+
+    private void measure(Statistics statistics, PetCatalogSnapshot snapshot, String label, Long categoryId,
+            BigDecimal min, BigDecimal max, PetSort sort, int page) {
+        PageRequest pageable = PageRequest.of(page, PAGE_SIZE, sort.getSort());
+        Supplier<List<Long>> jpql = () -> petRepository.findPetsByFiltersPaginated(null, categoryId,
+                PetStatus.AVAILABLE, min, max, null, pageable).map(Pet::getId).getContent();
+        Supplier<List<Long>> snapshotIds = () -> Arrays.stream(snapshot.find(categoryId, PetStatus.AVAILABLE, min,
+                max, sort, (int) pageable.getOffset(), PAGE_SIZE).getIds()).boxed().toList();
+        Supplier<List<Long>> fromSnapshot = () -> {
+            List<Long> ids = snapshotIds.get();
+            petRepository.findAllWithCategoryByIdIn(ids);
+            return ids;
+        };
+
+        // Both must return the same page before their timings mean anything
+        assertThat(fromSnapshot.get()).hasSize(PAGE_SIZE).isEqualTo(jpql.get());
+
+        String operation = label + " " + sort.getParameter() + " p" + page;
+        time(statistics, "jpql " + operation, jpql);
+        time(statistics, "snapshot ids " + operation, snapshotIds);
+        time(statistics, "snapshot page " + operation, fromSnapshot);
+    }
+
+    private void time(Statistics statistics, String operation, Supplier<List<Long>> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        double averageMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        System.out.printf("[benchmark] %-40s avg %.1f us/op, %.1f statements/op%n", operation, averageMicros,
+                (double) statistics.getPrepareStatementCount() / ITERATIONS);
+    }
+
+    /**
+     * Reads the snapshot's columns as one change event per pet, the way an
+     * object-per-row cache would hold them.
+     */
+    private List<PetChangedEvent> loadRowObjects() {
+        List<PetChangedEvent> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, category_id, price, status, created_at FROM pets", resultSet -> {
+            Category category = new Category();
+            category.setId(resultSet.getLong(2));
+            Pet pet = new Pet(null, category, resultSet.getBigDecimal(3));
+            pet.setId(resultSet.getLong(1));
+            pet.setStatus(PetStatus.valueOf(resultSet.getString(4)));
+            pet.setCreatedAt(resultSet.getTimestamp(5).toLocalDateTime());
+            rows.add(PetChangedEvent.saved(pet));
+        });
+        return rows;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Inserts the catalog with plain JDBC batches: 20 categories, 80%
+     * available, prices with many ties, creation times spread out.
+     */
+    private void seed(int petCount) {
+        List<Object[]> categories = new ArrayList<>();
+        for (int i = 1; i <= CATEGORIES; i++) {
+            categories.add(new Object[] { (long) i, "Category " + i });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (id, name) VALUES (?, ?)", categories);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= petCount; i++) {
+            int roll = random.nextInt(100);
+            PetStatus status = roll < 80 ? PetStatus.AVAILABLE : roll < 95 ? PetStatus.SOLD : PetStatus.PENDING;
+            Timestamp createdAt = Timestamp.valueOf(now.minusSeconds(random.nextInt(365 * 24 * 3600)));
+            batch.add(new Object[] { (long) i, "Pet " + i, (long) (random.nextInt(CATEGORIES) + 1),
+                    BigDecimal.valueOf(random.nextInt(2_000) * 5L + 5, 1), status.name(), createdAt, createdAt });
+            if (batch.size() == BATCH_SIZE || i == petCount) {
+                jdbcTemplate.batchUpdate("INSERT INTO pets (id, name, category_id, price, status, created_at, "
+                        + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Opt-in benchmark for pet list-page loads and photo/tag updates.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetCollectionsBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.pets=50000}). Reports average latency and
+ * JDBC statements per operation.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Collections Benchmark")
+class PetCollectionsBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Test
+    @DisplayName("List page load and tag update cost")
+    void listPageAndUpdateCost() {
+
+        int petCount = Integer.getInteger("benchmark.pets", 10_000);
+        Category category = entityManager.persistAndFlush(new Category("Dogs"));
+        for (int i = 0; i < petCount; i++) {
+            Pet pet = new Pet("Pet " + i, category, new BigDecimal("100.00"));
+            pet.setPhotoUrls(List.of("photo-" + i + "-1.jpg", "photo-" + i + "-2.jpg", "photo-" + i + "-3.jpg"));
+            pet.setTags(List.of("tag-" + (i % 50), "tag-" + (i % 7), "friendly"));
+            entityManager.persist(pet);
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                category = entityManager.find(Category.class, category.getId());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Page<Pet> page = petRepository.findPetsByFiltersPaginated(null, null, null, null,
+                    PageRequest.of(i % 50, PAGE_SIZE));
+            page.getContent().forEach(pet -> {
+                pet.getPhotoUrls().size();
+                pet.getTags().size();
+            });
+            entityManager.clear();
+        }
+        report("list page (" + PAGE_SIZE + " pets)", start, statistics.getPrepareStatementCount());
+
+        List<Long> ids = petRepository.findAll(PageRequest.of(0, ITERATIONS)).map(Pet::getId).getContent();
+        entityManager.clear();
+        statistics.clear();
+        start = System.nanoTime();
+        for (Long id : ids) {
+            Pet pet = petRepository.findById(id).orElseThrow();
+            pet.setTags(List.of("updated", "friendly", "tag-" + id));
+            pet.setPhotoUrls(List.of("updated-" + id + ".jpg"));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        report("update photos + tags", start, statistics.getPrepareStatementCount());
+
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+    }
+
+    private void report(String operation, long startNanos, long statements) {
+        double averageMicros = (System.nanoTime() - startNanos) / 1_000.0 / ITERATIONS;
+        System.out.printf("[benchmark] %-28s avg %.1f us/op, %.1f statements/op%n", operation, averageMicros,
+                (double) statements / ITERATIONS);
+    }
+}
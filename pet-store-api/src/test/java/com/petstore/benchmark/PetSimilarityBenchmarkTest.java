@@ -0,0 +1,109 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.index.PetSimilarityIndex;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Opt-in benchmark for {@link PetSimilarityIndex} lookups as the catalog
+ * grows.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetSimilarityBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.pets=200000}; the default is one million).
+ * The index is rebuilt at a tenth, a third and all of that size, with pets
+ * getting one of 20 categories, two or three of 200 tags, a price up to 2,000
+ * and 80% available. At each size the same generated pets are looked up after
+ * a warmup; lookup time should stay flat while the rebuild grows.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Similarity Benchmark")
+class PetSimilarityBenchmarkTest {
+
+    private static final int QUERIES = 1_000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 50;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Test
+    @DisplayName("Similar pets lookup latency by catalog size")
+    void similarLatency() {
+
+        int petCount = Integer.getInteger("benchmark.pets", 1_000_000);
+        List<Category> categories = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            Category category = new Category("Category " + i);
+            category.setId(i);
+            categories.add(category);
+        }
+        List<PetChangedEvent> queries = new ArrayList<>();
+        Random queryRandom = new Random(7);
+        for (long id = 1; id <= QUERIES; id++) {
+            queries.add(PetChangedEvent.saved(pet(id, categories, queryRandom)));
+        }
+
+        for (int size : new int[] { petCount / 10, petCount / 3, petCount }) {
+            PetRepository petRepository = mock(PetRepository.class);
+            Random random = new Random(42);
+            when(petRepository.findBatchAfterId(anyLong(), any())).thenAnswer(invocation -> {
+                long afterId = invocation.getArgument(0);
+                List<Pet> batch = new ArrayList<>();
+                for (long id = afterId + 1; id <= Math.min(afterId + BATCH_SIZE, size); id++) {
+                    batch.add(pet(id, categories, random));
+                }
+                return batch;
+            });
+            PetSimilarityIndex index = new PetSimilarityIndex(petRepository);
+
+            long start = System.nanoTime();
+            index.rebuild();
+            long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+            assertThat(index.similar(queries.get(0), 6)).hasSize(6);
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                queries.forEach(query -> index.similar(query, 6));
+            }
+            start = System.nanoTime();
+            long results = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (PetChangedEvent query : queries) {
+                    results += index.similar(query, 6).length;
+                }
+            }
+            System.out.printf("[benchmark] similar %,10d pets: rebuild %,d ms, avg %.1f us/op, %.1f results%n",
+                    size, rebuildMillis, (System.nanoTime() - start) / 1_000.0 / ITERATIONS / QUERIES,
+                    (double) results / ITERATIONS / QUERIES);
+        }
+    }
+
+    private static Pet pet(long id, List<Category> categories, Random random) {
+        Pet pet = new Pet("Pet " + id, categories.get(random.nextInt(categories.size())),
+                BigDecimal.valueOf(random.nextInt(2_000) + 1));
+        pet.setId(id);
+        List<String> tags = new ArrayList<>();
+        for (int i = 2 + random.nextInt(2); i > 0; i--) {
+            tags.add("tag" + random.nextInt(200));
+        }
+        pet.setTags(tags);
+        pet.setStatus(random.nextInt(100) < 80 ? PetStatus.AVAILABLE : PetStatus.SOLD);
+        return pet;
+    }
+}
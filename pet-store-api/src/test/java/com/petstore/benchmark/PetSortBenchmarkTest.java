@@ -0,0 +1,161 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetSort;
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Opt-in benchmark for the catalog sort options over a large catalog.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetSortBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.pets=200000}; the default is one million).
+ * Every {@link PetSort} is measured for a status filter and a category +
+ * status filter, on the first page and a deep page, once without and once
+ * with the sort indexes declared on {@link Pet}. Reports average latency and
+ * JDBC statements per page (select + count).
+ * </p>
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Sort Benchmark")
+class PetSortBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 100;
+    private static final int ITERATIONS = 5;
+    private static final int CATEGORIES = 20;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pets");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    @DisplayName("Catalog page cost per sort option")
+    void catalogPageCostPerSort() {
+
+        int petCount = Integer.getInteger("benchmark.pets", 1_000_000);
+        seed(petCount);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Index> sortIndexes = Arrays.stream(Pet.class.getAnnotation(Table.class).indexes())
+                .filter(index -> index.name().startsWith("idx_pets_status_")
+                        || index.name().startsWith("idx_pets_category_status_"))
+                .toList();
+
+        sortIndexes.forEach(index -> jdbcTemplate.execute("DROP INDEX " + index.name()));
+        jdbcTemplate.execute("ANALYZE");
+        measureAll("no sort index", statistics);
+
+        sortIndexes.forEach(index -> jdbcTemplate.execute(
+                "CREATE INDEX " + index.name() + " ON pets (" + index.columnList() + ")"));
+        jdbcTemplate.execute("ANALYZE");
+        measureAll("sort index", statistics);
+
+        assertThat(petRepository.count()).isEqualTo(petCount);
+    }
+
+    private void measureAll(String label, Statistics statistics) {
+        Long categoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM categories", Long.class);
+        for (PetSort sort : PetSort.values()) {
+            for (boolean byCategory : new boolean[] { false, true }) {
+                for (int page : new int[] { 0, DEEP_PAGE }) {
+                    PageRequest pageable = PageRequest.of(page, PAGE_SIZE, sort.getSort());
+                    Long category = byCategory ? categoryId : null;
+                    // Warm-up, and a check that the sort is a total order across pages
+                    Page<Pet> result = petRepository.findPetsByFiltersPaginated(null, category,
+                            PetStatus.AVAILABLE, null, pageable);
+                    assertThat(result.getContent()).hasSize(PAGE_SIZE);
+
+                    statistics.clear();
+                    long start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        petRepository.findPetsByFiltersPaginated(null, category, PetStatus.AVAILABLE, null, pageable);
+                    }
+                    report(label + " " + sort.getParameter() + (byCategory ? " cat" : "") + " p" + page, start,
+                            statistics.getPrepareStatementCount());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the catalog with plain JDBC batches: 20 categories, 80%
+     * available, prices with many ties, names and creation times spread out.
+     */
+    private void seed(int petCount) {
+        List<Object[]> categories = new ArrayList<>();
+        for (int i = 1; i <= CATEGORIES; i++) {
+            categories.add(new Object[] { (long) i, "Category " + i });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (id, name) VALUES (?, ?)", categories);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= petCount; i++) {
+            int roll = random.nextInt(100);
+            PetStatus status = roll < 80 ? PetStatus.AVAILABLE : roll < 95 ? PetStatus.SOLD : PetStatus.PENDING;
+            Timestamp createdAt = Timestamp.valueOf(now.minusSeconds(random.nextInt(365 * 24 * 3600)));
+            batch.add(new Object[] { (long) i, "Pet " + Integer.toString(random.nextInt(1 << 30), 36),
+                    (long) (random.nextInt(CATEGORIES) + 1), BigDecimal.valueOf(random.nextInt(2_000) * 5L, 1),
+                    status.name(), createdAt, createdAt });
+            if (batch.size() == BATCH_SIZE || i == petCount) {
+                jdbcTemplate.batchUpdate("INSERT INTO pets (id, name, category_id, price, status, created_at, "
+                        + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void report(String operation, long startNanos, long statements) {
+        double averageMicros = (System.nanoTime() - startNanos) / 1_000.0 / ITERATIONS;
+        System.out.printf("[benchmark] %-34s avg %.1f us/op, %.1f statements/op%n", operation, averageMicros,
+                (double) statements / ITERATIONS);
+    }
+}
@@ -0,0 +1,99 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.petstore.index.PetSuggestionIndex;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Opt-in benchmark for {@link PetSuggestionIndex} lookups over a large
+ * catalog.
+ * <p>
+ * Run with {@code mvn test -Dtest=PetSuggestionBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.pets=200000}; the default is one million).
+ * Pets get generated three-syllable names, two of 200 tags and one of 20
+ * categories, and are loaded through a rebuild. Each query is warmed up,
+ * then timed; prefixes of every length are measured, exact and with a typo.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pet Suggestion Benchmark")
+class PetSuggestionBenchmarkTest {
+
+    private static final String[] SYLLABLES = { "ba", "be", "bi", "bo", "bu", "da", "de", "di", "do", "du", "ka",
+            "ke", "ki", "ko", "ku", "la", "le", "li", "lo", "lu", "ma", "me", "mi", "mo", "mu", "ra", "re", "ri",
+            "ro", "ru", "sa", "se", "si", "so", "su", "ta", "te", "ti", "to", "tu" };
+    private static final String[] QUERIES = { "b", "bu", "bud", "budd", "buddy", "budy", "bdudy", "kiro", "kirro",
+            "ta", "tagg", "categ" };
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Test
+    @DisplayName("Suggestion lookup latency")
+    void suggestionLatency() {
+
+        int petCount = Integer.getInteger("benchmark.pets", 1_000_000);
+        List<Category> categories = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            Category category = new Category("Category " + i);
+            category.setId(i);
+            categories.add(category);
+        }
+        Random random = new Random(42);
+        PetRepository petRepository = mock(PetRepository.class);
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            List<Pet> batch = new ArrayList<>();
+            for (long id = afterId + 1; id <= Math.min(afterId + BATCH_SIZE, petCount); id++) {
+                Pet pet = new Pet(name(random) + (id % 7 == 0 ? " " + name(random) : ""),
+                        categories.get(random.nextInt(categories.size())), BigDecimal.TEN);
+                pet.setId(id);
+                pet.setTags(List.of("tag" + random.nextInt(200), "tag" + random.nextInt(200)));
+                batch.add(pet);
+            }
+            return batch;
+        });
+        PetSuggestionIndex index = new PetSuggestionIndex(petRepository);
+
+        long start = System.nanoTime();
+        index.rebuild();
+        System.out.printf("[benchmark] rebuild %,d pets in %,d ms%n", petCount,
+                (System.nanoTime() - start) / 1_000_000);
+        assertThat(index.suggest("b", 5)).hasSize(5);
+
+        for (String query : QUERIES) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                index.suggest(query, 5);
+            }
+            start = System.nanoTime();
+            int results = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                results += index.suggest(query, 5).size();
+            }
+            System.out.printf("[benchmark] suggest %-8s avg %.2f us/op, %d results%n", query,
+                    (System.nanoTime() - start) / 1_000.0 / ITERATIONS, results / ITERATIONS);
+        }
+    }
+
+    private static String name(Random random) {
+        String name = SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)]
+                + SYLLABLES[random.nextInt(SYLLABLES.length)];
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.petstore.reconciliation.ReconciliationSummary;
+import com.petstore.reconciliation.SettlementFileGenerator;
+import com.petstore.reconciliation.SettlementMismatch;
+import com.petstore.reconciliation.SettlementReconciler;
+
+/**
+ * Opt-in measurement of settlement reconciliation: a synthetic settlement
+ * file, with a mismatch every thousand lines, reconciled against as many
+ * payments. Reports the file read in megabytes and lines per second and
+ * fails below {@code benchmark.target-mb-per-second}, if given.
+ * <p>
+ * Run with {@code mvn test -Dtest=ReconciliationBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.payments=2000000 -Dbenchmark.target-mb-per-second=50}).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Reconciliation Benchmark")
+class ReconciliationBenchmarkTest {
+
+    private static final long FIRST_ID = 10_000_000;
+
+    @Autowired
+    private SettlementReconciler settlementReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Settlement file reconciled against payments")
+    void reconcileSettlementFile() throws IOException {
+
+        int payments = Integer.getInteger("benchmark.payments", 500_000);
+        SettlementFileGenerator.insertPayments(jdbcTemplate, FIRST_ID, payments, "PAYPAL");
+        Path file = directory.resolve("PAYPAL-benchmark.csv");
+        long injected = SettlementFileGenerator.write(file, "PAYPAL", FIRST_ID, payments, 1_000);
+        AtomicLong mismatches = new AtomicLong();
+
+        try {
+            // Once to warm up, once measured
+            settlementReconciler.reconcile(file, "PAYPAL", mismatch -> mismatches.incrementAndGet());
+            ReconciliationSummary summary = settlementReconciler.reconcile(file, "PAYPAL",
+                    mismatch -> mismatches.incrementAndGet());
+
+            System.out.printf("[benchmark] %,d settled lines (%,d MB) reconciled in %d ms: %.1f MB/s, "
+                    + "%,.0f lines/s, %,d mismatches%n", summary.lines(), Files.size(file) / 1_000_000,
+                    summary.elapsed().toMillis(), summary.megabytesPerSecond(),
+                    summary.lines() * 1e9 / summary.elapsed().toNanos(), summary.mismatchCount());
+
+            assertThat(summary.lines()).isEqualTo(payments);
+            assertThat(summary.mismatches()).containsEntry(SettlementMismatch.Type.AMOUNT_MISMATCH, injected);
+            double target = Double.parseDouble(System.getProperty("benchmark.target-mb-per-second", "0"));
+            assertThat(summary.megabytesPerSecond()).isGreaterThanOrEqualTo(target);
+        } finally {
+            SettlementFileGenerator.deletePayments(jdbcTemplate, FIRST_ID);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.petstore.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.OrderStatus;
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.PetStatus;
+import com.petstore.exception.PetOutOfStockException;
+import com.petstore.model.Address;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.User;
+import com.petstore.repository.AddressRepository;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.OrderRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.repository.UserRepository;
+import com.petstore.service.CartService;
+import com.petstore.service.OrderService;
+
+/**
+ * Opt-in contention test of pets sold by quantity: a thousand buyers check
+ * out one unit each of the same pet, then all pay at once.
+ * <p>
+ * Run with {@code mvn test -Dtest=StockBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.buyers=5000 -Dbenchmark.units=2000}). Exactly
+ * as many payments as there are units must succeed and leave the pet sold
+ * out; the report gives the payment throughput and separates the latency of
+ * buyers who got a unit from that of buyers turned away once it ran out.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Stock Benchmark")
+class StockBenchmarkTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Concurrent buyers of one pet sold by quantity")
+    void concurrentBuyersOfOnePet() throws Exception {
+
+        int buyerCount = Integer.getInteger("benchmark.buyers", 1_000);
+        int units = Integer.getInteger("benchmark.units", buyerCount / 2);
+        Category category = categoryRepository.save(new Category("Stock Benchmark"));
+        Pet pet = new Pet("Neon Tetra", category, new BigDecimal("2.50"));
+        pet.setStockQuantity(units);
+        Long petId = petRepository.save(pet).getId();
+
+        List<Buyer> buyers = new ArrayList<>(buyerCount);
+        for (int i = 0; i < buyerCount; i++) {
+            String name = "stock-" + i;
+            Buyer buyer = transactionTemplate.execute(status -> createBuyerWithCart(name, petId));
+            buyers.add(new Buyer(buyer.userId(), buyer.addressId(),
+                    orderService.checkout(buyer.userId(), null).getId()));
+        }
+
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger losers = new AtomicInteger();
+        AtomicLong winnerNanos = new AtomicLong();
+        AtomicLong loserNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        try {
+            List<Future<?>> payments = new ArrayList<>(buyerCount);
+            for (Buyer buyer : buyers) {
+                payments.add(executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    try {
+                        orderService.makePayment(buyer.orderId(), paymentRequest(buyer.addressId()));
+                        winnerNanos.addAndGet(System.nanoTime() - begin);
+                        winners.incrementAndGet();
+                    } catch (PetOutOfStockException e) {
+                        loserNanos.addAndGet(System.nanoTime() - begin);
+                        losers.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> payment : payments) {
+                payment.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+        }
+
+        System.out.printf("[benchmark] %,d buyers for %,d units of one pet on %d threads: %.0f ms total, "
+                + "%.0f payments/s, winners %.1f ms/op, losers %.1f ms/op%n", buyerCount, units, THREADS,
+                elapsed / 1e6, buyerCount / (elapsed / 1e9),
+                winnerNanos.get() / 1e6 / Math.max(1, winners.get()), loserNanos.get() / 1e6 / Math.max(1, losers.get()));
+
+        assertThat(winners).hasValue(units);
+        assertThat(losers).hasValue(buyerCount - units);
+        assertThat(orderRepository.findAll()).filteredOn(order -> order.getStatus() == OrderStatus.APPROVED)
+                .hasSize(units);
+        Pet soldOut = petRepository.findById(petId).orElseThrow();
+        assertThat(soldOut.getStockQuantity()).isZero();
+        assertThat(soldOut.getStatus()).isEqualTo(PetStatus.SOLD);
+    }
+
+    private Buyer createBuyerWithCart(String name, Long petId) {
+        User user = userRepository.save(new User(name + "@example.com", "password", "Stock", name));
+
+        Address address = new Address();
+        address.setUser(user);
+        address.setFullName("Stock " + name);
+        address.setPhoneNumber("1234567890");
+        address.setStreet("1 Benchmark Way");
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("11111");
+        address.setCountry("USA");
+        address = addressRepository.save(address);
+
+        cartService.addPetToCart(user.getId(), petId, 1);
+        return new Buyer(user.getId(), address.getId(), null);
+    }
+
+    private PaymentOrderRequest paymentRequest(Long addressId) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setPaymentType(PaymentType.CREDIT_CARD);
+        request.setCardNumber("4111111111111111");
+        request.setShippingAddressId(addressId);
+        return request;
+    }
+
+    private record Buyer(Long userId, Long addressId, Long orderId) {
+    }
+}
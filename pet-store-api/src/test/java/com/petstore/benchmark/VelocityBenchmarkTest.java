@@ -0,0 +1,96 @@
+package com.petstore.benchmark;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.PaymentType;
+import com.petstore.fraud.VelocityChecker;
+
+/**
+ * Opt-in measurement of the latency velocity checks add to checkout and
+ * payment requests.
+ * <p>
+ * Run with {@code mvn test -Dtest=VelocityBenchmarkTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.users=500000 -Dbenchmark.threads=16}).
+ * Limits are set high enough that nothing is refused. Checks are timed for
+ * distinct users, cards and addresses on one thread, and on several threads
+ * all counting under one address, the most contended case.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Velocity Benchmark")
+class VelocityBenchmarkTest {
+
+    @Test
+    @DisplayName("Checkout and payment velocity check latency")
+    void checkLatency() throws Exception {
+
+        int users = Integer.getInteger("benchmark.users", 100_000);
+        int threads = Integer.getInteger("benchmark.threads", 8);
+        MockEnvironment environment = new MockEnvironment();
+        for (String rule : List.of("checkout.per-user", "checkout.per-ip", "payment.per-user", "payment.per-card",
+                "payment.per-ip")) {
+            environment.setProperty("app.velocity." + rule, String.valueOf(Integer.MAX_VALUE));
+        }
+        environment.setProperty("app.velocity.max-keys", String.valueOf(users * 2));
+        VelocityChecker checker = new VelocityChecker(environment, Clock.systemUTC());
+        PaymentOrderRequest[] payments = new PaymentOrderRequest[users];
+        String[] addresses = new String[users];
+        for (int i = 0; i < users; i++) {
+            payments[i] = new PaymentOrderRequest();
+            payments[i].setPaymentType(PaymentType.CREDIT_CARD);
+            payments[i].setCardNumber(String.format("4111 %04d %04d 1111", i / 10_000, i % 10_000));
+            addresses[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            long checkout = System.nanoTime();
+            for (int i = 0; i < users; i++) {
+                checker.checkCheckout((long) i, addresses[i]);
+            }
+            checkout = System.nanoTime() - checkout;
+            long payment = System.nanoTime();
+            for (int i = 0; i < users; i++) {
+                checker.checkPayment((long) i, payments[i], addresses[i]);
+            }
+            payment = System.nanoTime() - payment;
+            if (round == 1) {
+                System.out.printf("[benchmark] %,d users, one thread: checkout check %.0f ns/op, payment check "
+                        + "(with card hash) %.0f ns/op%n", users, (double) checkout / users, (double) payment / users);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long contended = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < users; i += threads) {
+                        checker.checkCheckout((long) i, "10.255.255.255");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            contended = System.nanoTime() - contended;
+            System.out.printf("[benchmark] %,d checkouts on %d threads from one address: %.0f ns/op, "
+                    + "%,.0f checks/s%n", users, threads, (double) contended * threads / users,
+                    users * 1e9 / contended);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.petstore.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Unit tests for {@link IdSequenceMigration} against an in-memory H2 database
+ * laid out like a MySQL schema with table-backed id generators.
+ */
+@DisplayName("Id Sequence Migration Tests")
+class IdSequenceMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private IdSequenceMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:id-sequence-migration;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE pets (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE pets_seq (next_val BIGINT)");
+        jdbcTemplate.update("INSERT INTO pets_seq VALUES (1)");
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT AUTO_INCREMENT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE orders_seq (next_val BIGINT)");
+        jdbcTemplate.update("INSERT INTO orders_seq VALUES (1)");
+
+        jdbcTemplate.update("INSERT INTO pets (id, name) VALUES (1, 'Rex'), (7, 'Tom'), (120, 'Kitty')");
+
+        migration = new IdSequenceMigration(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should move the generator one block past the highest id")
+    void run_ShouldSeedGeneratorPastMaxId() {
+
+        migration.migrate();
+
+        assertThat(nextValue("pets_seq")).isEqualTo(120 + IdSequenceMigration.ALLOCATION_SIZE);
+        assertThat(nextValue("orders_seq")).isEqualTo(IdSequenceMigration.ALLOCATION_SIZE);
+    }
+
+    @Test
+    @DisplayName("Should never move a generator backwards")
+    void run_ShouldNotMoveGeneratorBackwards() {
+
+        jdbcTemplate.update("UPDATE pets_seq SET next_val = 1000");
+
+        migration.migrate();
+
+        assertThat(nextValue("pets_seq")).isEqualTo(1000);
+        assertThat(migration.seedSequence("pets")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should skip tables without a table-backed generator")
+    void seedSequence_ShouldSkipMissingGeneratorTable() {
+
+        jdbcTemplate.execute("DROP TABLE orders_seq");
+
+        assertThat(migration.seedSequence("orders")).isFalse();
+        assertThat(migration.seedSequence("users")).isFalse();
+    }
+
+    private long nextValue(String sequenceTable) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM " + sequenceTable, Long.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.petstore.config;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link JsonFunctionContributor}: the tag membership test
+ * must render as {@code MEMBER OF} on MySQL, the form its multi-valued index
+ * {@code idx_pets_tags} serves, and fall back to a text search elsewhere.
+ */
+@DisplayName("JsonFunctionContributor Tests")
+class JsonFunctionContributorTest {
+
+    @Test
+    @DisplayName("Should render json_member_of as MEMBER OF on MySQL")
+    void shouldRenderMemberOfOnMySql() {
+        FunctionContributions contributions = mock(FunctionContributions.class, RETURNS_DEEP_STUBS);
+        when(contributions.getDialect()).thenReturn(new MySQLDialect());
+
+        new JsonFunctionContributor().contributeFunctions(contributions);
+
+        verify(contributions.getFunctionRegistry()).registerPattern(eq(JsonFunctionContributor.JSON_MEMBER_OF),
+                eq("(?1 member of(?2))"), any());
+    }
+
+    @Test
+    @DisplayName("Should render json_member_of as a JSON text search on H2")
+    void shouldRenderTextSearchOnH2() {
+        FunctionContributions contributions = mock(FunctionContributions.class, RETURNS_DEEP_STUBS);
+        when(contributions.getDialect()).thenReturn(new H2Dialect());
+
+        new JsonFunctionContributor().contributeFunctions(contributions);
+
+        verify(contributions.getFunctionRegistry()).registerPattern(eq(JsonFunctionContributor.JSON_MEMBER_OF),
+                eq("(locate(concat('\"', ?1, '\"'), cast(?2 as varchar)) > 0)"), any());
+    }
+}
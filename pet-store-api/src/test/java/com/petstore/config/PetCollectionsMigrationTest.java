@@ -0,0 +1,113 @@
+package com.petstore.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for {@link PetCollectionsMigration} against an in-memory H2
+ * database laid out like a pre-migration schema.
+ */
+@DisplayName("Pet Collections Migration Tests")
+class PetCollectionsMigrationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private PetCollectionsMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:pet-collections-migration;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE pets (id BIGINT PRIMARY KEY, photo_urls JSON, tags JSON)");
+        jdbcTemplate.execute("CREATE TABLE pet_photos (pet_id BIGINT NOT NULL, photo_url VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE pet_tags (pet_id BIGINT NOT NULL, tag VARCHAR(255))");
+
+        jdbcTemplate.update("INSERT INTO pets (id) VALUES (1), (2), (3)");
+        jdbcTemplate.update("INSERT INTO pet_photos VALUES (1, 'a.jpg'), (1, 'b.jpg'), (2, 'c.jpg')");
+        jdbcTemplate.update("INSERT INTO pet_tags VALUES (1, 'friendly'), (2, 'calm'), (2, 'indoor')");
+
+        migration = new PetCollectionsMigration(jdbcTemplate, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should copy legacy rows into the JSON columns")
+    void run_ShouldCopyLegacyRowsIntoJsonColumns() throws Exception {
+
+        migration.run();
+
+        assertThat(readJson(1L, "photo_urls")).containsExactly("a.jpg", "b.jpg");
+        assertThat(readJson(2L, "photo_urls")).containsExactly("c.jpg");
+        assertThat(readJson(1L, "tags")).containsExactly("friendly");
+        assertThat(readJson(2L, "tags")).containsExactly("calm", "indoor");
+        assertThat(readJson(3L, "tags")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should rename legacy tables so the migration only runs once")
+    void run_ShouldRenameLegacyTables() {
+
+        migration.run();
+
+        assertThat(countTables("PET_PHOTOS")).isZero();
+        assertThat(countTables("PET_TAGS")).isZero();
+        assertThat(countTables("PET_PHOTOS_MIGRATED")).isEqualTo(1);
+        assertThat(countTables("PET_TAGS_MIGRATED")).isEqualTo(1);
+        assertThat(migration.migrateTable("pet_tags", "tag", "tags")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not overwrite values already written to the JSON columns")
+    void run_ShouldNotOverwriteExistingJsonValues() throws Exception {
+
+        jdbcTemplate.update("UPDATE pets SET tags = ? FORMAT JSON WHERE id = 2", "[\"updated\"]");
+
+        migration.run();
+
+        assertThat(readJson(2L, "tags")).containsExactly("updated");
+    }
+
+    @Test
+    @DisplayName("Should migrate in chunks of pets without splitting a pet's values")
+    void migrateTable_ShouldMigrateInChunksOfPets() throws Exception {
+
+        ReflectionTestUtils.setField(migration, "batchSize", 1);
+
+        assertThat(migration.migrateTable("pet_photos", "photo_url", "photo_urls")).isEqualTo(2);
+
+        assertThat(readJson(1L, "photo_urls")).containsExactly("a.jpg", "b.jpg");
+        assertThat(readJson(2L, "photo_urls")).containsExactly("c.jpg");
+    }
+
+    private List<String> readJson(Long petId, String column) throws Exception {
+        String json = jdbcTemplate.queryForObject(
+                "SELECT CAST(" + column + " AS VARCHAR) FROM pets WHERE id = ?", String.class, petId);
+        return json == null ? null : objectMapper.readValue(json, new TypeReference<List<String>>() {
+        });
+    }
+
+    private int countTables(String name) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = ?", Integer.class, name);
+    }
+}
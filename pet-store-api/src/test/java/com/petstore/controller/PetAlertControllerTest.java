@@ -0,0 +1,153 @@
+package com.petstore.controller;
+
+import com.petstore.model.PetAlert;
+import com.petstore.model.PetAlertMatch;
+import com.petstore.model.User;
+import com.petstore.service.PetAlertService;
+import com.petstore.service.UserService;
+import com.petstore.config.TestSecurityConfig;
+import com.petstore.exception.GlobalExceptionHandler;
+import com.petstore.exception.InvalidPetAlertException;
+import com.petstore.exception.PetAlertNotFoundException;
+import com.petstore.security.JwtTokenProvider;
+import com.petstore.service.UserDetailsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * WebMvcTest for PetAlertController.
+ * <p>
+ * Covers listing, creating and deleting the authenticated user's pet alerts
+ * and reading their matches, with the service layer mocked.
+ */
+@WebMvcTest(PetAlertController.class)
+@Import({ GlobalExceptionHandler.class, TestSecurityConfig.class })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Pet Alert Controller WebMvcTest")
+class PetAlertControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PetAlertService petAlertService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1L);
+        when(userService.getUserByEmail("user")).thenReturn(Optional.of(user));
+    }
+
+    /**
+     * Test: POST /api/users/alerts
+     * Verifies that an alert is created for the authenticated user.
+     */
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @DisplayName("POST /api/users/alerts - should create an alert")
+    void shouldCreateAlert() throws Exception {
+        PetAlert created = new PetAlert(2L, "golden retriever", null, new BigDecimal("1000.00"));
+        created.setId(5L);
+        when(petAlertService.createAlert(eq(1L), any(PetAlert.class))).thenReturn(created);
+
+        mockMvc.perform(post("/api/users/alerts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"categoryId\":2,\"tag\":\"Golden Retriever\",\"maxPrice\":1000}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5))
+                .andExpect(jsonPath("$.tag").value("golden retriever"))
+                .andExpect(jsonPath("$.maxPrice").value(1000.00));
+    }
+
+    /**
+     * Test: POST /api/users/alerts without criteria
+     * Verifies that an invalid alert is rejected with 400.
+     */
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @DisplayName("POST /api/users/alerts - should reject an alert without criteria")
+    void shouldRejectInvalidAlert() throws Exception {
+        when(petAlertService.createAlert(eq(1L), any(PetAlert.class)))
+                .thenThrow(new InvalidPetAlertException("An alert needs a category, a tag or a price limit"));
+
+        mockMvc.perform(post("/api/users/alerts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("ERROR_9000"));
+    }
+
+    /**
+     * Test: GET /api/users/alerts and /api/users/alerts/matches
+     * Verifies that the user's alerts and matches are returned.
+     */
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @DisplayName("GET /api/users/alerts - should return alerts and matches")
+    void shouldReturnAlertsAndMatches() throws Exception {
+        PetAlert alert = new PetAlert(null, "puppy", null, null);
+        alert.setId(5L);
+        when(petAlertService.getUserAlerts(1L)).thenReturn(List.of(alert));
+        when(petAlertService.getMatches(1L, 20))
+                .thenReturn(List.of(new PetAlertMatch(5L, 42L, LocalDateTime.of(2026, 1, 1, 12, 0))));
+
+        mockMvc.perform(get("/api/users/alerts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(5))
+                .andExpect(jsonPath("$[0].tag").value("puppy"));
+        mockMvc.perform(get("/api/users/alerts/matches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].alertId").value(5))
+                .andExpect(jsonPath("$[0].petId").value(42));
+    }
+
+    /**
+     * Test: DELETE /api/users/alerts/{id} for someone else's alert
+     * Verifies that 404 is returned.
+     */
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @DisplayName("DELETE /api/users/alerts/{id} - should return 404 for an unknown alert")
+    void shouldReturnNotFoundWhenDeletingUnknownAlert() throws Exception {
+        doThrow(new PetAlertNotFoundException(9L)).when(petAlertService).deleteAlert(1L, 9L);
+
+        mockMvc.perform(delete("/api/users/alerts/9"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("ERROR_9001"));
+    }
+}
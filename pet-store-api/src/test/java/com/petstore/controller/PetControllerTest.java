@@ -1,5 +1,6 @@
 package com.petstore.controller;
 
+import com.petstore.analytics.SearchTermAnalytics;
 import com.petstore.service.PetService;
 import com.petstore.service.UserService;
 import org.junit.jupiter.api.DisplayName;
@@ -12,13 +13,16 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -27,6 +31,7 @@ import static org.hamcrest.Matchers.containsString;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -44,13 +49,21 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 import com.petstore.security.JwtTokenProvider;
 import com.petstore.service.UserDetailsServiceImpl;
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.dto.PetSuggestion;
+import com.petstore.dto.SearchTermCount;
+import com.petstore.dto.SearchTermsReport;
 import com.petstore.model.Category;
 import com.petstore.model.Pet;
 import com.petstore.model.User;
+import com.petstore.enums.AnalyticsWindow;
+import com.petstore.enums.PetSort;
 import com.petstore.enums.PetStatus;
+import com.petstore.enums.SuggestionType;
 import com.petstore.enums.Role;
 import com.petstore.exception.GlobalExceptionHandler;
 import com.petstore.exception.PetNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petstore.config.TestSecurityConfig;
 
@@ -80,6 +93,9 @@ class PetControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private SearchTermAnalytics searchTermAnalytics;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -111,7 +127,11 @@ class PetControllerTest {
                 any(),
                 any(),
                 any(),
+                nullable(BigDecimal.class),
+                nullable(BigDecimal.class),
+                any(),
                 nullable(Long.class),
+                eq(PetSort.NEWEST),
                 anyInt(),
                 anyInt())).thenReturn(petPage);
 
@@ -131,11 +151,139 @@ class PetControllerTest {
                 any(),
                 any(),
                 any(),
+                nullable(BigDecimal.class),
+                nullable(BigDecimal.class),
+                any(),
                 nullable(Long.class),
+                eq(PetSort.NEWEST),
                 anyInt(),
                 anyInt());
     }
 
+    /**
+     * Test: GET /api/pets?sort=price_desc
+     * Verifies that the sort parameter is resolved case-insensitively and passed to the service.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets?sort=price_desc - should list pets in the requested order")
+    void shouldPassSortOptionToService() throws Exception {
+        when(petService.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), nullable(Long.class),
+                any(PetSort.class), anyInt(), anyInt())).thenReturn(new PageImpl<>(List.of()));
+
+        mockMvc.perform(get("/api/pets?status=AVAILABLE&sort=PRICE_DESC&page=2&size=20"))
+                .andExpect(status().isOk());
+
+        verify(petService).findPetsByFiltersPaginated(null, null, PetStatus.AVAILABLE, null, null, null, null,
+                PetSort.PRICE_DESC, 2, 20);
+        verify(searchTermAnalytics, never()).recordSearch(any(), any(), any(), anyBoolean());
+    }
+
+    /**
+     * Test: GET /api/pets?name=Unicorn&categoryId=2
+     * Verifies that the first page of a search is counted in the search term
+     * analytics, flagged when it found nothing.
+     */
+    @Test
+    @DisplayName("GET /api/pets?name=Unicorn - should count the search and whether it found nothing")
+    void shouldRecordSearchTerms() throws Exception {
+        when(petService.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), nullable(Long.class),
+                any(PetSort.class), anyInt(), anyInt())).thenReturn(new PageImpl<>(List.of()));
+
+        mockMvc.perform(get("/api/pets?name=Unicorn&categoryId=2"))
+                .andExpect(status().isOk());
+
+        verify(searchTermAnalytics).recordSearch("Unicorn", 2L, null, true);
+    }
+
+    /**
+     * Test: GET /api/pets/search-terms?window=MINUTE&limit=5
+     * Verifies that admins get the search term report.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/pets/search-terms - should return the search term report to admins")
+    void shouldReturnSearchTermsToAdmin() throws Exception {
+        SearchTermCount dogs = new SearchTermCount("rex", 1L, null, 7);
+        SearchTermCount unicorns = new SearchTermCount("unicorn", null, null, 3);
+        when(searchTermAnalytics.report(AnalyticsWindow.MINUTE, 5)).thenReturn(new SearchTermsReport(
+                AnalyticsWindow.MINUTE, null, 10, 3, List.of(dogs, unicorns), List.of(unicorns)));
+
+        mockMvc.perform(get("/api/pets/search-terms?window=MINUTE&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.searches").value(10))
+                .andExpect(jsonPath("$.topTerms[0].name").value("rex"))
+                .andExpect(jsonPath("$.topTerms[0].categoryId").value(1))
+                .andExpect(jsonPath("$.topTerms[0].count").value(7))
+                .andExpect(jsonPath("$.zeroHitTerms[0].name").value("unicorn"));
+    }
+
+    /**
+     * Test: GET /api/pets/search-terms as USER
+     * Verifies that non-admins cannot read the search term report.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets/search-terms - should be forbidden for users")
+    void shouldForbidSearchTermsForUser() throws Exception {
+        mockMvc.perform(get("/api/pets/search-terms"))
+                .andExpect(status().isForbidden());
+
+        verify(searchTermAnalytics, never()).report(any(), anyInt());
+    }
+
+    /**
+     * Test: GET /api/pets?minPrice=50&maxPrice=150.50
+     * Verifies that the price range is passed to the service.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets?minPrice=&maxPrice= - should filter pets by price range")
+    void shouldPassPriceRangeToService() throws Exception {
+        when(petService.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), nullable(Long.class),
+                any(PetSort.class), anyInt(), anyInt())).thenReturn(new PageImpl<>(List.of()));
+
+        mockMvc.perform(get("/api/pets?categoryId=2&minPrice=50&maxPrice=150.50&sort=price_asc"))
+                .andExpect(status().isOk());
+
+        verify(petService).findPetsByFiltersPaginated(null, 2L, null, new BigDecimal("50"),
+                new BigDecimal("150.50"), null, null, PetSort.PRICE_ASC, 0, 10);
+    }
+
+    /**
+     * Test: GET /api/pets?tags=friendly&tags=small
+     * Verifies that repeated tags are passed to the service, all of which must match.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets?tags= - should filter pets by tags")
+    void shouldPassTagsToService() throws Exception {
+        when(petService.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), nullable(Long.class),
+                any(PetSort.class), anyInt(), anyInt())).thenReturn(new PageImpl<>(List.of()));
+
+        mockMvc.perform(get("/api/pets?tags=friendly&tags=small"))
+                .andExpect(status().isOk());
+
+        verify(petService).findPetsByFiltersPaginated(null, null, null, null, null, List.of("friendly", "small"),
+                null, PetSort.NEWEST, 0, 10);
+    }
+
+    /**
+     * Test: GET /api/pets?sort=unknown
+     * Verifies that an unsupported sort option returns 400 Bad Request listing the allowed values.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets?sort=unknown - should return 400 for an unsupported sort")
+    void shouldReturnBadRequestForUnsupportedSort() throws Exception {
+        mockMvc.perform(get("/api/pets?sort=popularity"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("newest, price_asc, price_desc, name")));
+
+        verify(petService, never()).findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(),
+                nullable(Long.class), any(PetSort.class), anyInt(), anyInt());
+    }
+
     /**
      * Test: GET /api/pets/my-pets
      * Verifies that all users's pets are returned successfully, with and without filters.
@@ -191,6 +339,78 @@ class PetControllerTest {
                 anyInt());
     }
 
+    /**
+     * Test: GET /api/pets/facets
+     * Verifies that facet counts are returned for the given filters.
+     */
+    @Test
+    @DisplayName("GET /api/pets/facets - should return facet counts")
+    void shouldReturnPetFacets() throws Exception {
+        PetFacetsResponse facets = new PetFacetsResponse(2, Map.of(1L, 2L), Map.of(PetStatus.AVAILABLE, 2L),
+                Map.of("friendly", 1L));
+        when(petService.getFacets(1L, PetStatus.AVAILABLE, List.of("friendly", "small"))).thenReturn(facets);
+
+        mockMvc.perform(get("/api/pets/facets?categoryId=1&status=AVAILABLE&tags=friendly&tags=small"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.categories.1").value(2))
+                .andExpect(jsonPath("$.statuses.AVAILABLE").value(2))
+                .andExpect(jsonPath("$.tags.friendly").value(1));
+    }
+
+    /**
+     * Test: GET /api/pets/suggest
+     * Verifies that suggestions are returned for the query, with the default limit.
+     */
+    @Test
+    @DisplayName("GET /api/pets/suggest - should return search suggestions")
+    void shouldReturnSuggestions() throws Exception {
+        when(petService.suggest("bud", 5)).thenReturn(List.of(new PetSuggestion("Buddy", SuggestionType.NAME, 3),
+                new PetSuggestion("Budgies", SuggestionType.CATEGORY, 2)));
+
+        mockMvc.perform(get("/api/pets/suggest?q=bud"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Buddy"))
+                .andExpect(jsonPath("$[0].type").value("NAME"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[1].type").value("CATEGORY"));
+    }
+
+    /**
+     * Test: GET /api/pets/{id}/similar
+     * Verifies that similar pets are returned with the default limit.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/pets/{id}/similar - should return similar pets")
+    void shouldReturnSimilarPets() throws Exception {
+        Pet similar = new Pet("Rex", new Category("Dogs"), new BigDecimal("250.00"));
+        similar.setId(2L);
+        when(petService.getSimilarPets(1L, 6)).thenReturn(List.of(similar));
+
+        mockMvc.perform(get("/api/pets/1/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].name").value("Rex"));
+    }
+
+    /**
+     * Test: GET /api/pets/popular
+     * Verifies that the most viewed pets are public, with the default limit.
+     */
+    @Test
+    @DisplayName("GET /api/pets/popular - should return popular pets without login")
+    void shouldReturnPopularPets() throws Exception {
+        Pet popular = new Pet("Rex", new Category("Dogs"), new BigDecimal("250.00"));
+        popular.setId(3L);
+        when(petService.getPopularPets(10)).thenReturn(List.of(popular));
+
+        mockMvc.perform(get("/api/pets/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].name").value("Rex"));
+    }
+
     /**
      * Test: GET /api/pets/latest
      * Verifies that the latest pets are returned successfully.
@@ -245,7 +465,7 @@ class PetControllerTest {
         pet.setCategory(category);
         pet.setCreatedBy(1L);
 
-        when(petService.getPetById(1L)).thenReturn(pet);
+        when(petService.viewPet(1L)).thenReturn(pet);
 
         mockMvc.perform(get("/api/pets/1")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -257,7 +477,7 @@ class PetControllerTest {
                 .andExpect(jsonPath("$.status").value("AVAILABLE"))
                 .andExpect(jsonPath("$.description").value("Friendly Labrador"));
 
-        verify(petService, times(1)).getPetById(1L);
+        verify(petService, times(1)).viewPet(1L);
     }
 
     /**
@@ -376,6 +596,69 @@ class PetControllerTest {
         verify(petService, times(1)).updatePet(eq(1L), any(Pet.class));
     }
 
+    /**
+     * Test: PATCH /api/pets/{id}
+     * Verifies that a merge patch is passed to the service for the pet creator.
+     */
+    @Test
+    @WithMockUser(roles = "USER", username = "user@test.com")
+    @DisplayName("PATCH /api/pets/{id} - should patch pet")
+    void shouldPatchPet() throws Exception {
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setName("Buddy");
+        pet.setStatus(PetStatus.AVAILABLE);
+        pet.setPrice(BigDecimal.valueOf(150.0));
+        pet.setCreatedBy(5L);
+
+        User user = new User();
+        user.setEmail("user@test.com");
+        user.setId(5L);
+        user.setRoles(Set.of(Role.USER));
+
+        when(petService.getPetById(1L)).thenReturn(pet);
+        when(userService.getUserByEmail("user@test.com")).thenReturn(Optional.of(user));
+        when(petService.patchPet(eq(1L), any(JsonNode.class))).thenReturn(pet);
+
+        mockMvc.perform(patch("/api/pets/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": 150.0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(150.0));
+
+        verify(petService, times(1)).patchPet(eq(1L), any(JsonNode.class));
+    }
+
+    /**
+     * Test: PATCH /api/pets/{id} by a user who did not create the pet
+     * Verifies that the patch is rejected with 403 Forbidden.
+     */
+    @Test
+    @WithMockUser(roles = "USER", username = "user@test.com")
+    @DisplayName("PATCH /api/pets/{id} - should return 403 for non-owner")
+    void shouldReturnForbiddenWhenPatchingOtherUsersPet() throws Exception {
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setCreatedBy(99L);
+
+        User user = new User();
+        user.setEmail("user@test.com");
+        user.setId(5L);
+        user.setRoles(Set.of(Role.USER));
+
+        when(petService.getPetById(1L)).thenReturn(pet);
+        when(userService.getUserByEmail("user@test.com")).thenReturn(Optional.of(user));
+
+        mockMvc.perform(patch("/api/pets/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": 150.0}"))
+                .andExpect(status().isForbidden());
+
+        verify(petService, never()).patchPet(any(), any());
+    }
+
     /**
      * Test: DELETE /api/pets/{id}
      * Verifies that a pet is deleted successfully by an admin.
@@ -1,5 +1,10 @@
 package com.petstore.controller;
 
+import com.petstore.delivery.DeliveryStatusImporter;
+import com.petstore.dto.CoPurchaseRecommendation;
+import com.petstore.dto.DeliveryImportFailure;
+import com.petstore.dto.DeliveryImportReport;
+import com.petstore.enums.RecommendationType;
 import com.petstore.model.Cart;
 import com.petstore.model.Order;
 import com.petstore.model.Payment;
@@ -9,12 +14,21 @@ import com.petstore.service.CartService;
 import com.petstore.service.OrderService;
 import com.petstore.service.UserService;
 import com.petstore.service.DiscountService;
+import com.petstore.service.FlashSaleService;
 import com.petstore.config.TestSecurityConfig;
 import com.petstore.exception.CartEmptyException;
+import com.petstore.exception.ErrorCodes;
 import com.petstore.exception.CartItemNotFoundException;
 import com.petstore.exception.GlobalExceptionHandler;
+import com.petstore.exception.IdempotencyKeyInUseException;
+import com.petstore.exception.VelocityLimitExceededException;
 import com.petstore.exception.OrderNotFoundException;
+import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.exception.PetOutOfStockException;
 import com.petstore.exception.UserCartNotFoundException;
+import com.petstore.fraud.VelocityChecker;
+import com.petstore.idempotency.IdempotencyStore;
+import com.petstore.stream.OrderStatusHub;
 import com.petstore.security.JwtTokenProvider;
 import com.petstore.service.UserDetailsServiceImpl;
 import org.junit.jupiter.api.DisplayName;
@@ -24,25 +38,35 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.HashMap;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -78,6 +102,21 @@ class StoreControllerTest {
     @MockBean
     private DiscountService discountService;
 
+    @MockBean
+    private FlashSaleService flashSaleService;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockBean
+    private VelocityChecker velocityChecker;
+
+    @MockBean
+    private DeliveryStatusImporter deliveryStatusImporter;
+
+    @MockBean
+    private OrderStatusHub orderStatusHub;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -107,6 +146,24 @@ class StoreControllerTest {
                 .andExpect(jsonPath("$[0].id").value(100L));
     }
 
+    /**
+     * Test: GET /api/stores/orders/events - should open the user's status stream
+     * Verifies that the stream of the authenticated user's order status changes is opened.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/stores/orders/events - should open the user's status stream")
+    void shouldStreamOrderStatus() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(orderStatusHub.subscribe(1L)).thenReturn(new SseEmitter());
+        mockMvc.perform(get("/api/stores/orders/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(orderStatusHub).subscribe(1L);
+    }
+
     /**
      * Test: GET /api/stores/orders - should return all orders for admin
      * Verifies that all orders are returned successfully for an authenticated
@@ -142,12 +199,35 @@ class StoreControllerTest {
         when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
         Cart cart = new Cart();
         cart.setId(200L);
-        when(cartService.addPetToCart(1L, 10L)).thenReturn(cart);
+        when(cartService.addPetToCart(1L, 10L, 1)).thenReturn(cart);
         mockMvc.perform(post("/api/stores/cart/add/10"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath(".id").value(200));
     }
 
+    /**
+     * Test: POST /api/stores/cart/add/{petId}?quantity=3 - should add units,
+     * and return 409 when fewer are in stock
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/cart/add/{petId}?quantity - should add units or return 409 when out of stock")
+    void shouldAddUnitsToCartOrReturn409WhenOutOfStock() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        Cart cart = new Cart();
+        cart.setId(200L);
+        when(cartService.addPetToCart(1L, 10L, 3)).thenReturn(cart);
+        when(cartService.addPetToCart(1L, 10L, 50)).thenThrow(new PetOutOfStockException(10L, 50));
+        mockMvc.perform(post("/api/stores/cart/add/10").param("quantity", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(".id").value(200));
+        mockMvc.perform(post("/api/stores/cart/add/10").param("quantity", "50"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(ErrorCodes.PET_OUT_OF_STOCK));
+    }
+
     /**
      * Test: GET /api/stores/cart/{userId} - should return user's cart
      * Verifies that the user's cart is retrieved successfully.
@@ -164,6 +244,30 @@ class StoreControllerTest {
                 .andExpect(jsonPath(".id").value(201));
     }
 
+    /**
+     * Test: GET /api/stores/cart/recommendations - should return co-purchase
+     * recommendations for the authenticated user's cart, with the default limit.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("GET /api/stores/cart/recommendations - should return cart recommendations")
+    void shouldReturnCartRecommendations() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(cartService.getRecommendations(1L, 5)).thenReturn(List.of(
+                new CoPurchaseRecommendation(RecommendationType.CATEGORY, 2L, "Toys", 0.75),
+                new CoPurchaseRecommendation(RecommendationType.TAG, null, "chew", 0.5)));
+        mockMvc.perform(get("/api/stores/cart/recommendations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type").value("CATEGORY"))
+                .andExpect(jsonPath("$[0].categoryId").value(2))
+                .andExpect(jsonPath("$[0].name").value("Toys"))
+                .andExpect(jsonPath("$[1].name").value("chew"))
+                .andExpect(jsonPath("$[1].score").value(0.5));
+    }
+
     /**
      * Test: DELETE /api/stores/cart/item/{cartItemId} - should remove item from
      * cart
@@ -243,6 +347,202 @@ class StoreControllerTest {
                 .andExpect(status().isOk());
     }
 
+    /**
+     * Test: POST /api/stores/checkout - should go through flash sale mode when on
+     * Verifies that checkout is routed to the flash sale service when it is enabled.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/checkout - should go through flash sale mode when on")
+    void shouldCheckoutThroughFlashSaleWhenEnabled() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(flashSaleService.isEnabled()).thenReturn(true);
+        Order order = new Order();
+        order.setId(401L);
+        when(flashSaleService.checkout(1L, null)).thenReturn(order);
+        mockMvc.perform(post("/api/stores/checkout"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(".id").value(401));
+        verify(orderService, never()).checkout(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/checkout - should replay the stored order for a retried idempotency key
+     * Verifies that a checkout sent with an Idempotency-Key goes through the idempotency store,
+     * which answers a retry with the first response without checking out again.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/checkout - should replay the stored order for a retried idempotency key")
+    void shouldReplayCheckoutForRetriedIdempotencyKey() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(idempotencyStore.fingerprint("POST /checkout?discountCode=null", null)).thenReturn("fingerprint");
+        doReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyStore.REPLAYED_HEADER, "true").body("{\"id\":402}"))
+                .when(idempotencyStore).execute(eq(1L), eq("retry-1"), eq("fingerprint"), any());
+        mockMvc.perform(post("/api/stores/checkout").header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(402));
+        verify(orderService, never()).checkout(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/order/{orderId}/pay - should return 409 while the first request
+     * with an idempotency key is still running
+     * Verifies that a payment retried too early is refused without paying again.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/order/{orderId}/pay - should return 409 while the idempotency key is in use")
+    void shouldReturnConflictWhileIdempotencyKeyInUse() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(orderService.isOrderOwnedByUser(503L, 1L)).thenReturn(true);
+        when(idempotencyStore.fingerprint(eq("POST /order/503/pay"), any())).thenReturn("fingerprint");
+        when(idempotencyStore.execute(eq(1L), eq("retry-2"), eq("fingerprint"), any()))
+                .thenThrow(new IdempotencyKeyInUseException("retry-2"));
+        Map<String, Object> paymentOrderRequest = new HashMap<>();
+        paymentOrderRequest.put("paymentType", "CREDIT_CARD");
+        paymentOrderRequest.put("shippingAddressId", 1L);
+        paymentOrderRequest.put("billingAddressId", 2L);
+        paymentOrderRequest.put("paymentNote", "Test payment");
+        mockMvc.perform(post("/api/stores/order/503/pay")
+                .header("Idempotency-Key", "retry-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paymentOrderRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(ErrorCodes.IDEMPOTENCY_KEY_IN_USE));
+        verify(orderService, never()).makePayment(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/order/{orderId}/pay - should return 429 when payments are attempted too often
+     * Verifies that a payment over a velocity limit is refused with a Retry-After header
+     * before the order is looked up or paid.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/order/{orderId}/pay - should return 429 over a velocity limit")
+    void shouldReturnTooManyRequestsOverVelocityLimit() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        doThrow(new VelocityLimitExceededException("payment.per-card", Duration.ofMinutes(1)))
+                .when(velocityChecker).checkPayment(eq(1L), any(), any());
+        Map<String, Object> paymentOrderRequest = new HashMap<>();
+        paymentOrderRequest.put("paymentType", "CREDIT_CARD");
+        paymentOrderRequest.put("cardNumber", "4111111111111111");
+        paymentOrderRequest.put("shippingAddressId", 1L);
+        paymentOrderRequest.put("billingAddressId", 2L);
+        paymentOrderRequest.put("paymentNote", "Test payment");
+        mockMvc.perform(post("/api/stores/order/504/pay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paymentOrderRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"))
+                .andExpect(jsonPath("$.code").value(ErrorCodes.VELOCITY_LIMIT_EXCEEDED));
+        verify(orderService, never()).isOrderOwnedByUser(any(), any());
+        verify(orderService, never()).makePayment(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/order/{orderId}/pay - should replay a retried payment over a velocity limit
+     * Verifies that a retry answered from the idempotency store is not rate-checked,
+     * so it gets the stored payment back instead of a 429.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/order/{orderId}/pay - should replay a retried payment over a velocity limit")
+    void shouldReplayRetriedPaymentOverVelocityLimit() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        doThrow(new VelocityLimitExceededException("payment.per-user", Duration.ofMinutes(1)))
+                .when(velocityChecker).checkPayment(eq(1L), any(), any());
+        when(idempotencyStore.fingerprint(eq("POST /order/505/pay"), any())).thenReturn("fingerprint");
+        doReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyStore.REPLAYED_HEADER, "true").body("{\"id\":601}"))
+                .when(idempotencyStore).execute(eq(1L), eq("retry-3"), eq("fingerprint"), any());
+        Map<String, Object> paymentOrderRequest = new HashMap<>();
+        paymentOrderRequest.put("paymentType", "CREDIT_CARD");
+        paymentOrderRequest.put("cardNumber", "4111111111111111");
+        paymentOrderRequest.put("shippingAddressId", 1L);
+        paymentOrderRequest.put("billingAddressId", 2L);
+        mockMvc.perform(post("/api/stores/order/505/pay")
+                .header("Idempotency-Key", "retry-3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paymentOrderRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(601));
+        verify(velocityChecker, never()).checkPayment(any(), any(), any());
+        verify(orderService, never()).makePayment(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/checkout - should return 429 for a new idempotency key over a velocity limit
+     * Verifies that a checkout the idempotency store runs for the first time is still rate-checked.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/checkout - should return 429 for a new idempotency key over a velocity limit")
+    void shouldReturnTooManyRequestsForNewIdempotencyKeyOverVelocityLimit() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        doThrow(new VelocityLimitExceededException("checkout.per-user", Duration.ofMinutes(1)))
+                .when(velocityChecker).checkCheckout(eq(1L), any());
+        when(idempotencyStore.fingerprint("POST /checkout?discountCode=null", null)).thenReturn("fingerprint");
+        when(idempotencyStore.execute(eq(1L), eq("new-1"), eq("fingerprint"), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        mockMvc.perform(post("/api/stores/checkout").header("Idempotency-Key", "new-1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"))
+                .andExpect(jsonPath("$.code").value(ErrorCodes.VELOCITY_LIMIT_EXCEEDED));
+        verify(orderService, never()).checkout(any(), any());
+    }
+
+    /**
+     * Test: POST /api/stores/order/{orderId}/pay - should return 409 when a flash
+     * sale pet was claimed by another order
+     * Verifies that the losing buyer gets a conflict without a payment being made.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/order/{orderId}/pay - should return 409 when a flash sale pet is taken")
+    void shouldReturnConflictWhenFlashSalePetTaken() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userService.getUserByEmail(any())).thenReturn(Optional.of(user));
+        when(orderService.isOrderOwnedByUser(502L, 1L)).thenReturn(true);
+        when(flashSaleService.isEnabled()).thenReturn(true);
+        when(flashSaleService.makePayment(eq(502L), any())).thenThrow(new PetAlreadySoldException(7L));
+        Map<String, Object> paymentOrderRequest = new HashMap<>();
+        paymentOrderRequest.put("paymentType", "CREDIT_CARD");
+        paymentOrderRequest.put("shippingAddressId", 1L);
+        paymentOrderRequest.put("billingAddressId", 2L);
+        paymentOrderRequest.put("paymentNote", "Test payment");
+        mockMvc.perform(post("/api/stores/order/502/pay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paymentOrderRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(ErrorCodes.PET_ALREADY_SOLD));
+        verify(orderService, never()).makePayment(any(), any());
+    }
+
     /**
      * Test: DELETE /api/stores/order/{orderId} - should cancel order
      * Verifies that the user's order is cancelled successfully.
@@ -300,6 +600,46 @@ class StoreControllerTest {
                         jsonPath(".message").value("Order delivery status updated successfully"));
     }
 
+    /**
+     * Test: POST /api/stores/orders/delivery-status - should import carrier events
+     * Verifies that a CSV body is passed to the importer and its report returned.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /api/stores/orders/delivery-status - should import carrier events")
+    void shouldImportDeliveryStatuses() throws Exception {
+        DeliveryImportReport report = new DeliveryImportReport();
+        report.setReceived(2);
+        report.setUpdated(1);
+        report.setFailed(1);
+        report.getFailures().add(new DeliveryImportFailure(2, 801L, "Order is cancelled"));
+        when(deliveryStatusImporter.importEvents(any(), eq(DeliveryStatusImporter.Format.CSV), any()))
+                .thenReturn(report);
+
+        mockMvc.perform(post("/api/stores/orders/delivery-status")
+                .contentType("text/csv")
+                .content("800,SHIPPED\n801,DELIVERED\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failures[0].orderId").value(801))
+                .andExpect(jsonPath("$.failures[0].reason").value("Order is cancelled"));
+    }
+
+    /**
+     * Test: POST /api/stores/orders/delivery-status - should return 403 for a user
+     * Verifies that only admins can import carrier events.
+     */
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/stores/orders/delivery-status - should return 403 for a user")
+    void shouldForbidDeliveryStatusImportForUser() throws Exception {
+        mockMvc.perform(post("/api/stores/orders/delivery-status")
+                .contentType("application/x-ndjson")
+                .content("{\"orderId\":800,\"status\":\"SHIPPED\"}\n"))
+                .andExpect(status().isForbidden());
+        verify(deliveryStatusImporter, never()).importEvents(any(), any(), any());
+    }
+
     /**
      * Test: GET /api/stores/orders - should return 400 if user not found
      * Verifies that a 400 Bad Request is returned when the user is not found.
@@ -0,0 +1,150 @@
+package com.petstore.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.service.CategoryService;
+import com.petstore.service.PetService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests read-replica routing end to end with two in-memory H2 databases. The
+ * "replica" gets the primary's schema but no replication, so a row that is
+ * only visible through the services when read from the primary shows which
+ * database served the read.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.lag-check-interval=0s",
+        "app.datasource.replica.lag-query=SELECT seconds FROM replica_lag"
+})
+@DisplayName("Read Replica Routing Tests")
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private Pet pet;
+
+    @BeforeEach
+    void setUp() {
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        replicaJdbcTemplate.execute("DROP ALL OBJECTS");
+        List<String> schema = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT NODATA", String.class);
+        schema.forEach(replicaJdbcTemplate::execute);
+        replicaJdbcTemplate.execute("CREATE TABLE replica_lag (seconds INT)");
+        replicaJdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+
+        Category category = categoryRepository.save(new Category("Dogs"));
+        pet = petRepository.save(new Pet("Rex", category, new BigDecimal("100.00")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        petRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    /**
+     * Test: read-only service methods read from the replica, everything else
+     * from the primary.
+     */
+    @Test
+    @DisplayName("Should serve read-only listings from the replica")
+    void readOnlyListings_ShouldReadFromReplica() {
+
+        assertThat(petService.findPetsByFiltersPaginated(null, null, null, null, 0, 10).getTotalElements())
+                .isZero();
+        assertThat(categoryService.getAllCategories()).isEmpty();
+        assertThat(petService.getPetById(pet.getId()).getName()).isEqualTo("Rex");
+    }
+
+    /**
+     * Test: a replica beyond the lag tolerance is skipped.
+     */
+    @Test
+    @DisplayName("Should fall back to the primary when the replica lags too far behind")
+    void readOnlyListings_ShouldReadFromPrimaryWhenReplicaLags() {
+
+        replicaJdbcTemplate.update("UPDATE replica_lag SET seconds = 60");
+
+        assertThat(petService.findPetsByFiltersPaginated(null, null, null, null, 0, 10).getTotalElements())
+                .isEqualTo(1);
+        assertThat(categoryService.getAllCategories()).extracting(Category::getName).containsExactly("Dogs");
+    }
+
+    /**
+     * Test: with open-session-in-view, a read-only transaction early in a
+     * request must not pin the shared session to the replica connection.
+     */
+    @Test
+    @DisplayName("Should write to the primary after a read-only transaction in the same session")
+    void writeAfterReadOnlyInSameSession_ShouldUsePrimary() throws Exception {
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertThat(petService.findPetsByFiltersPaginated(null, null, null, null, 0, 10).getContent()).isEmpty();
+
+            petService.patchPet(pet.getId(), objectMapper.readTree("{\"name\":\"Max\"}"));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        assertThat(petRepository.findById(pet.getId())).get().extracting(Pet::getName).isEqualTo("Max");
+    }
+}
@@ -0,0 +1,97 @@
+package com.petstore.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Unit tests for {@link ReplicaLagMonitor} against an in-memory H2 "replica"
+ * that reports its lag from a table.
+ */
+@DisplayName("Replica Lag Monitor Tests")
+class ReplicaLagMonitorTest {
+
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private final Clock clock = mock(Clock.class);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:replica-lag-monitor;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        jdbcTemplate.update("INSERT INTO replica_lag VALUES (1)");
+        when(clock.millis()).thenReturn(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should use the replica while its lag is within tolerance")
+    void isReplicaUsable_ShouldBeTrueWithinMaxLag() {
+
+        assertThat(monitor(LAG_QUERY).isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not use the replica when its lag exceeds the tolerance")
+    void isReplicaUsable_ShouldBeFalseBeyondMaxLag() {
+
+        jdbcTemplate.update("UPDATE replica_lag SET seconds = 5.5");
+
+        assertThat(monitor(LAG_QUERY).isReplicaUsable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not use the replica when replication is stopped or the check fails")
+    void isReplicaUsable_ShouldBeFalseWhenLagUnknownOrCheckFails() {
+
+        jdbcTemplate.update("UPDATE replica_lag SET seconds = NULL");
+        assertThat(monitor(LAG_QUERY).isReplicaUsable()).isFalse();
+
+        assertThat(monitor("SELECT seconds FROM missing_table").isReplicaUsable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should only check reachability when no lag query is configured")
+    void isReplicaUsable_ShouldValidateConnectionWithoutLagQuery() {
+
+        jdbcTemplate.update("UPDATE replica_lag SET seconds = 3600");
+
+        assertThat(monitor("").isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reuse the last result until the check interval has passed")
+    void isReplicaUsable_ShouldRecheckOnlyAfterInterval() {
+
+        ReplicaLagMonitor monitor = monitor(LAG_QUERY);
+        assertThat(monitor.isReplicaUsable()).isTrue();
+
+        jdbcTemplate.update("UPDATE replica_lag SET seconds = 30");
+        when(clock.millis()).thenReturn(9_999L);
+        assertThat(monitor.isReplicaUsable()).isTrue();
+
+        when(clock.millis()).thenReturn(10_000L);
+        assertThat(monitor.isReplicaUsable()).isFalse();
+    }
+
+    private ReplicaLagMonitor monitor(String lagQuery) {
+        return new ReplicaLagMonitor(jdbcTemplate, lagQuery, Duration.ofSeconds(5), Duration.ofSeconds(10), clock);
+    }
+}
@@ -0,0 +1,229 @@
+package com.petstore.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.dto.DeliveryImportFailure;
+import com.petstore.dto.DeliveryImportReport;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.repository.AuditLogRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Tests for {@link DeliveryStatusImporter} against the H2 test database, with
+ * batches of three events. Runs without a test transaction, so each batch
+ * commits as it would in production.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Delivery Status Importer Tests")
+class DeliveryStatusImporterTest {
+
+    private static final long USER_ID = 810_000;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @TempDir
+    Path inbox;
+
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, first_name, last_name) VALUES (?, ?, ?, ?, ?)",
+                USER_ID, "carrier@example.com", "secret", "Carrier", "Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        jdbcTemplate.update("DELETE FROM deliveries WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)",
+                USER_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+    }
+
+    /**
+     * Test: a CSV file spanning several batches ships and delivers orders,
+     * counts events already in effect as unchanged, and reports the lines
+     * that could not be read or applied without holding up the rest.
+     */
+    @Test
+    @DisplayName("Applies CSV events and reports the ones that fail")
+    void appliesCsvEvents() throws IOException {
+        order(1, "APPROVED", "PENDING");
+        order(2, "APPROVED", "SHIPPED");
+        order(3, "APPROVED", "PENDING");
+        order(4, "DELIVERED", "DELIVERED");
+        order(5, "CANCELLED", "PENDING");
+        order(6, "DELIVERED", "DELIVERED");
+        String csv = "order_id,status,date\n"
+                + id(1) + ",SHIPPED,2025-12-30T09:15:00\n"
+                + id(2) + ",DELIVERED\n"
+                + id(3) + ",delivered,2025-12-31T10:00:00\n"
+                + "\n"
+                + id(4) + ",DELIVERED\n"
+                + id(5) + ",SHIPPED\n"
+                + id(9) + ",SHIPPED\n"
+                + id(1) + ",LOST\n"
+                + "abc,SHIPPED\n"
+                + id(6) + ",SHIPPED\n"
+                + id(1) + ",PENDING\n"
+                + id(1) + ",DELIVERED,2025-12-31T18:00:00\n";
+
+        DeliveryImportReport report = importer(3, 100).importEvents(stream(csv),
+                DeliveryStatusImporter.Format.CSV, null);
+
+        assertThat(report.getReceived()).isEqualTo(11);
+        assertThat(report.getUpdated()).isEqualTo(4);
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(6);
+        assertThat(report.getFailures()).extracting(DeliveryImportFailure::getLine, DeliveryImportFailure::getOrderId)
+                .containsExactlyInAnyOrder(tuple(7L, id(5)), tuple(8L, id(9)), tuple(9L, null), tuple(10L, null),
+                        tuple(11L, id(6)), tuple(12L, id(1)));
+
+        assertThat(deliveryStatus(1)).isEqualTo("DELIVERED");
+        assertThat(jdbcTemplate.queryForObject("SELECT shipped_at FROM deliveries WHERE order_id = ?",
+                Timestamp.class, id(1))).isEqualTo(Timestamp.valueOf("2025-12-30 09:15:00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT delivered_at FROM deliveries WHERE order_id = ?",
+                Timestamp.class, id(3))).isEqualTo(Timestamp.valueOf("2025-12-31 10:00:00"));
+        assertThat(deliveryStatus(2)).isEqualTo("DELIVERED");
+        assertThat(orderStatus(1)).isEqualTo("DELIVERED");
+        assertThat(orderStatus(2)).isEqualTo("DELIVERED");
+        assertThat(orderStatus(3)).isEqualTo("DELIVERED");
+        assertThat(deliveryStatus(5)).isEqualTo("PENDING");
+        assertThat(orderStatus(5)).isEqualTo("CANCELLED");
+        assertThat(auditLogRepository.findAll()).hasSize(4).allSatisfy(log -> {
+            assertThat(log.getAction()).isEqualTo("UPDATE_DELIVERY_STATUS");
+            assertThat(log.getUser().getId()).isEqualTo(USER_ID);
+        });
+        assertThat(events).extracting(event -> ((OrderStatusChangedEvent) event).getOrderId())
+                .containsExactly(id(1), id(2), id(3), id(1));
+        assertThat(((OrderStatusChangedEvent) events.get(3)).getOrderStatus().name()).isEqualTo("DELIVERED");
+    }
+
+    /**
+     * Test: NDJSON events are applied the same way, and the report lists no
+     * more than the configured number of failures while counting them all.
+     */
+    @Test
+    @DisplayName("Applies NDJSON events and caps the reported failures")
+    void appliesNdjsonEvents() throws IOException {
+        order(1, "APPROVED", "PENDING");
+        String ndjson = "{\"orderId\":" + id(1) + ",\"status\":\"SHIPPED\",\"date\":null}\n"
+                + "{\"orderId\":" + id(7) + ",\"status\":\"SHIPPED\"}\n"
+                + "{\"orderId\":" + id(8) + ",\"status\":\"SHIPPED\"}\n"
+                + "not json\n";
+        List<DeliveryImportFailure> failures = new ArrayList<>();
+
+        DeliveryImportReport report = importer(3, 2).importEvents(stream(ndjson),
+                DeliveryStatusImporter.Format.NDJSON, failures::add);
+
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getFailures()).hasSize(2);
+        assertThat(failures).extracting(DeliveryImportFailure::getLine).containsExactly(2L, 3L, 4L);
+        assertThat(deliveryStatus(1)).isEqualTo("SHIPPED");
+        assertThat(jdbcTemplate.queryForObject("SELECT shipped_at FROM deliveries WHERE order_id = ?",
+                Timestamp.class, id(1))).isEqualTo(Timestamp.valueOf(NOW));
+    }
+
+    /**
+     * Test: a file dropped into the inbox is imported, its failures are
+     * written to a report, and it is moved to done.
+     */
+    @Test
+    @DisplayName("Imports files dropped into the inbox")
+    void importsInboxFiles() throws IOException {
+        order(1, "APPROVED", "PENDING");
+        Files.writeString(inbox.resolve("carrier.csv"), id(1) + ",SHIPPED\n" + id(9) + ",SHIPPED\n");
+
+        new DeliveryStatusImporter(jdbcTemplate, transactionTemplate, auditLogRepository, entityManager,
+                new ObjectMapper(), events::add, clock(), 100, 100, inbox.toString()).importInbox();
+
+        assertThat(deliveryStatus(1)).isEqualTo("SHIPPED");
+        assertThat(inbox.resolve("carrier.csv")).doesNotExist();
+        assertThat(inbox.resolve("done/carrier.csv")).exists();
+        assertThat(Files.readAllLines(inbox.resolve("reports/carrier.failures.csv")))
+                .containsExactly(DeliveryStatusImporter.FAILURES_HEADER,
+                        "2," + id(9) + ",\"Order not found or not yet approved\"");
+    }
+
+    private DeliveryStatusImporter importer(int batchSize, int maxReportedFailures) {
+        return new DeliveryStatusImporter(jdbcTemplate, transactionTemplate, auditLogRepository, entityManager,
+                new ObjectMapper(), events::add, clock(), batchSize, maxReportedFailures, "");
+    }
+
+    private static Clock clock() {
+        return Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private void order(long offset, String status, String deliveryStatus) {
+        long id = id(offset);
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, user_id, status, total_amount) "
+                + "VALUES (?, ?, ?, ?, ?)", id, "CARRIER-" + id, USER_ID, status, 100);
+        jdbcTemplate.update("INSERT INTO deliveries (id, order_id, name, phone, address, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", id, id, "Carrier Test", "0123456789", "1 Test Street",
+                deliveryStatus);
+    }
+
+    private static long id(long offset) {
+        return USER_ID + offset;
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String deliveryStatus(long offset) {
+        return jdbcTemplate.queryForObject("SELECT status FROM deliveries WHERE order_id = ?", String.class,
+                id(offset));
+    }
+
+    private String orderStatus(long offset) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, id(offset));
+    }
+}
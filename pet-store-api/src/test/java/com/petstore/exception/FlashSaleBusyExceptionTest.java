@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FlashSaleBusyException.
+ */
+class FlashSaleBusyExceptionTest {
+
+    @Test
+    @DisplayName("FlashSaleBusyException message contains pet ID")
+    void shouldCreateWithPetId() {
+        FlashSaleBusyException ex = new FlashSaleBusyException(42L);
+        assertThat(ex.getMessage()).contains("42");
+        assertThat(ex.getMessage()).containsIgnoringCase("retry");
+    }
+}
@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for IdempotencyKeyInUseException.
+ */
+class IdempotencyKeyInUseExceptionTest {
+
+    @Test
+    @DisplayName("IdempotencyKeyInUseException message contains the key")
+    void shouldCreateWithKey() {
+        IdempotencyKeyInUseException ex = new IdempotencyKeyInUseException("retry-1");
+        assertThat(ex.getMessage()).contains("retry-1");
+        assertThat(ex.getMessage()).containsIgnoringCase("in progress");
+    }
+}
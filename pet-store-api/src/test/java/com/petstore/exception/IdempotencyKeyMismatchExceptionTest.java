@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for IdempotencyKeyMismatchException.
+ */
+class IdempotencyKeyMismatchExceptionTest {
+
+    @Test
+    @DisplayName("IdempotencyKeyMismatchException message contains the key")
+    void shouldCreateWithKey() {
+        IdempotencyKeyMismatchException ex = new IdempotencyKeyMismatchException("retry-1");
+        assertThat(ex.getMessage()).contains("retry-1");
+        assertThat(ex.getMessage()).containsIgnoringCase("different request");
+    }
+}
@@ -0,0 +1,22 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for InvalidPetAlertException.
+ */
+class InvalidPetAlertExceptionTest {
+
+    /**
+     * Test creating InvalidPetAlertException with a message.
+     */
+    @Test
+    @DisplayName("Constructor - Should keep the message")
+    void shouldCreateWithMessage() {
+        String msg = "An alert needs a category, a tag or a price limit";
+        InvalidPetAlertException ex = new InvalidPetAlertException(msg);
+        assertThat(ex.getMessage()).isEqualTo(msg);
+    }
+}
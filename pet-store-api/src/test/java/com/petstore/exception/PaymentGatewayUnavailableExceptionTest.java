@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PaymentGatewayUnavailableException.
+ */
+class PaymentGatewayUnavailableExceptionTest {
+
+    @Test
+    @DisplayName("PaymentGatewayUnavailableException message contains the gateway")
+    void shouldCreateWithGateway() {
+        PaymentGatewayUnavailableException ex = new PaymentGatewayUnavailableException("PAYPAL");
+        assertThat(ex.getMessage()).contains("PAYPAL");
+        assertThat(ex.getMessage()).containsIgnoringCase("unavailable");
+    }
+}
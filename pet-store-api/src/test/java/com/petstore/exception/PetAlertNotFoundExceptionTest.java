@@ -0,0 +1,19 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PetAlertNotFoundException.
+ */
+class PetAlertNotFoundExceptionTest {
+
+    @Test
+    @DisplayName("PetAlertNotFoundException message contains alert ID")
+    void shouldCreateWithAlertId() {
+        PetAlertNotFoundException ex = new PetAlertNotFoundException(123L);
+        assertThat(ex.getMessage()).contains("123");
+        assertThat(ex.getMessage()).containsIgnoringCase("not found");
+    }
+}
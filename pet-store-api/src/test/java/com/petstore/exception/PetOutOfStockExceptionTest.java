@@ -0,0 +1,20 @@
+package com.petstore.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PetOutOfStockException.
+ */
+class PetOutOfStockExceptionTest {
+
+    @Test
+    @DisplayName("PetOutOfStockException message contains pet ID and quantity")
+    void shouldCreateWithPetIdAndQuantity() {
+        PetOutOfStockException ex = new PetOutOfStockException(7L, 12);
+        assertThat(ex.getMessage()).contains("7");
+        assertThat(ex.getMessage()).contains("12");
+        assertThat(ex.getMessage()).containsIgnoringCase("stock");
+    }
+}
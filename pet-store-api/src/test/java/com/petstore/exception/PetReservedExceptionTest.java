@@ -0,0 +1,22 @@
+package com.petstore.exception;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PetReservedException.
+ */
+class PetReservedExceptionTest {
+
+    @Test
+    @DisplayName("PetReservedException message contains pet ID and expiry")
+    void shouldCreateWithPetIdAndExpiry() {
+        PetReservedException ex = new PetReservedException(7L, LocalDateTime.of(2026, 1, 1, 12, 10));
+        assertThat(ex.getMessage()).contains("7");
+        assertThat(ex.getMessage()).contains("2026-01-01T12:10");
+        assertThat(ex.getMessage()).containsIgnoringCase("reserved");
+    }
+}
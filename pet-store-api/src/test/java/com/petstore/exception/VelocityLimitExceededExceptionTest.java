@@ -0,0 +1,23 @@
+package com.petstore.exception;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for VelocityLimitExceededException.
+ */
+class VelocityLimitExceededExceptionTest {
+
+    @Test
+    @DisplayName("VelocityLimitExceededException message contains the rule and retry delay")
+    void shouldCreateWithRuleAndRetryAfter() {
+        VelocityLimitExceededException ex = new VelocityLimitExceededException("payment.per-card",
+                Duration.ofSeconds(60));
+        assertThat(ex.getMessage()).contains("payment.per-card");
+        assertThat(ex.getMessage()).contains("60 seconds");
+        assertThat(ex.getRetryAfter()).isEqualTo(Duration.ofSeconds(60));
+    }
+}
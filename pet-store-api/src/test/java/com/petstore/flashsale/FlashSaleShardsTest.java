@@ -0,0 +1,163 @@
+package com.petstore.flashsale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Tests for {@link FlashSaleShards} against the H2 test database, with the
+ * writer threads running. Runs without a test transaction, so every write
+ * commits.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Flash Sale Shards Tests")
+class FlashSaleShardsTest {
+
+    private static final int PETS = 20;
+
+    private static final int BUYERS = 2_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    private FlashSaleShards shards;
+
+    private List<Long> petIds;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category("Flash Sale"));
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < PETS; i++) {
+            pets.add(new Pet("Hot Pet " + i, category, new BigDecimal("10.00")));
+        }
+        petIds = petRepository.saveAll(pets).stream().map(Pet::getId).toList();
+        shards = new FlashSaleShards(jdbcTemplate, new TransactionTemplate(transactionManager),
+                Clock.systemDefaultZone(), true, 4, 10_000);
+        shards.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        shards.close();
+        petRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    /**
+     * Test: thousands of concurrent buyers race for a few pets; each pet goes
+     * to exactly one order, and every other buyer is told it is sold.
+     */
+    @Test
+    @DisplayName("Claim - Should give each pet to exactly one of thousands of concurrent buyers")
+    void claim_ShouldGiveEachPetToExactlyOneBuyer() throws Exception {
+        Map<Long, Long> winners = new ConcurrentHashMap<>();
+        AtomicInteger losers = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int buyer = 1; buyer <= BUYERS; buyer++) {
+                long orderId = buyer;
+                Long petId = petIds.get(buyer % PETS);
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    Long taken = shards.claim(orderId, List.of(petId));
+                    if (taken == null) {
+                        assertThat(winners.putIfAbsent(petId, orderId)).isNull();
+                    } else {
+                        assertThat(taken).isEqualTo(petId);
+                        losers.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(winners).hasSize(PETS);
+        assertThat(losers).hasValue(BUYERS - PETS);
+        assertThat(petRepository.findAll()).extracting(Pet::getStatus).containsOnly(PetStatus.SOLD);
+    }
+
+    /**
+     * Test: an order's pets are claimed all or none, pets sold in the database
+     * cannot be claimed, and released pets are available again.
+     */
+    @Test
+    @DisplayName("Claim - Should claim all or none, honor sold pets and release")
+    void claim_ShouldClaimAllOrNoneAndRelease() {
+        jdbcTemplate.update("UPDATE pets SET status = 'SOLD' WHERE id = ?", petIds.get(3));
+
+        assertThat(shards.claim(1L, List.of(petIds.get(0), petIds.get(1), petIds.get(2), petIds.get(3))))
+                .isEqualTo(petIds.get(3));
+        assertThat(shards.isClaimed(petIds.get(0))).isFalse();
+        assertThat(shards.isClaimed(petIds.get(3))).isTrue();
+        assertThat(status(petIds.get(0))).isEqualTo(PetStatus.AVAILABLE);
+
+        assertThat(shards.claim(2L, List.of(petIds.get(0), petIds.get(1)))).isNull();
+        assertThat(shards.claim(3L, List.of(petIds.get(1), petIds.get(2)))).isEqualTo(petIds.get(1));
+        assertThat(status(petIds.get(1))).isEqualTo(PetStatus.SOLD);
+        assertThat(status(petIds.get(2))).isEqualTo(PetStatus.AVAILABLE);
+
+        shards.release(3L, List.of(petIds.get(0)));
+        assertThat(shards.isClaimed(petIds.get(0))).isTrue();
+        shards.release(2L, List.of(petIds.get(0), petIds.get(1)));
+        assertThat(shards.isClaimed(petIds.get(0))).isFalse();
+        assertThat(status(petIds.get(0))).isEqualTo(PetStatus.AVAILABLE);
+        assertThat(status(petIds.get(1))).isEqualTo(PetStatus.AVAILABLE);
+    }
+
+    private PetStatus status(Long petId) {
+        return PetStatus.valueOf(jdbcTemplate.queryForObject("SELECT status FROM pets WHERE id = ?", String.class,
+                petId));
+    }
+}
@@ -0,0 +1,132 @@
+package com.petstore.fraud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SlidingWindowCounter}, on a clock the tests move.
+ */
+@DisplayName("Sliding Window Counter Tests")
+class SlidingWindowCounterTest {
+
+    private long now;
+
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        now = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+    }
+
+    /**
+     * Test: events are counted per key and leave the count once they fall
+     * out of the window, a bucket at a time.
+     */
+    @Test
+    @DisplayName("Counts events per key over the window")
+    void countsOverWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(clock, Duration.ofMinutes(1), 6, 100);
+
+        assertThat(counter.increment("a")).isEqualTo(1);
+        assertThat(counter.increment("a")).isEqualTo(2);
+        assertThat(counter.increment("b")).isEqualTo(1);
+        now += 30_000;
+        assertThat(counter.increment("a")).isEqualTo(3);
+        now += 30_000;
+        assertThat(counter.count("a")).isEqualTo(1);
+        assertThat(counter.count("b")).isZero();
+        now += 30_000;
+        assertThat(counter.count("a")).isZero();
+        assertThat(counter.count("unknown")).isZero();
+    }
+
+    /**
+     * Test: a bucket reused on a later turn of the ring starts again from
+     * zero.
+     */
+    @Test
+    @DisplayName("Resets buckets reused on a later turn")
+    void resetsReusedBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(clock, Duration.ofMinutes(1), 6, 100);
+        for (int i = 0; i < 5; i++) {
+            counter.increment("a");
+        }
+
+        now += 60_000;
+
+        assertThat(counter.increment("a")).isEqualTo(1);
+    }
+
+    /**
+     * Test: once full, idle keys are evicted first, then arbitrary ones, so
+     * the number of keys stays bounded; the scheduled sweep drops idle keys.
+     */
+    @Test
+    @DisplayName("Evicts keys to stay within the limit")
+    void evictsKeys() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(clock, Duration.ofMinutes(1), 6, 10);
+        for (int i = 0; i < 5; i++) {
+            counter.increment("idle-" + i);
+        }
+        now += 60_000;
+        for (int i = 0; i < 5; i++) {
+            counter.increment("active-" + i);
+        }
+
+        counter.increment("new");
+
+        assertThat(counter.size()).isEqualTo(6);
+        assertThat(counter.count("active-0")).isEqualTo(1);
+        for (int i = 0; i < 100; i++) {
+            counter.increment("flood-" + i);
+        }
+        assertThat(counter.size()).isLessThanOrEqualTo(10);
+
+        now += 60_000;
+        counter.evictIdle();
+        assertThat(counter.size()).isZero();
+    }
+
+    /**
+     * Test: increments from many threads at once are all counted.
+     */
+    @Test
+    @DisplayName("Counts concurrent increments exactly")
+    void countsConcurrentIncrements() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(clock, Duration.ofMinutes(1), 6, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        counter.increment("hot");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(counter.count("hot")).isEqualTo(80_000);
+    }
+}
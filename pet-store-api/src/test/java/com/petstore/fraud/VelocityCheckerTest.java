@@ -0,0 +1,143 @@
+package com.petstore.fraud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.PaymentType;
+import com.petstore.exception.VelocityLimitExceededException;
+
+/**
+ * Tests for {@link VelocityChecker}, with small limits and a clock the tests
+ * move.
+ */
+@DisplayName("Velocity Checker Tests")
+class VelocityCheckerTest {
+
+    private long now;
+
+    private Clock clock;
+
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        now = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+        environment = new MockEnvironment()
+                .withProperty("app.velocity.checkout.per-user", "2")
+                .withProperty("app.velocity.checkout.per-ip", "3")
+                .withProperty("app.velocity.payment.per-user", "10")
+                .withProperty("app.velocity.payment.per-card", "2")
+                .withProperty("app.velocity.payment.per-ip", "0");
+    }
+
+    /**
+     * Test: checkouts beyond a user's limit are refused until the window has
+     * passed, and the refusal says when to retry.
+     */
+    @Test
+    @DisplayName("Refuses checkouts beyond the user limit")
+    void refusesCheckoutsPerUser() {
+        VelocityChecker checker = new VelocityChecker(environment, clock);
+        checker.checkCheckout(1L, "10.0.0.1");
+        checker.checkCheckout(1L, "10.0.0.2");
+
+        assertThatThrownBy(() -> checker.checkCheckout(1L, "10.0.0.3"))
+                .isInstanceOf(VelocityLimitExceededException.class)
+                .hasMessageContaining("checkout.per-user")
+                .extracting("retryAfter").isEqualTo(Duration.ofMinutes(1));
+        assertThatCode(() -> checker.checkCheckout(2L, "10.0.0.4")).doesNotThrowAnyException();
+
+        now += 61_000;
+        assertThatCode(() -> checker.checkCheckout(1L, "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    /**
+     * Test: checkouts from one address are limited across users.
+     */
+    @Test
+    @DisplayName("Refuses checkouts beyond the address limit")
+    void refusesCheckoutsPerIp() {
+        VelocityChecker checker = new VelocityChecker(environment, clock);
+        checker.checkCheckout(1L, "10.0.0.1");
+        checker.checkCheckout(2L, "10.0.0.1");
+        checker.checkCheckout(3L, "10.0.0.1");
+
+        assertThatThrownBy(() -> checker.checkCheckout(4L, "10.0.0.1"))
+                .isInstanceOf(VelocityLimitExceededException.class)
+                .hasMessageContaining("checkout.per-ip");
+    }
+
+    /**
+     * Test: payments with one card are limited across users, however the
+     * number is formatted; other payment types and turned-off rules are not
+     * limited.
+     */
+    @Test
+    @DisplayName("Refuses payments beyond the card limit")
+    void refusesPaymentsPerCard() {
+        VelocityChecker checker = new VelocityChecker(environment, clock);
+        checker.checkPayment(1L, payment(PaymentType.CREDIT_CARD, "4111 1111 1111 1111"), "10.0.0.1");
+        checker.checkPayment(2L, payment(PaymentType.DEBIT_CARD, "4111-1111-1111-1111"), "10.0.0.1");
+
+        assertThatThrownBy(() -> checker.checkPayment(3L, payment(PaymentType.CREDIT_CARD, "4111111111111111"),
+                "10.0.0.1"))
+                .isInstanceOf(VelocityLimitExceededException.class)
+                .hasMessageContaining("payment.per-card");
+        assertThatCode(() -> checker.checkPayment(4L, payment(PaymentType.PAYPAL, "4111111111111111"), "10.0.0.1"))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> checker.checkPayment(5L, payment(PaymentType.CREDIT_CARD, "5500000000000004"),
+                "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    /**
+     * Test: with velocity checks turned off nothing is refused.
+     */
+    @Test
+    @DisplayName("Allows everything when turned off")
+    void allowsEverythingWhenDisabled() {
+        VelocityChecker checker = new VelocityChecker(environment.withProperty("app.velocity.enabled", "false"),
+                clock);
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 10; i++) {
+                checker.checkCheckout(1L, "10.0.0.1");
+            }
+        }).doesNotThrowAnyException();
+    }
+
+    /**
+     * Test: card numbers are hashed from their digits only, and not kept.
+     */
+    @Test
+    @DisplayName("Hashes card numbers from their digits")
+    void hashesCardNumbers() {
+        assertThat(VelocityChecker.hashCard("4111 1111 1111 1111"))
+                .isEqualTo(VelocityChecker.hashCard("4111111111111111"))
+                .doesNotContain("4111")
+                .hasSize(22);
+        assertThat(VelocityChecker.hashCard(" - ")).isNull();
+        assertThat(VelocityChecker.hashCard(null)).isNull();
+    }
+
+    private static PaymentOrderRequest payment(PaymentType paymentType, String cardNumber) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setPaymentType(paymentType);
+        request.setCardNumber(cardNumber);
+        return request;
+    }
+}
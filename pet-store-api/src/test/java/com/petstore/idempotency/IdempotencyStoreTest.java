@@ -0,0 +1,185 @@
+package com.petstore.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.exception.IdempotencyKeyInUseException;
+import com.petstore.exception.IdempotencyKeyMismatchException;
+
+/**
+ * Tests for {@link IdempotencyStore} against the H2 test database, on a
+ * clock the tests move. Runs without a test transaction, so every write
+ * commits; a second store over the same table plays another replica.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Idempotency Store Tests")
+class IdempotencyStoreTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofMinutes(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long now;
+
+    private Clock clock;
+
+    private IdempotencyStore store;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now));
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        now = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    /**
+     * Test: a request runs once; retries get its response back with the
+     * replay header, from memory and from another replica's database read.
+     */
+    @Test
+    @DisplayName("Execute - Should run once and replay the stored response")
+    void execute_ShouldRunOnceAndReplayStoredResponse() {
+        ResponseEntity<?> first = execute(store, 1L, "key-1", "checkout");
+        assertThat(first.getBody()).isEqualTo(Map.of("run", 1));
+        assertThat(first.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+
+        ResponseEntity<?> retry = execute(store, 1L, "key-1", "checkout");
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getBody()).isEqualTo("{\"run\":1}");
+        assertThat(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+
+        ResponseEntity<?> otherReplica = execute(newStore(), 1L, "key-1", "checkout");
+        assertThat(otherReplica.getBody()).isEqualTo("{\"run\":1}");
+
+        // Keys are per user
+        assertThat(execute(store, 2L, "key-1", "checkout").getBody()).isEqualTo(Map.of("run", 2));
+        assertThat(runs).hasValue(2);
+    }
+
+    /**
+     * Test: a key sent again with a different request is refused, whether
+     * its response is held in memory or only in the database.
+     */
+    @Test
+    @DisplayName("Execute - Should refuse a key reused for a different request")
+    void execute_ShouldRefuseKeyReusedForDifferentRequest() {
+        execute(store, 1L, "key-1", "checkout");
+
+        assertThatThrownBy(() -> execute(store, 1L, "key-1", "pay"))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThatThrownBy(() -> execute(newStore(), 1L, "key-1", "pay"))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    /**
+     * Test: a retry arriving while the first request still runs is refused,
+     * and a claim left by a replica that died mid-request lapses after the
+     * lock timeout.
+     */
+    @Test
+    @DisplayName("Execute - Should refuse a retry while the first request runs")
+    void execute_ShouldRefuseRetryWhileFirstRequestRuns() {
+        ResponseEntity<?> response = store.execute(1L, "key-1", store.fingerprint("checkout", null), () -> {
+            assertThatThrownBy(() -> execute(newStore(), 1L, "key-1", "checkout"))
+                    .isInstanceOf(IdempotencyKeyInUseException.class);
+            return ResponseEntity.ok("done");
+        });
+        assertThat(response.getBody()).isEqualTo("done");
+
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, fingerprint, expires_at) "
+                + "VALUES (1, 'key-2', ?, ?)", store.fingerprint("checkout", null),
+                Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(now + LOCK_TIMEOUT.toMillis()), ZoneOffset.UTC)));
+        assertThatThrownBy(() -> execute(store, 1L, "key-2", "checkout"))
+                .isInstanceOf(IdempotencyKeyInUseException.class);
+        now += LOCK_TIMEOUT.toMillis();
+        assertThat(execute(store, 1L, "key-2", "checkout").getBody()).isEqualTo(Map.of("run", 1));
+    }
+
+    /**
+     * Test: a request that fails gives its key back, so a retry runs it.
+     */
+    @Test
+    @DisplayName("Execute - Should give the key back when the request fails")
+    void execute_ShouldGiveKeyBackWhenRequestFails() {
+        String fingerprint = store.fingerprint("checkout", null);
+        assertThatThrownBy(() -> store.execute(1L, "key-1", fingerprint, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(store.execute(1L, "key-1", fingerprint, () -> ResponseEntity.badRequest().build())
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        assertThat(execute(store, 1L, "key-1", "checkout").getBody()).isEqualTo(Map.of("run", 1));
+        assertThatThrownBy(() -> execute(store, 1L, " ", "checkout"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Test: once a stored response expires the key can be used again, and
+     * the purge deletes expired rows.
+     */
+    @Test
+    @DisplayName("Execute - Should run again once the stored response expires")
+    void execute_ShouldRunAgainOnceStoredResponseExpires() {
+        execute(store, 1L, "key-1", "checkout");
+        execute(store, 1L, "key-2", "checkout");
+        now += TTL.toMillis();
+
+        assertThat(execute(store, 1L, "key-1", "pay").getBody()).isEqualTo(Map.of("run", 3));
+        store.purge();
+        assertThat(jdbcTemplate.queryForList("SELECT idempotency_key FROM idempotency_keys", String.class))
+                .containsExactly("key-1");
+    }
+
+    private ResponseEntity<?> execute(IdempotencyStore target, Long userId, String key, String request) {
+        return target.execute(userId, key, target.fingerprint(request, null),
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("run", runs.incrementAndGet())));
+    }
+
+    private IdempotencyStore newStore() {
+        return new IdempotencyStore(jdbcTemplate, new ObjectMapper(), clock, TTL, LOCK_TIMEOUT, 100);
+    }
+}
@@ -0,0 +1,149 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.petstore.dto.CoPurchaseRecommendation;
+import com.petstore.enums.RecommendationType;
+import com.petstore.event.OrderApprovedEvent;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+
+/**
+ * Unit tests for {@link CoPurchaseIndex}.
+ */
+@DisplayName("Co-Purchase Index Tests")
+class CoPurchaseIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private CoPurchaseIndex coPurchaseIndex;
+
+    private Category dogs;
+    private Category toys;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        coPurchaseIndex = new CoPurchaseIndex(null, 0.5f);
+        dogs = category(1L, "Dogs");
+        toys = category(2L, "Toys");
+        food = category(3L, "Food");
+    }
+
+    /**
+     * Test: categories and tags bought with the cart's rank by the share of
+     * orders they appeared in (ties in first-seen order), and the cart's own
+     * are never recommended.
+     */
+    @Test
+    @DisplayName("Recommend - Should rank features bought with the cart's")
+    void recommend_ShouldRankFeaturesBoughtTogether() {
+        order(pet(dogs, "puppy"), pet(toys, "chew"));
+        order(pet(dogs, "puppy"), pet(toys, "ball"));
+        order(pet(dogs), pet(food));
+        order(pet(food, "kibble"));
+
+        List<CoPurchaseRecommendation> recommendations = coPurchaseIndex.recommend(List.of(event(pet(dogs))), 10);
+
+        assertThat(recommendations).extracting(CoPurchaseRecommendation::getType,
+                CoPurchaseRecommendation::getCategoryId, CoPurchaseRecommendation::getName).containsExactly(
+                        tuple(RecommendationType.TAG, null, "puppy"),
+                        tuple(RecommendationType.CATEGORY, 2L, null),
+                        tuple(RecommendationType.TAG, null, "chew"),
+                        tuple(RecommendationType.TAG, null, "ball"),
+                        tuple(RecommendationType.CATEGORY, 3L, null));
+        assertThat(recommendations.get(0).getScore()).isCloseTo(2 / 3.0, offset(1e-6));
+        assertThat(coPurchaseIndex.recommend(List.of(event(pet(dogs, "PUPPY"))), 2))
+                .extracting(CoPurchaseRecommendation::getCategoryId, CoPurchaseRecommendation::getName)
+                .containsExactly(tuple(2L, null), tuple(null, "chew"));
+        assertThat(coPurchaseIndex.recommend(List.of(event(pet(category(9L, "Fish")))), 10)).isEmpty();
+    }
+
+    /**
+     * Test: decay halves the weights, keeping the ranking, and drops the ones
+     * that fall below the minimum.
+     */
+    @Test
+    @DisplayName("Decay - Should scale weights down and drop the smallest")
+    void decay_ShouldScaleWeightsAndDropSmallest() {
+        order(pet(dogs), pet(toys));
+
+        coPurchaseIndex.decay();
+        assertThat(coPurchaseIndex.recommend(List.of(event(pet(dogs))), 10))
+                .extracting(CoPurchaseRecommendation::getCategoryId, CoPurchaseRecommendation::getScore)
+                .containsExactly(tuple(2L, 1.0));
+
+        for (int i = 0; i < 10; i++) {
+            coPurchaseIndex.decay();
+        }
+        assertThat(coPurchaseIndex.recommend(List.of(event(pet(dogs))), 10)).isEmpty();
+    }
+
+    /**
+     * Test: a checkpoint restores the same recommendations in a new index, is
+     * only rewritten after a change, and a corrupt file is ignored.
+     */
+    @Test
+    @DisplayName("Checkpoint - Should restore the matrix and ignore a corrupt file")
+    void checkpoint_ShouldRoundTripAndIgnoreCorruptFile() throws IOException {
+        Path file = directory.resolve("co-purchase.bin");
+        coPurchaseIndex = new CoPurchaseIndex(file.toString(), 0.5f);
+        order(pet(dogs, "puppy"), pet(toys, "chew"));
+        order(pet(dogs), pet(food));
+        List<CoPurchaseRecommendation> expected = coPurchaseIndex.recommend(List.of(event(pet(dogs))), 10);
+
+        coPurchaseIndex.checkpoint();
+        byte[] written = Files.readAllBytes(file);
+        Files.write(file, new byte[] { 1, 2, 3 });
+        coPurchaseIndex.checkpoint();
+        assertThat(Files.readAllBytes(file)).containsExactly(1, 2, 3);
+
+        Files.write(file, written);
+        CoPurchaseIndex restored = new CoPurchaseIndex(file.toString(), 0.5f);
+        restored.restore();
+        assertThat(restored.recommend(List.of(event(pet(dogs))), 10)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected);
+
+        Files.write(file, Arrays.copyOf(written, written.length - 3));
+        CoPurchaseIndex truncated = new CoPurchaseIndex(file.toString(), 0.5f);
+        truncated.restore();
+        assertThat(truncated.recommend(List.of(event(pet(dogs))), 10)).isEmpty();
+    }
+
+    private void order(Pet... pets) {
+        coPurchaseIndex.onOrderApproved(new OrderApprovedEvent(1L,
+                Arrays.stream(pets).map(CoPurchaseIndexTest::event).toList()));
+    }
+
+    private static PetChangedEvent event(Pet pet) {
+        return PetChangedEvent.saved(pet);
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category(name);
+        category.setId(id);
+        return category;
+    }
+
+    private static Pet pet(Category category, String... tags) {
+        Pet pet = new Pet("Pet", category, BigDecimal.TEN);
+        pet.setTags(List.of(tags));
+        return pet;
+    }
+}
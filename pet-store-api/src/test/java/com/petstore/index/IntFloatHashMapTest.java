@@ -0,0 +1,45 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link IntFloatHashMap}.
+ */
+@DisplayName("Int Float Hash Map Tests")
+class IntFloatHashMapTest {
+
+    /**
+     * Test: random adds and a decay agree with a {@link HashMap}, across
+     * several resizes.
+     */
+    @Test
+    @DisplayName("Add/decay - Should agree with a HashMap across resizes")
+    void addAndDecay_ShouldAgreeWithHashMap() {
+        IntFloatHashMap map = new IntFloatHashMap();
+        Map<Integer, Float> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000);
+            float delta = random.nextInt(4) / 4f;
+            expected.merge(key, delta, Float::sum);
+            map.add(key, delta);
+        }
+        map.decay(0.5f, 1f);
+        expected.replaceAll((key, value) -> value * 0.5f);
+        expected.values().removeIf(value -> value < 1f);
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        Map<Integer, Float> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(map.get(5_000)).isZero();
+    }
+}
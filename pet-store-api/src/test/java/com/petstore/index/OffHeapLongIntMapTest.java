@@ -0,0 +1,45 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link OffHeapLongIntMap}.
+ */
+@DisplayName("Off-Heap Long Int Map Tests")
+class OffHeapLongIntMapTest {
+
+    /**
+     * Test: random puts, overwrites and removes agree with a {@link HashMap},
+     * across several resizes.
+     */
+    @Test
+    @DisplayName("Put/remove - Should agree with a HashMap across resizes")
+    void putAndRemove_ShouldAgreeWithHashMap() {
+        OffHeapLongIntMap map = new OffHeapLongIntMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed != null ? removed : OffHeapLongIntMap.MISSING);
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, OffHeapLongIntMap.MISSING));
+        }
+    }
+}
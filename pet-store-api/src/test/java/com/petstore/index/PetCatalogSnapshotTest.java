@@ -0,0 +1,240 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.enums.PetSort;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Unit tests for {@link PetCatalogSnapshot}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Catalog Snapshot Tests")
+class PetCatalogSnapshotTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private PetRepository petRepository;
+
+    private PetCatalogSnapshot snapshot;
+
+    private Category dogs;
+    private Category cats;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = new PetCatalogSnapshot(petRepository, true);
+        dogs = new Category("Dogs");
+        dogs.setId(1L);
+        cats = new Category("Cats");
+        cats.setId(2L);
+    }
+
+    /**
+     * Test: price bounds are inclusive, and fractional bounds round inwards
+     * to whole cents.
+     */
+    @Test
+    @DisplayName("Find - Should filter on an inclusive price range")
+    void find_ShouldFilterOnInclusivePriceRange() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, "10.00", 0));
+        apply(pet(2L, dogs, PetStatus.AVAILABLE, "20.00", 1));
+        apply(pet(3L, dogs, PetStatus.AVAILABLE, "30.00", 2));
+        apply(pet(4L, cats, PetStatus.AVAILABLE, "20.00", 3));
+        apply(pet(5L, dogs, PetStatus.SOLD, "20.00", 4));
+
+        PetCatalogSnapshot.Matches matches = snapshot.find(1L, PetStatus.AVAILABLE, new BigDecimal("10"),
+                new BigDecimal("20"), PetSort.PRICE_ASC, 0, 10);
+        assertThat(matches.getIds()).containsExactly(1L, 2L);
+        assertThat(matches.getTotal()).isEqualTo(2);
+
+        assertThat(snapshot.find(null, null, new BigDecimal("10.001"), new BigDecimal("29.999"), PetSort.PRICE_ASC,
+                0, 10).getIds()).containsExactly(2L, 4L, 5L);
+        assertThat(snapshot.find(null, null, null, new BigDecimal("15"), PetSort.PRICE_ASC, 0, 10).getIds())
+                .containsExactly(1L);
+    }
+
+    /**
+     * Test: each sort orders by its key and breaks ties on the ID in the same
+     * direction as the database query; offsets page through the order.
+     */
+    @Test
+    @DisplayName("Find - Should return the top-K page in sort order with ID tie-breaks")
+    void find_ShouldReturnPageInSortOrder() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, "30.00", 5));
+        apply(pet(2L, dogs, PetStatus.AVAILABLE, "10.00", 5));
+        apply(pet(3L, dogs, PetStatus.AVAILABLE, "20.00", 1));
+        apply(pet(4L, dogs, PetStatus.AVAILABLE, "10.00", 9));
+        apply(pet(5L, dogs, PetStatus.AVAILABLE, "40.00", 2));
+
+        assertThat(find(PetSort.PRICE_ASC, 0, 10)).containsExactly(2L, 4L, 3L, 1L, 5L);
+        assertThat(find(PetSort.PRICE_DESC, 0, 10)).containsExactly(5L, 1L, 3L, 4L, 2L);
+        assertThat(find(PetSort.NEWEST, 0, 10)).containsExactly(4L, 2L, 1L, 5L, 3L);
+        assertThat(find(PetSort.PRICE_ASC, 1, 2)).containsExactly(4L, 3L);
+        assertThat(find(PetSort.PRICE_ASC, 4, 2)).containsExactly(5L);
+        assertThat(find(PetSort.PRICE_ASC, 5, 2)).isEmpty();
+    }
+
+    /**
+     * Test: updates rewrite the pet's row and deletes drop it, including
+     * after enough deletes to compact the columns.
+     */
+    @Test
+    @DisplayName("On pet changed - Should update rows in place and drop deleted pets")
+    void onPetChanged_ShouldUpdateAndDeleteRows() {
+        for (long id = 1; id <= 100; id++) {
+            apply(pet(id, dogs, PetStatus.AVAILABLE, id + ".00", (int) id));
+        }
+        apply(pet(50L, cats, PetStatus.SOLD, "1.00", 50));
+        for (long id = 1; id <= 40; id++) {
+            snapshot.onPetChanged(PetChangedEvent.deleted(id));
+        }
+        snapshot.onPetChanged(PetChangedEvent.deleted(999L));
+
+        assertThat(snapshot.size()).isEqualTo(60);
+        PetCatalogSnapshot.Matches availableDogs = snapshot.find(1L, PetStatus.AVAILABLE, null, null,
+                PetSort.PRICE_ASC, 0, 3);
+        assertThat(availableDogs.getIds()).containsExactly(41L, 42L, 43L);
+        assertThat(availableDogs.getTotal()).isEqualTo(59);
+        assertThat(snapshot.find(2L, null, null, null, PetSort.PRICE_ASC, 0, 10).getIds()).containsExactly(50L);
+
+        apply(pet(3L, cats, PetStatus.AVAILABLE, "5.00", 200));
+        assertThat(snapshot.find(null, null, null, null, PetSort.NEWEST, 0, 1).getIds()).containsExactly(3L);
+    }
+
+    /**
+     * Test: a rebuild loads every batch, growing the columns past their
+     * initial capacity.
+     */
+    @Test
+    @DisplayName("Rebuild - Should load all pets in batches")
+    void rebuild_ShouldLoadAllPetsInBatches() {
+        int count = AbstractPetIndex.REBUILD_BATCH_SIZE * 2 + 7;
+        List<Pet> pets = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            pets.add(pet(id, id % 2 == 0 ? dogs : cats, PetStatus.AVAILABLE, (id % 100 + 1) + ".00", (int) id));
+        }
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return pets.stream().filter(pet -> pet.getId() > afterId)
+                    .limit(AbstractPetIndex.REBUILD_BATCH_SIZE).toList();
+        });
+
+        snapshot.rebuild();
+
+        assertThat(snapshot.isReady()).isTrue();
+        assertThat(snapshot.size()).isEqualTo(count);
+        PetCatalogSnapshot.Matches mostExpensive = snapshot.find(null, null, new BigDecimal("100"), null,
+                PetSort.PRICE_DESC, 0, 2);
+        assertThat(mostExpensive.getIds()).containsExactly(1999L, 1899L);
+        assertThat(mostExpensive.getTotal()).isEqualTo(20);
+    }
+
+    /**
+     * Test: a disabled snapshot never loads, so callers keep using the database.
+     */
+    @Test
+    @DisplayName("Rebuild - Should not load when disabled")
+    void rebuild_WhenDisabled_ShouldNotLoad() {
+        PetCatalogSnapshot disabled = new PetCatalogSnapshot(petRepository, false);
+
+        disabled.rebuild();
+
+        assertThat(disabled.isReady()).isFalse();
+        verify(petRepository, never()).findBatchAfterId(anyLong(), any());
+    }
+
+    /**
+     * Test: a catch-up applies the pets changed on other replicas since the
+     * newest update loaded, less the overlap, and moves past them.
+     */
+    @Test
+    @DisplayName("Catch up - Should apply pets changed since the newest update seen")
+    void catchUp_ShouldApplyPetsChangedSinceNewestUpdate() {
+        Pet loaded = pet(1L, dogs, PetStatus.AVAILABLE, "10.00", 0);
+        loaded.setUpdatedAt(NOW);
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenReturn(List.of(loaded));
+        snapshot.rebuild();
+
+        Pet sold = pet(1L, dogs, PetStatus.SOLD, "10.00", 0);
+        sold.setUpdatedAt(NOW.plusMinutes(5));
+        Pet added = pet(2L, cats, PetStatus.AVAILABLE, "20.00", 5);
+        added.setUpdatedAt(NOW.plusMinutes(5));
+        when(petRepository.findChangedSince(eq(NOW.minusMinutes(1)), eq(0L), any()))
+                .thenReturn(List.of(sold, added));
+
+        snapshot.catchUp();
+
+        assertThat(snapshot.find(null, PetStatus.AVAILABLE, null, null, PetSort.NEWEST, 0, 10).getIds())
+                .containsExactly(2L);
+        assertThat(snapshot.size()).isEqualTo(2);
+
+        snapshot.catchUp();
+
+        verify(petRepository).findChangedSince(eq(NOW.plusMinutes(4)), eq(0L), any());
+    }
+
+    /**
+     * Test: nothing is caught up before the first rebuild has loaded the index.
+     */
+    @Test
+    @DisplayName("Catch up - Should wait for the first rebuild")
+    void catchUp_BeforeRebuild_ShouldNotQuery() {
+        snapshot.catchUp();
+
+        assertThat(snapshot.isReady()).isFalse();
+        verify(petRepository, never()).findChangedSince(any(), anyLong(), any());
+    }
+
+    /**
+     * Test: name sorting and pages past the top-K limit are rejected.
+     */
+    @Test
+    @DisplayName("Find - Should reject name sorting and pages past the top-K limit")
+    void find_ShouldRejectUnsupportedQueries() {
+        assertThat(PetCatalogSnapshot.supports(PetSort.NAME)).isFalse();
+        assertThatThrownBy(() -> find(PetSort.NAME, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> find(PetSort.PRICE_ASC, PetCatalogSnapshot.MAX_TOP_K, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long[] find(PetSort sort, int offset, int limit) {
+        return snapshot.find(null, null, null, null, sort, offset, limit).getIds();
+    }
+
+    private void apply(Pet pet) {
+        snapshot.onPetChanged(PetChangedEvent.saved(pet));
+    }
+
+    private static Pet pet(Long id, Category category, PetStatus status, String price, int minutes) {
+        Pet pet = new Pet("Pet " + id, category, new BigDecimal(price));
+        pet.setId(id);
+        pet.setStatus(status);
+        pet.setCreatedAt(NOW.plusMinutes(minutes));
+        return pet;
+    }
+}
@@ -0,0 +1,99 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.service.PetService;
+
+/**
+ * Tests that committed pet writes reach the {@link PetFacetIndex}, and that a
+ * rebuild from the database agrees with the incrementally maintained index.
+ * Runs without a test transaction, so every write commits.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@DisplayName("Pet Facet Index Integration Tests")
+class PetFacetIndexIntegrationTest {
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetFacetIndex petFacetIndex;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category("Facet Test"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        petRepository.findByCategoryId(category.getId()).forEach(pet -> petService.deletePet(pet.getId()));
+        categoryRepository.delete(category);
+    }
+
+    /**
+     * Test: creates, patches and deletes are reflected once committed, and a
+     * rebuild produces the same counts.
+     */
+    @Test
+    @DisplayName("Should follow committed pet writes and match a rebuild")
+    void committedWrites_ShouldUpdateFacetsAndMatchRebuild() throws Exception {
+        Pet rex = petService.savePet(pet("Rex", "friendly", "large"));
+        Pet fido = petService.savePet(pet("Fido", "friendly"));
+        Pet spot = petService.savePet(pet("Spot", "small"));
+
+        petService.patchPet(fido.getId(), objectMapper.readTree("{\"status\":\"SOLD\",\"tags\":[\"calm\"]}"));
+        petService.deletePet(spot.getId());
+
+        PetFacetsResponse facets = petFacetIndex.facets(category.getId(), null, null);
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getStatuses()).containsOnly(entry(PetStatus.AVAILABLE, 1L), entry(PetStatus.SOLD, 1L));
+        assertThat(facets.getTags()).containsOnly(entry("friendly", 1L), entry("large", 1L), entry("calm", 1L));
+        assertThat(petFacetIndex.facets(category.getId(), PetStatus.AVAILABLE, List.of("friendly")).getTotal())
+                .isEqualTo(1);
+
+        petFacetIndex.rebuild();
+
+        PetFacetsResponse rebuilt = petFacetIndex.facets(category.getId(), null, null);
+        assertThat(rebuilt.getTotal()).isEqualTo(facets.getTotal());
+        assertThat(rebuilt.getStatuses()).isEqualTo(facets.getStatuses());
+        assertThat(rebuilt.getTags()).isEqualTo(facets.getTags());
+        assertThat(petRepository.findById(rex.getId())).isPresent();
+    }
+
+    private Pet pet(String name, String... tags) {
+        Pet pet = new Pet(name, category, new BigDecimal("100.00"));
+        pet.setTags(List.of(tags));
+        return pet;
+    }
+}
@@ -0,0 +1,199 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Unit tests for {@link PetFacetIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Facet Index Tests")
+class PetFacetIndexTest {
+
+    @Mock
+    private PetRepository petRepository;
+
+    @InjectMocks
+    private PetFacetIndex petFacetIndex;
+
+    private Category dogs;
+    private Category cats;
+
+    @BeforeEach
+    void setUp() {
+        dogs = new Category("Dogs");
+        dogs.setId(1L);
+        cats = new Category("Cats");
+        cats.setId(2L);
+    }
+
+    /**
+     * Test: facet counts for each dimension ignore that dimension's own filter.
+     */
+    @Test
+    @DisplayName("Facets - Should count every category, status and tag under the other filters")
+    void facets_ShouldCountEachDimensionUnderOtherFilters() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, "friendly", "small"));
+        apply(pet(2L, dogs, PetStatus.AVAILABLE, "friendly"));
+        apply(pet(3L, dogs, PetStatus.SOLD, "small"));
+        apply(pet(4L, cats, PetStatus.AVAILABLE, "friendly"));
+        apply(pet(5L, cats, PetStatus.PENDING));
+
+        PetFacetsResponse unfiltered = petFacetIndex.facets(null, null, null);
+        assertThat(unfiltered.getTotal()).isEqualTo(5);
+        assertThat(unfiltered.getCategories()).containsExactly(entry(1L, 3L), entry(2L, 2L));
+        assertThat(unfiltered.getStatuses()).containsOnly(entry(PetStatus.AVAILABLE, 3L),
+                entry(PetStatus.SOLD, 1L), entry(PetStatus.PENDING, 1L));
+        assertThat(unfiltered.getTags()).containsExactly(entry("friendly", 3L), entry("small", 2L));
+
+        PetFacetsResponse availableDogs = petFacetIndex.facets(1L, PetStatus.AVAILABLE, null);
+        assertThat(availableDogs.getTotal()).isEqualTo(2);
+        assertThat(availableDogs.getCategories()).containsExactly(entry(1L, 2L), entry(2L, 1L));
+        assertThat(availableDogs.getStatuses()).containsOnly(entry(PetStatus.AVAILABLE, 2L),
+                entry(PetStatus.SOLD, 1L));
+        assertThat(availableDogs.getTags()).containsExactly(entry("friendly", 2L), entry("small", 1L));
+
+        PetFacetsResponse friendlyAndSmall = petFacetIndex.facets(null, null, List.of("friendly", "small"));
+        assertThat(friendlyAndSmall.getTotal()).isEqualTo(1);
+        assertThat(friendlyAndSmall.getCategories()).containsExactly(entry(1L, 1L));
+    }
+
+    /**
+     * Test: an unknown filter value matches nothing.
+     */
+    @Test
+    @DisplayName("Facets - Should match nothing for an unknown category or tag")
+    void facets_ShouldMatchNothingForUnknownValues() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, "friendly"));
+
+        assertThat(petFacetIndex.facets(99L, null, null).getTotal()).isZero();
+        assertThat(petFacetIndex.facets(null, null, List.of("unknown")).getTotal()).isZero();
+    }
+
+    /**
+     * Test: an update moves the pet between facets, and a delete removes it.
+     */
+    @Test
+    @DisplayName("On pet changed - Should move updated pets and drop deleted ones")
+    void onPetChanged_ShouldMoveUpdatedAndDropDeletedPets() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, "friendly"));
+        apply(pet(2L, dogs, PetStatus.AVAILABLE, "friendly"));
+
+        apply(pet(1L, cats, PetStatus.SOLD, "calm"));
+        petFacetIndex.onPetChanged(PetChangedEvent.deleted(2L));
+
+        PetFacetsResponse facets = petFacetIndex.facets(null, null, null);
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getCategories()).containsExactly(entry(2L, 1L));
+        assertThat(facets.getStatuses()).containsExactly(entry(PetStatus.SOLD, 1L));
+        assertThat(facets.getTags()).containsExactly(entry("calm", 1L));
+    }
+
+    /**
+     * Test: only the most frequent tags are returned.
+     */
+    @Test
+    @DisplayName("Facets - Should return only the most frequent tags")
+    void facets_ShouldLimitTagFacets() {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i <= PetFacetIndex.MAX_TAG_FACETS; i++) {
+            tags.add("tag-" + i);
+        }
+        apply(pet(1L, dogs, PetStatus.AVAILABLE, tags.toArray(String[]::new)));
+        apply(pet(2L, dogs, PetStatus.AVAILABLE, "tag-7"));
+
+        PetFacetsResponse facets = petFacetIndex.facets(null, null, null);
+
+        assertThat(facets.getTags()).hasSize(PetFacetIndex.MAX_TAG_FACETS);
+        assertThat(facets.getTags().entrySet().iterator().next()).isEqualTo(entry("tag-7", 2L));
+    }
+
+    /**
+     * Test: a rebuild loads pets in keyset batches, replaces stale state and
+     * keeps changes that arrive while it is loading.
+     */
+    @Test
+    @DisplayName("Rebuild - Should load in batches and keep changes made while loading")
+    void rebuild_ShouldLoadInBatchesAndReplayConcurrentChanges() {
+        apply(pet(999L, cats, PetStatus.AVAILABLE));
+
+        List<Pet> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= PetFacetIndex.REBUILD_BATCH_SIZE; id++) {
+            firstBatch.add(pet(id, dogs, PetStatus.AVAILABLE));
+        }
+        when(petRepository.findBatchAfterId(eq(0L), any())).thenReturn(firstBatch);
+        when(petRepository.findBatchAfterId(eq((long) PetFacetIndex.REBUILD_BATCH_SIZE), any()))
+                .thenAnswer(invocation -> {
+                    // Committed while the rebuild is loading: pet 1 sold, pet 2000 created
+                    apply(pet(1L, dogs, PetStatus.SOLD));
+                    apply(pet(2_000L, cats, PetStatus.AVAILABLE));
+                    return List.of(pet(1_500L, cats, PetStatus.PENDING));
+                });
+
+        petFacetIndex.rebuild();
+
+        PetFacetsResponse facets = petFacetIndex.facets(null, null, null);
+        assertThat(facets.getTotal()).isEqualTo(PetFacetIndex.REBUILD_BATCH_SIZE + 2);
+        assertThat(facets.getStatuses()).containsOnly(
+                entry(PetStatus.AVAILABLE, (long) PetFacetIndex.REBUILD_BATCH_SIZE),
+                entry(PetStatus.SOLD, 1L), entry(PetStatus.PENDING, 1L));
+        assertThat(facets.getCategories()).containsEntry(2L, 2L);
+        verify(petRepository).findBatchAfterId(0L, PageRequest.of(0, PetFacetIndex.REBUILD_BATCH_SIZE));
+    }
+
+    /**
+     * Test: changes keep applying to the live index while a rebuild fails.
+     */
+    @Test
+    @DisplayName("Rebuild - Should keep the live index when loading fails")
+    void rebuild_ShouldKeepLiveIndexWhenLoadingFails() {
+        apply(pet(1L, dogs, PetStatus.AVAILABLE));
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenThrow(new IllegalStateException("down"));
+
+        try {
+            petFacetIndex.rebuild();
+        } catch (IllegalStateException expected) {
+            // the live index is untouched
+        }
+        apply(pet(2L, dogs, PetStatus.AVAILABLE));
+
+        assertThat(petFacetIndex.facets(null, null, null).getTotal()).isEqualTo(2);
+    }
+
+    private void apply(Pet pet) {
+        petFacetIndex.onPetChanged(PetChangedEvent.saved(pet));
+    }
+
+    private static Pet pet(Long id, Category category, PetStatus status, String... tags) {
+        Pet pet = new Pet("Pet " + id, category, new BigDecimal("100.00"));
+        pet.setId(id);
+        pet.setStatus(status);
+        pet.setTags(List.of(tags));
+        return pet;
+    }
+}
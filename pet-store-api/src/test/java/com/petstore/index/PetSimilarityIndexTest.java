@@ -0,0 +1,171 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Unit tests for {@link PetSimilarityIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Similarity Index Tests")
+class PetSimilarityIndexTest {
+
+    @Mock
+    private PetRepository petRepository;
+
+    @InjectMocks
+    private PetSimilarityIndex petSimilarityIndex;
+
+    private Category dogs;
+    private Category cats;
+
+    @BeforeEach
+    void setUp() {
+        dogs = new Category("Dogs");
+        dogs.setId(1L);
+        cats = new Category("Cats");
+        cats.setId(2L);
+    }
+
+    /**
+     * Test: tags are case-insensitive and prices fall into power-of-two bands.
+     */
+    @Test
+    @DisplayName("Features - Should normalize tags and band prices")
+    void features_ShouldNormalizeTagsAndBandPrices() {
+        assertThat(PetSimilarityIndex.features(event(pet(1L, dogs, "150.00", " Friendly", "calm"))))
+                .containsExactly("tag:friendly", "tag:calm", "category:1", "price:7");
+        assertThat(PetSimilarityIndex.features(event(pet(1L, dogs, "255.99"))))
+                .containsExactly("category:1", "price:7");
+        assertThat(PetSimilarityIndex.features(event(pet(1L, dogs, "0.50"))))
+                .containsExactly("category:1", "price:0");
+    }
+
+    /**
+     * Test: signature agreement tracks the Jaccard similarity of the feature
+     * sets.
+     */
+    @Test
+    @DisplayName("Signature - Should agree more for more shared features")
+    void signature_ShouldEstimateJaccardSimilarity() {
+        short[] base = PetSimilarityIndex.signature(Set.of("a", "b", "c", "d"));
+
+        assertThat(agreement(base, PetSimilarityIndex.signature(Set.of("d", "c", "b", "a"))))
+                .isEqualTo(PetSimilarityIndex.SIGNATURE_SIZE);
+        assertThat(agreement(base, PetSimilarityIndex.signature(Set.of("a", "b", "c", "e"))))
+                .isGreaterThan(agreement(base, PetSimilarityIndex.signature(Set.of("a", "e", "f", "g"))));
+        assertThat(agreement(base, PetSimilarityIndex.signature(Set.of("w", "x", "y", "z")))).isLessThan(4);
+    }
+
+    /**
+     * Test: the most similar available pets come first, excluding the pet
+     * itself, unavailable pets and pets with nothing in common.
+     */
+    @Test
+    @DisplayName("Similar - Should rank available pets by shared features")
+    void similar_ShouldRankAvailablePetsBySharedFeatures() {
+        Pet buddy = pet(1L, dogs, "150.00", "friendly", "playful", "small");
+        apply(buddy);
+        apply(pet(2L, dogs, "140.00", "friendly", "playful", "small"));
+        apply(pet(3L, dogs, "900.00", "friendly", "guard"));
+        apply(pet(4L, cats, "20.00", "lazy", "indoor"));
+        Pet sold = pet(5L, dogs, "150.00", "friendly", "playful", "small");
+        sold.setStatus(PetStatus.SOLD);
+        apply(sold);
+
+        long[] similar = petSimilarityIndex.similar(event(buddy), 10);
+
+        assertThat(similar).startsWith(2L).doesNotContain(1L, 4L, 5L);
+        assertThat(petSimilarityIndex.similar(event(buddy), 1)).containsExactly(2L);
+    }
+
+    /**
+     * Test: updates move a pet between buckets and deletes drop it.
+     */
+    @Test
+    @DisplayName("On change - Should follow pet updates and deletes")
+    void onChange_ShouldFollowPetUpdatesAndDeletes() {
+        Pet buddy = pet(1L, dogs, "150.00", "friendly", "playful");
+        apply(buddy);
+        apply(pet(2L, dogs, "150.00", "friendly", "playful"));
+        apply(pet(3L, cats, "20.00", "lazy", "indoor"));
+
+        apply(pet(2L, cats, "20.00", "lazy", "indoor"));
+        assertThat(petSimilarityIndex.similar(event(buddy), 10)).doesNotContain(2L);
+        assertThat(petSimilarityIndex.similar(event(pet(3L, cats, "20.00", "lazy", "indoor")), 10))
+                .containsExactly(2L);
+
+        petSimilarityIndex.onPetChanged(PetChangedEvent.deleted(2L));
+        assertThat(petSimilarityIndex.similar(event(pet(3L, cats, "20.00", "lazy", "indoor")), 10)).isEmpty();
+    }
+
+    /**
+     * Test: a rebuild loads every batch, and a lookup scores at most
+     * {@link PetSimilarityIndex#MAX_CANDIDATES} pets however many match.
+     */
+    @Test
+    @DisplayName("Rebuild - Should load all pets and cap candidates per lookup")
+    void rebuild_ShouldLoadAllPetsAndCapCandidates() {
+        int count = PetSimilarityIndex.MAX_CANDIDATES + AbstractPetIndex.REBUILD_BATCH_SIZE;
+        List<Pet> pets = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            pets.add(pet(id, dogs, "150.00", "friendly"));
+        }
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return pets.stream().filter(pet -> pet.getId() > afterId)
+                    .limit(AbstractPetIndex.REBUILD_BATCH_SIZE).toList();
+        });
+
+        petSimilarityIndex.rebuild();
+
+        assertThat(petSimilarityIndex.isReady()).isTrue();
+        assertThat(petSimilarityIndex.similar(event(pets.get(0)), PetSimilarityIndex.MAX_SIMILAR))
+                .hasSize(PetSimilarityIndex.MAX_SIMILAR).startsWith(2L, 3L);
+        assertThat(petSimilarityIndex.similar(event(pets.get(count - 1)), 1)).containsExactly(1L);
+    }
+
+    private void apply(Pet pet) {
+        petSimilarityIndex.onPetChanged(PetChangedEvent.saved(pet));
+    }
+
+    private static PetChangedEvent event(Pet pet) {
+        return PetChangedEvent.saved(pet);
+    }
+
+    private static int agreement(short[] a, short[] b) {
+        int matches = 0;
+        for (int i = 0; i < a.length; i++) {
+            matches += a[i] == b[i] ? 1 : 0;
+        }
+        return matches;
+    }
+
+    private static Pet pet(Long id, Category category, String price, String... tags) {
+        Pet pet = new Pet("Pet " + id, category, new BigDecimal(price));
+        pet.setId(id);
+        pet.setTags(List.of(tags));
+        return pet;
+    }
+}
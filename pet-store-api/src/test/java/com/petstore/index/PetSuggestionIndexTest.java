@@ -0,0 +1,168 @@
+package com.petstore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.dto.PetSuggestion;
+import com.petstore.enums.SuggestionType;
+import com.petstore.event.CategoryChangedEvent;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Unit tests for {@link PetSuggestionIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Suggestion Index Tests")
+class PetSuggestionIndexTest {
+
+    @Mock
+    private PetRepository petRepository;
+
+    @InjectMocks
+    private PetSuggestionIndex petSuggestionIndex;
+
+    private Category dogs;
+    private Category budgies;
+
+    @BeforeEach
+    void setUp() {
+        dogs = new Category("Dogs");
+        dogs.setId(1L);
+        budgies = new Category("Budgies");
+        budgies.setId(2L);
+    }
+
+    /**
+     * Test: names, tags and categories sharing a prefix are suggested, most
+     * pets first, case-insensitively and with the original spelling.
+     */
+    @Test
+    @DisplayName("Suggest - Should complete names, tags and categories by popularity")
+    void suggest_ShouldCompleteByPopularity() {
+        apply(pet(1L, "Buddy", dogs, "brave"));
+        apply(pet(2L, "buddy", dogs, "brown"));
+        apply(pet(3L, "Bubbles", budgies, "brave"));
+        apply(pet(4L, "Tweety", budgies, "brave"));
+        apply(pet(5L, "Rex", dogs));
+
+        assertThat(petSuggestionIndex.suggest("B", 10)).extracting(PetSuggestion::getText, PetSuggestion::getType,
+                PetSuggestion::getCount).containsExactly(
+                        tuple("brave", SuggestionType.TAG, 3L),
+                        tuple("Buddy", SuggestionType.NAME, 2L),
+                        tuple("Budgies", SuggestionType.CATEGORY, 2L),
+                        tuple("brown", SuggestionType.TAG, 1L),
+                        tuple("Bubbles", SuggestionType.NAME, 1L));
+        assertThat(petSuggestionIndex.suggest("bud", 2)).extracting(PetSuggestion::getText)
+                .containsExactly("Buddy", "Budgies");
+        assertThat(petSuggestionIndex.suggest("  DOG ", 5)).extracting(PetSuggestion::getText)
+                .containsExactly("Dogs");
+        assertThat(petSuggestionIndex.suggest("", 5)).isEmpty();
+        assertThat(petSuggestionIndex.suggest("zebra", 5)).isEmpty();
+    }
+
+    /**
+     * Test: each kind of single typo still finds the completion, ranked after
+     * exact prefix matches; short queries stay exact.
+     */
+    @Test
+    @DisplayName("Suggest - Should tolerate one typo after exact matches")
+    void suggest_ShouldTolerateOneTypo() {
+        apply(pet(1L, "Whiskers", dogs));
+        apply(pet(2L, "Whiskey", dogs));
+        apply(pet(3L, "Whiskey", dogs));
+        apply(pet(4L, "Wheeler", dogs));
+
+        assertThat(texts("whsk")).containsExactly("Whiskey", "Whiskers");
+        assertThat(texts("whiskee")).containsExactly("Whiskey", "Whiskers");
+        assertThat(texts("whiskkers")).containsExactly("Whiskers");
+        assertThat(texts("wjiskers")).containsExactly("Whiskers");
+        assertThat(texts("hwiskers")).containsExactly("Whiskers");
+        assertThat(texts("whe")).containsExactly("Wheeler", "Whiskey", "Whiskers");
+        assertThat(texts("wx")).isEmpty();
+    }
+
+    /**
+     * Test: updates and deletes move and drop suggestions, and a category
+     * rename carries its pet count over.
+     */
+    @Test
+    @DisplayName("On change - Should follow pet updates, deletes and category renames")
+    void onChange_ShouldFollowPetAndCategoryChanges() {
+        apply(pet(1L, "Buddy", dogs, "brave"));
+        apply(pet(2L, "Buster", dogs));
+
+        apply(pet(1L, "Max", budgies, "calm"));
+        petSuggestionIndex.onPetChanged(PetChangedEvent.deleted(2L));
+
+        assertThat(petSuggestionIndex.suggest("b", 10)).extracting(PetSuggestion::getText)
+                .containsExactly("Budgies");
+        assertThat(petSuggestionIndex.suggest("d", 10)).isEmpty();
+
+        petSuggestionIndex.onCategoryChanged(new CategoryChangedEvent(2L, "Parakeets"));
+        assertThat(petSuggestionIndex.suggest("bud", 10)).isEmpty();
+        assertThat(petSuggestionIndex.suggest("par", 10)).extracting(PetSuggestion::getText, PetSuggestion::getCount)
+                .containsExactly(tuple("Parakeets", 1L));
+    }
+
+    /**
+     * Test: a rebuild ranks the whole trie once loaded, so only the most
+     * popular suggestions under a prefix are kept.
+     */
+    @Test
+    @DisplayName("Rebuild - Should load all pets and keep the top suggestions per prefix")
+    void rebuild_ShouldLoadAndRankAllPets() {
+        int count = AbstractPetIndex.REBUILD_BATCH_SIZE + 50;
+        List<Pet> pets = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            // Name n is shared by n pets, for n up to 44
+            pets.add(pet(id, "Name" + (int) Math.sqrt(2 * id), dogs));
+        }
+        when(petRepository.findBatchAfterId(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return pets.stream().filter(pet -> pet.getId() > afterId)
+                    .limit(AbstractPetIndex.REBUILD_BATCH_SIZE).toList();
+        });
+
+        petSuggestionIndex.rebuild();
+
+        assertThat(petSuggestionIndex.isReady()).isTrue();
+        List<PetSuggestion> suggestions = petSuggestionIndex.suggest("name", PetSuggestionIndex.MAX_SUGGESTIONS);
+        assertThat(suggestions).hasSize(PetSuggestionIndex.MAX_SUGGESTIONS);
+        assertThat(suggestions).extracting(PetSuggestion::getCount).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+        assertThat(petSuggestionIndex.suggest("d", 1)).extracting(PetSuggestion::getCount)
+                .containsExactly((long) count);
+    }
+
+    private List<String> texts(String query) {
+        return petSuggestionIndex.suggest(query, 10).stream().map(PetSuggestion::getText).toList();
+    }
+
+    private void apply(Pet pet) {
+        petSuggestionIndex.onPetChanged(PetChangedEvent.saved(pet));
+    }
+
+    private static Pet pet(Long id, String name, Category category, String... tags) {
+        Pet pet = new Pet(name, category, new BigDecimal("100.00"));
+        pet.setId(id);
+        pet.setTags(List.of(tags));
+        return pet;
+    }
+}
@@ -0,0 +1,90 @@
+package com.petstore.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.petstore.enums.Role;
+import com.petstore.model.User;
+import com.petstore.repository.UserRepository;
+import com.petstore.security.JwtTokenProvider;
+import com.petstore.security.UserPrincipal;
+
+/**
+ * Integration test, over real HTTP, that per-address velocity limits count
+ * each client behind the frontend's proxy by the address it forwards, not
+ * the proxy's own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "app.velocity.enabled=true",
+        "app.velocity.checkout.per-user=0",
+        "app.velocity.checkout.per-ip=1"
+})
+@DisplayName("Forwarded Client Address Tests")
+class ForwardedClientAddressTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    @DisplayName("Should count users behind one proxy by their forwarded addresses")
+    void checkout_ShouldCountForwardedAddressesSeparately() {
+        String first = token("forwarded-1@example.com");
+        String second = token("forwarded-2@example.com");
+        String third = token("forwarded-3@example.com");
+
+        assertThat(checkout(first, "203.0.113.1").getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(checkout(second, "203.0.113.2").getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(checkout(third, "203.0.113.1").getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private ResponseEntity<String> checkout(String token, String clientAddress) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        headers.set("X-Forwarded-For", clientAddress);
+        return restTemplate.exchange("/api/stores/checkout", HttpMethod.POST, new HttpEntity<>(headers),
+                String.class);
+    }
+
+    private String token(String email) {
+        User user = new User(email, "secret", "Forwarded", "User");
+        user.setRoles(Set.of(Role.USER));
+        user = userRepository.save(user);
+        users.add(user);
+        UserPrincipal principal = UserPrincipal.create(user);
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
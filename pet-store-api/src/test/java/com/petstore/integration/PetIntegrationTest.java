@@ -144,6 +144,28 @@ class PetIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.price").value(600.00));
     }
 
+    @Test
+    void testPatchPet_Success() throws Exception {
+        mockMvc.perform(patch("/api/pets/{id}", testPet.getId())
+                .header("Authorization", createAuthorizationHeader(userToken))
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": 650.00, \"tags\": [\"friendly\", \"trained\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Buddy"))
+                .andExpect(jsonPath("$.description").value("Friendly Golden Retriever"))
+                .andExpect(jsonPath("$.price").value(650.00))
+                .andExpect(jsonPath("$.tags", contains("friendly", "trained")));
+    }
+
+    @Test
+    void testPatchPet_InvalidValue() throws Exception {
+        mockMvc.perform(patch("/api/pets/{id}", testPet.getId())
+                .header("Authorization", createAuthorizationHeader(userToken))
+                .contentType("application/merge-patch+json")
+                .content("{\"status\": \"LOST\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testDeletePet_Success_AsAdmin() throws Exception {
         mockMvc.perform(delete("/api/pets/{id}", testPet.getId())
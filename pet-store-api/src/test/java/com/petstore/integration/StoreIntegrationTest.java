@@ -1,23 +1,42 @@
 package com.petstore.integration;
 
 import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.DeliveryStatus;
+import com.petstore.enums.OrderStatus;
+import com.petstore.enums.PaymentStatus;
 import com.petstore.enums.PaymentType;
 import com.petstore.enums.PetStatus;
 import com.petstore.enums.Role;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.exception.ErrorCodes;
 import com.petstore.model.*;
 import com.petstore.repository.*;
+import com.petstore.reservation.PetReservations;
+import com.petstore.scheduling.SchedulerLocks;
+import com.petstore.scheduling.UnpaidOrderSweeper;
+import com.petstore.stream.OrderStatusHub;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Set;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,6 +72,33 @@ public class StoreIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private OrderStatusHub orderStatusHub;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private PetReservations petReservations;
+
+    @Autowired
+    private SchedulerLocks schedulerLocks;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Clock clock;
+
     private User testUserWithCart;
     private String userTokenWithCart;
     private Pet testPet1;
@@ -308,6 +354,72 @@ public class StoreIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(greaterThan(0))));
     }
 
+    @Test
+    @DisplayName("Should list orders with their payment and delivery in a fixed number of statements")
+    public void testGetOrders_FixedStatementCount() throws Exception {
+        persistOrderWithPaymentAndDelivery("ORD-LIST-0");
+        long oneOrder = countListingStatements(1);
+
+        persistOrderWithPaymentAndDelivery("ORD-LIST-1");
+        persistOrderWithPaymentAndDelivery("ORD-LIST-2");
+        long threeOrders = countListingStatements(3);
+
+        assertThat(threeOrders, is(oneOrder));
+    }
+
+    /**
+     * Lists the user's orders from an empty persistence context, as a fresh
+     * request would, and counts the statements the request and its
+     * serialization run.
+     */
+    private long countListingStatements(int expectedOrders) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/stores/orders")
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(expectedOrders)))
+                .andExpect(jsonPath("$[*].payment.status", everyItem(is("SUCCESS"))))
+                .andExpect(jsonPath("$[*].delivery.status", everyItem(is("PENDING"))))
+                .andExpect(jsonPath("$[*].items[0].pet.name", everyItem(is("Buddy"))));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Should stream order status changes to their owner")
+    public void testStreamOrderStatus_Success() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/stores/orders/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Published directly: the test transaction never commits
+        orderStatusHub.onOrderStatusChanged(new OrderStatusChangedEvent(testUserWithCart.getId(), 42L,
+                OrderStatus.DELIVERED, DeliveryStatus.DELIVERED));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains("\"orderId\":42")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String stream = result.getResponse().getContentAsString();
+        assertThat(stream, allOf(containsString("event:order-status"),
+                containsString("\"orderStatus\":\"DELIVERED\"")));
+        assertThat(result.getResponse().getHeader("X-Accel-Buffering"), is("no"));
+    }
+
+    @Test
+    @DisplayName("Should fail to stream order status without authentication")
+    public void testStreamOrderStatus_Unauthorized() throws Exception {
+        mockMvc.perform(get("/api/stores/orders/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @DisplayName("Should get all orders as admin")
     public void testGetOrders_AsAdmin() throws Exception {
@@ -440,6 +552,109 @@ public class StoreIntegrationTest extends BaseIntegrationTest {
         result.andExpect(status().isForbidden());
     }
 
+    @Test
+    @DisplayName("Should store and replay an idempotent payment with the card number masked")
+    public void testMakePayment_IdempotentResponseMasksCardNumber() throws Exception {
+        mockMvc.perform(post("/api/stores/cart/add/" + testPet1.getId())
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)));
+        String response = mockMvc.perform(post("/api/stores/checkout")
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                .andReturn().getResponse().getContentAsString();
+        Long orderId = Long.parseLong(objectMapper.readTree(response).get("id").asText());
+
+        PaymentOrderRequest paymentRequest = new PaymentOrderRequest();
+        paymentRequest.setShippingAddressId(shippingAddress.getId());
+        paymentRequest.setBillingAddressId(billingAddress.getId());
+        paymentRequest.setPaymentType(PaymentType.CREDIT_CARD);
+        paymentRequest.setCardNumber("4111111111111111");
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/stores/order/" + orderId + "/pay")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(paymentRequest))
+                    .header("Idempotency-Key", "pay-masked")
+                    .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.paymentNote").value("************1111"));
+        }
+
+        String stored = jdbcTemplate.queryForObject(
+                "SELECT response_body FROM idempotency_keys WHERE idempotency_key = 'pay-masked'", String.class);
+        assertThat(stored, allOf(containsString("************1111"), not(containsString("4111111111111111"))));
+    }
+
+    @Test
+    @DisplayName("Should refuse payment for an order the unpaid order sweeper cancelled")
+    public void testMakePayment_OrderCancelledBySweeper() throws Exception {
+        // Create an order
+        mockMvc.perform(post("/api/stores/cart/add/" + testPet1.getId())
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)));
+        String response = mockMvc.perform(post("/api/stores/checkout")
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                .andReturn().getResponse().getContentAsString();
+
+        Long orderId = Long.parseLong(objectMapper.readTree(response).get("id").asText());
+
+        // Sweep two hours later, with orders left placed for an hour going stale
+        // (the test profile turns the scheduled sweeper off)
+        entityManager.flush();
+        UnpaidOrderSweeper sweeper = new UnpaidOrderSweeper(jdbcTemplate, transactionTemplate, auditLogRepository,
+                petReservations, schedulerLocks, eventPublisher, Clock.offset(clock, Duration.ofHours(2)),
+                Duration.ofHours(1), 500, 1, Duration.ofMinutes(5));
+        sweeper.sweep();
+        entityManager.clear();
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus(), is(OrderStatus.CANCELLED));
+
+        // Pay the cancelled order
+        PaymentOrderRequest paymentRequest = new PaymentOrderRequest();
+        paymentRequest.setShippingAddressId(shippingAddress.getId());
+        paymentRequest.setBillingAddressId(billingAddress.getId());
+        paymentRequest.setPaymentType(PaymentType.CREDIT_CARD);
+        paymentRequest.setCardNumber("4111111111111111");
+
+        mockMvc.perform(post("/api/stores/order/" + orderId + "/pay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paymentRequest))
+                .header("Authorization", createAuthorizationHeader(userTokenWithCart)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(ErrorCodes.INVALID_PAYMENT));
+
+        entityManager.clear();
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus(), is(OrderStatus.CANCELLED));
+        assertThat(petRepository.findById(testPet1.getId()).orElseThrow().getStatus(), is(PetStatus.AVAILABLE));
+    }
+
+    private void persistOrderWithPaymentAndDelivery(String orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setStatus(OrderStatus.APPROVED);
+        order.setTotalAmount(testPet1.getPrice());
+        order.setUser(testUserWithCart);
+        order.setShippingAddress(shippingAddress);
+        order.setBillingAddress(billingAddress);
+        entityManager.persist(order);
+
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setPet(testPet1);
+        item.setQuantity(1);
+        item.setPrice(testPet1.getPrice());
+        entityManager.persist(item);
+
+        Payment payment = new Payment();
+        payment.setOrder(order);
+        payment.setAmount(order.getTotalAmount());
+        payment.setStatus(PaymentStatus.SUCCESS);
+        entityManager.persist(payment);
+
+        Delivery delivery = new Delivery();
+        delivery.setOrder(order);
+        delivery.setName("Cart User");
+        delivery.setPhone("555-1234");
+        delivery.setAddress("123 Main St");
+        delivery.setStatus(DeliveryStatus.PENDING);
+        entityManager.persist(delivery);
+    }
+
     // ==================== Order Cancellation Tests ====================
 
     @Test
@@ -0,0 +1,191 @@
+package com.petstore.payment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.enums.OrderStatus;
+import com.petstore.enums.PaymentStatus;
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.PetStatus;
+import com.petstore.exception.InvalidPaymentException;
+import com.petstore.model.Address;
+import com.petstore.model.Category;
+import com.petstore.model.Order;
+import com.petstore.model.Payment;
+import com.petstore.model.Pet;
+import com.petstore.model.User;
+import com.petstore.repository.AddressRepository;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.OrderRepository;
+import com.petstore.repository.PetRepository;
+import com.petstore.repository.UserRepository;
+import com.petstore.service.CartService;
+import com.petstore.service.OrderService;
+
+/**
+ * End-to-end tests of asynchronous payments through the stub gateways: every
+ * PayPal charge is declined, every card charge approved, and debit card
+ * charges outlast their timeout. Runs without a test transaction, so that
+ * payments are charged once recorded.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.payments.async.enabled=true",
+        "app.payments.gateway.stub-latency=PT0.01S",
+        "app.payments.gateway.PAYPAL.stub-decline-rate=1.0",
+        "app.payments.gateway.DEBIT_CARD.stub-latency=PT0.4S",
+        "app.payments.gateway.DEBIT_CARD.timeout=PT0.05S",
+        "app.payments.reconcile.after=PT0S"
+})
+@ActiveProfiles("test")
+@DisplayName("Async Payment Processor Tests")
+class AsyncPaymentProcessorTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PaymentReconciler paymentReconciler;
+
+    /**
+     * Test: a payment is pending when made and approves its order once the
+     * gateway approves it; a declined payment puts its units back in stock
+     * and can be made again.
+     */
+    @Test
+    @DisplayName("Payment - Should settle pending payments from the gateway's answer")
+    void makePayment_ShouldSettleFromGatewayAnswer() throws Exception {
+        Category category = categoryRepository.save(new Category("Async Payments"));
+        Pet puppy = petRepository.save(new Pet("Async Puppy", category, new BigDecimal("300.00")));
+        Pet fish = new Pet("Async Guppy", category, new BigDecimal("3.00"));
+        fish.setStockQuantity(2);
+        fish = petRepository.save(fish);
+
+        User user = userRepository.save(new User("async-payer@example.com", "password", "Async", "Payer"));
+        Long addressId = addressRepository.save(address(user)).getId();
+        Long puppyId = puppy.getId();
+        Long fishId = fish.getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            cartService.addPetToCart(user.getId(), puppyId);
+            cartService.addPetToCart(user.getId(), fishId, 2);
+        });
+        Long orderId = orderService.checkout(user.getId(), null).getId();
+
+        Payment declined = orderService.makePayment(orderId, request(PaymentType.PAYPAL, addressId));
+        assertThat(declined.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(awaitSettled(orderId).getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.PLACED);
+        Pet restocked = petRepository.findById(fish.getId()).orElseThrow();
+        assertThat(restocked.getStockQuantity()).isEqualTo(2);
+        assertThat(restocked.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+
+        Payment approved = orderService.makePayment(orderId, request(PaymentType.CREDIT_CARD, addressId));
+        assertThat(approved.getId()).isEqualTo(declined.getId());
+        Payment settled = awaitSettled(orderId);
+        assertThat(settled.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(settled.getGatewayReference()).isEqualTo("CREDIT_CARD-" + approved.getId());
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.APPROVED);
+        assertThat(petRepository.findById(puppy.getId()).orElseThrow().getStatus()).isEqualTo(PetStatus.SOLD);
+        assertThat(petRepository.findById(fish.getId()).orElseThrow().getStockQuantity()).isZero();
+    }
+
+    /**
+     * Test: a charge that times out leaves its payment pending, so the order
+     * cannot be paid again, until reconciliation settles it from the
+     * gateway's record of the charge.
+     */
+    @Test
+    @DisplayName("Payment - Should leave timed-out charges pending until reconciled")
+    void makePayment_WhenChargeTimesOut_ShouldReconcileFromGateway() throws Exception {
+        Category category = categoryRepository.save(new Category("Slow Payments"));
+        Pet kitten = petRepository.save(new Pet("Slow Kitten", category, new BigDecimal("250.00")));
+        User user = userRepository.save(new User("slow-payer@example.com", "password", "Slow", "Payer"));
+        Long addressId = addressRepository.save(address(user)).getId();
+        transactionTemplate.executeWithoutResult(status -> cartService.addPetToCart(user.getId(), kitten.getId()));
+        Long orderId = orderService.checkout(user.getId(), null).getId();
+
+        Payment payment = orderService.makePayment(orderId, request(PaymentType.DEBIT_CARD, addressId));
+        // Past the timeout, and the stub's slowest answer
+        Thread.sleep(700);
+        assertThat(awaitSettled(orderId, 0).getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThatThrownBy(() -> orderService.makePayment(orderId, request(PaymentType.CREDIT_CARD, addressId)))
+                .isInstanceOf(InvalidPaymentException.class);
+
+        paymentReconciler.reconcile();
+
+        Payment settled = awaitSettled(orderId);
+        assertThat(settled.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(settled.getGatewayReference()).isEqualTo("DEBIT_CARD-" + payment.getId());
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.APPROVED);
+    }
+
+    private Payment awaitSettled(Long orderId) throws InterruptedException {
+        return awaitSettled(orderId, 10_000);
+    }
+
+    private Payment awaitSettled(Long orderId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            Payment payment = transactionTemplate.execute(status -> {
+                Order order = orderRepository.findById(orderId).orElseThrow();
+                return order.getPayment();
+            });
+            if (payment.getStatus() != PaymentStatus.PENDING || System.currentTimeMillis() > deadline) {
+                return payment;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static PaymentOrderRequest request(PaymentType paymentType, Long addressId) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setPaymentType(paymentType);
+        request.setCardNumber("4111111111111111");
+        request.setPaypalId("payer@example.com");
+        request.setShippingAddressId(addressId);
+        return request;
+    }
+
+    private static Address address(User user) {
+        Address address = new Address();
+        address.setUser(user);
+        address.setFullName("Async Payer");
+        address.setPhoneNumber("1234567890");
+        address.setStreet("1 Gateway Way");
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("11111");
+        address.setCountry("USA");
+        return address;
+    }
+}
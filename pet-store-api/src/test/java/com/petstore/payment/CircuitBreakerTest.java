@@ -0,0 +1,88 @@
+package com.petstore.payment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CircuitBreaker}, on a clock the tests move.
+ */
+@DisplayName("Circuit Breaker Tests")
+class CircuitBreakerTest {
+
+    private long now;
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        breaker = new CircuitBreaker(clock, 4, 0.5, 1_000);
+    }
+
+    /**
+     * Test: the breaker opens only once a full window has the threshold share
+     * of failures, and refuses calls while open.
+     */
+    @Test
+    @DisplayName("Failure - Should open once the window reaches the failure threshold")
+    void onFailure_ShouldOpenAtThreshold() {
+        call(true);
+        call(false);
+        call(false);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(false);
+        call(true);
+        // The first failure has left the window: one failure in the last four
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(true);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    /**
+     * Test: after the open duration one trial call is let through; a failed
+     * trial opens the breaker again and a successful one closes it.
+     */
+    @Test
+    @DisplayName("Half open - Should let one trial call decide")
+    void tryAcquire_ShouldLetOneTrialCallDecide() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        now += 1_000;
+        assertThat(breaker.isCallPermitted()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now += 1_000;
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSkipped();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void call(boolean failure) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (failure) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.petstore.payment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.petstore.enums.PaymentType;
+import com.petstore.enums.WalletType;
+import com.petstore.exception.PaymentGatewayUnavailableException;
+
+/**
+ * Unit tests for {@link PaymentGateways}, with stub gateways that answer
+ * at once unless configured otherwise.
+ */
+@DisplayName("Payment Gateways Tests")
+class PaymentGatewaysTest {
+
+    private static final PaymentCharge CHARGE = new PaymentCharge(1L, 10L, new BigDecimal("99.99"));
+
+    private PaymentGateways gateways;
+
+    @AfterEach
+    void tearDown() {
+        gateways.close();
+    }
+
+    /**
+     * Test: e-wallet payments go to their wallet's gateway, others to their
+     * payment type's; a client bean replaces the stub for its gateway.
+     */
+    @Test
+    @DisplayName("Charge - Should route to the stub or client of each gateway")
+    void charge_ShouldRouteToEachGateway() throws Exception {
+        PaymentGatewayClient paypal = new PaymentGatewayClient() {
+            @Override
+            public String getGateway() {
+                return "PAYPAL";
+            }
+
+            @Override
+            public GatewayResult charge(PaymentCharge charge) {
+                return GatewayResult.declined("Insufficient funds");
+            }
+
+            @Override
+            public GatewayResult status(PaymentCharge charge) {
+                return null;
+            }
+        };
+        gateways = gateways(List.of(paypal), new MockEnvironment());
+
+        assertThat(PaymentGateways.gatewayFor(PaymentType.E_WALLET, WalletType.TOUCHNGO)).isEqualTo("TOUCHNGO");
+        assertThat(PaymentGateways.gatewayFor(PaymentType.DEBIT_CARD, null)).isEqualTo("DEBIT_CARD");
+        assertThat(gateways.charge("TOUCHNGO", CHARGE).get()).isEqualTo(GatewayResult.approved("TOUCHNGO-1"));
+        assertThat(gateways.charge("PAYPAL", CHARGE).get().reason()).isEqualTo("Insufficient funds");
+        assertThat(gateways.isAvailable("DEBIT_CARD")).isTrue();
+    }
+
+    /**
+     * Test: a gateway slower than its timeout fails the charge, and enough
+     * failures open its circuit breaker, while other gateways keep going.
+     */
+    @Test
+    @DisplayName("Charge - Should time out slow gateways and open their circuit")
+    void charge_ShouldTimeOutAndOpenCircuit() throws Exception {
+        gateways = gateways(List.of(), new MockEnvironment()
+                .withProperty("app.payments.gateway.window", "2")
+                .withProperty("app.payments.gateway.PAYPAL.stub-latency", "PT0.2S")
+                .withProperty("app.payments.gateway.PAYPAL.timeout", "PT0.02S"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> gateways.charge("PAYPAL", CHARGE).get())
+                    .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+        }
+
+        assertThat(gateways.circuitState("PAYPAL")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(gateways.isAvailable("PAYPAL")).isFalse();
+        assertThatThrownBy(() -> gateways.charge("PAYPAL", CHARGE).get())
+                .hasCauseInstanceOf(PaymentGatewayUnavailableException.class);
+        assertThat(gateways.charge("CREDIT_CARD", CHARGE).get().approved()).isTrue();
+    }
+
+    /**
+     * Test: a gateway with as many charges in flight as its bulkhead allows
+     * refuses more without queueing them.
+     */
+    @Test
+    @DisplayName("Charge - Should refuse charges beyond the bulkhead")
+    void charge_ShouldRefuseChargesBeyondBulkhead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentGatewayClient blocking = new PaymentGatewayClient() {
+            @Override
+            public String getGateway() {
+                return "GRABPAY";
+            }
+
+            @Override
+            public GatewayResult charge(PaymentCharge charge) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return GatewayResult.approved("held");
+            }
+
+            @Override
+            public GatewayResult status(PaymentCharge charge) {
+                return null;
+            }
+        };
+        gateways = gateways(List.of(blocking), new MockEnvironment()
+                .withProperty("app.payments.gateway.GRABPAY.max-concurrent", "1"));
+
+        var first = gateways.charge("GRABPAY", CHARGE);
+        assertThat(gateways.isAvailable("GRABPAY")).isFalse();
+        assertThatThrownBy(() -> gateways.charge("GRABPAY", CHARGE).get())
+                .hasCauseInstanceOf(PaymentGatewayUnavailableException.class);
+
+        release.countDown();
+        assertThat(first.get().reference()).isEqualTo("held");
+        assertThat(gateways.isAvailable("GRABPAY")).isTrue();
+    }
+
+    private static PaymentGateways gateways(List<PaymentGatewayClient> clients, MockEnvironment environment) {
+        environment.setProperty("app.payments.gateway.stub-latency",
+                environment.getProperty("app.payments.gateway.stub-latency", "PT0S"));
+        return new PaymentGateways(clients, environment, Clock.systemUTC(), true, 4, 16);
+    }
+}
@@ -0,0 +1,103 @@
+package com.petstore.reconciliation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Writes synthetic settlement files, and the payments they settle, for tests
+ * and benchmarks. Payment {@code id} settles {@link #amount(long)}; every
+ * {@code mismatchEvery}-th line settles one cent more.
+ */
+public final class SettlementFileGenerator {
+
+    private SettlementFileGenerator() {
+    }
+
+    /**
+     * @param paymentId a payment ID
+     * @return the amount of the synthetic payment
+     */
+    public static BigDecimal amount(long paymentId) {
+        return BigDecimal.valueOf(1_000 + paymentId % 99_000, 2);
+    }
+
+    /**
+     * Writes a settlement file, with a header, sorted by payment ID.
+     *
+     * @param file          the file
+     * @param gateway       the gateway on every line
+     * @param firstId       the first payment ID
+     * @param count         the number of lines
+     * @param mismatchEvery settles one cent more on every line this many lines
+     *                      apart, or 0 for none
+     * @return the number of mismatched lines
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(Path file, String gateway, long firstId, long count, int mismatchEvery)
+            throws IOException {
+        long mismatched = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("payment_id,gateway,amount,settled_at,reference\n");
+            StringBuilder line = new StringBuilder(80);
+            for (long i = 0; i < count; i++) {
+                long paymentId = firstId + i;
+                BigDecimal amount = amount(paymentId);
+                if (mismatchEvery > 0 && i % mismatchEvery == mismatchEvery - 1) {
+                    amount = amount.add(new BigDecimal("0.01"));
+                    mismatched++;
+                }
+                line.setLength(0);
+                line.append(paymentId).append(',').append(gateway).append(',').append(amount.toPlainString())
+                        .append(",2026-10-18T02:00:00Z,").append(gateway).append('-').append(paymentId).append('\n');
+                writer.append(line);
+            }
+        }
+        return mismatched;
+    }
+
+    /**
+     * Inserts successful payments of {@link #amount(long)}, each for an order
+     * of its own by one user.
+     *
+     * @param jdbcTemplate the database
+     * @param firstId      the first payment ID, also used for the orders and user
+     * @param count        the number of payments
+     * @param paymentType  the payment type
+     */
+    public static void insertPayments(JdbcTemplate jdbcTemplate, long firstId, long count, String paymentType) {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, first_name, last_name) VALUES (?, ?, ?, ?, ?)",
+                firstId, "settlement-" + firstId + "@example.com", "secret", "Settlement", "Test");
+        int batchSize = 1_000;
+        for (long start = 0; start < count; start += batchSize) {
+            List<Object[]> orders = new ArrayList<>();
+            List<Object[]> payments = new ArrayList<>();
+            for (long i = start; i < Math.min(count, start + batchSize); i++) {
+                long id = firstId + i;
+                orders.add(new Object[] { id, "SET-" + id, firstId, "APPROVED", amount(id) });
+                payments.add(new Object[] { id, id, amount(id), "SUCCESS", paymentType });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, user_id, status, total_amount) "
+                    + "VALUES (?, ?, ?, ?, ?)", orders);
+            jdbcTemplate.batchUpdate("INSERT INTO payments (id, order_id, amount, status, payment_type) "
+                    + "VALUES (?, ?, ?, ?, ?)", payments);
+        }
+    }
+
+    /**
+     * Deletes the payments, orders and user inserted by
+     * {@link #insertPayments}.
+     */
+    public static void deletePayments(JdbcTemplate jdbcTemplate, long firstId) {
+        jdbcTemplate.update("DELETE FROM payments WHERE id >= ?", firstId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", firstId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", firstId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.petstore.reconciliation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link SettlementFileReader}.
+ */
+@DisplayName("Settlement File Reader Tests")
+class SettlementFileReaderTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test: lines are parsed into payment ID, gateway and amount in
+     * hundredths, whatever follows the amount.
+     */
+    @Test
+    @DisplayName("Parses settled lines after a header")
+    void parsesLines() throws IOException {
+        Path file = write("payment_id,gateway,amount\n"
+                + "17,PAYPAL,125.50\n"
+                + "18,GRABPAY,3.5,extra,fields\r\n"
+                + "19,CREDIT_CARD,-20\n"
+                + "\n"
+                + "20,BOOSTPAY,0.07");
+
+        List<String> lines = read(new SettlementFileReader(), file);
+
+        assertThat(lines).containsExactly("2:17:PAYPAL:12550", "3:18:GRABPAY:350", "4:19:CREDIT_CARD:-2000",
+                "6:20:BOOSTPAY:7");
+    }
+
+    /**
+     * Test: lines with an unknown gateway, a missing amount or a bad number
+     * are reported as malformed, and reading goes on.
+     */
+    @Test
+    @DisplayName("Reports malformed lines")
+    void reportsMalformedLines() throws IOException {
+        Path file = write("1,PAYPAL,10.00\n"
+                + "2,VENMO,10.00\n"
+                + "3,PAYPAL\n"
+                + "4,PAYPAL,1x\n"
+                + "payment_id,gateway,amount\n"
+                + "5,PAYPAL,,\n"
+                + "6,PAYPAL,1.00\n");
+
+        List<String> lines = read(new SettlementFileReader(), file);
+
+        assertThat(lines).containsExactly("1:1:PAYPAL:1000", "malformed:2", "malformed:3", "malformed:4",
+                "malformed:5", "malformed:6", "7:6:PAYPAL:100");
+    }
+
+    /**
+     * Test: read in windows smaller than the file, every line is read once,
+     * including those that straddle a window boundary.
+     */
+    @Test
+    @DisplayName("Reads lines across window boundaries")
+    void readsAcrossWindows() throws IOException {
+        Path file = directory.resolve("PAYPAL-1.csv");
+        SettlementFileGenerator.write(file, "PAYPAL", 1_000, 500, 0);
+
+        List<String> lines = read(new SettlementFileReader(64), file);
+
+        assertThat(lines).hasSize(500).noneMatch(line -> line.startsWith("malformed"));
+        assertThat(lines.get(0)).isEqualTo("2:1000:PAYPAL:"
+                + SettlementFileGenerator.amount(1_000).unscaledValue());
+        assertThat(lines.get(499)).isEqualTo("501:1499:PAYPAL:"
+                + SettlementFileGenerator.amount(1_499).unscaledValue());
+    }
+
+    /**
+     * Test: a line longer than a window cannot be read.
+     */
+    @Test
+    @DisplayName("Rejects a line longer than a window")
+    void rejectsLongLine() throws IOException {
+        Path file = write("1,PAYPAL,10.00," + "x".repeat(100) + "\n2,PAYPAL,10.00\n");
+
+        assertThatThrownBy(() -> read(new SettlementFileReader(64), file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Line longer than 64 bytes");
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = directory.resolve("settlement.csv");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    private static List<String> read(SettlementFileReader reader, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long bytes = reader.read(file, new SettlementFileReader.LineHandler() {
+            @Override
+            public void settled(long line, long paymentId, int gateway, long amountCents) {
+                lines.add(line + ":" + paymentId + ":" + SettlementFileReader.GATEWAYS.get(gateway) + ":"
+                        + amountCents);
+            }
+
+            @Override
+            public void malformed(long line) {
+                lines.add("malformed:" + line);
+            }
+        });
+        assertThat(bytes).isEqualTo(Files.size(file));
+        return lines;
+    }
+}
@@ -0,0 +1,205 @@
+package com.petstore.reconciliation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PaymentStatus;
+import com.petstore.reconciliation.SettlementMismatch.Type;
+
+/**
+ * Tests for {@link SettlementReconciler} against the H2 test database, with
+ * chunks small enough that every reconciliation reads several. Runs without a
+ * test transaction, so the payments are committed before the reconciler reads
+ * them.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Settlement Reconciler Tests")
+class SettlementReconcilerTest {
+
+    private static final long FIRST_ID = 900_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private SettlementReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        SettlementFileGenerator.insertPayments(jdbcTemplate, FIRST_ID, 10, "PAYPAL");
+        reconciler = new SettlementReconciler(jdbcTemplate, 3, directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SettlementFileGenerator.deletePayments(jdbcTemplate, FIRST_ID);
+    }
+
+    /**
+     * Test: a file that settles every payment as recorded matches them all.
+     */
+    @Test
+    @DisplayName("Matches a file that agrees with the payments")
+    void matchesAgreeingFile() throws IOException {
+        Path file = directory.resolve("settlement.csv");
+        SettlementFileGenerator.write(file, "PAYPAL", FIRST_ID, 10, 0);
+        List<SettlementMismatch> mismatches = new ArrayList<>();
+
+        ReconciliationSummary summary = reconciler.reconcile(file, "PAYPAL", mismatches::add);
+
+        assertThat(mismatches).isEmpty();
+        assertThat(summary.lines()).isEqualTo(10);
+        assertThat(summary.matched()).isEqualTo(10);
+        assertThat(summary.mismatchCount()).isZero();
+        assertThat(summary.bytes()).isEqualTo(Files.size(file));
+    }
+
+    /**
+     * Test: every kind of difference is reported once, in file order, and
+     * the payments that agree still match.
+     */
+    @Test
+    @DisplayName("Reports each kind of mismatch")
+    void reportsMismatches() throws IOException {
+        jdbcTemplate.update("UPDATE payments SET status = 'FAILED' WHERE id = ?", FIRST_ID + 4);
+        jdbcTemplate.update("UPDATE payments SET payment_type = 'CREDIT_CARD' WHERE id = ?", FIRST_ID + 5);
+        Path file = write("payment_id,gateway,amount",
+                line(FIRST_ID - 1, "PAYPAL", "1.00"),
+                line(FIRST_ID, "PAYPAL", amount(FIRST_ID)),
+                line(FIRST_ID + 1, "PAYPAL", amount(FIRST_ID + 1)),
+                line(FIRST_ID + 3, "PAYPAL", "999.99"),
+                line(FIRST_ID + 4, "PAYPAL", amount(FIRST_ID + 4)),
+                line(FIRST_ID + 5, "PAYPAL", amount(FIRST_ID + 5)),
+                "not a settlement",
+                line(FIRST_ID + 7, "PAYPAL", amount(FIRST_ID + 7)),
+                line(FIRST_ID + 7, "PAYPAL", amount(FIRST_ID + 7)),
+                line(FIRST_ID + 6, "PAYPAL", amount(FIRST_ID + 6)),
+                line(FIRST_ID + 9, "PAYPAL", amount(FIRST_ID + 9)),
+                line(FIRST_ID + 20, "PAYPAL", "1.00"));
+        List<SettlementMismatch> mismatches = new ArrayList<>();
+
+        ReconciliationSummary summary = reconciler.reconcile(file, "PAYPAL", mismatches::add);
+
+        assertThat(mismatches).extracting(SettlementMismatch::type, SettlementMismatch::paymentId).containsExactly(
+                tuple(Type.MISSING_PAYMENT, FIRST_ID - 1),
+                tuple(Type.UNSETTLED, FIRST_ID + 2),
+                tuple(Type.AMOUNT_MISMATCH, FIRST_ID + 3),
+                tuple(Type.NOT_SUCCESSFUL, FIRST_ID + 4),
+                tuple(Type.GATEWAY_MISMATCH, FIRST_ID + 5),
+                tuple(Type.MALFORMED, null),
+                tuple(Type.UNSETTLED, FIRST_ID + 6),
+                tuple(Type.DUPLICATE, FIRST_ID + 7),
+                tuple(Type.UNSORTED, FIRST_ID + 6),
+                tuple(Type.UNSETTLED, FIRST_ID + 8),
+                tuple(Type.MISSING_PAYMENT, FIRST_ID + 20));
+        SettlementMismatch amountMismatch = mismatches.get(2);
+        assertThat(amountMismatch.line()).isEqualTo(5);
+        assertThat(amountMismatch.gateway()).isEqualTo("PAYPAL");
+        assertThat(amountMismatch.settledAmount()).isEqualByComparingTo("999.99");
+        assertThat(amountMismatch.recordedAmount()).isEqualByComparingTo(amount(FIRST_ID + 3));
+        assertThat(amountMismatch.recordedStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(summary.matched()).isEqualTo(4);
+        assertThat(summary.lines()).isEqualTo(11);
+        assertThat(summary.mismatches()).containsEntry(Type.UNSETTLED, 3L).containsEntry(Type.MALFORMED, 1L);
+    }
+
+    /**
+     * Test: an e-wallet file is matched against e-wallet payments, and
+     * payments it does not settle are not reported, since they may have been
+     * paid with another e-wallet.
+     */
+    @Test
+    @DisplayName("Reconciles an e-wallet file without reporting unsettled payments")
+    void reconcilesWalletFile() throws IOException {
+        jdbcTemplate.update("UPDATE payments SET payment_type = 'E_WALLET'");
+        Path file = write(line(FIRST_ID, "GRABPAY", amount(FIRST_ID)),
+                line(FIRST_ID + 9, "GRABPAY", amount(FIRST_ID + 9)));
+        List<SettlementMismatch> mismatches = new ArrayList<>();
+
+        ReconciliationSummary summary = reconciler.reconcile(file, "GRABPAY", mismatches::add);
+
+        assertThat(mismatches).isEmpty();
+        assertThat(summary.matched()).isEqualTo(2);
+    }
+
+    /**
+     * Test: a file in the inbox is claimed, reconciled against the payments of
+     * the provider its name starts with, reported on and moved to done.
+     */
+    @Test
+    @DisplayName("Reconciles inbox files into reports")
+    void reconcilesInbox() throws IOException {
+        SettlementFileGenerator.write(directory.resolve("PAYPAL-2026-10-18.csv"), "PAYPAL", FIRST_ID, 10, 4);
+
+        reconciler.reconcileInbox();
+
+        assertThat(directory.resolve("PAYPAL-2026-10-18.csv")).doesNotExist();
+        assertThat(directory.resolve("done").resolve("PAYPAL-2026-10-18.csv")).exists();
+        List<String> report = Files.readAllLines(
+                directory.resolve("reports").resolve("PAYPAL-2026-10-18.mismatches.csv"));
+        assertThat(report).containsExactly(SettlementReconciler.REPORT_HEADER,
+                "AMOUNT_MISMATCH,5," + (FIRST_ID + 3) + ",PAYPAL," + oneCentMore(FIRST_ID + 3) + ","
+                        + amount(FIRST_ID + 3) + ",SUCCESS",
+                "AMOUNT_MISMATCH,9," + (FIRST_ID + 7) + ",PAYPAL," + oneCentMore(FIRST_ID + 7) + ","
+                        + amount(FIRST_ID + 7) + ",SUCCESS");
+    }
+
+    /**
+     * Test: an inbox file named after no gateway is moved to failed.
+     */
+    @Test
+    @DisplayName("Moves inbox files of unknown providers to failed")
+    void failsUnknownProvider() throws IOException {
+        SettlementFileGenerator.write(directory.resolve("VENMO-2026-10-18.csv"), "PAYPAL", FIRST_ID, 10, 0);
+
+        reconciler.reconcileInbox();
+
+        assertThat(directory.resolve("failed").resolve("VENMO-2026-10-18.csv")).exists();
+        assertThat(directory.resolve("processing").resolve("VENMO-2026-10-18.csv")).doesNotExist();
+    }
+
+    private static String amount(long paymentId) {
+        return SettlementFileGenerator.amount(paymentId).toPlainString();
+    }
+
+    private static String oneCentMore(long paymentId) {
+        return SettlementFileGenerator.amount(paymentId).add(new BigDecimal("0.01")).toPlainString();
+    }
+
+    private static String line(long paymentId, String gateway, String amount) {
+        return paymentId + "," + gateway + "," + amount;
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = directory.resolve("settlement.csv");
+        Files.writeString(file, String.join("\n", lines) + "\n", StandardCharsets.US_ASCII);
+        return file;
+    }
+}
@@ -173,8 +173,7 @@ class CategoryRepositoryTest {
         duplicateCategory.setName("Dogs");
 
         assertThatThrownBy(() -> {
-            categoryRepository.save(duplicateCategory);
-            entityManager.flush();
+            categoryRepository.saveAndFlush(duplicateCategory);
         }).isInstanceOf(DataIntegrityViolationException.class);
     }
 
@@ -1,9 +1,13 @@
 package com.petstore.repository;
 
 import com.petstore.model.Order;
+import com.petstore.model.Payment;
 import com.petstore.model.User;
 import com.petstore.model.Address;
+import com.petstore.model.Delivery;
 import com.petstore.enums.OrderStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -131,4 +135,78 @@ class OrderRepositoryTest {
         Optional<Order> found = orderRepository.findByIdAndUserId(99999L, testUser.getId());
         assertThat(found).isNotPresent();
     }
+
+    /**
+     * Test: listing orders must not select each order's payment and delivery.
+     * The inverse one-to-one sides are lazy through bytecode enhancement, so
+     * the listing is a single statement instead of 1 + 2N.
+     */
+    @Test
+    @DisplayName("Find by user ID - Should load orders without payment and delivery selects")
+    void findByUserId_ShouldNotSelectPaymentAndDelivery() {
+        for (int i = 0; i < 3; i++) {
+            persistOrderWithPaymentAndDelivery("ORD-LAZY-" + i);
+        }
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        List<Order> orders = orderRepository.findByUserId(testUser.getId());
+
+        assertThat(orders).hasSize(4);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(orders.size());
+    }
+
+    /**
+     * Test: the lazy payment and delivery are still loaded on first access.
+     * Both belong to the default lazy group, so one extra statement loads them.
+     */
+    @Test
+    @DisplayName("Find by ID - Should load payment and delivery on first access")
+    void findById_ShouldLoadPaymentAndDeliveryOnAccess() {
+        Long orderId = persistOrderWithPaymentAndDelivery("ORD-LAZY").getId();
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        Order found = orderRepository.findById(orderId).orElseThrow();
+        long afterFind = statistics.getPrepareStatementCount();
+
+        assertThat(afterFind).isEqualTo(1);
+        assertThat(found.getPayment().getAmount()).isEqualByComparingTo("200");
+        assertThat(found.getDelivery().getName()).isEqualTo("Test User");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFind + 1);
+    }
+
+    private Order persistOrderWithPaymentAndDelivery(String orderNumber) {
+        Order lazyOrder = new Order();
+        lazyOrder.setOrderNumber(orderNumber);
+        lazyOrder.setStatus(OrderStatus.APPROVED);
+        lazyOrder.setTotalAmount(BigDecimal.valueOf(200));
+        lazyOrder.setShippingAddress(entityManager.find(Address.class, shippingAddress.getId()));
+        lazyOrder.setBillingAddress(entityManager.find(Address.class, billingAddress.getId()));
+        lazyOrder.setUser(entityManager.find(User.class, testUser.getId()));
+        lazyOrder = entityManager.persist(lazyOrder);
+
+        Payment payment = new Payment();
+        payment.setOrder(lazyOrder);
+        payment.setAmount(BigDecimal.valueOf(200));
+        entityManager.persist(payment);
+
+        Delivery delivery = new Delivery();
+        delivery.setOrder(lazyOrder);
+        delivery.setName("Test User");
+        delivery.setPhone("1234567890");
+        delivery.setAddress("123 Main St");
+        entityManager.persist(delivery);
+
+        entityManager.flush();
+        return lazyOrder;
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
 }
@@ -0,0 +1,265 @@
+package com.petstore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetSort;
+import com.petstore.enums.PetStatus;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.User;
+
+/**
+ * Plan-stability tests for {@link PetRepository#findPetsByFiltersPaginated}.
+ * For every combination of filters, the rendered SQL must not depend on the
+ * filter values, must only contain the predicates that are present, and the
+ * owner/creator case must render as {@code owner_id = ? OR created_by = ?}
+ * with each side an index lookup (checked with H2's {@code EXPLAIN}), which
+ * MySQL runs as an {@code index_merge} union rather than the dependent
+ * subquery an {@code id IN (... UNION ...)} becomes. Every catalog sort must have an index
+ * that starts with the filter columns and continues with the sort keys, so
+ * the page is read in index order rather than sorted. Tag filters render one
+ * membership test per tag ({@code ? MEMBER OF(tags)} on MySQL, served by the
+ * multi-valued index {@code idx_pets_tags}; see {@code JsonFunctionContributorTest}).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.petstore.repository.PetFilterQueryPlanTest$RecordingStatementInspector")
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@DisplayName("Pet Filter Query Plan Tests")
+class PetFilterQueryPlanTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    private Category dogs;
+    private Category cats;
+    private User owner;
+    private User otherOwner;
+
+    @BeforeEach
+    void setUp() {
+        dogs = entityManager.persist(new Category("Dogs"));
+        cats = entityManager.persist(new Category("Cats"));
+        owner = entityManager.persist(new User("owner@test.com", "password", "Pet", "Owner"));
+        otherOwner = entityManager.persist(new User("other@test.com", "password", "Other", "Owner"));
+
+        Pet buddy = new Pet("Buddy", dogs, new BigDecimal("100.00"));
+        buddy.setOwner(owner);
+        buddy.setTags(List.of("friendly", "small"));
+        entityManager.persist(buddy);
+        Pet whiskers = new Pet("Whiskers", cats, new BigDecimal("80.00"));
+        whiskers.setStatus(PetStatus.SOLD);
+        whiskers.setOwner(otherOwner);
+        whiskers.setTags(List.of("calm"));
+        entityManager.persist(whiskers);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    static Stream<Arguments> filterCombinations() {
+        List<Arguments> combinations = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            combinations.add(Arguments.of((mask & 1) != 0, (mask & 2) != 0, (mask & 4) != 0, (mask & 8) != 0));
+        }
+        return combinations.stream();
+    }
+
+    @ParameterizedTest(name = "name={0}, category={1}, status={2}, user={3}")
+    @MethodSource("filterCombinations")
+    @DisplayName("Filter combination - Should render one stable, index-friendly statement")
+    void filterCombination_ShouldRenderStableIndexFriendlyStatement(boolean byName, boolean byCategory,
+            boolean byStatus, boolean byUser) {
+
+        String first = renderedSelect(byName ? "bud" : null, byCategory ? dogs.getId() : null,
+                byStatus ? PetStatus.AVAILABLE : null, byUser ? owner.getId() : null);
+        String second = renderedSelect(byName ? "whisk" : null, byCategory ? cats.getId() : null,
+                byStatus ? PetStatus.SOLD : null, byUser ? otherOwner.getId() : null);
+
+        assertThat(second).as("SQL shape must not depend on filter values").isEqualTo(first);
+        String sql = first.toLowerCase();
+        assertThat(sql).doesNotContain(" is null");
+        assertThat(sql.contains("like")).isEqualTo(byName);
+        assertThat(sql.contains("category_id=?")).isEqualTo(byCategory);
+        assertThat(sql.contains("status=?")).isEqualTo(byStatus);
+        assertThat(sql).doesNotContain(" union ").doesNotContain(" in(");
+        assertThat(sql.contains(" or ")).isEqualTo(byUser);
+        assertThat(sql.contains("owner_id=? or ") && sql.contains("created_by=?")).isEqualTo(byUser);
+
+        if (byUser) {
+            // H2 cannot merge indexes, so each side of the OR is checked as an index lookup on its own;
+            // MySQL reads both and unions the row IDs (index_merge), never scanning pets
+            assertThat(indexColumns().values()).contains(List.of("owner_id", "created_at"),
+                    List.of("created_by", "created_at"));
+            assertThat(explain("SELECT id FROM pets WHERE owner_id = ?").toLowerCase())
+                    .containsPattern("/\\* [\\w.]+: owner_id = \\?").doesNotContain("tablescan");
+            assertThat(explain("SELECT id FROM pets WHERE created_by = ?").toLowerCase())
+                    .contains("/* public.idx_pets_creator_created: created_by = ?").doesNotContain("tablescan");
+        }
+    }
+
+    @Test
+    @DisplayName("Tag filter - Should render one stable membership test per tag")
+    void tagFilter_ShouldRenderOneMembershipTestPerTag() {
+
+        String first = renderedSelect(List.of("friendly"));
+        String second = renderedSelect(List.of("calm"));
+
+        assertThat(second).as("SQL shape must not depend on filter values").isEqualTo(first);
+        String sql = first.toLowerCase();
+        assertThat(sql).contains("tags").doesNotContain(" is null").doesNotContain(" or ");
+        // H2 renders each membership test with locate(); MySQL renders "? member of(tags)"
+        assertThat(sql.split("locate\\(", -1)).hasSize(2);
+        assertThat(renderedSelect(List.of("friendly", "small")).toLowerCase().split("locate\\(", -1)).hasSize(3);
+
+        assertThat(tagged(List.of("friendly", "small"))).containsExactly("Buddy");
+        assertThat(tagged(List.of("calm"))).containsExactly("Whiskers");
+        assertThat(tagged(List.of("friendly", "calm"))).isEmpty();
+        assertThat(tagged(List.of("small", "small"))).containsExactly("Buddy");
+    }
+
+    private List<String> tagged(List<String> tags) {
+        return petRepository.findPetsByFiltersPaginated(null, null, null, null, null, tags, null, PageRequest.of(0, 10))
+                .map(Pet::getName).getContent();
+    }
+
+    static Stream<Arguments> sortedFilters() {
+        List<Arguments> combinations = new ArrayList<>();
+        for (PetSort sort : PetSort.values()) {
+            combinations.add(Arguments.of(sort, false));
+            combinations.add(Arguments.of(sort, true));
+        }
+        return combinations.stream();
+    }
+
+    @ParameterizedTest(name = "sort={0}, category={1}")
+    @MethodSource("sortedFilters")
+    @DisplayName("Catalog sort - Should read the page from an index led by the filter columns")
+    void catalogSort_ShouldReadPageFromIndex(PetSort sort, boolean byCategory) {
+
+        // The index the sorted page can be read from: equality filters first, then the sort keys
+        List<String> expected = new ArrayList<>(byCategory ? List.of("category_id", "status") : List.of("status"));
+        sort.getSort().forEach(order -> expected.add(
+                order.getProperty().replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase()));
+        assertThat(indexColumns().values()).as("index on pets(%s)", expected).contains(expected);
+
+        String sql = renderedSelect(null, byCategory ? dogs.getId() : null, PetStatus.AVAILABLE, null,
+                PageRequest.of(0, 1, sort.getSort()));
+        String plan = explain(sql).toLowerCase();
+        assertThat(plan).doesNotContain("tablescan");
+        if (sort != PetSort.PRICE_DESC) {
+            // H2 cannot scan an index backwards; MySQL reads price_desc from the price index in reverse
+            assertThat(plan).contains("/* index sorted */");
+        }
+    }
+
+    /**
+     * Columns of every index on {@code pets}, by index name.
+     */
+    private Map<String, List<String>> indexColumns() {
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            Map<String, List<String>> indexes = new TreeMap<>();
+            try (ResultSet resultSet = connection.getMetaData().getIndexInfo(null, null, "PETS", false, false)) {
+                while (resultSet.next()) {
+                    if (resultSet.getString("INDEX_NAME") != null) {
+                        indexes.computeIfAbsent(resultSet.getString("INDEX_NAME"), name -> new ArrayList<>())
+                                .add(resultSet.getString("COLUMN_NAME").toLowerCase());
+                    }
+                }
+            }
+            return indexes;
+        });
+    }
+
+    /**
+     * Runs the filter query and returns the SQL of its (non-count) select.
+     */
+    private String renderedSelect(String name, Long categoryId, PetStatus status, Long userId) {
+        return renderedSelect(name, categoryId, status, userId, PageRequest.of(0, 1));
+    }
+
+    private String renderedSelect(String name, Long categoryId, PetStatus status, Long userId, Pageable pageable) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        Page<Pet> page = petRepository.findPetsByFiltersPaginated(name, categoryId, status, userId, pageable);
+        assertThat(page).isNotNull();
+        return recordedSelect();
+    }
+
+    private String renderedSelect(List<String> tags) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        Page<Pet> page = petRepository.findPetsByFiltersPaginated(null, null, null, null, null, tags, null,
+                PageRequest.of(0, 1));
+        assertThat(page).isNotNull();
+        return recordedSelect();
+    }
+
+    private String recordedSelect() {
+        entityManager.clear();
+        return RecordingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().contains(" from pets ") && !sql.toLowerCase().contains("count("))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private String explain(String sql) {
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
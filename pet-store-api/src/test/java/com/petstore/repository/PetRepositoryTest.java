@@ -7,6 +7,8 @@ import com.petstore.enums.Role;
 import com.petstore.model.Category;
 import com.petstore.model.User;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,8 +21,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetSort;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -410,6 +415,49 @@ class PetRepositoryTest {
         assertThat(page.getContent()).allMatch(pet -> pet.getOwner() == null || pet.getOwner().getId().equals(testUser.getId()) || pet.getCreatedBy() == testUser.getId());
     }
 
+    /**
+     * Find pets by filters paginated - Should filter on an inclusive price range
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should filter on an inclusive price range")
+    void findPetsByFiltersPaginated_ShouldFilterOnPriceRange() {
+
+        Pageable pageable = PageRequest.of(0, 10, PetSort.PRICE_ASC.getSort());
+
+        assertThat(petRepository.findPetsByFiltersPaginated(null, null, null, new BigDecimal("199.99"),
+                new BigDecimal("299.99"), null, pageable)).extracting(Pet::getName).containsExactly("Whiskers", "Buddy");
+        assertThat(petRepository.findPetsByFiltersPaginated(null, dogsCategory.getId(), null, new BigDecimal("300"),
+                null, null, pageable)).extracting(Pet::getName).containsExactly("Max");
+        assertThat(petRepository.findPetsByFiltersPaginated(null, null, PetStatus.SOLD, null,
+                new BigDecimal("250"), null, pageable)).extracting(Pet::getName).containsExactly("Whiskers");
+    }
+
+    /**
+     * Find pets by filters paginated - Should page through equal prices in id order
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should break sort ties on id across pages")
+    void findPetsByFiltersPaginated_ShouldBreakSortTiesOnId() {
+
+        Pet first = entityManager.persist(new Pet("Twin A", dogsCategory, new BigDecimal("100.00")));
+        Pet second = entityManager.persist(new Pet("Twin B", dogsCategory, new BigDecimal("100.00")));
+        entityManager.flush();
+
+        List<Long> ascending = new ArrayList<>();
+        List<Long> descending = new ArrayList<>();
+        for (int page = 0; page < 10; page++) {
+            petRepository.findPetsByFiltersPaginated(null, dogsCategory.getId(), PetStatus.AVAILABLE, null,
+                    PageRequest.of(page, 1, PetSort.PRICE_ASC.getSort())).forEach(pet -> ascending.add(pet.getId()));
+            petRepository.findPetsByFiltersPaginated(null, dogsCategory.getId(), PetStatus.AVAILABLE, null,
+                    PageRequest.of(page, 1, PetSort.PRICE_DESC.getSort())).forEach(pet -> descending.add(pet.getId()));
+        }
+
+        assertThat(ascending).doesNotHaveDuplicates().containsSubsequence(first.getId(), second.getId());
+        assertThat(descending).doesNotHaveDuplicates().containsSubsequence(second.getId(), first.getId());
+        Collections.reverse(ascending);
+        assertThat(descending).containsExactlyElementsOf(ascending);
+    }
+
     /**
      * Exists by ID and status - Should return true if pet exists with status
      */
@@ -479,4 +527,85 @@ class PetRepositoryTest {
         assertThat(pets).hasSize(2);
         assertThat(pets).extracting(Pet::getName).containsExactlyInAnyOrder("Maggie", "Maxi");
     }
-}
\ No newline at end of file
+
+    /**
+     * Photos and tags - Should round-trip through the JSON columns in order
+     */
+    @Test
+    @DisplayName("Photos and tags - Should round-trip through the JSON columns in order")
+    void photosAndTags_ShouldRoundTripThroughJsonColumns() {
+
+        Pet pet = petRepository.findById(availableDog.getId()).orElseThrow();
+
+        assertThat(pet.getPhotoUrls()).containsExactly("buddy1.jpg", "buddy2.jpg");
+        assertThat(pet.getTags()).containsExactly("friendly", "energetic");
+    }
+
+    /**
+     * Update tags - Should issue a single UPDATE instead of delete and re-insert
+     */
+    @Test
+    @DisplayName("Update tags - Should issue a single UPDATE instead of delete and re-insert")
+    void updateTags_ShouldIssueSingleUpdateStatement() {
+
+        Pet pet = petRepository.findById(availableDog.getId()).orElseThrow();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        pet.setTags(Arrays.asList("friendly", "energetic", "trained"));
+        pet.setPhotoUrls(Arrays.asList("buddy3.jpg"));
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+
+        entityManager.clear();
+        Pet reloaded = petRepository.findById(availableDog.getId()).orElseThrow();
+        assertThat(reloaded.getTags()).containsExactly("friendly", "energetic", "trained");
+        assertThat(reloaded.getPhotoUrls()).containsExactly("buddy3.jpg");
+    }
+
+    /**
+     * List page - Should load photos and tags without extra collection queries
+     */
+    @Test
+    @DisplayName("List page - Should load photos and tags without extra collection queries")
+    void listPage_ShouldLoadPhotosAndTagsWithoutCollectionQueries() {
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        Page<Pet> page = petRepository.findPetsByFiltersPaginated(null, null, null, null, PageRequest.of(0, 10));
+        page.getContent().forEach(pet -> {
+            assertThat(pet.getPhotoUrls()).isNotEmpty();
+            assertThat(pet.getTags()).isNotEmpty();
+        });
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    /**
+     * List page - Should load pets read-only so they are not dirty-checked
+     */
+    @Test
+    @DisplayName("List page - Should load pets read-only so they are not dirty-checked")
+    void listPage_ShouldLoadPetsReadOnly() {
+
+        entityManager.clear();
+        Page<Pet> page = petRepository.findPetsByFiltersPaginated(null, null, null, null, PageRequest.of(0, 10));
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        page.getContent().forEach(pet -> pet.setName("Renamed"));
+        entityManager.flush();
+
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+}
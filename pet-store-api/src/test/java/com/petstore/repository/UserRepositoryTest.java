@@ -175,8 +175,7 @@ class UserRepositoryTest {
         duplicateUser.setRoles(Set.of(Role.USER));
 
         assertThatThrownBy(() -> {
-            userRepository.save(duplicateUser);
-            entityManager.flush();
+            userRepository.saveAndFlush(duplicateUser);
         }).isInstanceOf(DataIntegrityViolationException.class);
     }
 
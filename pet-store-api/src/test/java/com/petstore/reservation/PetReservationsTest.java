@@ -0,0 +1,193 @@
+package com.petstore.reservation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.enums.PetStatus;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.exception.PetReservedException;
+import com.petstore.model.Pet;
+
+/**
+ * Tests for {@link PetReservations} against the H2 test database, on a clock
+ * the tests move. Runs without a test transaction, so every write commits.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pet Reservations Tests")
+class PetReservationsTest {
+
+    private static final long START = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long now;
+
+    private Clock clock;
+
+    private PetReservations petReservations;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now));
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        now = START;
+        petReservations = newReservations();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pet_reservations");
+    }
+
+    /**
+     * Test: a reserved pet is refused to other users until the reservation
+     * expires, while its holder can renew it, also through an order.
+     */
+    @Test
+    @DisplayName("Reserve - Should refuse other users until the reservation expires")
+    void reserve_ShouldRefuseOtherUsersUntilExpiry() {
+        petReservations.reserveForCart(1L, 10L);
+        assertThat(petReservations.reservedUntil(1L)).isEqualTo(START_TIME.plusMinutes(10));
+
+        assertThatThrownBy(() -> petReservations.reserveForCart(1L, 20L))
+                .isInstanceOf(PetReservedException.class)
+                .hasMessageContaining(START_TIME.plusMinutes(10).toString());
+
+        now += Duration.ofMinutes(5).toMillis();
+        petReservations.reserveForOrder(7L, 10L, List.of(1L, 2L));
+        assertThat(petReservations.reservedUntil(1L)).isEqualTo(START_TIME.plusMinutes(15));
+        assertThat(storedOrderId(1L)).isEqualTo(7L);
+
+        now += Duration.ofMinutes(15).toMillis();
+        assertThat(petReservations.reservedUntil(1L)).isNull();
+        petReservations.reserveForCart(1L, 20L);
+        assertThat(storedUserId(1L)).isEqualTo(20L);
+    }
+
+    /**
+     * Test: expired reservations are deleted on the tick that follows their
+     * expiry, renewed ones are kept, and released ones are gone at once.
+     */
+    @Test
+    @DisplayName("Tick - Should delete only reservations that expired")
+    void tick_ShouldDeleteOnlyExpiredReservations() {
+        petReservations.reserveForCart(1L, 10L);
+        petReservations.reserveForCart(2L, 10L);
+        petReservations.reserveForOrder(7L, 30L, List.of(3L));
+        now += Duration.ofMinutes(5).toMillis();
+        petReservations.reserveForCart(2L, 10L);
+
+        petReservations.release(1L, 20L);
+        assertThat(rows()).isEqualTo(3);
+        petReservations.releaseOrder(7L, List.of(3L));
+        assertThat(rows()).isEqualTo(2);
+
+        now += Duration.ofMinutes(5).toMillis() + 1_000;
+        petReservations.tick();
+        assertThat(rows()).isEqualTo(1);
+        assertThat(petReservations.size()).isEqualTo(1);
+        assertThat(petReservations.reservedUntil(2L)).isEqualTo(START_TIME.plusMinutes(15));
+
+        now += Duration.ofMinutes(5).toMillis();
+        petReservations.tick();
+        assertThat(rows()).isZero();
+        assertThat(petReservations.size()).isZero();
+    }
+
+    /**
+     * Test: the reservations of several orders are released at once, leaving
+     * those of carts and other orders.
+     */
+    @Test
+    @DisplayName("Release orders - Should release only the orders' reservations")
+    void releaseOrders_ShouldReleaseOnlyTheOrdersReservations() {
+        petReservations.reserveForOrder(7L, 30L, List.of(1L, 2L));
+        petReservations.reserveForOrder(8L, 40L, List.of(3L));
+        petReservations.reserveForOrder(9L, 50L, List.of(4L));
+        petReservations.reserveForCart(5L, 10L);
+
+        petReservations.releaseOrders(List.of(7L, 8L));
+
+        assertThat(rows()).isEqualTo(2);
+        assertThat(petReservations.size()).isEqualTo(2);
+        assertThat(petReservations.reservedUntil(1L)).isNull();
+        assertThat(petReservations.reservedUntil(3L)).isNull();
+        assertThat(petReservations.reservedUntil(4L)).isNotNull();
+        assertThat(petReservations.reservedUntil(5L)).isNotNull();
+    }
+
+    /**
+     * Test: a restarted replica rebuilds its reservations and timers from the
+     * table, and a pet that is sold loses its reservation.
+     */
+    @Test
+    @DisplayName("Load - Should rebuild reservations and drop sold pets")
+    void load_ShouldRebuildReservationsAndDropSoldPets() {
+        petReservations.reserveForCart(1L, 10L);
+        petReservations.reserveForOrder(7L, 30L, List.of(2L, 3L));
+
+        PetReservations restarted = newReservations();
+        restarted.load();
+        assertThat(restarted.size()).isEqualTo(3);
+        assertThat(restarted.reservedUntil(2L)).isEqualTo(START_TIME.plusMinutes(10));
+
+        Pet sold = new Pet();
+        sold.setId(2L);
+        sold.setStatus(PetStatus.SOLD);
+        restarted.onPetChanged(PetChangedEvent.saved(sold));
+        assertThat(restarted.reservedUntil(2L)).isNull();
+        assertThat(rows()).isEqualTo(2);
+
+        now += Duration.ofMinutes(10).toMillis();
+        restarted.tick();
+        assertThat(restarted.size()).isZero();
+        assertThat(rows()).isZero();
+    }
+
+    private PetReservations newReservations() {
+        return new PetReservations(jdbcTemplate, clock, Duration.ofMinutes(10), Duration.ofMinutes(10));
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pet_reservations", Integer.class);
+    }
+
+    private Long storedUserId(Long petId) {
+        return jdbcTemplate.queryForObject("SELECT user_id FROM pet_reservations WHERE pet_id = ?", Long.class, petId);
+    }
+
+    private Long storedOrderId(Long petId) {
+        return jdbcTemplate.queryForObject("SELECT order_id FROM pet_reservations WHERE pet_id = ?", Long.class,
+                petId);
+    }
+}
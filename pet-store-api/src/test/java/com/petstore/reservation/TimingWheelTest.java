@@ -0,0 +1,81 @@
+package com.petstore.reservation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TimingWheel}.
+ */
+@DisplayName("Timing Wheel Tests")
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    /**
+     * Test: timers spread across every level, and beyond the wheel's span,
+     * each expire on exactly their deadline's tick when advanced tick by tick.
+     */
+    @Test
+    @DisplayName("Advance - Should expire every timer on its deadline tick")
+    void advance_ShouldExpireEveryTimerOnItsDeadlineTick() {
+        long start = 1_000_003;
+        TimingWheel wheel = new TimingWheel(TICK, 4, 3, start);
+        Map<Long, Long> deadlines = new HashMap<>();
+        Random random = new Random(7);
+        for (long key = 0; key < 2_000; key++) {
+            long deadline = start + random.nextInt(200 * (int) TICK);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+        assertThat(wheel.size()).isEqualTo(2_000);
+
+        Map<Long, Long> expiredAt = new HashMap<>();
+        for (long now = start; now <= start + 210 * TICK; now += TICK) {
+            long tickStart = Math.floorDiv(now, TICK) * TICK;
+            wheel.advance(now, key -> assertThat(expiredAt.put(key, tickStart)).isNull());
+            if (now == start + 100 * TICK) {
+                wheel.schedule(5_000, now + 37 * TICK);
+                deadlines.put(5_000L, now + 37 * TICK);
+            }
+        }
+
+        assertThat(expiredAt).hasSameSizeAs(deadlines);
+        long startTick = Math.floorDiv(start, TICK);
+        deadlines.forEach((key, deadline) -> assertThat(expiredAt.get(key)).as("timer %d", key)
+                .isEqualTo(Math.max(startTick, Math.floorDiv(deadline, TICK)) * TICK));
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * Test: advancing in large jumps expires everything due by then and
+     * nothing later, and a timer in the past expires on the next advance.
+     */
+    @Test
+    @DisplayName("Advance - Should expire only due timers when jumping ahead")
+    void advance_ShouldExpireOnlyDueTimersWhenJumpingAhead() {
+        TimingWheel wheel = new TimingWheel(TICK, 8, 2, 0);
+        wheel.schedule(1, 25);
+        wheel.schedule(2, 500);
+        wheel.schedule(3, 5_000);
+        Map<Long, Long> expiredAt = new HashMap<>();
+
+        wheel.advance(490, key -> expiredAt.put(key, 490L));
+        assertThat(expiredAt).containsOnlyKeys(1L);
+
+        wheel.schedule(4, 100);
+        wheel.advance(490, key -> expiredAt.put(key, 491L));
+        assertThat(expiredAt).containsOnlyKeys(1L, 4L);
+
+        wheel.advance(4_999, key -> expiredAt.put(key, 4_999L));
+        assertThat(expiredAt).containsEntry(2L, 4_999L).doesNotContainKey(3L);
+        wheel.advance(5_000, key -> expiredAt.put(key, 5_000L));
+        assertThat(expiredAt).containsEntry(3L, 5_000L);
+        assertThat(wheel.size()).isZero();
+    }
+}
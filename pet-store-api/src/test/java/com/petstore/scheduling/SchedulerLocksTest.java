@@ -0,0 +1,97 @@
+package com.petstore.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.config.JpaAuditingConfig;
+
+/**
+ * Tests for {@link SchedulerLocks} against the H2 test database, on a clock
+ * the tests move; two instances play two replicas.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Scheduler Locks Tests")
+class SchedulerLocksTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long now;
+
+    private SchedulerLocks replica;
+
+    private SchedulerLocks otherReplica;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        now = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+        replica = new SchedulerLocks(jdbcTemplate, clock);
+        otherReplica = new SchedulerLocks(jdbcTemplate, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM scheduler_locks");
+    }
+
+    /**
+     * Test: a lease is held by one replica, which can renew it, until it is
+     * given up.
+     */
+    @Test
+    @DisplayName("Holds a lease for one replica until unlocked")
+    void holdsLeaseUntilUnlocked() {
+        assertThat(replica.tryLock("job", LEASE)).isTrue();
+        assertThat(otherReplica.tryLock("job", LEASE)).isFalse();
+        assertThat(replica.tryLock("job", LEASE)).isTrue();
+        assertThat(otherReplica.tryLock("other-job", LEASE)).isTrue();
+
+        otherReplica.unlock("job");
+        assertThat(otherReplica.tryLock("job", LEASE)).isFalse();
+
+        replica.unlock("job");
+        assertThat(otherReplica.tryLock("job", LEASE)).isTrue();
+        assertThat(replica.tryLock("job", LEASE)).isFalse();
+    }
+
+    /**
+     * Test: a lease not renewed in time can be taken over, and its former
+     * holder finds out at its next renewal.
+     */
+    @Test
+    @DisplayName("Lets another replica take over an expired lease")
+    void takesOverExpiredLease() {
+        assertThat(replica.tryLock("job", LEASE)).isTrue();
+
+        now += LEASE.toMillis();
+
+        assertThat(otherReplica.tryLock("job", LEASE)).isTrue();
+        assertThat(replica.tryLock("job", LEASE)).isFalse();
+    }
+}
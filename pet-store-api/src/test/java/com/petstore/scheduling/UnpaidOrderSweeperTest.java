@@ -0,0 +1,177 @@
+package com.petstore.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.repository.AuditLogRepository;
+import com.petstore.reservation.PetReservations;
+
+/**
+ * Tests for {@link UnpaidOrderSweeper} against the H2 test database, with
+ * chunks of two orders. Runs without a test transaction, so each chunk
+ * commits as it would in production.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Unpaid Order Sweeper Tests")
+class UnpaidOrderSweeperTest {
+
+    private static final long USER_ID = 800_000;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private Clock clock;
+
+    private SchedulerLocks schedulerLocks;
+
+    private UnpaidOrderSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        schedulerLocks = new SchedulerLocks(jdbcTemplate, clock);
+        sweeper = newSweeper(schedulerLocks);
+        jdbcTemplate.update("INSERT INTO users (id, email, password, first_name, last_name) VALUES (?, ?, ?, ?, ?)",
+                USER_ID, "sweeper@example.com", "secret", "Sweeper", "Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pet_reservations");
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)",
+                USER_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM scheduler_locks");
+    }
+
+    /**
+     * Test: stale placed orders are cancelled over several chunks, audited as
+     * cancelled by the system, their owners told and their reservations released; recent,
+     * approved and pending-payment orders are left alone.
+     */
+    @Test
+    @DisplayName("Cancels stale unpaid orders in chunks")
+    void cancelsStaleOrders() {
+        order(1, "PLACED", Duration.ofHours(3));
+        order(2, "PLACED", Duration.ofHours(2));
+        order(3, "PLACED", Duration.ofMinutes(90));
+        order(4, "PLACED", Duration.ofMinutes(10));
+        order(5, "APPROVED", Duration.ofHours(3));
+        order(6, "PLACED", Duration.ofHours(3));
+        payment(6, "PENDING");
+        order(7, "PLACED", Duration.ofHours(3));
+        payment(7, "FAILED");
+        reservation(101, 1);
+        reservation(102, 4);
+
+        int cancelled = sweeper.sweep();
+
+        assertThat(cancelled).isEqualTo(4);
+        assertThat(status(1)).isEqualTo("CANCELLED");
+        assertThat(status(2)).isEqualTo("CANCELLED");
+        assertThat(status(3)).isEqualTo("CANCELLED");
+        assertThat(status(7)).isEqualTo("CANCELLED");
+        assertThat(status(4)).isEqualTo("PLACED");
+        assertThat(status(5)).isEqualTo("APPROVED");
+        assertThat(status(6)).isEqualTo("PLACED");
+        assertThat(auditLogRepository.findAll()).hasSize(4).allSatisfy(log -> {
+            assertThat(log.getAction()).isEqualTo("CANCEL_ORDER");
+            assertThat(log.getOldValue()).isEqualTo("PLACED");
+            assertThat(log.getNewValue()).isEqualTo("CANCELLED");
+            assertThat(log.getUser()).isNull();
+        });
+        assertThat(jdbcTemplate.queryForList("SELECT pet_id FROM pet_reservations", Long.class))
+                .containsExactly(102L);
+        assertThat(events).hasSize(4).allSatisfy(event -> {
+            OrderStatusChangedEvent changed = (OrderStatusChangedEvent) event;
+            assertThat(changed.getUserId()).isEqualTo(USER_ID);
+            assertThat(changed.getOrderStatus().name()).isEqualTo("CANCELLED");
+        });
+        assertThat(sweeper.sweep()).isZero();
+    }
+
+    /**
+     * Test: while another replica holds the sweeper's lease, nothing is
+     * swept; once it is given up, the sweep runs.
+     */
+    @Test
+    @DisplayName("Leaves the sweep to the replica holding the lease")
+    void leavesSweepToLeaseHolder() {
+        order(1, "PLACED", Duration.ofHours(3));
+        SchedulerLocks otherReplica = new SchedulerLocks(jdbcTemplate, clock);
+        assertThat(otherReplica.tryLock(UnpaidOrderSweeper.LOCK_NAME, Duration.ofMinutes(5))).isTrue();
+
+        assertThat(sweeper.sweep()).isZero();
+        assertThat(status(1)).isEqualTo("PLACED");
+
+        otherReplica.unlock(UnpaidOrderSweeper.LOCK_NAME);
+        assertThat(sweeper.sweep()).isEqualTo(1);
+    }
+
+    private UnpaidOrderSweeper newSweeper(SchedulerLocks locks) {
+        PetReservations petReservations = new PetReservations(jdbcTemplate, clock, Duration.ofMinutes(10),
+                Duration.ofMinutes(10));
+        return new UnpaidOrderSweeper(jdbcTemplate, transactionTemplate, auditLogRepository, petReservations,
+                locks, events::add, clock, Duration.ofHours(1), 2, 100, Duration.ofMinutes(5));
+    }
+
+    private void order(long offset, String status, Duration age) {
+        long id = USER_ID + offset;
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, user_id, status, total_amount, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", id, "SWEEP-" + id, USER_ID, status, 100,
+                Timestamp.valueOf(NOW.minus(age)));
+    }
+
+    private void payment(long offset, String status) {
+        long id = USER_ID + offset;
+        jdbcTemplate.update("INSERT INTO payments (id, order_id, amount, status, payment_type) "
+                + "VALUES (?, ?, ?, ?, ?)", id, id, 100, status, "CREDIT_CARD");
+    }
+
+    private void reservation(long petId, long offset) {
+        jdbcTemplate.update("INSERT INTO pet_reservations (pet_id, user_id, order_id, expires_at) VALUES (?, ?, ?, ?)",
+                petId, USER_ID, USER_ID + offset, Timestamp.valueOf(NOW.plusMinutes(10)));
+    }
+
+    private String status(long offset) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, USER_ID + offset);
+    }
+}
@@ -1,17 +1,25 @@
 package com.petstore.service;
 
+import com.petstore.dto.CoPurchaseRecommendation;
 import com.petstore.enums.PetStatus;
+import com.petstore.enums.RecommendationType;
 import com.petstore.exception.CartItemNotFoundException;
 import com.petstore.exception.PetAlreadyExistInUserCartException;
 import com.petstore.exception.PetAlreadySoldException;
 import com.petstore.exception.PetNotFoundException;
+import com.petstore.exception.PetOutOfStockException;
+import com.petstore.exception.PetReservedException;
+import com.petstore.index.CoPurchaseIndex;
 import com.petstore.model.Cart;
 import com.petstore.model.CartItem;
+import com.petstore.model.Category;
 import com.petstore.model.Pet;
 import com.petstore.model.User;
 import com.petstore.repository.CartItemRepository;
 import com.petstore.repository.CartRepository;
+import com.petstore.repository.CategoryRepository;
 import com.petstore.repository.PetRepository;
+import com.petstore.reservation.PetReservations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,12 +29,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -42,6 +54,12 @@ class CartServiceTest {
     private PetRepository petRepository;
     @Mock
     private CartItemRepository cartItemRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private CoPurchaseIndex coPurchaseIndex;
+    @Mock
+    private PetReservations petReservations;
     @InjectMocks
     private CartService cartService;
 
@@ -125,6 +143,68 @@ class CartServiceTest {
         verify(cartRepository).findByUserId(1L);
     }
 
+    /**
+     * Tests adding a pet to the cart while another customer holds it (edge case).
+     */
+    @Test
+    void addPetToCart_PetReserved_ShouldThrowException() {
+        when(petRepository.findById(100L)).thenReturn(Optional.of(testPet));
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(testCart));
+        doThrow(new PetReservedException(100L, LocalDateTime.of(2025, 1, 1, 12, 0)))
+            .when(petReservations).reserveForCart(100L, 1L);
+        assertThatThrownBy(() -> cartService.addPetToCart(1L, 100L))
+            .isInstanceOf(PetReservedException.class);
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    /**
+     * Tests adding units of a pet sold by quantity: adding it again adds to
+     * the units in the cart, and no reservation is taken.
+     */
+    @Test
+    void addPetToCart_StockedPet_ShouldAddUnits() {
+        testPet.setStockQuantity(10);
+        when(petRepository.findById(100L)).thenReturn(Optional.of(testPet));
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(testCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        cartService.addPetToCart(1L, 100L, 4);
+        Cart updated = cartService.addPetToCart(1L, 100L, 6);
+
+        assertThat(updated.getItems()).singleElement().extracting(CartItem::getQuantity).isEqualTo(10);
+        verify(petReservations, never()).reserveForCart(any(), any());
+    }
+
+    /**
+     * Tests adding more units of a pet sold by quantity than are in stock
+     * (edge case).
+     */
+    @Test
+    void addPetToCart_StockedPetBeyondStock_ShouldThrowException() {
+        testPet.setStockQuantity(5);
+        testCartItem.setQuantity(3);
+        testCart.getItems().add(testCartItem);
+        when(petRepository.findById(100L)).thenReturn(Optional.of(testPet));
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(testCart));
+        assertThatThrownBy(() -> cartService.addPetToCart(1L, 100L, 3))
+            .isInstanceOf(PetOutOfStockException.class);
+        assertThat(testCartItem.getQuantity()).isEqualTo(3);
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    /**
+     * Tests adding several units of a unique animal (edge case).
+     */
+    @Test
+    void addPetToCart_UniquePetWithQuantity_ShouldThrowException() {
+        when(petRepository.findById(100L)).thenReturn(Optional.of(testPet));
+        assertThatThrownBy(() -> cartService.addPetToCart(1L, 100L, 2))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cartService.addPetToCart(1L, 100L, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(cartRepository, never()).findByUserId(any());
+    }
+
     /**
      * Tests getting a cart by user ID successfully.
      */
@@ -156,11 +236,12 @@ class CartServiceTest {
      * Tests removing a cart item successfully.
      */
     @Test
-    void removeCartItem_ShouldRemoveItem() {
-        when(cartItemRepository.existsById(200L)).thenReturn(true);
+    void removeCartItem_ShouldRemoveItemAndReleaseReservation() {
+        when(cartItemRepository.findById(200L)).thenReturn(Optional.of(testCartItem));
         cartService.removeCartItem(200L);
-        verify(cartItemRepository).existsById(200L);
-        verify(cartItemRepository).deleteById(200L);
+        verify(cartItemRepository).findById(200L);
+        verify(cartItemRepository).delete(testCartItem);
+        verify(petReservations).release(100L, 1L);
     }
 
     /**
@@ -168,10 +249,49 @@ class CartServiceTest {
      */
     @Test
     void removeCartItem_ItemNotFound_ShouldThrowException() {
-        when(cartItemRepository.existsById(999L)).thenReturn(false);
+        when(cartItemRepository.findById(999L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> cartService.removeCartItem(999L))
             .isInstanceOf(CartItemNotFoundException.class);
-        verify(cartItemRepository).existsById(999L);
-        verify(cartItemRepository, never()).deleteById(any(Long.class));
+        verify(cartItemRepository).findById(999L);
+        verify(cartItemRepository, never()).delete(any(CartItem.class));
+        verify(petReservations, never()).release(any(), any());
+    }
+
+    /**
+     * Tests that recommendations are looked up for the cart's pets, with
+     * category names filled in and deleted categories dropped.
+     */
+    @Test
+    void getRecommendations_ShouldNameCategoriesAndDropDeletedOnes() {
+        Category dogs = new Category("Dogs");
+        dogs.setId(1L);
+        Category toys = new Category("Toys");
+        toys.setId(2L);
+        testPet.setCategory(dogs);
+        testPet.setTags(List.of("puppy"));
+        testCart.getItems().add(testCartItem);
+        when(cartRepository.findByUserIdWithItemsAndPets(1L)).thenReturn(Optional.of(testCart));
+        when(coPurchaseIndex.recommend(argThat(pets -> pets.size() == 1
+                && pets.iterator().next().getPetId().equals(100L)), eq(5))).thenReturn(List.of(
+                        new CoPurchaseRecommendation(RecommendationType.CATEGORY, 2L, null, 0.8),
+                        new CoPurchaseRecommendation(RecommendationType.TAG, null, "chew", 0.5),
+                        new CoPurchaseRecommendation(RecommendationType.CATEGORY, 3L, null, 0.2)));
+        when(categoryRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(toys));
+
+        List<CoPurchaseRecommendation> result = cartService.getRecommendations(1L, 5);
+
+        assertThat(result).extracting(CoPurchaseRecommendation::getName).containsExactly("Toys", "chew");
+    }
+
+    /**
+     * Tests that a recommendation limit out of range is rejected (edge case).
+     */
+    @Test
+    void getRecommendations_LimitOutOfRange_ShouldThrowException() {
+        assertThatThrownBy(() -> cartService.getRecommendations(1L, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cartService.getRecommendations(1L, CoPurchaseIndex.MAX_RECOMMENDATIONS + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(coPurchaseIndex);
     }
 }
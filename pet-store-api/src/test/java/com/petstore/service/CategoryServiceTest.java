@@ -1,5 +1,6 @@
 package com.petstore.service;
 
+import com.petstore.event.CategoryChangedEvent;
 import com.petstore.exception.CategoryInUseException;
 import com.petstore.exception.CategoryNotFoundException;
 import com.petstore.exception.InvalidCategoryException;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -38,6 +40,9 @@ class CategoryServiceTest {
     @Mock
     private PetRepository petRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -147,6 +152,8 @@ class CategoryServiceTest {
         assertThat(result.getName()).isEqualTo("Updated Dogs");
         verify(categoryRepository).findById(1L);
         verify(categoryRepository).save(any(Category.class));
+        verify(eventPublisher).publishEvent(argThat((CategoryChangedEvent event) ->
+                event.getCategoryId().equals(1L) && event.getName().equals("Updated Dogs")));
     }
 
     /**
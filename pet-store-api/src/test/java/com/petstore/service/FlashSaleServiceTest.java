@@ -0,0 +1,101 @@
+package com.petstore.service;
+
+import com.petstore.dto.PaymentOrderRequest;
+import com.petstore.exception.AddressNotFoundException;
+import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.flashsale.FlashSaleShards;
+import com.petstore.model.Order;
+import com.petstore.model.Payment;
+import com.petstore.repository.CartItemRepository;
+import com.petstore.repository.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link FlashSaleService} covering claims around checkout and payment.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Flash Sale Service Tests")
+class FlashSaleServiceTest {
+
+    @Mock
+    private FlashSaleShards flashSaleShards;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private CartItemRepository cartItemRepository;
+    @InjectMocks
+    private FlashSaleService flashSaleService;
+
+    /**
+     * Test: a cart holding a claimed pet is turned away before an order is
+     * created; otherwise checkout proceeds.
+     */
+    @Test
+    @DisplayName("Checkout - Should turn away carts with claimed pets")
+    void checkout_ShouldTurnAwayCartsWithClaimedPets() {
+        when(cartItemRepository.findUniquePetIdsByUserId(1L)).thenReturn(List.of(10L, 11L));
+        when(flashSaleShards.isClaimed(10L)).thenReturn(false);
+        when(flashSaleShards.isClaimed(11L)).thenReturn(true);
+
+        assertThatThrownBy(() -> flashSaleService.checkout(1L, null))
+                .isInstanceOf(PetAlreadySoldException.class)
+                .hasMessageContaining("11");
+        verify(orderService, never()).checkout(any(), any());
+
+        Order order = new Order();
+        when(cartItemRepository.findUniquePetIdsByUserId(2L)).thenReturn(List.of(10L));
+        when(orderService.checkout(2L, "SAVE10")).thenReturn(order);
+        assertThat(flashSaleService.checkout(2L, "SAVE10")).isSameAs(order);
+    }
+
+    /**
+     * Test: the winner pays; a loser is told the pet is sold without paying.
+     */
+    @Test
+    @DisplayName("Make payment - Should pay only when the order's pets are claimed")
+    void makePayment_ShouldPayOnlyWhenClaimed() {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        Payment payment = new Payment();
+        when(orderRepository.findUniquePetIdsByOrderId(5L)).thenReturn(List.of(10L));
+        when(orderRepository.findUniquePetIdsByOrderId(6L)).thenReturn(List.of(10L));
+        when(flashSaleShards.claim(5L, List.of(10L))).thenReturn(null);
+        when(flashSaleShards.claim(6L, List.of(10L))).thenReturn(10L);
+        when(orderService.makePayment(5L, request)).thenReturn(payment);
+
+        assertThat(flashSaleService.makePayment(5L, request)).isSameAs(payment);
+        assertThatThrownBy(() -> flashSaleService.makePayment(6L, request))
+                .isInstanceOf(PetAlreadySoldException.class);
+        verify(orderService, never()).makePayment(6L, request);
+        verify(flashSaleShards, never()).release(any(), any());
+    }
+
+    /**
+     * Test: a failed payment releases the claimed pets for other buyers.
+     */
+    @Test
+    @DisplayName("Make payment - Should release claims when payment fails")
+    void makePayment_ShouldReleaseClaimsWhenPaymentFails() {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        when(orderRepository.findUniquePetIdsByOrderId(5L)).thenReturn(List.of(10L, 11L));
+        when(flashSaleShards.claim(5L, List.of(10L, 11L))).thenReturn(null);
+        when(orderService.makePayment(5L, request)).thenThrow(new AddressNotFoundException(3L));
+
+        assertThatThrownBy(() -> flashSaleService.makePayment(5L, request))
+                .isInstanceOf(AddressNotFoundException.class);
+        verify(flashSaleShards).release(5L, List.of(10L, 11L));
+    }
+}
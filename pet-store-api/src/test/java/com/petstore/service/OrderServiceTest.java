@@ -7,15 +7,26 @@ import com.petstore.enums.OrderStatus;
 import com.petstore.enums.PaymentStatus;
 import com.petstore.enums.PaymentType;
 import com.petstore.enums.PetStatus;
+import com.petstore.event.OrderApprovedEvent;
+import com.petstore.event.OrderStatusChangedEvent;
+import com.petstore.event.PaymentCompletedEvent;
+import com.petstore.event.PaymentRequestedEvent;
+import com.petstore.event.PetChangedEvent;
 import com.petstore.exception.AddressNotFoundException;
 import com.petstore.exception.InvalidPaymentException;
 import com.petstore.exception.OrderNotFoundException;
+import com.petstore.exception.PaymentGatewayUnavailableException;
 import com.petstore.exception.PetAlreadySoldException;
+import com.petstore.exception.PetOutOfStockException;
 import com.petstore.exception.UnsupportedPaymentException;
 import com.petstore.exception.UserCartNotFoundException;
 import com.petstore.generator.OrderNumberGenerator;
 import com.petstore.model.*;
+import com.petstore.payment.GatewayResult;
+import com.petstore.payment.PaymentGateways;
 import com.petstore.repository.*;
+import com.petstore.reservation.PetReservations;
+import com.petstore.stock.StockReservations;
 import com.petstore.strategy.PaymentStrategyFactory;
 import com.petstore.strategy.payment.PaymentStrategy;
 
@@ -26,6 +37,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -67,6 +79,14 @@ class OrderServiceTest {
     private PaymentStrategyFactory paymentStrategyFactory;
     @Mock
     private PaymentStrategy paymentStrategy;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PetReservations petReservations;
+    @Mock
+    private StockReservations stockReservations;
+    @Mock
+    private PaymentGateways paymentGateways;
     @InjectMocks
     private OrderService orderService;
 
@@ -122,10 +142,10 @@ class OrderServiceTest {
      */
     @Test
     void getAllOrders_ShouldReturnOrders() {
-        when(orderRepository.findAll()).thenReturn(List.of(testOrder));
+        when(orderRepository.findAllWithDetails()).thenReturn(List.of(testOrder));
         List<Order> orders = orderService.getAllOrders();
         assertThat(orders).contains(testOrder);
-        verify(orderRepository).findAll();
+        verify(orderRepository).findAllWithDetails();
     }
 
     /**
@@ -133,10 +153,10 @@ class OrderServiceTest {
      */
     @Test
     void getOrdersByUserId_ShouldReturnOrders() {
-        when(orderRepository.findByUserId(1L)).thenReturn(List.of(testOrder));
+        when(orderRepository.findWithDetailsByUserId(1L)).thenReturn(List.of(testOrder));
         List<Order> orders = orderService.getOrdersByUserId(1L);
         assertThat(orders).contains(testOrder);
-        verify(orderRepository).findByUserId(1L);
+        verify(orderRepository).findWithDetailsByUserId(1L);
     }
 
     /**
@@ -200,9 +220,30 @@ class OrderServiceTest {
         verify(cartRepository).findByUserId(1L);
         verify(orderRepository).save(any(Order.class));
         verify(cartRepository).delete(testCart);
+        verify(petReservations).reserveForOrder(isNull(), eq(1L), eq(List.of(100L)));
         verify(auditLogRepository).save(any(AuditLog.class));
     }
 
+    /**
+     * Tests checkout of units of a pet sold by quantity: every unit is charged
+     * and no reservation is taken for the pet.
+     */
+    @Test
+    void checkout_StockedPet_ShouldChargeEveryUnitWithoutReserving() {
+        testPet.setStockQuantity(10);
+        testCartItem.setQuantity(4);
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(testCart));
+        when(petRepository.existsByIdAndStatus(100L, PetStatus.AVAILABLE)).thenReturn(true);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.checkout(1L, null);
+
+        assertThat(order.getTotalAmount()).isEqualByComparingTo("399.96");
+        assertThat(order.getItems()).singleElement().extracting(OrderItem::getQuantity).isEqualTo(4);
+        verify(petReservations).reserveForOrder(isNull(), eq(1L), eq(List.of()));
+        verify(stockReservations, never()).take(any(), anyInt());
+    }
+
     /**
      * Tests checkout when cart not found (edge case).
      */
@@ -250,7 +291,7 @@ class OrderServiceTest {
         when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD))
                 .thenReturn(paymentStrategy);
         
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(auditLogRepository.save(any(AuditLog.class))).thenReturn(null);
@@ -263,10 +304,111 @@ class OrderServiceTest {
         assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
         assertThat(payment.getOrder()).isEqualTo(testOrder);
 
-        verify(orderRepository).findById(10L);
+        verify(orderRepository).findByIdForUpdate(10L);
         verify(paymentRepository).save(any(Payment.class));
         verify(orderRepository, atLeastOnce()).save(any(Order.class));
         verify(deliveryRepository).save(any(Delivery.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PetChangedEvent changed
+                && changed.getPetId().equals(testPet.getId()) && changed.getStatus() == PetStatus.SOLD));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderApprovedEvent approved
+                && approved.getOrderId().equals(testOrder.getId()) && approved.getPets().size() == 1
+                && approved.getPets().get(0).getPetId().equals(testPet.getId())));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderStatusChangedEvent changed
+                && changed.getOrderId().equals(testOrder.getId()) && changed.getOrderStatus() == OrderStatus.APPROVED
+                && changed.getDeliveryStatus() == DeliveryStatus.PENDING));
+    }
+
+    /**
+     * Tests paying for units of a pet sold by quantity: the units are taken
+     * from stock and the pet stays available while some are left.
+     */
+    @Test
+    void makePayment_StockedPet_ShouldTakeUnitsAndKeepPetAvailable() {
+        testPet.setStockQuantity(10);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        orderItem.setQuantity(3);
+        testOrder.getItems().add(orderItem);
+        testOrder.setTotalAmount(BigDecimal.valueOf(299.97));
+
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.CREDIT_CARD);
+        req.setShippingAddressId(5L);
+
+        when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD)).thenReturn(paymentStrategy);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+        when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
+        when(stockReservations.take(100L, 3)).thenReturn(7);
+
+        orderService.makePayment(10L, req);
+
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+        assertThat(testPet.getOwner()).isNull();
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.APPROVED);
+        verify(petRepository, never()).save(any(Pet.class));
+        verify(eventPublisher, never()).publishEvent(any(PetChangedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderApprovedEvent approved
+                && approved.getPets().size() == 1 && approved.getPets().get(0).getPetId().equals(100L)));
+    }
+
+    /**
+     * Tests paying for the last units of a pet sold by quantity, which marks
+     * the pet sold.
+     */
+    @Test
+    void makePayment_StockedPetLastUnits_ShouldMarkPetSold() {
+        testPet.setStockQuantity(2);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        orderItem.setQuantity(2);
+        testOrder.getItems().add(orderItem);
+        testOrder.setTotalAmount(BigDecimal.valueOf(199.98));
+
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.CREDIT_CARD);
+        req.setShippingAddressId(5L);
+
+        when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD)).thenReturn(paymentStrategy);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+        when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
+        when(stockReservations.take(100L, 2)).thenReturn(0);
+
+        orderService.makePayment(10L, req);
+
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.SOLD);
+        assertThat(testPet.getStockQuantity()).isZero();
+        assertThat(testPet.getOwner()).isNull();
+        verify(petRepository).save(testPet);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PetChangedEvent changed
+                && changed.getPetId().equals(100L) && changed.getStatus() == PetStatus.SOLD));
+    }
+
+    /**
+     * Tests paying when a pet sold by quantity ran out since checkout (edge
+     * case).
+     */
+    @Test
+    void makePayment_StockedPetOutOfStock_ShouldThrowException() {
+        testPet.setStockQuantity(1);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        testOrder.getItems().add(orderItem);
+
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.CREDIT_CARD);
+        req.setShippingAddressId(5L);
+
+        when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD)).thenReturn(paymentStrategy);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+        when(stockReservations.take(100L, 1)).thenThrow(new PetOutOfStockException(100L, 1));
+
+        assertThatThrownBy(() -> orderService.makePayment(10L, req))
+                .isInstanceOf(PetOutOfStockException.class);
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.PLACED);
+        verify(deliveryRepository, never()).save(any(Delivery.class));
     }
 
     @Test
@@ -290,7 +432,7 @@ class OrderServiceTest {
         when(paymentStrategyFactory.getStrategy(PaymentType.DEBIT_CARD))
                 .thenReturn(paymentStrategy);
 
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -328,7 +470,7 @@ class OrderServiceTest {
         when(paymentStrategyFactory.getStrategy(PaymentType.E_WALLET))
                 .thenReturn(paymentStrategy);
 
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -365,7 +507,7 @@ class OrderServiceTest {
         when(paymentStrategyFactory.getStrategy(PaymentType.PAYPAL))
                 .thenReturn(paymentStrategy);
 
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -392,7 +534,7 @@ class OrderServiceTest {
         req.setShippingAddressId(5L);
         req.setBillingAddressId(5L);
 
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD))
                 .thenThrow(new UnsupportedPaymentException("Payment type not supported"));
 
@@ -415,7 +557,7 @@ class OrderServiceTest {
         req.setShippingAddressId(5L);
         req.setBillingAddressId(5L);
 
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD))
                 .thenReturn(paymentStrategy);
         doThrow(new InvalidPaymentException("Invalid card number"))
@@ -435,10 +577,204 @@ class OrderServiceTest {
     @Test
     void makePayment_OrderNotFound_ShouldThrowException() {
         PaymentOrderRequest req = new PaymentOrderRequest();
-        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+        when(orderRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> orderService.makePayment(999L, req))
                 .isInstanceOf(OrderNotFoundException.class);
-        verify(orderRepository).findById(999L);
+        verify(orderRepository).findByIdForUpdate(999L);
+    }
+
+    /**
+     * Tests an asynchronous payment: it is recorded as pending with the
+     * order's address and a charge is requested, but nothing is sold yet.
+     */
+    @Test
+    void makePayment_Async_ShouldRecordPendingPaymentAndRequestCharge() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        testOrder.getItems().add(orderItem);
+        testOrder.setTotalAmount(BigDecimal.valueOf(99.99));
+
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.E_WALLET);
+        req.setWalletType(WalletType.GRABPAY);
+        req.setShippingAddressId(5L);
+
+        when(paymentStrategyFactory.getStrategy(PaymentType.E_WALLET)).thenReturn(paymentStrategy);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+        when(addressRepository.findById(5L)).thenReturn(Optional.of(testAddress));
+        when(paymentGateways.isAsyncEnabled()).thenReturn(true);
+        when(paymentGateways.isAvailable("GRABPAY")).thenReturn(true);
+
+        Payment payment = orderService.makePayment(10L, req);
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(payment.getPaidAt()).isNull();
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.PLACED);
+        assertThat(testOrder.getShippingAddress()).isEqualTo(testAddress);
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+        verify(paymentRepository).save(payment);
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PaymentRequestedEvent requested
+                && requested.getOrderId().equals(10L) && requested.getGateway().equals("GRABPAY")
+                && requested.getAmount().equals(BigDecimal.valueOf(99.99))));
+        verify(eventPublisher, never()).publishEvent(any(OrderApprovedEvent.class));
+    }
+
+    /**
+     * Tests asynchronous payments refused before anything is recorded: when
+     * the order already has a pending payment, and when the gateway is not
+     * taking charges (edge cases).
+     */
+    @Test
+    void makePayment_AsyncRefused_ShouldThrowException() {
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.CREDIT_CARD);
+        req.setShippingAddressId(5L);
+
+        when(paymentStrategyFactory.getStrategy(PaymentType.CREDIT_CARD)).thenReturn(paymentStrategy);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+        when(paymentGateways.isAsyncEnabled()).thenReturn(true);
+        when(paymentGateways.isAvailable("CREDIT_CARD")).thenReturn(false);
+
+        assertThatThrownBy(() -> orderService.makePayment(10L, req))
+                .isInstanceOf(PaymentGatewayUnavailableException.class);
+
+        Payment pending = new Payment();
+        pending.setStatus(PaymentStatus.PENDING);
+        testOrder.setPayment(pending);
+        assertThatThrownBy(() -> orderService.makePayment(10L, req))
+                .isInstanceOf(InvalidPaymentException.class);
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
+
+    /**
+     * Tests payment for an order cancelled before it was paid, for instance
+     * by the unpaid order sweeper (edge case): it is refused before anything
+     * is charged, taken or sold.
+     */
+    @Test
+    void makePayment_CancelledOrder_ShouldThrowException() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        testOrder.getItems().add(orderItem);
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        PaymentOrderRequest req = new PaymentOrderRequest();
+        req.setPaymentType(PaymentType.CREDIT_CARD);
+        req.setShippingAddressId(5L);
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
+
+        assertThatThrownBy(() -> orderService.makePayment(10L, req))
+                .isInstanceOf(InvalidPaymentException.class)
+                .hasMessageContaining("CANCELLED");
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+        verify(paymentStrategyFactory, never()).getStrategy(any());
+        verify(paymentRepository, never()).save(any(Payment.class));
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+    }
+
+    /**
+     * Tests settling an approved asynchronous payment, which sells the pets
+     * and approves the order.
+     */
+    @Test
+    void completePayment_Approved_ShouldApproveOrder() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        testOrder.getItems().add(orderItem);
+        testOrder.setShippingAddress(testAddress);
+        Payment payment = new Payment();
+        payment.setId(20L);
+        payment.setOrder(testOrder);
+        when(paymentRepository.findById(20L)).thenReturn(Optional.of(payment));
+
+        orderService.completePayment(20L, GatewayResult.approved("CREDIT_CARD-20"));
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(payment.getGatewayReference()).isEqualTo("CREDIT_CARD-20");
+        assertThat(payment.getPaidAt()).isNotNull();
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.APPROVED);
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.SOLD);
+        verify(deliveryRepository).save(any(Delivery.class));
+        verify(eventPublisher).publishEvent(any(OrderApprovedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PaymentCompletedEvent completed
+                && completed.getPaymentId().equals(20L) && completed.getStatus() == PaymentStatus.SUCCESS));
+
+        // A second answer for the same payment is ignored
+        orderService.completePayment(20L, GatewayResult.declined("late"));
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    /**
+     * Tests settling a declined asynchronous payment: the payment fails, the
+     * order stays placed, and units of a pet sold by quantity go back in
+     * stock, making a pet sold out by the payment available again.
+     */
+    @Test
+    void completePayment_Declined_ShouldFailPaymentAndRestoreStock() {
+        testPet.setStockQuantity(0);
+        testPet.setStatus(PetStatus.SOLD);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        orderItem.setQuantity(2);
+        testOrder.getItems().add(orderItem);
+        Payment payment = new Payment();
+        payment.setId(21L);
+        payment.setOrder(testOrder);
+        when(paymentRepository.findById(21L)).thenReturn(Optional.of(payment));
+        when(stockReservations.restore(100L, 2)).thenReturn(2);
+
+        orderService.completePayment(21L, GatewayResult.declined("Declined by CREDIT_CARD"));
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(payment.getFailureReason()).isEqualTo("Declined by CREDIT_CARD");
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.PLACED);
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+        assertThat(testPet.getStockQuantity()).isEqualTo(2);
+        verify(petRepository).save(testPet);
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PaymentCompletedEvent completed
+                && completed.getStatus() == PaymentStatus.FAILED));
+    }
+
+    /**
+     * Tests settling an approved asynchronous payment whose order was
+     * cancelled while the gateway was charging it (edge case): the payment
+     * fails with its gateway reference kept for the refund, the order stays
+     * cancelled and units of a pet sold by quantity go back in stock.
+     */
+    @Test
+    void completePayment_ApprovedForCancelledOrder_ShouldFailPaymentAndRestoreStock() {
+        testPet.setStockQuantity(0);
+        testPet.setStatus(PetStatus.SOLD);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        orderItem.setOrder(testOrder);
+        orderItem.setQuantity(1);
+        testOrder.getItems().add(orderItem);
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        Payment payment = new Payment();
+        payment.setId(22L);
+        payment.setOrder(testOrder);
+        when(paymentRepository.findById(22L)).thenReturn(Optional.of(payment));
+        when(stockReservations.restore(100L, 1)).thenReturn(1);
+
+        orderService.completePayment(22L, GatewayResult.approved("CREDIT_CARD-22"));
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(payment.getGatewayReference()).isEqualTo("CREDIT_CARD-22");
+        assertThat(payment.getFailureReason()).contains("CANCELLED");
+        assertThat(payment.getPaidAt()).isNull();
+        assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(testPet.getStatus()).isEqualTo(PetStatus.AVAILABLE);
+        assertThat(testPet.getStockQuantity()).isEqualTo(1);
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+        verify(eventPublisher, never()).publishEvent(any(OrderApprovedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PaymentCompletedEvent completed
+                && completed.getStatus() == PaymentStatus.FAILED));
     }
 
     /**
@@ -456,19 +792,23 @@ class OrderServiceTest {
         req.setPaymentType(CREDIT_CARD);
         req.setPaymentNote("Paid");
         req.setShippingAddressId(999L);
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(testOrder));
         when(addressRepository.findById(999L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> orderService.makePayment(10L, req))
                 .isInstanceOf(AddressNotFoundException.class);
-        verify(orderRepository).findById(10L);
+        verify(orderRepository).findByIdForUpdate(10L);
         verify(addressRepository).findById(999L);
     }
 
     /**
-     * Tests cancelling an order.
+     * Tests cancelling an order, which releases its pet reservations and
+     * tells its owner.
      */
     @Test
     void cancelOrder_ShouldCancelOrder() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setPet(testPet);
+        testOrder.getItems().add(orderItem);
         when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
         when(auditLogRepository.save(any(AuditLog.class))).thenReturn(null);
@@ -476,7 +816,10 @@ class OrderServiceTest {
         assertThat(testOrder.getStatus()).isEqualTo(OrderStatus.CANCELLED);
         verify(orderRepository).findById(10L);
         verify(orderRepository).save(testOrder);
+        verify(petReservations).releaseOrder(10L, List.of(100L));
         verify(auditLogRepository).save(any(AuditLog.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderStatusChangedEvent changed
+                && changed.getOrderId().equals(10L) && changed.getOrderStatus() == OrderStatus.CANCELLED));
     }
 
     /**
@@ -569,10 +912,10 @@ class OrderServiceTest {
      */
     @Test
     void isOrderOwnedByUser_ShouldReturnTrue() {
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.existsByIdAndUserId(10L, 1L)).thenReturn(true);
         boolean owned = orderService.isOrderOwnedByUser(10L, 1L);
         assertThat(owned).isTrue();
-        verify(orderRepository).findById(10L);
+        verify(orderRepository).existsByIdAndUserId(10L, 1L);
     }
 
     /**
@@ -580,10 +923,10 @@ class OrderServiceTest {
      */
     @Test
     void isOrderOwnedByUser_ShouldReturnFalse() {
-        when(orderRepository.findById(10L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.existsByIdAndUserId(10L, 2L)).thenReturn(false);
         boolean owned = orderService.isOrderOwnedByUser(10L, 2L);
         assertThat(owned).isFalse();
-        verify(orderRepository).findById(10L);
+        verify(orderRepository).existsByIdAndUserId(10L, 2L);
     }
 
     /**
@@ -0,0 +1,119 @@
+package com.petstore.service;
+
+import com.petstore.event.PetAlertChangedEvent;
+import com.petstore.exception.InvalidPetAlertException;
+import com.petstore.exception.PetAlertNotFoundException;
+import com.petstore.model.PetAlert;
+import com.petstore.model.User;
+import com.petstore.repository.PetAlertMatchRepository;
+import com.petstore.repository.PetAlertRepository;
+import com.petstore.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PetAlertService} covering alert creation, deletion and validation.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Alert Service Tests")
+class PetAlertServiceTest {
+
+    @Mock
+    private PetAlertRepository petAlertRepository;
+    @Mock
+    private PetAlertMatchRepository petAlertMatchRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private PetAlertService petAlertService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setId(1L);
+    }
+
+    /**
+     * Test: creating an alert normalizes the tag, saves it for the user and
+     * publishes it for the alert index.
+     */
+    @Test
+    @DisplayName("Create alert - Should save normalized alert and publish it")
+    void createAlert_ShouldSaveNormalizedAlertAndPublish() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(petAlertRepository.save(any(PetAlert.class))).thenAnswer(invocation -> {
+            PetAlert alert = invocation.getArgument(0);
+            alert.setId(5L);
+            return alert;
+        });
+
+        PetAlert created = petAlertService.createAlert(1L,
+                new PetAlert(2L, "  Golden Retriever ", null, new BigDecimal("1000")));
+
+        assertThat(created.getTag()).isEqualTo("golden retriever");
+        assertThat(created.getUser()).isSameAs(testUser);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PetAlertChangedEvent changed
+                && changed.getAlertId() == 5L && !changed.isDeleted() && changed.getCategoryId() == 2L));
+    }
+
+    /**
+     * Test: alerts without criteria, with an inverted price range, or beyond
+     * the per-user limit are rejected.
+     */
+    @Test
+    @DisplayName("Create alert - Should reject invalid alerts")
+    void createAlert_ShouldRejectInvalidAlerts() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertThatThrownBy(() -> petAlertService.createAlert(1L, new PetAlert(null, " ", null, null)))
+                .isInstanceOf(InvalidPetAlertException.class);
+        assertThatThrownBy(() -> petAlertService.createAlert(1L,
+                new PetAlert(null, null, new BigDecimal("500"), new BigDecimal("100"))))
+                .isInstanceOf(InvalidPetAlertException.class);
+        when(petAlertRepository.countByUserId(1L)).thenReturn((long) PetAlertService.MAX_ALERTS_PER_USER);
+        assertThatThrownBy(() -> petAlertService.createAlert(1L, new PetAlert(2L, null, null, null)))
+                .isInstanceOf(InvalidPetAlertException.class);
+        verify(petAlertRepository, never()).save(any());
+    }
+
+    /**
+     * Test: deleting an alert removes its matches and publishes the deletion;
+     * another user's alert is not found.
+     */
+    @Test
+    @DisplayName("Delete alert - Should delete own alert with its matches")
+    void deleteAlert_ShouldDeleteOwnAlertWithMatches() {
+        PetAlert alert = new PetAlert(2L, null, null, null);
+        alert.setId(5L);
+        when(petAlertRepository.findByIdAndUserId(5L, 1L)).thenReturn(Optional.of(alert));
+        when(petAlertRepository.findByIdAndUserId(6L, 1L)).thenReturn(Optional.empty());
+
+        petAlertService.deleteAlert(1L, 5L);
+
+        verify(petAlertMatchRepository).deleteByAlertId(5L);
+        verify(petAlertRepository).delete(alert);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PetAlertChangedEvent changed
+                && changed.getAlertId() == 5L && changed.isDeleted()));
+        assertThatThrownBy(() -> petAlertService.deleteAlert(1L, 6L))
+                .isInstanceOf(PetAlertNotFoundException.class);
+    }
+}
@@ -1,25 +1,49 @@
 package com.petstore.service;
 
 import com.petstore.model.Pet;
+import com.petstore.dto.PetFacetsResponse;
+import com.petstore.dto.PetSuggestion;
+import com.petstore.enums.PetSort;
 import com.petstore.enums.PetStatus;
 import com.petstore.enums.Role;
+import com.petstore.enums.SuggestionType;
 import com.petstore.exception.InvalidPetException;
 import com.petstore.exception.PetNotFoundException;
 import com.petstore.model.Category;
 import com.petstore.model.User;
 import com.petstore.repository.PetRepository;
 import com.petstore.repository.CategoryRepository;
+import com.petstore.reservation.PetReservations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.exception.CategoryNotFoundException;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.analytics.PetViewCounter;
+import com.petstore.index.PetCatalogSnapshot;
+import com.petstore.index.PetFacetIndex;
+import com.petstore.index.PetSimilarityIndex;
+import com.petstore.index.PetSuggestionIndex;
+import org.springframework.context.ApplicationEventPublisher;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -45,6 +69,30 @@ class PetServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private PetFacetIndex petFacetIndex;
+
+    @Mock
+    private PetCatalogSnapshot petCatalogSnapshot;
+
+    @Mock
+    private PetSuggestionIndex petSuggestionIndex;
+
+    @Mock
+    private PetSimilarityIndex petSimilarityIndex;
+
+    @Mock
+    private PetViewCounter petViewCounter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PetReservations petReservations;
+
     @InjectMocks
     private PetService petService;
 
@@ -128,6 +176,9 @@ class PetServiceTest {
         assertThat(savedPet).isNotNull();
         assertThat(savedPet.getName()).isEqualTo("Buddy");
         verify(petRepository).save(testPet);
+        verify(eventPublisher).publishEvent(argThat((PetChangedEvent event) -> !event.isDeleted()
+                && event.getPetId().equals(1L) && event.getCategoryId().equals(1L)
+                && event.getStatus() == PetStatus.AVAILABLE));
     }
 
     /**
@@ -143,6 +194,8 @@ class PetServiceTest {
 
         verify(petRepository).findById(1L);
         verify(petRepository).delete(testPet);
+        verify(eventPublisher).publishEvent(argThat((PetChangedEvent event) -> event.isDeleted()
+                && event.getPetId().equals(1L)));
     }
 
     /**
@@ -158,7 +211,8 @@ class PetServiceTest {
                 .isInstanceOf(PetNotFoundException.class)
                 .hasMessageContaining("Pet not found with ID '999'");
         verify(petRepository).findById(999L);
-        verify(petRepository, never()).delete(any());
+        verify(petRepository, never()).delete(any(Pet.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     /**
@@ -280,14 +334,378 @@ class PetServiceTest {
         List<Pet> pets = Arrays.asList(testPet);
         org.springframework.data.domain.Page<Pet> petPage = new org.springframework.data.domain.PageImpl<>(pets);
         // Mock repository method
-        when(petRepository.findPetsByFiltersPaginated(eq("Buddy"), eq(1L), eq(PetStatus.AVAILABLE), eq(1L), any()))
-                .thenReturn(petPage);
+        when(petRepository.findPetsByFiltersPaginated(eq("Buddy"), eq(1L), eq(PetStatus.AVAILABLE), eq(null),
+                eq(null), eq(null), eq(1L), any())).thenReturn(petPage);
 
         org.springframework.data.domain.Page<Pet> result = petService.findPetsByFiltersPaginated("Buddy", 1L,
                 PetStatus.AVAILABLE, 1L, 0, 10);
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getName()).isEqualTo("Buddy");
-        verify(petRepository).findPetsByFiltersPaginated(eq("Buddy"), eq(1L), eq(PetStatus.AVAILABLE), eq(1L), any());
+        verify(petRepository).findPetsByFiltersPaginated(eq("Buddy"), eq(1L), eq(PetStatus.AVAILABLE), eq(null),
+                eq(null), eq(null), eq(1L), any());
+    }
+
+    /**
+     * Test: Should page in the requested sort order, defaulting to newest first.
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should pass the sort option to the repository")
+    void findPetsByFiltersPaginated_ShouldPassSortToRepository() {
+        when(petRepository.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), any(),
+                any(Pageable.class)))
+                .thenReturn(new org.springframework.data.domain.PageImpl<>(List.of()));
+
+        petService.findPetsByFiltersPaginated(null, null, PetStatus.AVAILABLE, null, PetSort.PRICE_ASC, 3, 20);
+        petService.findPetsByFiltersPaginated(null, null, null, null, 0, 10);
+
+        verify(petRepository).findPetsByFiltersPaginated(null, null, PetStatus.AVAILABLE, null, null, null, null,
+                PageRequest.of(3, 20, Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"))));
+        verify(petRepository).findPetsByFiltersPaginated(null, null, null, null, null, null, null,
+                PageRequest.of(0, 10, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))));
+    }
+
+    /**
+     * Test: Should answer a price-range page from the catalog snapshot and
+     * load only the page's pets, in the snapshot's order.
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should answer price queries from the catalog snapshot")
+    void findPetsByFiltersPaginated_WhenPriceQuery_ShouldUseCatalogSnapshot() {
+        Pet cheaper = new Pet("Cheaper", testCategory, new BigDecimal("50.00"));
+        cheaper.setId(2L);
+        when(petCatalogSnapshot.isReady()).thenReturn(true);
+        when(petCatalogSnapshot.find(1L, PetStatus.AVAILABLE, new BigDecimal("10"), new BigDecimal("500"),
+                PetSort.PRICE_ASC, 20, 10)).thenReturn(new PetCatalogSnapshot.Matches(new long[] { 2L, 1L }, 22));
+        when(petRepository.findAllWithCategoryByIdIn(List.of(2L, 1L))).thenReturn(List.of(testPet, cheaper));
+
+        org.springframework.data.domain.Page<Pet> result = petService.findPetsByFiltersPaginated(null, 1L,
+                PetStatus.AVAILABLE, new BigDecimal("10"), new BigDecimal("500"), null, PetSort.PRICE_ASC, 2, 10);
+
+        assertThat(result.getContent()).containsExactly(cheaper, testPet);
+        assertThat(result.getTotalElements()).isEqualTo(22);
+        assertThat(result.getNumber()).isEqualTo(2);
+        verify(petRepository, never()).findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), any(),
+                any(Pageable.class));
+    }
+
+    /**
+     * Test: Should keep name-filtered, deep and not-yet-loaded price queries
+     * on the database.
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should fall back to the database when the snapshot can't answer")
+    void findPetsByFiltersPaginated_WhenSnapshotCannotAnswer_ShouldQueryRepository() {
+        when(petRepository.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), any(),
+                any(Pageable.class)))
+                .thenReturn(new org.springframework.data.domain.PageImpl<>(List.of()));
+        BigDecimal max = new BigDecimal("100");
+
+        petService.findPetsByFiltersPaginated("Bud", null, null, null, max, null, PetSort.PRICE_ASC, 0, 10);
+        petService.findPetsByFiltersPaginated(null, null, null, null, max, null, PetSort.NAME, 0, 10);
+        petService.findPetsByFiltersPaginated(null, null, null, null, max, null, PetSort.PRICE_ASC, 1000, 10);
+        petService.findPetsByFiltersPaginated(null, null, null, null, max, null, PetSort.PRICE_ASC, 0, 10);
+
+        verify(petRepository, times(4)).findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), any(),
+                any(Pageable.class));
+        verify(petCatalogSnapshot, never()).find(any(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    /**
+     * Test: Should pass tags to the repository, even for a price query the
+     * catalog snapshot could otherwise answer.
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should query tag filters from the database")
+    void findPetsByFiltersPaginated_WhenTagged_ShouldQueryRepository() {
+        lenient().when(petCatalogSnapshot.isReady()).thenReturn(true);
+        when(petRepository.findPetsByFiltersPaginated(any(), any(), any(), any(), any(), any(), any(),
+                any(Pageable.class))).thenReturn(new org.springframework.data.domain.PageImpl<>(List.of()));
+        BigDecimal max = new BigDecimal("100");
+
+        petService.findPetsByFiltersPaginated(null, null, null, null, max, List.of("friendly"), null,
+                PetSort.PRICE_ASC, 0, 10);
+
+        verify(petRepository).findPetsByFiltersPaginated(null, null, null, null, max, List.of("friendly"), null,
+                PageRequest.of(0, 10, PetSort.PRICE_ASC.getSort()));
+        verify(petCatalogSnapshot, never()).find(any(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    /**
+     * Test: Should reject a price range whose minimum is above its maximum.
+     */
+    @Test
+    @DisplayName("Find pets by filters paginated - Should reject an inverted price range")
+    void findPetsByFiltersPaginated_WhenMinPriceAboveMax_ShouldThrow() {
+        assertThatThrownBy(() -> petService.findPetsByFiltersPaginated(null, null, null, new BigDecimal("10"),
+                new BigDecimal("5"), null, PetSort.NEWEST, 0, 10))
+                .isInstanceOf(InvalidPetException.class)
+                .hasMessageContaining("minPrice");
+    }
+
+    /**
+     * Test: Should answer facet counts from the facet index.
+     */
+    @Test
+    @DisplayName("Get facets - Should delegate to the facet index")
+    void getFacets_ShouldDelegateToFacetIndex() {
+        PetFacetsResponse facets = new PetFacetsResponse(1, Map.of(1L, 1L), Map.of(PetStatus.AVAILABLE, 1L),
+                Map.of("friendly", 1L));
+        when(petFacetIndex.facets(1L, PetStatus.AVAILABLE, List.of("friendly"))).thenReturn(facets);
+
+        assertThat(petService.getFacets(1L, PetStatus.AVAILABLE, List.of("friendly"))).isSameAs(facets);
+        verifyNoInteractions(petRepository);
+    }
+
+    /**
+     * Test: Should answer suggestions from the suggestion index.
+     */
+    @Test
+    @DisplayName("Suggest - Should delegate to the suggestion index")
+    void suggest_ShouldDelegateToSuggestionIndex() {
+        List<PetSuggestion> suggestions = List.of(new PetSuggestion("Buddy", SuggestionType.NAME, 3));
+        when(petSuggestionIndex.suggest("bud", 5)).thenReturn(suggestions);
+
+        assertThat(petService.suggest("bud", 5)).isSameAs(suggestions);
+        verifyNoInteractions(petRepository);
+    }
+
+    /**
+     * Test: Should reject a suggestion limit outside 1 to the index's maximum.
+     */
+    @Test
+    @DisplayName("Suggest - Should reject an out-of-range limit")
+    void suggest_WhenLimitOutOfRange_ShouldThrow() {
+        assertThatThrownBy(() -> petService.suggest("bud", 0)).isInstanceOf(InvalidPetException.class);
+        assertThatThrownBy(() -> petService.suggest("bud", PetSuggestionIndex.MAX_SUGGESTIONS + 1))
+                .isInstanceOf(InvalidPetException.class);
+        verifyNoInteractions(petSuggestionIndex);
+    }
+
+    /**
+     * Test: Should match the stored pet against the similarity index and load
+     * the similar pets in the index's order.
+     */
+    @Test
+    @DisplayName("Get similar pets - Should load the similarity index's matches in order")
+    void getSimilarPets_ShouldLoadIndexMatchesInOrder() {
+        Pet first = new Pet("Rex", testCategory, new BigDecimal("250.00"));
+        first.setId(3L);
+        Pet second = new Pet("Max", testCategory, new BigDecimal("199.00"));
+        second.setId(2L);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(petSimilarityIndex.similar(any(PetChangedEvent.class), eq(6))).thenReturn(new long[] { 3L, 2L });
+        when(petRepository.findAllWithCategoryByIdIn(List.of(3L, 2L))).thenReturn(List.of(second, first));
+
+        assertThat(petService.getSimilarPets(1L, 6)).containsExactly(first, second);
+        verify(petSimilarityIndex).similar(argThat(event -> event.getPetId().equals(1L)
+                && event.getTags().equals(List.of("friendly", "energetic"))), eq(6));
+    }
+
+    /**
+     * Test: Should reject an unknown pet and an out-of-range limit.
+     */
+    @Test
+    @DisplayName("Get similar pets - Should reject an unknown pet or an out-of-range limit")
+    void getSimilarPets_WhenPetMissingOrLimitOutOfRange_ShouldThrow() {
+        when(petRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> petService.getSimilarPets(99L, 6)).isInstanceOf(PetNotFoundException.class);
+        assertThatThrownBy(() -> petService.getSimilarPets(1L, 0)).isInstanceOf(InvalidPetException.class);
+        assertThatThrownBy(() -> petService.getSimilarPets(1L, PetSimilarityIndex.MAX_SIMILAR + 1))
+                .isInstanceOf(InvalidPetException.class);
+        verifyNoInteractions(petSimilarityIndex);
+    }
+
+    /**
+     * Test: Should count a view of an existing pet, and not of a missing one.
+     */
+    @Test
+    @DisplayName("View pet - Should return the pet and count the view")
+    void viewPet_ShouldReturnPetAndCountView() {
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(petRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThat(petService.viewPet(1L)).isSameAs(testPet);
+        assertThatThrownBy(() -> petService.viewPet(99L)).isInstanceOf(PetNotFoundException.class);
+        verify(petViewCounter).recordView(1L);
+        verifyNoMoreInteractions(petViewCounter);
+    }
+
+    /**
+     * Test: Should load the ranked pets in order, skipping unavailable ones,
+     * up to the limit.
+     */
+    @Test
+    @DisplayName("Get popular pets - Should return available ranked pets up to the limit")
+    void getPopularPets_ShouldReturnAvailableRankedPets() {
+        Pet sold = new Pet("Sold", testCategory, new BigDecimal("80.00"));
+        sold.setId(2L);
+        sold.setStatus(PetStatus.SOLD);
+        Pet third = new Pet("Rex", testCategory, new BigDecimal("250.00"));
+        third.setId(3L);
+        Pet fourth = new Pet("Max", testCategory, new BigDecimal("199.00"));
+        fourth.setId(4L);
+        when(petViewCounter.popular()).thenReturn(new long[] { 2L, 3L, 1L, 4L });
+        when(petRepository.findAllWithCategoryByIdIn(List.of(2L, 3L, 1L, 4L)))
+                .thenReturn(List.of(testPet, fourth, third, sold));
+
+        assertThat(petService.getPopularPets(2)).containsExactly(third, testPet);
+        assertThatThrownBy(() -> petService.getPopularPets(PetService.MAX_POPULAR_PETS + 1))
+                .isInstanceOf(InvalidPetException.class);
+    }
+
+    /**
+     * Test: Should only change the price and skip the category lookup.
+     */
+    @Test
+    @DisplayName("Patch pet - Should update only the price without a category lookup")
+    void patchPet_WhenPriceOnly_ShouldUpdatePriceWithoutCategoryLookup() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Pet patched = petService.patchPet(1L, json("{\"price\": 349.50}"));
+
+        assertThat(patched.getPrice()).isEqualByComparingTo("349.50");
+        assertThat(patched.getName()).isEqualTo("Buddy");
+        assertThat(patched.getTags()).containsExactly("friendly", "energetic");
+        verify(petRepository).save(testPet);
+        verifyNoInteractions(categoryRepository);
+    }
+
+    /**
+     * Test: Should restock a pet sold by quantity and reject invalid stock.
+     */
+    @Test
+    @DisplayName("Patch pet - Should set the stock quantity and reject invalid ones")
+    void patchPet_WhenStockQuantity_ShouldRestock() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Pet patched = petService.patchPet(1L, json("{\"stockQuantity\": 25}"));
+
+        assertThat(patched.getStockQuantity()).isEqualTo(25);
+        assertThat(patched.isStocked()).isTrue();
+        verify(petRepository).save(testPet);
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"stockQuantity\": 2.5}")))
+                .isInstanceOf(InvalidPetException.class);
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"stockQuantity\": -1}")))
+                .isInstanceOf(InvalidPetException.class)
+                .hasMessageContaining("Stock quantity cannot be negative");
+    }
+
+    /**
+     * Test: Should skip the save when the patch does not change anything.
+     */
+    @Test
+    @DisplayName("Patch pet - Should not save when nothing changes")
+    void patchPet_WhenValuesUnchanged_ShouldNotSave() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+
+        Pet patched = petService.patchPet(1L, json(
+                "{\"name\": \"Buddy\", \"price\": 299.990, \"tags\": [\"friendly\", \"energetic\"], \"category\": {\"id\": 1}}"));
+
+        assertThat(patched).isSameAs(testPet);
+        verify(petRepository, never()).save(any());
+        verifyNoInteractions(categoryRepository, eventPublisher);
+    }
+
+    /**
+     * Test: Should look up the category only when it changes.
+     */
+    @Test
+    @DisplayName("Patch pet - Should look up the category when it changes")
+    void patchPet_WhenCategoryChanges_ShouldLookUpCategory() throws Exception {
+
+        Category cats = new Category("Cats");
+        cats.setId(2L);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(categoryRepository.findById(2L)).thenReturn(Optional.of(cats));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Pet patched = petService.patchPet(1L, json("{\"category\": {\"id\": 2}, \"description\": null}"));
+
+        assertThat(patched.getCategory()).isEqualTo(cats);
+        assertThat(patched.getDescription()).isNull();
+        verify(categoryRepository).findById(2L);
+    }
+
+    /**
+     * Test: Should throw CategoryNotFoundException for an unknown category.
+     */
+    @Test
+    @DisplayName("Patch pet - Should throw CategoryNotFoundException for unknown category")
+    void patchPet_WhenCategoryNotFound_ShouldThrowException() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+        when(categoryRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"category\": {\"id\": 9}}")))
+                .isInstanceOf(CategoryNotFoundException.class);
+        verify(petRepository, never()).save(any());
+    }
+
+    /**
+     * Test: Should reject removing a required field.
+     */
+    @Test
+    @DisplayName("Patch pet - Should reject null for a required field")
+    void patchPet_WhenRequiredFieldRemoved_ShouldThrowException() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"name\": null}")))
+                .isInstanceOf(InvalidPetException.class)
+                .hasMessageContaining("'name'");
+        verify(petRepository, never()).save(any());
+    }
+
+    /**
+     * Test: Should reject a patch that leaves the pet invalid.
+     */
+    @Test
+    @DisplayName("Patch pet - Should reject values that fail bean validation")
+    void patchPet_WhenResultInvalid_ShouldThrowException() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"price\": -5}")))
+                .isInstanceOf(InvalidPetException.class)
+                .hasMessageContaining("Price must be positive");
+        verify(petRepository, never()).save(any());
+    }
+
+    /**
+     * Test: Should reject fields that cannot be patched.
+     */
+    @Test
+    @DisplayName("Patch pet - Should reject fields that cannot be patched")
+    void patchPet_WhenFieldNotPatchable_ShouldThrowException() throws Exception {
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(testPet));
+
+        assertThatThrownBy(() -> petService.patchPet(1L, json("{\"createdBy\": 5}")))
+                .isInstanceOf(InvalidPetException.class)
+                .hasMessageContaining("'createdBy' cannot be patched");
+    }
+
+    /**
+     * Test: Should throw PetNotFoundException when patching a missing pet.
+     */
+    @Test
+    @DisplayName("Patch pet - Should throw PetNotFoundException when pet not found")
+    void patchPet_WhenPetNotFound_ShouldThrowException() throws Exception {
+
+        when(petRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> petService.patchPet(999L, json("{\"price\": 10}")))
+                .isInstanceOf(PetNotFoundException.class);
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return new ObjectMapper().readTree(content);
     }
-}
\ No newline at end of file
+}
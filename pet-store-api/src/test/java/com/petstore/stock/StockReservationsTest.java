@@ -0,0 +1,154 @@
+package com.petstore.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.config.JpaAuditingConfig;
+import com.petstore.event.PetChangedEvent;
+import com.petstore.exception.PetOutOfStockException;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.repository.CategoryRepository;
+import com.petstore.repository.PetRepository;
+
+/**
+ * Tests for {@link StockReservations} against the H2 test database, on a
+ * clock the tests move. Runs without a test transaction, so every write
+ * commits.
+ */
+@DataJpaTest
+@Import(JpaAuditingConfig.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Stock Reservations Tests")
+class StockReservationsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    private long now;
+
+    private StockReservations stockReservations;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long petId;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now));
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        now = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+        stockReservations = new StockReservations(jdbcTemplate, clock, 4);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Pet pet = new Pet("Neon Tetra", categoryRepository.save(new Category("Fish")), new BigDecimal("2.50"));
+        pet.setStockQuantity(10);
+        petId = petRepository.save(pet).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        petRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    /**
+     * Test: units are taken from the row and the mirror alike; once the
+     * mirror has run out, buyers are turned away without reaching the row.
+     */
+    @Test
+    @DisplayName("Take - Should decrement stock and turn buyers away from memory once sold out")
+    void take_ShouldDecrementAndTurnAwayFromMemoryWhenSoldOut() {
+        assertThat(take(4)).isEqualTo(6);
+        assertThat(take(6)).isZero();
+        assertThat(stock()).isZero();
+        assertThat(stockReservations.available(petId)).isZero();
+
+        // Restocked behind the mirror's back: refused until the mirror is
+        // old enough to be read again
+        jdbcTemplate.update("UPDATE pets SET stock_quantity = 5 WHERE id = ?", petId);
+        assertThatThrownBy(() -> take(1)).isInstanceOf(PetOutOfStockException.class);
+        assertThat(stock()).isEqualTo(5);
+        now += StockReservations.REFRESH_MILLIS;
+        assertThat(take(2)).isEqualTo(3);
+    }
+
+    /**
+     * Test: a rolled back payment puts its units back in the mirror, and the
+     * row is unchanged.
+     */
+    @Test
+    @DisplayName("Take - Should put units back when the transaction rolls back")
+    void take_ShouldPutUnitsBackOnRollback() {
+        transactionTemplate.executeWithoutResult(status -> {
+            stockReservations.take(petId, 3);
+            status.setRollbackOnly();
+        });
+
+        assertThat(stock()).isEqualTo(10);
+        assertThat(stockReservations.available(petId)).isEqualTo(10);
+    }
+
+    /**
+     * Test: when the row has fewer units than the mirror thinks, the
+     * decrement is refused and the mirror is read again on next use, as it
+     * is after a pet change.
+     */
+    @Test
+    @DisplayName("Take - Should trust the row over a stale mirror")
+    void take_ShouldTrustTheRowOverAStaleMirror() {
+        take(1);
+        jdbcTemplate.update("UPDATE pets SET stock_quantity = 2 WHERE id = ?", petId);
+
+        assertThatThrownBy(() -> take(5)).isInstanceOf(PetOutOfStockException.class);
+        assertThat(stock()).isEqualTo(2);
+        assertThat(stockReservations.available(petId)).isNull();
+        assertThat(take(2)).isZero();
+
+        jdbcTemplate.update("UPDATE pets SET stock_quantity = 8 WHERE id = ?", petId);
+        stockReservations.onPetChanged(PetChangedEvent.deleted(petId));
+        assertThat(stockReservations.available(petId)).isNull();
+        assertThat(take(8)).isZero();
+    }
+
+    private int take(int quantity) {
+        return transactionTemplate.execute(status -> stockReservations.take(petId, quantity));
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM pets WHERE id = ?", Integer.class, petId);
+    }
+}
@@ -0,0 +1,86 @@
+package com.petstore.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link StripedStock}.
+ */
+@DisplayName("Striped Stock Tests")
+class StripedStockTest {
+
+    /**
+     * Test: units are spread over the stripes, a request is taken all or
+     * none across stripes, and units put back can be taken again.
+     */
+    @Test
+    @DisplayName("Take - Should take across stripes all or none")
+    void tryTake_ShouldTakeAcrossStripesAllOrNone() {
+        StripedStock stock = new StripedStock(10, 4, 0);
+        assertThat(stock.available()).isEqualTo(10);
+
+        assertThat(stock.tryTake(7)).isTrue();
+        assertThat(stock.tryTake(4)).isFalse();
+        assertThat(stock.available()).isEqualTo(3);
+        assertThat(stock.tryTake(3)).isTrue();
+        assertThat(stock.tryTake(1)).isFalse();
+
+        stock.put(2);
+        assertThat(stock.tryTake(2)).isTrue();
+        assertThat(stock.available()).isZero();
+    }
+
+    /**
+     * Test: many threads taking random amounts never take more units than
+     * there were, and leave none that a single unit could still take.
+     */
+    @Test
+    @DisplayName("Take - Should never oversell under concurrent buyers")
+    void tryTake_ShouldNeverOversellUnderConcurrentBuyers() throws Exception {
+        StripedStock stock = new StripedStock(10_000, 8, 0);
+        AtomicLong taken = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    int failures = 0;
+                    while (failures < 100) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        if (stock.tryTake(quantity)) {
+                            taken.addAndGet(quantity);
+                        } else {
+                            failures++;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(taken.get() + stock.available()).isEqualTo(10_000);
+        while (stock.tryTake(1)) {
+            taken.incrementAndGet();
+        }
+        assertThat(taken).hasValue(10_000);
+    }
+}
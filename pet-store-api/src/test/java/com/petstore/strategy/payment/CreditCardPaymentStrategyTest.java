@@ -48,7 +48,8 @@ public class CreditCardPaymentStrategyTest {
     }
 
     /**
-     * Test to verify that processing payment sets the payment note correctly
+     * Test to verify that processing payment sets the payment note to the
+     * masked card number
      */
     @Test
     @DisplayName("Should process credit card payment successfully")
@@ -56,7 +57,7 @@ public class CreditCardPaymentStrategyTest {
         strategy.processPayment(payment, request);
         
         assertNotNull(payment.getPaymentNote());
-        assertEquals("4111111111111111", payment.getPaymentNote());
+        assertEquals("************1111", payment.getPaymentNote());
     }
 
     /**
@@ -45,7 +45,8 @@ public class DebitCardPaymentStrategyTest {
     }
 
     /**
-     * Test to verify that processing payment sets the payment note correctly
+     * Test to verify that processing payment sets the payment note to the
+     * masked card number
      */
     @Test
     @DisplayName("Should process debit card payment successfully")
@@ -53,7 +54,7 @@ public class DebitCardPaymentStrategyTest {
         strategy.processPayment(payment, request);
         
         assertNotNull(payment.getPaymentNote());
-        assertEquals("9876-5432-1098-7654", payment.getPaymentNote());
+        assertEquals("****-****-****-7654", payment.getPaymentNote());
     }
 
     /**
@@ -0,0 +1,241 @@
+package com.petstore.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.petstore.enums.DeliveryStatus;
+import com.petstore.enums.OrderStatus;
+import com.petstore.event.OrderStatusChangedEvent;
+
+/**
+ * Tests for {@link OrderStatusHub}, with emitters that record what is sent
+ * and can be made to stall like a slow client or fail like a gone one.
+ */
+@DisplayName("Order Status Hub Tests")
+class OrderStatusHubTest {
+
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private OrderStatusHub hub;
+
+    private boolean stallNext;
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(emitter -> emitter.gate.countDown());
+        hub.close();
+    }
+
+    /**
+     * Test: a change is sent to every stream its owner has open, and to no
+     * one else's.
+     */
+    @Test
+    @DisplayName("Fans changes out to the owner's streams")
+    void fansOutToOwnersStreams() throws InterruptedException {
+        hub = hub(5, 100);
+        RecordingEmitter first = subscribe(1L);
+        RecordingEmitter second = subscribe(1L);
+        RecordingEmitter other = subscribe(2L);
+        assertThat(first.next()).isEqualTo(HEARTBEAT);
+        assertThat(second.next()).isEqualTo(HEARTBEAT);
+        assertThat(other.next()).isEqualTo(HEARTBEAT);
+
+        hub.onOrderStatusChanged(change(10, OrderStatus.APPROVED, DeliveryStatus.PENDING));
+
+        assertThat(first.next()).isEqualTo(change(10, OrderStatus.APPROVED, DeliveryStatus.PENDING).toString());
+        assertThat(second.next()).isEqualTo(change(10, OrderStatus.APPROVED, DeliveryStatus.PENDING).toString());
+        assertThat(other.sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(hub.streamCount()).isEqualTo(3);
+    }
+
+    /**
+     * Test: while a client is slow to read, its pending changes are kept one
+     * per order, latest last, and sent once it catches up.
+     */
+    @Test
+    @DisplayName("Coalesces the changes a slow client has not read")
+    void coalescesChangesForSlowClient() throws InterruptedException {
+        hub = hub(5, 100);
+        RecordingEmitter emitter = subscribeStalled(1L);
+
+        hub.onOrderStatusChanged(change(10, OrderStatus.APPROVED, DeliveryStatus.PENDING));
+        hub.onOrderStatusChanged(change(11, OrderStatus.APPROVED, DeliveryStatus.PENDING));
+        hub.onOrderStatusChanged(change(10, OrderStatus.APPROVED, DeliveryStatus.SHIPPED));
+        hub.onOrderStatusChanged(change(10, OrderStatus.DELIVERED, DeliveryStatus.DELIVERED));
+        emitter.gate.countDown();
+
+        assertThat(emitter.next()).isEqualTo(HEARTBEAT);
+        assertThat(emitter.next()).isEqualTo(change(11, OrderStatus.APPROVED, DeliveryStatus.PENDING).toString());
+        assertThat(emitter.next()).isEqualTo(change(10, OrderStatus.DELIVERED, DeliveryStatus.DELIVERED).toString());
+        assertThat(emitter.sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    /**
+     * Test: a stream that falls more orders behind than allowed is closed,
+     * once its client reads again, and forgotten.
+     */
+    @Test
+    @DisplayName("Closes a stream that falls too far behind")
+    void closesStreamFallingBehind() {
+        hub = hub(5, 2);
+        RecordingEmitter emitter = subscribeStalled(1L);
+
+        for (long orderId = 10; orderId < 13; orderId++) {
+            hub.onOrderStatusChanged(change(orderId, OrderStatus.CANCELLED, null));
+        }
+        emitter.gate.countDown();
+
+        awaitTrue(() -> emitter.completed);
+        assertThat(emitter.sent).containsExactly(HEARTBEAT);
+        assertThat(hub.streamCount()).isZero();
+    }
+
+    /**
+     * Test: opening more streams than a user may keep closes the oldest.
+     */
+    @Test
+    @DisplayName("Closes a user's oldest stream past the limit")
+    void closesOldestStreamPastLimit() {
+        hub = hub(2, 100);
+        RecordingEmitter oldest = subscribe(1L);
+        RecordingEmitter second = subscribe(1L);
+        RecordingEmitter newest = subscribe(1L);
+
+        awaitTrue(() -> oldest.completed);
+        assertThat(second.completed).isFalse();
+        assertThat(newest.completed).isFalse();
+        assertThat(hub.streamCount()).isEqualTo(2);
+    }
+
+    /**
+     * Test: a stream whose client has gone is forgotten at the next
+     * heartbeat.
+     */
+    @Test
+    @DisplayName("Forgets a stream whose client has gone")
+    void forgetsGoneClient() throws InterruptedException {
+        hub = hub(5, 100);
+        RecordingEmitter emitter = subscribe(1L);
+        assertThat(emitter.next()).isEqualTo(HEARTBEAT);
+
+        emitter.failing = true;
+        hub.heartbeat();
+
+        awaitTrue(() -> hub.streamCount() == 0);
+    }
+
+    private OrderStatusHub hub(int maxStreamsPerUser, int maxPending) {
+        return new OrderStatusHub(2, Duration.ofMinutes(30), maxStreamsPerUser, maxPending) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter(stallNext);
+                stallNext = false;
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(Long userId) {
+        return (RecordingEmitter) hub.subscribe(userId);
+    }
+
+    /**
+     * Subscribes a stream whose client reads nothing until its gate opens,
+     * and waits until its first heartbeat is being written.
+     */
+    private RecordingEmitter subscribeStalled(Long userId) {
+        stallNext = true;
+        RecordingEmitter emitter = subscribe(userId);
+        awaitTrue(() -> emitter.writing);
+        return emitter;
+    }
+
+    private static OrderStatusChangedEvent change(long orderId, OrderStatus orderStatus,
+            DeliveryStatus deliveryStatus) {
+        return new OrderStatusChangedEvent(1L, orderId, orderStatus, deliveryStatus);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Records each event sent, as the string of the change it carries or
+     * {@code "heartbeat"}, after waiting on its gate.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        private volatile boolean writing;
+
+        private volatile boolean failing;
+
+        private volatile boolean completed;
+
+        RecordingEmitter(boolean stalled) {
+            super(0L);
+            if (!stalled) {
+                gate.countDown();
+            }
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing = true;
+            try {
+                if (!gate.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("Timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (failing) {
+                throw new IOException("Client gone");
+            }
+            String event = HEARTBEAT;
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof OrderStatusChangedEvent change) {
+                    event = change.toString();
+                }
+            }
+            sent.add(event);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        String next() throws InterruptedException {
+            return sent.poll(5, TimeUnit.SECONDS);
+        }
+    }
+}